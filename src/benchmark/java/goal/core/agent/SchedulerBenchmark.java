@@ -0,0 +1,103 @@
+package goal.core.agent;
+
+import goal.core.performance.Benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares the latency of the reasoning cycles of agents when they are run by
+ * the {@link PoolScheduler}, the {@link WorkStealingScheduler} and the
+ * {@link ThreadPerAgentScheduler}, in a MAS with a few heavy agents (that
+ * spend a lot of time in every step) and many light agents. The agents are
+ * {@link SyntheticAgent}s; every operation starts a heavy or light agent that
+ * runs a single cycle while the MAS is running, and the sample mode reports
+ * the percentiles of its latency. See AgentSchedulerTest for the tests of the
+ * schedulers. Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SchedulerBenchmark {
+	private static final int THREADS = 4;
+	private static final int HEAVY = THREADS * 2;
+	private static final int LIGHT = 200;
+	private static final long HEAVY_WORK = TimeUnit.MILLISECONDS.toNanos(2);
+	private static final long LIGHT_WORK = TimeUnit.MICROSECONDS.toNanos(20);
+
+	/**
+	 * The scheduler, see {@link Controller#SCHEDULERS}.
+	 */
+	@Param({ "pool", "workstealing", "thread" })
+	public String scheduler;
+	/**
+	 * The measured agent: a heavy or a light one.
+	 */
+	@Param({ "heavy", "light" })
+	public String agent;
+
+	private AgentScheduler previous;
+	private AgentScheduler instance;
+	private final List<SyntheticAgent> mas = new ArrayList<>();
+	private CountDownLatch stopped;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.previous = Controller.getScheduler();
+		switch (this.scheduler) {
+		case "pool":
+			this.instance = new PoolScheduler(THREADS);
+			break;
+		case "workstealing":
+			this.instance = new WorkStealingScheduler(THREADS, 2,
+					TimeUnit.MILLISECONDS);
+			break;
+		default:
+			this.instance = new ThreadPerAgentScheduler();
+		}
+		Controller.setScheduler(this.instance);
+		this.stopped = new CountDownLatch(HEAVY + LIGHT);
+		for (int i = 0; i < HEAVY + LIGHT; i++) {
+			SyntheticAgent agent = new SyntheticAgent(i < HEAVY ? HEAVY_WORK
+					: LIGHT_WORK, Integer.MAX_VALUE, this.stopped);
+			agent.run();
+			this.mas.add(agent);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		for (SyntheticAgent agent : this.mas) {
+			agent.terminate();
+		}
+		this.stopped.await();
+		this.instance.shutdown();
+		Controller.setScheduler(this.previous);
+	}
+
+	/**
+	 * Runs a single cycle of an agent.
+	 */
+	@Benchmark
+	public long cycle() throws Exception {
+		CountDownLatch done = new CountDownLatch(1);
+		SyntheticAgent agent = new SyntheticAgent(
+				"heavy".equals(this.agent) ? HEAVY_WORK : LIGHT_WORK, 1, done);
+		agent.run();
+		done.await();
+		return agent.latencies.get(0);
+	}
+}
@@ -0,0 +1,86 @@
+package goal.core.performance;
+
+import goal.preferences.LoggingPreferences;
+import goal.tools.debugger.Channel;
+import goal.tools.debugger.DebugEvent;
+import goal.tools.debugger.SteppingDebugger.RunMode;
+import goal.tools.logging.AsyncLogHandler;
+import goal.tools.logging.GOALLogger;
+
+import java.io.File;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the time an agent spends logging the debug events of a cycle to a
+ * log file, with the log file written on the agent's thread (as the original
+ * implementation did) and on the writer thread of the
+ * {@link AsyncLogHandler}. See AsyncLogHandlerTest for the tests of the
+ * handler. Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class AsyncLoggingBenchmark {
+	/**
+	 * The number of debug events logged in a cycle.
+	 */
+	private static final int EVENTS = 50;
+
+	/**
+	 * Whether the log file is written on the writer thread, or on the thread
+	 * of the agent.
+	 */
+	@Param({ "false", "true" })
+	public boolean asynchronous;
+
+	private boolean logToFile;
+	private String directory;
+	private boolean async;
+	private File logs;
+	private GOALLogger logger;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.logToFile = LoggingPreferences.getLogToFile();
+		this.directory = LoggingPreferences.getLogDirectory();
+		this.async = LoggingPreferences.getAsyncLogging();
+		this.logs = File.createTempFile("logs", "");
+		this.logs.delete();
+		this.logs.mkdirs();
+		LoggingPreferences.setLogToFile(true);
+		LoggingPreferences.setLogDirectory(this.logs.getPath());
+		LoggingPreferences.setAsyncLogging(this.asynchronous);
+		this.logger = new GOALLogger(this.asynchronous ? "async" : "sync",
+				true);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		this.logger.removeLogToFileHandler();
+		LoggingPreferences.setLogToFile(this.logToFile);
+		LoggingPreferences.setLogDirectory(this.directory);
+		LoggingPreferences.setAsyncLogging(this.async);
+		for (File file : this.logs.listFiles()) {
+			file.delete();
+		}
+		this.logs.delete();
+	}
+
+	/**
+	 * Logs the debug events of a cycle.
+	 */
+	@Benchmark
+	public void cycle() throws Exception {
+		for (int i = 0; i < EVENTS; i++) {
+			this.logger.log(new DebugEvent(RunMode.RUNNING, "agent",
+					Channel.RULE_CONDITION_EVALUATION, null, null,
+					"Condition of rule %s holds for: %s.",
+					"if bel(item(X)) then insert(seen(X))", i));
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package goal.core.performance;
+
+import goal.core.mentalstate.BeliefBase;
+import goal.core.mentalstate.MentalState;
+import goal.tools.PlatformManager;
+import goal.tools.debugger.NOPDebugger;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import krTools.KRInterface;
+import krTools.language.DatabaseFormula;
+import languageTools.analyzer.agent.AgentValidator;
+import languageTools.parser.GOAL;
+import languageTools.parser.GOALLexer;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.actions.InsertAction;
+import mentalState.BASETYPE;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the cost of updating the belief base with batches of formulas, by
+ * inserting and deleting the formulas one by one compared to a single call of
+ * {@link BeliefBase#update(List, List, goal.tools.debugger.Debugger)}. Every
+ * operation inserts and then deletes a batch, like an agent that changes part
+ * of its beliefs every cycle. See BeliefBaseTest for the tests of the batch
+ * updates. Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class BeliefBaseBatchBenchmark {
+	private static final String AGENT = "src/test/resources/goal/core/performance/hotpath/hotpath.goal";
+
+	/**
+	 * The number of formulas in a batch.
+	 */
+	@Param({ "10", "1000", "10000" })
+	public int size;
+
+	private KRInterface language;
+	private NOPDebugger debugger;
+	private MentalState state;
+	private BeliefBase beliefs;
+	private List<DatabaseFormula> batch;
+	private final List<DatabaseFormula> none = new ArrayList<>(0);
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.language = KRFactory.getDefaultInterface();
+		AgentProgram program = PlatformManager.createNew().parseGOALFile(
+				new File(AGENT), this.language);
+		if (!program.isValid()) {
+			throw new IllegalStateException("invalid agent " + AGENT); //$NON-NLS-1$
+		}
+		AgentId id = new AgentId("BatchAgent");
+		this.debugger = new NOPDebugger(id);
+		this.state = new MentalState(id, program, this.debugger);
+		this.beliefs = this.state.getOwnBase(BASETYPE.BELIEFBASE);
+		this.batch = makeBatch(this.size);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		this.state.cleanUp();
+	}
+
+	@Benchmark
+	public void perFormula() throws Exception {
+		for (DatabaseFormula formula : this.batch) {
+			this.beliefs.insert(formula, this.debugger);
+		}
+		for (DatabaseFormula formula : this.batch) {
+			this.beliefs.delete(formula, this.debugger);
+		}
+	}
+
+	@Benchmark
+	public void batch() throws Exception {
+		this.beliefs.update(this.batch, this.none, this.debugger);
+		this.beliefs.update(this.none, this.batch, this.debugger);
+	}
+
+	private List<DatabaseFormula> makeBatch(int size) throws Exception {
+		StringBuilder insert = new StringBuilder("insert("); //$NON-NLS-1$
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				insert.append(", "); //$NON-NLS-1$
+			}
+			insert.append("batch(").append(i).append(')'); //$NON-NLS-1$
+		}
+		insert.append(')');
+		ANTLRInputStream charstream = new ANTLRInputStream(new StringReader(
+				insert.toString()));
+		charstream.name = "";
+		GOAL parser = new GOAL(new CommonTokenStream(new GOALLexer(charstream)));
+		AgentValidator validator = new AgentValidator("inline");
+		validator.setKRInterface(this.language);
+		return ((InsertAction) validator.visitAction(parser.action()))
+				.getUpdate().getAddList();
+	}
+}
@@ -0,0 +1,46 @@
+package goal.core.performance;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks in src/benchmark/java. The benchmarks are kept
+ * apart from the unit tests: they are only compiled with the benchmarks
+ * profile, and run with
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=HotPathBenchmark
+ * </pre>
+ *
+ * where the benchmark property is a regular expression that selects the
+ * benchmarks to run (all of them by default), and the jmh.options property
+ * holds further JMH options (one fork, five warm-up and five measurement
+ * iterations by default). Every benchmark reports its score and, through the
+ * GC profiler, the number of bytes allocated per operation (
+ * {@code gc.alloc.rate.norm}).
+ */
+public final class Benchmarks {
+	private Benchmarks() {
+	}
+
+	/**
+	 * Runs the selected benchmarks, and prints the results.
+	 *
+	 * @param args
+	 *            JMH command line options, followed by regular expressions
+	 *            that select the benchmarks to run.
+	 * @throws CommandLineOptionException
+	 *             If the options are not valid.
+	 * @throws RunnerException
+	 *             If a benchmark fails.
+	 */
+	public static void main(String[] args) throws CommandLineOptionException,
+			RunnerException {
+		new Runner(new OptionsBuilder().parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,105 @@
+package goal.core.performance;
+
+import goal.core.agent.Agent;
+import goal.core.agent.GOALInterpreter;
+import goal.core.agent.NoEnvironmentCapabilities;
+import goal.core.agent.NoLoggingCapabilities;
+import goal.core.agent.NoMessagingCapabilities;
+import goal.core.executors.MentalStateConditionExecutor;
+import goal.core.mentalstate.MentalState;
+import goal.core.runtime.service.agent.RunState;
+import goal.tools.PlatformManager;
+import goal.tools.adapt.FileLearner;
+import goal.tools.debugger.NOPDebugger;
+import goal.tools.eclipse.QueryTool;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+
+import krTools.KRInterface;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.AgentProgram;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the evaluation of mental state conditions by
+ * {@link MentalStateConditionExecutor#evaluate(MentalState, goal.tools.debugger.Debugger)}
+ * compared to the evaluation of their literals in a nested loop by
+ * {@link MentalStateConditionExecutor#evaluateNestedLoop(MentalState, goal.tools.debugger.Debugger)}
+ * ; see MentalStateConditionExecutorTest for the check that both give the
+ * same results. The conditions are evaluated on an agent that has executed
+ * its init module; see conditions.goal. Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class ConditionPlannerBenchmark {
+	private static final String AGENT = "src/test/resources/goal/core/performance/conditions/conditions.goal";
+	private static final String[] CONDITIONS = {
+			"bel(at(X, Y)), bel(block(X)), a-goal(on(X, Z))",
+			"bel(on(X, Y)), bel(on(Y, Z)), goal(on(X, W))",
+			"bel(block(X)), bel(block(Y)), bel(at(X, P), at(Y, P))",
+			"bel(block(X)), not(bel(clear(X))), bel(at(X, 0))",
+			"bel(at(X, P)), bel(Q is P + 1), bel(at(Y, Q))",
+			"bel(block(b0)), bel(clear(X)), bel(at(Y, 2))",
+			"bel(tower(X, Y, Z)), a-goal(on(Z, W)), bel(block(W))",
+			"bel(block(X)), bel(on(b99, _))",
+			"bel(at(_, P)), bel(at(X, P)), not(bel(on(X, table)))",
+			"goal(on(X, Y)), bel(on(X, Z)), not(bel(on(Y, Z)))" };
+
+	/**
+	 * The index of the measured condition in {@link #CONDITIONS}.
+	 */
+	@Param({ "0", "1", "2", "3", "4", "5", "6", "7", "8", "9" })
+	public int condition;
+	private GOALInterpreter<NOPDebugger> controller;
+	private MentalState mentalState;
+	private NOPDebugger debugger;
+	private MentalStateConditionExecutor executor;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		KRInterface language = KRFactory.getDefaultInterface();
+		AgentProgram program = PlatformManager.createNew().parseGOALFile(
+				new File(AGENT), language);
+		if (!program.isValid()) {
+			throw new IllegalStateException("invalid agent " + AGENT); //$NON-NLS-1$
+		}
+
+		AgentId id = new AgentId("ConditionAgent");
+		this.debugger = new NOPDebugger(id);
+		this.controller = new GOALInterpreter<NOPDebugger>(program,
+				this.debugger, new FileLearner(id.getName(), program));
+		Agent<GOALInterpreter<NOPDebugger>> agent = new Agent<GOALInterpreter<NOPDebugger>>(
+				id, new NoEnvironmentCapabilities(),
+				new NoMessagingCapabilities(), new NoLoggingCapabilities(),
+				this.controller);
+		RunState<NOPDebugger> runState = this.controller.getRunState();
+		// the first cycle runs the init module.
+		runState.startCycle(false);
+		runState.enteredModule(runState.getMainModule());
+		this.mentalState = runState.getMentalState();
+		this.executor = new MentalStateConditionExecutor(new QueryTool(agent)
+				.parseMSC(CONDITIONS[this.condition]));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		this.controller.dispose();
+	}
+
+	@Benchmark
+	public Object nestedLoop() throws Exception {
+		return this.executor.evaluateNestedLoop(this.mentalState, this.debugger);
+	}
+
+	@Benchmark
+	public Object planned() throws Exception {
+		return this.executor.evaluate(this.mentalState, this.debugger);
+	}
+}
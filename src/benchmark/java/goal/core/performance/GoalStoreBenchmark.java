@@ -0,0 +1,134 @@
+package goal.core.performance;
+
+import goal.core.mentalstate.MentalState;
+import goal.preferences.CorePreferences;
+import goal.tools.PlatformManager;
+import goal.tools.debugger.NOPDebugger;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import krTools.KRInterface;
+import krTools.language.Update;
+import languageTools.analyzer.agent.AgentValidator;
+import languageTools.parser.GOAL;
+import languageTools.parser.GOALLexer;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.actions.AdoptAction;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares the shared goal store with the original layout where every goal
+ * has its own database that is queried for every goal query: the time needed
+ * to adopt and then drop N goals, and to query each of N adopted goals. See
+ * GoalStoreTest for the check that both layouts give the same results. Run
+ * with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class GoalStoreBenchmark {
+	private static final String AGENT = "src/test/resources/goal/core/performance/goalstore/goalstore.goal";
+
+	/**
+	 * The number of goals.
+	 */
+	@Param({ "10", "100", "1000" })
+	public int size;
+	/**
+	 * Whether the goals are kept in the shared goal store.
+	 */
+	@Param({ "false", "true" })
+	public boolean shared;
+
+	private boolean sharedStore;
+	private KRInterface language;
+	private final List<Update> goals = new ArrayList<>();
+	private NOPDebugger debugger;
+	/**
+	 * A mental state that has no goals between operations.
+	 */
+	private MentalState empty;
+	/**
+	 * A mental state that has adopted all {@link #goals}.
+	 */
+	private MentalState adopted;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.sharedStore = CorePreferences.isSharedGoalStore();
+		CorePreferences.setSharedGoalStore(this.shared);
+		this.language = KRFactory.getDefaultInterface();
+		AgentProgram program = PlatformManager.createNew().parseGOALFile(
+				new File(AGENT), this.language);
+		if (!program.isValid()) {
+			throw new IllegalStateException("invalid agent " + AGENT); //$NON-NLS-1$
+		}
+		for (int i = 1; i <= this.size; i++) {
+			this.goals.add(parseGoal("adopt(g(" + i + "))"));
+		}
+
+		AgentId id = new AgentId("GoalStoreAgent");
+		this.debugger = new NOPDebugger(id);
+		this.empty = new MentalState(id, program, this.debugger);
+		this.adopted = new MentalState(id, program, this.debugger);
+		for (Update goal : this.goals) {
+			this.adopted.adopt(goal, false, this.debugger);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		this.empty.cleanUp();
+		this.adopted.cleanUp();
+		CorePreferences.setSharedGoalStore(this.sharedStore);
+	}
+
+	/**
+	 * Adopts all goals, and drops them again.
+	 */
+	@Benchmark
+	public void adoptAndDrop() throws Exception {
+		for (Update goal : this.goals) {
+			this.empty.adopt(goal, false, this.debugger);
+		}
+		for (Update goal : this.goals) {
+			this.empty.drop(goal, this.debugger);
+		}
+	}
+
+	/**
+	 * Queries each of the adopted goals.
+	 */
+	@Benchmark
+	public int query() throws Exception {
+		int answers = 0;
+		for (Update goal : this.goals) {
+			answers += this.adopted.getAttentionSet()
+					.query(goal.toQuery(), this.debugger).size();
+		}
+		return answers;
+	}
+
+	private Update parseGoal(String adopt) throws Exception {
+		ANTLRInputStream charstream = new ANTLRInputStream(new StringReader(
+				adopt));
+		charstream.name = "";
+		GOAL parser = new GOAL(new CommonTokenStream(new GOALLexer(charstream)));
+		AgentValidator validator = new AgentValidator("inline");
+		validator.setKRInterface(this.language);
+		return ((AdoptAction) validator.visitAction(parser.action()))
+				.getUpdate();
+	}
+}
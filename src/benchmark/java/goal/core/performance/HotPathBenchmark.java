@@ -0,0 +1,255 @@
+package goal.core.performance;
+
+import eis.iilang.Identifier;
+import eis.iilang.Numeral;
+import eis.iilang.Percept;
+import goal.core.agent.Agent;
+import goal.core.agent.GOALInterpreter;
+import goal.core.agent.NoEnvironmentCapabilities;
+import goal.core.agent.NoLoggingCapabilities;
+import goal.core.agent.NoMessagingCapabilities;
+import goal.core.executors.MentalStateConditionExecutor;
+import goal.core.executors.RulesExecutor;
+import goal.core.mentalstate.BeliefBase;
+import goal.core.mentalstate.GoalBase;
+import goal.core.mentalstate.MentalModel;
+import goal.core.mentalstate.MentalState;
+import goal.core.runtime.service.agent.RunState;
+import goal.tools.PlatformManager;
+import goal.tools.adapt.FileLearner;
+import goal.tools.debugger.NOPDebugger;
+import goal.tools.eclipse.QueryTool;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import krTools.KRInterface;
+import krTools.language.DatabaseFormula;
+import krTools.language.Query;
+import languageTools.analyzer.agent.AgentValidator;
+import languageTools.parser.GOAL;
+import languageTools.parser.GOALLexer;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.Module;
+import languageTools.program.agent.Module.RuleEvaluationOrder;
+import languageTools.program.agent.actions.InsertAction;
+import languageTools.program.agent.msc.MentalStateCondition;
+import mentalState.BASETYPE;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Micro benchmarks of the hot paths of the interpreter: evaluating mental
+ * state conditions, updating the belief base, querying the goal base and the
+ * mental model, running rules in every evaluation order and processing
+ * percepts. Every benchmark reports the number of operations per second and
+ * the number of bytes allocated per operation, see {@link Benchmarks}.
+ *
+ * The operations run directly on the run state of an agent that has executed
+ * its init module; see hotpath.goal.
+ */
+@State(Scope.Thread)
+public class HotPathBenchmark {
+	private static final String AGENT = "src/test/resources/goal/core/performance/hotpath/hotpath.goal";
+	/**
+	 * Number of percepts that the agent receives every cycle.
+	 */
+	private static final int PERCEPTS = 100;
+
+	private KRInterface language;
+	private Agent<GOALInterpreter<NOPDebugger>> agent;
+	private GOALInterpreter<NOPDebugger> controller;
+	private RunState<NOPDebugger> runState;
+	private NOPDebugger debugger;
+
+	private MentalState mentalState;
+	private MentalModel model;
+	private BeliefBase beliefs;
+	private GoalBase goals;
+	private MentalStateCondition condition;
+	private List<DatabaseFormula> extra;
+	private final List<DatabaseFormula> none = new ArrayList<>(0);
+	private Query goal;
+	private Set<Percept> even;
+	private Set<Percept> odd;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.language = KRFactory.getDefaultInterface();
+		AgentProgram program = PlatformManager.createNew().parseGOALFile(
+				new File(AGENT), this.language);
+		if (!program.isValid()) {
+			throw new IllegalStateException("invalid agent " + AGENT); //$NON-NLS-1$
+		}
+
+		AgentId id = new AgentId("HotPathAgent");
+		this.debugger = new NOPDebugger(id);
+		this.controller = new GOALInterpreter<NOPDebugger>(program,
+				this.debugger, new FileLearner(id.getName(), program));
+		this.agent = new Agent<GOALInterpreter<NOPDebugger>>(id,
+				new NoEnvironmentCapabilities(), new NoMessagingCapabilities(),
+				new NoLoggingCapabilities(), this.controller);
+		this.runState = this.controller.getRunState();
+		// the first cycle runs the init module.
+		this.runState.startCycle(false);
+		this.runState.enteredModule(this.runState.getMainModule());
+		prepare();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		this.controller.dispose();
+	}
+
+	/**
+	 * Creates the data that the operations work on.
+	 */
+	private void prepare() throws Exception {
+		MentalState mentalState = this.runState.getMentalState();
+		this.mentalState = mentalState;
+		this.model = mentalState.getOwnModel();
+		this.beliefs = mentalState.getOwnBase(BASETYPE.BELIEFBASE);
+		this.goals = mentalState.getAttentionSet();
+		QueryTool queries = new QueryTool(this.agent);
+		this.condition = queries.parseMSC("bel(item(X)), a-goal(target(X))");
+		this.extra = parseInsert("insert(extra(1), extra(2), extra(3), extra(4), extra(5))");
+		this.goal = getQuery(queries, "goal(target(X))");
+		this.even = makePercepts(0);
+		this.odd = makePercepts(1);
+	}
+
+	@Benchmark
+	public Object mscEvaluate() throws Exception {
+		return new MentalStateConditionExecutor(this.condition).evaluate(
+				this.mentalState, this.debugger);
+	}
+
+	@Benchmark
+	public void beliefbaseInsertDelete() throws Exception {
+		for (DatabaseFormula formula : this.extra) {
+			this.beliefs.insert(formula, this.debugger);
+		}
+		for (DatabaseFormula formula : this.extra) {
+			this.beliefs.delete(formula, this.debugger);
+		}
+	}
+
+	@Benchmark
+	public void beliefbaseUpdate() throws Exception {
+		this.beliefs.update(this.extra, this.none, this.debugger);
+		this.beliefs.update(this.none, this.extra, this.debugger);
+	}
+
+	@Benchmark
+	public Object goalbaseQuery() throws Exception {
+		return this.goals.query(this.goal, this.debugger);
+	}
+
+	@Benchmark
+	public Object mentalmodelAgoalQuery() throws Exception {
+		return this.model.agoalQuery(this.goal, false, this.debugger);
+	}
+
+	@Benchmark
+	public Object mentalmodelGoalaQuery() throws Exception {
+		return this.model.goalaQuery(this.goal, false, this.debugger);
+	}
+
+	@Benchmark
+	public void rules(Rules rules) throws Exception {
+		this.runState.enteredModule(rules.module);
+		try {
+			rules.executor.run(this.runState,
+					this.language.getSubstitution(null));
+		} finally {
+			this.runState.exitModule(rules.module);
+		}
+	}
+
+	@Benchmark
+	public void runstateProcessPercepts() throws Exception {
+		this.runState.processPercepts(this.odd, this.even);
+		this.runState.processPercepts(this.even, this.odd);
+	}
+
+	/**
+	 * Creates {@link #PERCEPTS} percepts of which the percepts made with the
+	 * other offset share half.
+	 */
+	private static Set<Percept> makePercepts(int offset) {
+		Set<Percept> percepts = new HashSet<>(PERCEPTS);
+		percepts.add(new Percept("step", new Numeral(offset)));
+		for (int i = 1; i < PERCEPTS; i++) {
+			int value = (i % 2 == 0) ? i : i + offset * PERCEPTS;
+			percepts.add(new Percept("see", new Identifier("block"),
+					new Numeral(value)));
+		}
+		return percepts;
+	}
+
+	private Module getModule(String name) {
+		for (Module module : this.controller.getProgram().getModules()) {
+			if (module.getName().equals(name)) {
+				return module;
+			}
+		}
+		throw new IllegalArgumentException("unknown module " + name);
+	}
+
+	private static Query getQuery(QueryTool queries, String literal)
+			throws Exception {
+		return queries.parseMSC(literal).getAllLiterals().get(0).getFormula();
+	}
+
+	private List<DatabaseFormula> parseInsert(String insert)
+			throws Exception {
+		ANTLRInputStream charstream = new ANTLRInputStream(new StringReader(
+				insert));
+		charstream.name = "";
+		GOAL parser = new GOAL(new CommonTokenStream(new GOALLexer(charstream)));
+		AgentValidator validator = new AgentValidator("inline");
+		validator.setKRInterface(this.language);
+		return ((InsertAction) validator.visitAction(parser.action()))
+				.getUpdate().getAddList();
+	}
+
+	/**
+	 * The rules of a module, run in one of the evaluation orders.
+	 */
+	@State(Scope.Thread)
+	public static class Rules {
+		@Param
+		public RuleEvaluationOrder order;
+		private Module module;
+		private RulesExecutor executor;
+
+		/**
+		 * @param benchmark
+		 *            the benchmark, which has set up the agent by now.
+		 */
+		@Setup(Level.Trial)
+		public void setUp(HotPathBenchmark benchmark) {
+			// the learner only knows the modules with an adaptive order.
+			boolean learning = this.order == RuleEvaluationOrder.ADAPTIVE
+					|| this.order == RuleEvaluationOrder.LINEARADAPTIVE;
+			this.module = learning ? benchmark.getModule("adaptive")
+					: benchmark.runState.getMainModule();
+			this.executor = new RulesExecutor(this.module.getRules(),
+					this.order);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package goal.core.performance;
+
+import goal.core.agent.Inbox;
+import goal.core.agent.Inbox.OverflowPolicy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures an agent that receives messages from {@link #PRODUCERS} agents
+ * that send faster than it can handle them, with an unbounded inbox (as the
+ * original implementation had) compared to a bounded one with each of the
+ * {@link OverflowPolicy}s: the number of messages sent and handled per
+ * second, and (with the GC profiler) the memory churn. See InboxTest for the
+ * tests of the inbox. Run with {@link Benchmarks}.
+ */
+@State(Scope.Group)
+public class InboxBenchmark {
+	private static final int PRODUCERS = 16;
+	private static final int CAPACITY = 1000;
+	private static final int BUDGET = 100;
+
+	/**
+	 * The inbox: unbounded, or bounded with the given overflow policy.
+	 */
+	@Param({ "unbounded", "DROP_OLDEST", "DROP_NEWEST", "COALESCE", "BLOCK" })
+	public String inbox;
+
+	private Inbox<String> instance;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		if ("unbounded".equals(this.inbox)) {
+			this.instance = new Inbox<>(0, OverflowPolicy.DROP_OLDEST, BUDGET);
+		} else {
+			this.instance = new Inbox<>(CAPACITY,
+					OverflowPolicy.valueOf(this.inbox), BUDGET);
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		this.instance.close();
+	}
+
+	/**
+	 * Sends a message; half of the messages of a producer are repeated.
+	 */
+	@Benchmark
+	@Group("overload")
+	@GroupThreads(PRODUCERS)
+	public boolean send(Producer producer) {
+		return this.instance.offer(producer.next());
+	}
+
+	/**
+	 * Handles {@link #BUDGET} messages every millisecond.
+	 */
+	@Benchmark
+	@Group("overload")
+	@GroupThreads(1)
+	public int handle() throws InterruptedException {
+		Thread.sleep(1);
+		return this.instance.drain().size();
+	}
+
+	/**
+	 * An agent that sends messages.
+	 */
+	@State(Scope.Thread)
+	public static class Producer {
+		private static final AtomicInteger producers = new AtomicInteger();
+
+		private final String sender = "producer"
+				+ producers.getAndIncrement();
+		private long n = 0;
+
+		String next() {
+			return this.sender + ":" + (this.n++ / 2);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package goal.core.performance;
+
+import goal.core.mentalstate.MentalState;
+import goal.tools.PlatformManager;
+import goal.tools.debugger.NOPDebugger;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import krTools.KRInterface;
+import krTools.language.Update;
+import languageTools.analyzer.agent.AgentValidator;
+import languageTools.parser.GOAL;
+import languageTools.parser.GOALLexer;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.actions.InsertAction;
+import mentalState.BASETYPE;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the time and (with the GC profiler) the memory used to set up the
+ * mental states of a MAS in which every agent models every other agent, when
+ * the models of other agents are created when they are first used compared to
+ * creating all of them (as the original implementation did when an agent
+ * became known). See MentalStateTest for the tests of the models. Run with
+ * {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MentalModelBenchmark {
+	private static final String AGENT = "src/test/resources/goal/core/performance/mentalmodels/mentalmodels.goal";
+
+	/**
+	 * The number of agents.
+	 */
+	@Param({ "10", "100", "500" })
+	public int size;
+	/**
+	 * Whether the models of all other agents are used, which creates them.
+	 */
+	@Param({ "false", "true" })
+	public boolean eager;
+
+	private KRInterface language;
+	private AgentProgram program;
+	private Update ready;
+	private List<MentalState> states;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.language = KRFactory.getDefaultInterface();
+		this.program = PlatformManager.createNew().parseGOALFile(
+				new File(AGENT), this.language);
+		if (!this.program.isValid()) {
+			throw new IllegalStateException("invalid agent " + AGENT); //$NON-NLS-1$
+		}
+		this.ready = parseInsert("insert(ready)");
+	}
+
+	@TearDown(Level.Invocation)
+	public void tearDown() {
+		for (MentalState state : this.states) {
+			state.cleanUp();
+		}
+	}
+
+	/**
+	 * Creates the mental states of a MAS of {@link #size} agents in which all
+	 * agents know each other.
+	 */
+	@Benchmark
+	public List<MentalState> startUp() throws Exception {
+		List<AgentId> ids = new ArrayList<>(this.size);
+		for (int i = 0; i < this.size; i++) {
+			ids.add(new AgentId("agent" + i));
+		}
+		this.states = new ArrayList<>(this.size);
+		for (AgentId id : ids) {
+			NOPDebugger debugger = new NOPDebugger(id);
+			MentalState state = new MentalState(id, this.program, debugger);
+			for (AgentId other : ids) {
+				if (!other.equals(id)) {
+					state.addAgentModel(other, debugger);
+				}
+			}
+			this.states.add(state);
+		}
+		if (this.eager) {
+			// uses the models without changing them.
+			for (MentalState state : this.states) {
+				NOPDebugger debugger = new NOPDebugger(state.getAgentId());
+				for (AgentId other : state.getKnownAgents()) {
+					state.delete(this.ready, BASETYPE.BELIEFBASE, debugger,
+							other);
+				}
+			}
+		}
+		return this.states;
+	}
+
+	private Update parseInsert(String insert) throws Exception {
+		ANTLRInputStream charstream = new ANTLRInputStream(new StringReader(
+				insert));
+		charstream.name = "";
+		GOAL parser = new GOAL(new CommonTokenStream(new GOALLexer(charstream)));
+		AgentValidator validator = new AgentValidator("inline");
+		validator.setKRInterface(this.language);
+		return ((InsertAction) validator.visitAction(parser.action()))
+				.getUpdate();
+	}
+}
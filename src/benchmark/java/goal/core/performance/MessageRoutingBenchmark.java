@@ -0,0 +1,74 @@
+package goal.core.performance;
+
+import goal.core.runtime.MessagingService;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import languageTools.program.agent.AgentId;
+import localmessaging.LocalMessaging;
+import nl.tudelft.goal.messaging.messagebox.MessageBox;
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId;
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId.Type;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures resolving the message boxes of all receivers of a broadcast in a
+ * MAS of 1,000 agents, by looking up every receiver on the messaging
+ * infrastructure (as the original implementation did for every message)
+ * compared to the routing table of the {@link MessagingService}.
+ *
+ * See MessagingServiceTest for the tests of the routing table, and
+ * {@link Performance} for complete runs of the token ring and chameneos
+ * examples with 1,000 agents. Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class MessageRoutingBenchmark {
+	private static final int AGENTS = 1000;
+
+	private MessagingService messaging;
+	private List<MessageBox> boxes;
+	private List<AgentId> receivers;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.messaging = new MessagingService("localhost", new LocalMessaging());
+		this.boxes = new ArrayList<>(AGENTS);
+		this.receivers = new ArrayList<>(AGENTS);
+		for (int i = 0; i < AGENTS; i++) {
+			MessageBoxId id = this.messaging.getNewUniqueID("agent" + i,
+					Type.GOALAGENT);
+			this.boxes.add(this.messaging.getNewMessageBox(id));
+			this.receivers.add(new AgentId(id.getName()));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		for (MessageBox box : this.boxes) {
+			this.messaging.deleteMessageBox(box);
+		}
+		this.messaging.shutDown();
+	}
+
+	@Benchmark
+	public void lookup() throws Exception {
+		for (AgentId receiver : this.receivers) {
+			this.messaging.getClient().getMessageBoxes(Type.GOALAGENT,
+					receiver.getName());
+		}
+	}
+
+	@Benchmark
+	public List<MessageBoxId> routingTable() throws Exception {
+		return this.messaging.getRoutes(this.receivers,
+				new LinkedList<AgentId>());
+	}
+}
@@ -0,0 +1,80 @@
+package goal.core.performance;
+
+import eis.iilang.Numeral;
+import eis.iilang.Percept;
+import goal.core.runtime.service.agent.PerceptDelta;
+import goal.core.runtime.service.agent.PerceptTracker;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the cost of computing which percepts changed from one cycle to the
+ * next, for an environment that sends {@link #PERCEPTS} percepts every cycle
+ * of which {@link #CHURN} change: by comparing complete sets as the agent used
+ * to do ({@link PerceptDelta#between(Set, Set)}), with a
+ * {@link PerceptTracker} that receives all percepts, and with a tracker that
+ * receives only the changes. See PerceptTrackerTest for the tests of the
+ * tracker. Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class PerceptDeltaBenchmark {
+	private static final int PERCEPTS = 10000;
+	private static final int CHURN = PERCEPTS / 100;
+
+	private Set<Percept> odd;
+	private Set<Percept> even;
+	private PerceptDelta forward;
+	private PerceptDelta backward;
+	private final PerceptTracker snapshots = new PerceptTracker();
+	private final PerceptTracker deltas = new PerceptTracker();
+	private boolean flip;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.odd = new HashSet<>(percepts(0, PERCEPTS));
+		this.even = new HashSet<>(percepts(CHURN, PERCEPTS + CHURN));
+		this.forward = PerceptDelta.between(this.even, this.odd);
+		this.backward = PerceptDelta.between(this.odd, this.even);
+		this.snapshots.update(this.odd);
+		this.deltas.update(this.odd);
+	}
+
+	@Benchmark
+	public PerceptDelta between() {
+		this.flip = !this.flip;
+		return PerceptDelta.between(this.flip ? this.even : this.odd,
+				this.flip ? this.odd : this.even);
+	}
+
+	@Benchmark
+	public PerceptDelta trackerUpdate() {
+		this.flip = !this.flip;
+		return this.snapshots.update(this.flip ? this.even : this.odd);
+	}
+
+	@Benchmark
+	public PerceptDelta trackerApply() {
+		this.flip = !this.flip;
+		return this.deltas.apply(this.flip ? this.forward : this.backward);
+	}
+
+	/**
+	 * @return the percepts p(from) up to (but not including) p(to).
+	 */
+	private static List<Percept> percepts(int from, int to) {
+		List<Percept> percepts = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			percepts.add(new Percept("p", new Numeral(i)));
+		}
+		return percepts;
+	}
+}
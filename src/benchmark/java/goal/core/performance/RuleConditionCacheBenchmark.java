@@ -0,0 +1,172 @@
+package goal.core.performance;
+
+import goal.core.agent.Agent;
+import goal.core.agent.GOALInterpreter;
+import goal.core.agent.NoEnvironmentCapabilities;
+import goal.core.agent.NoLoggingCapabilities;
+import goal.core.agent.NoMessagingCapabilities;
+import goal.core.executors.MentalStateConditionExecutor;
+import goal.core.executors.RuleConditionCache;
+import goal.core.executors.RulesExecutor;
+import goal.core.mentalstate.MentalState;
+import goal.core.runtime.service.agent.RunState;
+import goal.preferences.CorePreferences;
+import goal.tools.PlatformManager;
+import goal.tools.adapt.FileLearner;
+import goal.tools.debugger.NOPDebugger;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.List;
+
+import krTools.KRInterface;
+import krTools.language.DatabaseFormula;
+import krTools.language.Substitution;
+import languageTools.analyzer.agent.AgentValidator;
+import languageTools.parser.GOAL;
+import languageTools.parser.GOALLexer;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.Module;
+import languageTools.program.agent.Module.RuleEvaluationOrder;
+import languageTools.program.agent.actions.InsertAction;
+import languageTools.program.agent.rules.Rule;
+import mentalState.BASETYPE;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the time needed to evaluate the rule conditions of an agent and to
+ * run its cycles with and without the {@link RuleConditionCache}, while the
+ * agent receives percepts that its rules do not look at.
+ *
+ * The operations run directly on the run state of an agent that has executed
+ * its init module; see hotpath.goal. See RuleConditionCacheTest for the tests
+ * of the cache. Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class RuleConditionCacheBenchmark {
+	private static final String AGENT = "src/test/resources/goal/core/performance/hotpath/hotpath.goal";
+
+	private KRInterface language;
+	private AgentProgram program;
+	private GOALInterpreter<NOPDebugger> controller;
+	private RunState<NOPDebugger> runState;
+	private NOPDebugger debugger;
+
+	@Param({ "false", "true" })
+	public boolean cached;
+	private RuleConditionCache cache;
+	private Substitution empty;
+	private DatabaseFormula unrelated;
+	private RulesExecutor rules;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.language = KRFactory.getDefaultInterface();
+		this.program = PlatformManager.createNew().parseGOALFile(
+				new File(AGENT), this.language);
+		if (!this.program.isValid()) {
+			throw new IllegalStateException("invalid agent " + AGENT); //$NON-NLS-1$
+		}
+		this.controller = makeController("CacheAgent", this.cached);
+		this.runState = this.controller.getRunState();
+		this.debugger = this.runState.getDebugger();
+		this.cache = new RuleConditionCache();
+		this.empty = this.language.getSubstitution(null);
+		this.unrelated = parse("unrelated(1)").get(0);
+		this.rules = new RulesExecutor(this.runState.getMainModule()
+				.getRules(), RuleEvaluationOrder.LINEAR);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		this.controller.dispose();
+	}
+
+	/**
+	 * Evaluates the conditions of all rules of the main module after an
+	 * unrelated percept has arrived; with the cache, only the cacheable ones.
+	 */
+	@Benchmark
+	public Object conditions() throws Exception {
+		MentalState state = this.runState.getMentalState();
+		Object result = null;
+		state.insert(this.unrelated, BASETYPE.PERCEPTBASE, this.debugger);
+		for (Rule rule : this.runState.getMainModule().getRules()) {
+			if (!this.cached) {
+				result = new MentalStateConditionExecutor(rule.getCondition())
+						.evaluate(this.empty, state, this.debugger);
+			} else if (RuleConditionCache.isCacheable(rule)) {
+				result = this.cache.evaluate(rule, this.empty, state,
+						this.debugger);
+			}
+		}
+		state.delete(this.unrelated, BASETYPE.PERCEPTBASE, this.debugger);
+		return result;
+	}
+
+	@Benchmark
+	public RunState<NOPDebugger> cycle() throws Exception {
+		this.runState.startCycle(false);
+		Module main = this.runState.getMainModule();
+		this.runState.enteredModule(main);
+		try {
+			this.rules.run(this.runState, this.empty);
+		} finally {
+			this.runState.exitModule(main);
+		}
+		return this.runState;
+	}
+
+	/**
+	 * Creates an agent that has executed its init module.
+	 *
+	 * @param name
+	 *            the name of the agent.
+	 * @param cached
+	 *            true if the agent should cache its rule conditions.
+	 */
+	private GOALInterpreter<NOPDebugger> makeController(String name,
+			boolean cached) throws Exception {
+		boolean previous = CorePreferences.isRuleConditionCache();
+		CorePreferences.setRuleConditionCache(cached);
+		try {
+			AgentId id = new AgentId(name);
+			GOALInterpreter<NOPDebugger> controller = new GOALInterpreter<NOPDebugger>(
+					this.program, new NOPDebugger(id), new FileLearner(
+							id.getName(), this.program));
+			new Agent<GOALInterpreter<NOPDebugger>>(id,
+					new NoEnvironmentCapabilities(),
+					new NoMessagingCapabilities(), new NoLoggingCapabilities(),
+					controller);
+			RunState<NOPDebugger> runState = controller.getRunState();
+			// the first cycle runs the init module.
+			runState.startCycle(false);
+			runState.enteredModule(runState.getMainModule());
+			return controller;
+		} finally {
+			CorePreferences.setRuleConditionCache(previous);
+		}
+	}
+
+	private List<DatabaseFormula> parse(String formulas) throws Exception {
+		ANTLRInputStream charstream = new ANTLRInputStream(new StringReader(
+				"insert(" + formulas + ")")); //$NON-NLS-1$ //$NON-NLS-2$
+		charstream.name = "";
+		GOAL parser = new GOAL(new CommonTokenStream(new GOALLexer(charstream)));
+		AgentValidator validator = new AgentValidator("inline");
+		validator.setKRInterface(this.language);
+		return ((InsertAction) validator.visitAction(parser.action()))
+				.getUpdate().getAddList();
+	}
+}
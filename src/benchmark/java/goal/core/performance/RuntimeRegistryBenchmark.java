@@ -0,0 +1,101 @@
+package goal.core.performance;
+
+import goal.core.agent.Agent;
+import goal.core.agent.Controller;
+import goal.core.agent.NoEnvironmentCapabilities;
+import goal.core.agent.NoLoggingCapabilities;
+import goal.core.agent.NoMessagingCapabilities;
+import goal.core.runtime.RuntimeEvent;
+import goal.core.runtime.RuntimeEvent.EventType;
+import goal.core.runtime.RuntimeRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import languageTools.program.agent.AgentId;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the time needed to find the agent a debug command is about with 10
+ * to 1000 agents, by searching all agents (as the Eclipse command handler did)
+ * and with the {@link RuntimeRegistry}; see RuntimeRegistryTest for the tests
+ * of the registry. Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class RuntimeRegistryBenchmark {
+	/**
+	 * The number of agents.
+	 */
+	@Param({ "10", "100", "1000" })
+	public int size;
+
+	private RuntimeRegistry<IdleController> registry;
+	private List<Agent<IdleController>> agents;
+	private List<AgentId> targets;
+	private int next = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.registry = new RuntimeRegistry<>();
+		this.agents = register(this.registry, this.size);
+		this.targets = new ArrayList<>(this.size);
+		for (Agent<IdleController> agent : this.agents) {
+			this.targets.add(new AgentId(agent.getId().getName()));
+		}
+	}
+
+	@Benchmark
+	public Agent<IdleController> scan() {
+		AgentId target = this.targets.get(this.next++ % this.targets.size());
+		for (Agent<IdleController> agent : this.agents) {
+			if (agent.getId().equals(target)) {
+				return agent;
+			}
+		}
+		return null;
+	}
+
+	@Benchmark
+	public Agent<IdleController> registry() {
+		return this.registry.getAgent(this.targets.get(this.next++
+				% this.targets.size()));
+	}
+
+	/**
+	 * Announces new agents to a registry, as the runtime would.
+	 */
+	private static List<Agent<IdleController>> register(
+			RuntimeRegistry<IdleController> registry, int size)
+			throws Exception {
+		List<Agent<IdleController>> agents = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Agent<IdleController> agent = new Agent<IdleController>(
+					new AgentId("registered" + i),
+					new NoEnvironmentCapabilities(),
+					new NoMessagingCapabilities(), new NoLoggingCapabilities(),
+					new IdleController());
+			agents.add(agent);
+			registry.eventOccured(null, new RuntimeEvent(
+					EventType.AGENT_IS_LOCAL_AND_READY, agent));
+		}
+		return agents;
+	}
+
+	/**
+	 * A controller of an agent that is never run.
+	 */
+	private static class IdleController extends Controller {
+		@Override
+		protected Runnable getRunnable(Executor pool, Callable<Callable<?>> in) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package goal.core.performance;
+
+import goal.core.mentalstate.BeliefBase;
+import goal.core.mentalstate.MentalState;
+import goal.core.mentalstate.Theory;
+import goal.tools.PlatformManager;
+import goal.tools.debugger.NOPDebugger;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import krTools.KRInterface;
+import krTools.language.DatabaseFormula;
+import languageTools.analyzer.agent.AgentValidator;
+import languageTools.parser.GOAL;
+import languageTools.parser.GOALLexer;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.actions.InsertAction;
+import mentalState.BASETYPE;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the garbage produced by reading the formulas of a belief base with
+ * 100,000 beliefs through {@link Theory#getFormulas()}, compared to copying
+ * them into a new set on every read (as the original implementation did).
+ * See TheoryTest for the tests of the snapshots. Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class TheorySnapshotBenchmark {
+	private static final String AGENT = "src/test/resources/goal/core/performance/hotpath/hotpath.goal";
+	private static final int BELIEFS = 100000;
+
+	private KRInterface language;
+	private NOPDebugger debugger;
+	private MentalState state;
+	private BeliefBase beliefs;
+	private Theory theory;
+	private List<DatabaseFormula> one;
+	private final List<DatabaseFormula> none = new ArrayList<>(0);
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.language = KRFactory.getDefaultInterface();
+		AgentProgram program = PlatformManager.createNew().parseGOALFile(
+				new File(AGENT), this.language);
+		if (!program.isValid()) {
+			throw new IllegalStateException("invalid agent " + AGENT); //$NON-NLS-1$
+		}
+		AgentId id = new AgentId("SnapshotAgent");
+		this.debugger = new NOPDebugger(id);
+		this.state = new MentalState(id, program, this.debugger);
+		this.beliefs = this.state.getOwnBase(BASETYPE.BELIEFBASE);
+		this.theory = this.beliefs.getTheory();
+		this.beliefs.update(makeBatch(BELIEFS), this.none, this.debugger);
+		this.one = makeBatch(1);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		this.state.cleanUp();
+	}
+
+	@Benchmark
+	public Set<DatabaseFormula> copy() {
+		return new HashSet<>(this.theory.getFormulas());
+	}
+
+	@Benchmark
+	public Set<DatabaseFormula> snapshot() {
+		return this.theory.getFormulas();
+	}
+
+	/**
+	 * A change between every read makes a new snapshot necessary.
+	 */
+	@Benchmark
+	public Set<DatabaseFormula> snapshotAfterChange() throws Exception {
+		this.beliefs.update(this.one, this.none, this.debugger);
+		Set<DatabaseFormula> formulas = this.theory.getFormulas();
+		this.beliefs.update(this.none, this.one, this.debugger);
+		return formulas;
+	}
+
+	private List<DatabaseFormula> makeBatch(int size) throws Exception {
+		StringBuilder insert = new StringBuilder("insert("); //$NON-NLS-1$
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				insert.append(", "); //$NON-NLS-1$
+			}
+			insert.append("snapshot(").append(i).append(')'); //$NON-NLS-1$
+		}
+		insert.append(')');
+		ANTLRInputStream charstream = new ANTLRInputStream(new StringReader(
+				insert.toString()));
+		charstream.name = "";
+		GOAL parser = new GOAL(new CommonTokenStream(new GOALLexer(charstream)));
+		AgentValidator validator = new AgentValidator("inline");
+		validator.setKRInterface(this.language);
+		return ((InsertAction) validator.visitAction(parser.action()))
+				.getUpdate().getAddList();
+	}
+}
@@ -0,0 +1,149 @@
+package goal.core.performance;
+
+import goal.core.runtime.service.agent.RunState;
+import goal.tools.PlatformManager;
+import goal.tools.SingleRun;
+import goal.tools.debugger.Channel;
+import goal.tools.debugger.Debugger;
+import goal.tools.debugger.ObservableDebugger;
+import goal.tools.trace.TraceRecorder;
+import goal.tools.trace.TraceWriter;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.mas.MASProgram;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the cost of recording execution traces with a
+ * {@link TraceRecorder}: the time needed to record the debug events of a
+ * cycle (see {@link #cycle()}), and the time needed to run the blocksworld
+ * and tictactoe examples with and without recording a trace (see
+ * {@link #example(Example)}; note that the examples open the windows of their
+ * environments). Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class TraceRecorderBenchmark {
+	private static final long TIMEOUT = 60;
+
+	/**
+	 * Whether the debug events are recorded in a trace.
+	 */
+	@Param({ "false", "true" })
+	public boolean traced;
+
+	private File directory;
+	private ObservableDebugger debugger;
+	private TraceWriter writer;
+	private int cycle = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.directory = Files.createTempDirectory("traces").toFile();
+		this.debugger = new ObservableDebugger(this.traced ? "traced"
+				: "plain", null);
+		this.debugger.run();
+		if (this.traced) {
+			this.writer = new TraceWriter(this.directory, "benchmark", 0);
+			new TraceRecorder(this.debugger, this.writer);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		if (this.writer != null) {
+			this.writer.close();
+		}
+		for (File file : this.directory.listFiles()) {
+			file.delete();
+		}
+		this.directory.delete();
+	}
+
+	/**
+	 * Records the debug events of a cycle.
+	 */
+	@Benchmark
+	public void cycle() {
+		cycle(this.debugger, this.cycle++);
+	}
+
+	/**
+	 * Runs an example, and records a trace of it if {@link #traced}.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void example(Example example) throws Exception {
+		SingleRun run = new SingleRun(example.program, example.agents, TIMEOUT);
+		run.setTraceDirectory(this.traced ? this.directory : null);
+		run.run();
+	}
+
+	/**
+	 * The parsed example that is run by {@link TraceRecorderBenchmark#example}.
+	 */
+	@State(Scope.Thread)
+	public static class Example {
+		@Param({
+				"src/test/resources/goal/parser/unittest/example/blocksworld/simple/blocksworld.mas2g",
+				"src/test/resources/goal/parser/unittest/example/tictactoe/tttAvsS.mas2g" })
+		public String mas;
+
+		private MASProgram program;
+		private Map<File, AgentProgram> agents;
+
+		@Setup(Level.Trial)
+		public void setUp() throws Exception {
+			this.program = PlatformManager.createNew().parseMASFile(
+					new File(this.mas));
+			this.agents = PlatformManager.getCurrent().getParsedAgentPrograms();
+		}
+	}
+
+	/**
+	 * Reports the debug events of a cycle like the core does, guarded by
+	 * {@link Debugger#isEnabled(Channel)}: percepts, the evaluation of two
+	 * rules of which one holds, and an action.
+	 */
+	private static void cycle(Debugger debugger, int cycle) {
+		if (debugger.isEnabled(Channel.REASONING_CYCLE_SEPARATOR)) {
+			debugger.breakpoint(Channel.REASONING_CYCLE_SEPARATOR, cycle, null,
+					RunState.CYCLE_SEPARATOR, cycle);
+		}
+		if (debugger.isEnabled(Channel.PERCEPTS_CONDITIONAL_VIEW)) {
+			debugger.breakpoint(Channel.PERCEPTS_CONDITIONAL_VIEW, null, null,
+					"%s has been deleted from the percept base of %s.",
+					"on(b1, b2)", debugger.getName());
+			debugger.breakpoint(Channel.PERCEPTS_CONDITIONAL_VIEW, null, null,
+					"%s has been inserted into the percept base of %s.",
+					"on(b1, table)", debugger.getName());
+		}
+		if (debugger.isEnabled(Channel.RULE_CONDITION_EVALUATION)) {
+			debugger.breakpoint(Channel.RULE_CONDITION_EVALUATION, null, null,
+					"Condition of rule %s does not hold.",
+					"if bel(tower([X])) then skip.");
+			debugger.breakpoint(Channel.RULE_CONDITION_EVALUATION, null, null,
+					"Condition of rule %s holds for: %s.",
+					"if bel(clear(X)) then move(X, table).", "[[X/b1]]");
+		}
+		if (debugger.isEnabled(Channel.ACTION_EXECUTED_USERSPEC)) {
+			debugger.breakpoint(Channel.ACTION_EXECUTED_USERSPEC, null, null,
+					"Performed %s.", "move(b1, table)");
+		}
+	}
+}
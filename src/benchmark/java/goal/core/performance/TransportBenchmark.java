@@ -0,0 +1,156 @@
+package goal.core.performance;
+
+import eis.iilang.Function;
+import eis.iilang.Identifier;
+import eis.iilang.Numeral;
+import eis.iilang.ParameterList;
+import eis.iilang.Percept;
+import goal.core.runtime.transport.Frame;
+import goal.core.runtime.transport.NioTransport;
+import goal.core.runtime.transport.NioTransport.Connection;
+
+import java.net.InetSocketAddress;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the round trip time and throughput of the {@link NioTransport}
+ * over the loopback interface compared to RMI (which the rmimessaging library
+ * uses), for percepts as sent by an environment.
+ *
+ * The batch benchmarks send {@link #BATCH} frames per invocation, and count
+ * each frame as an operation. See NioTransportTest for the tests of the
+ * transport. Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class TransportBenchmark {
+	/**
+	 * The number of frames sent per operation when measuring throughput.
+	 */
+	private static final int BATCH = 1000;
+	private static final long TIMEOUT = 10;
+
+	/**
+	 * Returns everything it receives to the sender.
+	 */
+	public interface Echo extends Remote {
+		Object echo(Object content) throws RemoteException;
+	}
+
+	private NioTransport server;
+	private NioTransport client;
+	private Connection connection;
+	private final BlockingQueue<Frame> received = new LinkedBlockingQueue<>();
+	private final Percept percept = makePercept(42);
+	private Echo echo;
+	private Echo stub;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.server = new NioTransport("echo", new NioTransport.Listener() {
+			@Override
+			public void frameReceived(Connection connection, Frame frame) {
+				try {
+					TransportBenchmark.this.server.send(connection, new Frame(
+							frame.getReceiver(), frame.getSender(), frame
+									.getContent()));
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}
+
+			@Override
+			public void connectionClosed(Connection connection) {
+			}
+		});
+		InetSocketAddress address = this.server.bind(0);
+		this.client = new NioTransport("client", new NioTransport.Listener() {
+			@Override
+			public void frameReceived(Connection connection, Frame frame) {
+				TransportBenchmark.this.received.add(frame);
+			}
+
+			@Override
+			public void connectionClosed(Connection connection) {
+			}
+		});
+		this.connection = this.client.connect(address);
+		this.echo = new Echo() {
+			@Override
+			public Object echo(Object content) {
+				return content;
+			}
+		};
+		this.stub = (Echo) UnicastRemoteObject.exportObject(this.echo, 0);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		UnicastRemoteObject.unexportObject(this.echo, true);
+		this.client.close();
+		this.server.close();
+	}
+
+	@Benchmark
+	public Object rmiRoundTrip() throws Exception {
+		return this.stub.echo(this.percept);
+	}
+
+	@Benchmark
+	public Frame nioRoundTrip() throws Exception {
+		this.client.send(this.connection, new Frame("env", "agent",
+				this.percept));
+		return receive();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public Object rmiBatch() throws Exception {
+		Object last = null;
+		for (int i = 0; i < BATCH; i++) {
+			last = this.stub.echo(this.percept);
+		}
+		return last;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public Frame nioBatch() throws Exception {
+		for (int i = 0; i < BATCH; i++) {
+			this.client.send(this.connection, new Frame("env", "agent",
+					this.percept));
+		}
+		Frame last = null;
+		for (int i = 0; i < BATCH; i++) {
+			last = receive();
+		}
+		return last;
+	}
+
+	private Frame receive() throws Exception {
+		Frame frame = this.received.poll(TIMEOUT, TimeUnit.SECONDS);
+		if (frame == null) {
+			throw new IllegalStateException("no frame received within " //$NON-NLS-1$
+					+ TIMEOUT + " seconds"); //$NON-NLS-1$
+		}
+		return frame;
+	}
+
+	private static Percept makePercept(int i) {
+		return new Percept("see", new Identifier("block"), new Numeral(i),
+				new Function("at", new Numeral(i), new Numeral(i * 0.5)),
+				new ParameterList(new Identifier("a"), new Identifier("b")));
+	}
+}
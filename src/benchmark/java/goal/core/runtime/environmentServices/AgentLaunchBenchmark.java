@@ -0,0 +1,77 @@
+package goal.core.runtime.environmentServices;
+
+import goal.core.performance.Benchmarks;
+import goal.preferences.PMPreferences;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the time from the announcement of the entities of a
+ * {@link MockEnvironment} until an agent runs for every entity, with agents
+ * launched one by one and in parallel (see
+ * {@link PMPreferences#getLaunchThreads()}); see AgentLaunchTest for the
+ * tests of the launching. Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AgentLaunchBenchmark {
+	/**
+	 * The number of entities.
+	 */
+	@Param({ "10", "100", "1000" })
+	public int entities;
+	/**
+	 * The number of threads that launch agents, or 0 for one per processor.
+	 */
+	@Param({ "1", "0" })
+	public int threads;
+
+	private int launchThreads;
+	private LaunchFixture fixture;
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		this.launchThreads = PMPreferences.getLaunchThreads();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownTrial() {
+		PMPreferences.setLaunchThreads(this.launchThreads);
+	}
+
+	@Setup(Level.Invocation)
+	public void setUp() throws Exception {
+		this.fixture = new LaunchFixture(this.threads == 0 ? Runtime
+				.getRuntime().availableProcessors() : this.threads,
+				this.entities);
+	}
+
+	@TearDown(Level.Invocation)
+	public void tearDown() throws Exception {
+		this.fixture.close();
+	}
+
+	/**
+	 * Announces all entities, and waits until an agent runs for every entity.
+	 */
+	@Benchmark
+	public int launch() throws Exception {
+		for (String entity : this.fixture.eis.getEntities()) {
+			this.fixture.announce(entity);
+		}
+		this.fixture.service.awaitLaunches(0);
+		return this.fixture.service.getAgents().size();
+	}
+}
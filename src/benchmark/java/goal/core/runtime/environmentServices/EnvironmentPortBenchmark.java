@@ -0,0 +1,117 @@
+package goal.core.runtime.environmentServices;
+
+import eis.iilang.Action;
+import eis.iilang.Parameter;
+import goal.core.performance.Benchmarks;
+import goal.core.runtime.MessagingService;
+import goal.core.runtime.service.environment.LocalMessagingEnvironment;
+import goal.core.runtime.service.environmentport.EnvironmentPort;
+import goal.preferences.EnvironmentPreferences;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import localmessaging.LocalMessaging;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the throughput (actions per second) of agents that perform actions
+ * through an {@link EnvironmentPort} on a {@link MockEnvironment}, with the
+ * environment handling the agents sequentially and concurrently. Run with
+ * {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class EnvironmentPortBenchmark {
+	/**
+	 * Total number of actions performed by all agents together.
+	 */
+	private static final int ACTIONS = 10000;
+
+	/**
+	 * Whether the environment handles the agents concurrently.
+	 */
+	@Param({ "false", "true" })
+	public boolean concurrentAgents;
+	/**
+	 * The number of agents, agent1, ..., agentN, associated with entity1, ...,
+	 * entityN; each agent runs on its own thread.
+	 */
+	@Param({ "1", "10", "100" })
+	public int agents;
+
+	private boolean concurrent;
+	private MessagingService messaging;
+	private LocalMessagingEnvironment environment;
+	private EnvironmentPort port;
+	private ExecutorService threads;
+	private final List<Callable<Void>> tasks = new ArrayList<>();
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.concurrent = EnvironmentPreferences.isConcurrentAgents();
+		EnvironmentPreferences.setConcurrentAgents(this.concurrentAgents);
+		this.messaging = new MessagingService("localhost",
+				new LocalMessaging());
+		this.environment = new LocalMessagingEnvironment(new MockEnvironment(
+				this.agents), "benchmarkEnvironment",
+				new HashMap<String, Parameter>(), this.messaging);
+		this.environment.initialize();
+		this.port = new EnvironmentPort(this.environment.getMessageBoxId(),
+				this.messaging);
+		this.port.startPort();
+		for (int i = 1; i <= this.agents; i++) {
+			this.port.registerAgent("agent" + i);
+			this.port.associateEntity("agent" + i, "entity" + i);
+		}
+
+		this.threads = Executors.newFixedThreadPool(this.agents);
+		final int perAgent = ACTIONS / this.agents;
+		for (int i = 1; i <= this.agents; i++) {
+			final String agent = "agent" + i;
+			this.tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					Action action = new Action("act");
+					for (int j = 0; j < perAgent; j++) {
+						EnvironmentPortBenchmark.this.port.performAction(
+								agent, action);
+					}
+					return null;
+				}
+			});
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		this.threads.shutdown();
+		this.environment.shutDown();
+		this.port.shutDown();
+		this.messaging.shutDown();
+		EnvironmentPreferences.setConcurrentAgents(this.concurrent);
+	}
+
+	/**
+	 * Lets the agents perform {@link #ACTIONS} actions in total.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(ACTIONS)
+	public void perform() throws Exception {
+		for (Future<Void> result : this.threads.invokeAll(this.tasks)) {
+			result.get();
+		}
+	}
+}
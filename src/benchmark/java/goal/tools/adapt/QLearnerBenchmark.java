@@ -0,0 +1,65 @@
+package goal.tools.adapt;
+
+import goal.core.performance.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the latency of selecting an action (and updating the value of the
+ * previous one) by the {@link QLearner} of an agent with an adaptive module.
+ * Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class QLearnerBenchmark {
+	private static final int ACTIONS = 10;
+
+	@Param({ "100", "10000", "100000" })
+	public int states;
+	private QLearner learner;
+	private final Integer[] options = new Integer[ACTIONS];
+	private int state = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.learner = learn(this.states);
+		for (int a = 0; a < ACTIONS; a++) {
+			this.options[a] = a + 1;
+		}
+	}
+
+	/**
+	 * Selects an action in the next state, and updates the value of the
+	 * previous one.
+	 */
+	@Benchmark
+	public Integer select() {
+		this.state = this.state % this.states + 1;
+		Integer action = this.learner.nextAction(this.state, this.options);
+		this.learner.update(0.5, this.state % this.states + 1);
+		return action;
+	}
+
+	/**
+	 * Creates a learner that has visited all states 1..states and tried all
+	 * actions in them.
+	 */
+	private static QLearner learn(int states) {
+		QLearner learner = new QLearner(0.9, 0.1, 0, 0.9);
+		Integer[] options = new Integer[ACTIONS];
+		for (int a = 0; a < ACTIONS; a++) {
+			options[a] = a + 1;
+		}
+		learner.start();
+		for (int s = 1; s <= states; s++) {
+			learner.nextAction(s, options);
+			learner.update(s % 3 - 1, s % states + 1);
+		}
+		learner.finish(1);
+		return learner;
+	}
+}
@@ -0,0 +1,129 @@
+package goal.tools.debugger;
+
+import goal.core.performance.Benchmarks;
+import goal.tools.PlatformManager;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import krTools.parser.SourceInfo;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.Module;
+import languageTools.program.agent.actions.Action;
+import languageTools.program.agent.rules.Rule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the time a {@link SteppingDebugger} needs to check a position for
+ * a breakpoint that does not stop the agent, compared to looking up the hash
+ * code of the position (as the debugger did before). The positions are those
+ * of the actions of hotpath.goal; see UserBreakpointTest for the tests of the
+ * breakpoints. Run with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class BreakpointBenchmark {
+	private static final String AGENT = "src/test/resources/goal/core/performance/hotpath/hotpath.goal";
+
+	private static List<SourceInfo> positions;
+
+	/**
+	 * The breakpoint that is set when checking the first position: none, one
+	 * at another position, a tracepoint without observers, one with a
+	 * condition that does not hold, or one with a hit count that is not
+	 * reached.
+	 */
+	@Param({ "none", "other", "tracepoint", "condition", "hitcount" })
+	public String breakpoint;
+	private SteppingDebugger debugger;
+	private final Set<Integer> hashes = new HashSet<>();
+
+	private static void parsePositions() throws Exception {
+		AgentProgram program = PlatformManager.createNew().parseGOALFile(
+				new File(AGENT), KRFactory.getDefaultInterface());
+		if (!program.isValid()) {
+			throw new IllegalStateException("invalid agent " + AGENT); //$NON-NLS-1$
+		}
+		positions = new ArrayList<>();
+		for (Module module : program.getModules()) {
+			for (Rule rule : module.getRules()) {
+				for (Action<?> action : rule.getAction()) {
+					positions.add(action.getSourceInfo());
+				}
+			}
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		parsePositions();
+		this.hashes.add(positions.get(1).hashCode());
+		switch (this.breakpoint) {
+		case "none":
+			this.debugger = debugger();
+			break;
+		case "other":
+			this.debugger = debugger(new UserBreakpoint(positions.get(1)));
+			break;
+		case "tracepoint":
+			this.debugger = debugger(new UserBreakpoint(positions.get(0), null,
+					0, "reached"));
+			break;
+		case "condition":
+			this.debugger = debugger(new UserBreakpoint(positions.get(0),
+					"bel(item(0))", 0, null));
+			this.debugger.setConditionEvaluator(new FixedEvaluator());
+			break;
+		case "hitcount":
+			this.debugger = debugger(new UserBreakpoint(positions.get(0), null,
+					Integer.MAX_VALUE, null));
+			break;
+		default:
+			throw new IllegalArgumentException(this.breakpoint);
+		}
+	}
+
+	/**
+	 * Looks up the hash code of the position, as the debugger did before.
+	 */
+	@Benchmark
+	public boolean hashCodeLookup() {
+		return this.hashes.contains(positions.get(0).hashCode());
+	}
+
+	@Benchmark
+	public boolean check() {
+		if (this.debugger.checkUserBreakpointHit(positions.get(0), "executed")) {
+			throw new IllegalStateException("stopped");
+		}
+		return false;
+	}
+
+	private static SteppingDebugger debugger(UserBreakpoint... breakpoints) {
+		SteppingDebugger debugger = new SteppingDebugger("breakpoints", null);
+		debugger.run();
+		debugger.setUserBreakpoints(Arrays.asList(breakpoints));
+		return debugger;
+	}
+
+	/**
+	 * A condition that never holds.
+	 */
+	private static class FixedEvaluator implements
+			UserBreakpoint.ConditionEvaluator {
+		@Override
+		public boolean holds(String condition) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package goal.tools.debugger;
+
+import goal.core.performance.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the cost and the garbage (see {@code gc.alloc.rate.norm}) of the
+ * breakpoints on the hot paths of an agent when nobody is listening. A "cycle"
+ * reports the same breakpoints as a cycle of an agent that updates a few
+ * beliefs and evaluates a few rules, guarded by
+ * {@link Debugger#isEnabled(Channel)} like the call sites in the core; see
+ * DebuggerAllocationTest for the check that no garbage is produced. Run with
+ * {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class DebuggerAllocationBenchmark {
+	/**
+	 * The debugger: a {@link NOPDebugger}, a running {@link SteppingDebugger},
+	 * or a running {@link ObservableDebugger} that is observed on another
+	 * channel.
+	 */
+	@Param({ "nop", "stepping", "observable" })
+	public String debugger;
+
+	private final Object formula = new Object();
+	private Debugger instance;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		switch (this.debugger) {
+		case "nop":
+			this.instance = new NOPDebugger("allocation");
+			break;
+		case "stepping":
+			SteppingDebugger stepping = new SteppingDebugger("allocation", null);
+			stepping.run();
+			this.instance = stepping;
+			break;
+		default:
+			ObservableDebugger observable = new ObservableDebugger(
+					"allocation", null);
+			observable.run();
+			observable.subscribe(new DebugObserver() {
+				@Override
+				public String getObserverName() {
+					return "ignorer";
+				}
+
+				@Override
+				public void notifyBreakpointHit(DebugEvent event) {
+				}
+			}, Channel.GB_CHANGES);
+			this.instance = observable;
+		}
+	}
+
+	@Benchmark
+	public void cycle() {
+		if (this.instance.isEnabled(Channel.REASONING_CYCLE_SEPARATOR)) {
+			this.instance.breakpoint(Channel.REASONING_CYCLE_SEPARATOR, null,
+					null, " +++++++ Cycle %s +++++++ ", this.formula);
+		}
+		for (int i = 0; i < 5; i++) {
+			if (this.instance.isEnabled(Channel.BB_UPDATES)) {
+				this.instance.breakpoint(Channel.BB_UPDATES, this.formula,
+						null,
+						"%s has been inserted into the belief base of %s.",
+						this.formula, this.instance.getName());
+			}
+			if (this.instance.isEnabled(Channel.RULE_CONDITION_EVALUATION)) {
+				this.instance.breakpoint(Channel.RULE_CONDITION_EVALUATION,
+						this.formula, null,
+						"Condition of rule %s does not hold.", this.formula);
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package goal.tools.eclipse;
+
+import goal.core.performance.Benchmarks;
+import goal.tools.eclipse.DebugCommand.Command;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import languageTools.program.agent.AgentId;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the number of events per second that the debugger can send to the
+ * Eclipse plug-in over a pipe with the text protocol and with the binary
+ * protocol, sending every event at once (as the original implementation did)
+ * or in batches; see DebugProtocolTest for the tests of the protocols. Run
+ * with {@link Benchmarks}.
+ */
+@State(Scope.Thread)
+public class DebugProtocolBenchmark {
+	private static final int EVENTS = 10000;
+	private static final int AGENTS = 10;
+	private static final int PIPE = 64 * 1024;
+
+	/**
+	 * The protocol: text or binary.
+	 */
+	@Param({ "text", "binary" })
+	public String protocol;
+	/**
+	 * The batch window, in milliseconds; 0 sends every event at once.
+	 */
+	@Param({ "0", "10" })
+	public long batchWindow;
+
+	private final List<AgentId> agents = new ArrayList<>(AGENTS);
+	private ExecutorService reader;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		for (int i = 0; i < AGENTS; i++) {
+			this.agents.add(new AgentId("agent" + i));
+		}
+		this.reader = Executors.newSingleThreadExecutor();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.reader.shutdownNow();
+	}
+
+	/**
+	 * Sends {@link #EVENTS} events from a writer to a reader over a pipe.
+	 *
+	 * @return the number of events that arrived.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public int pipe() throws Exception {
+		PipedOutputStream out = new PipedOutputStream();
+		PipedInputStream in = new PipedInputStream(out, PIPE);
+		final DebugProtocol client = create(in, new ByteArrayOutputStream());
+		InputReaderWriter writer = new InputReaderWriter(create(
+				new ByteArrayInputStream(new byte[0]), out), this.batchWindow,
+				null, new EclipseEventObserver());
+		try {
+			Future<Integer> received = this.reader
+					.submit(new Callable<Integer>() {
+						@Override
+						public Integer call() throws Exception {
+							int read = 0;
+							while (read < EVENTS && client.read() != null) {
+								read++;
+							}
+							return read;
+						}
+					});
+			for (int i = 0; i < EVENTS; i++) {
+				AgentId agent = this.agents.get(i % AGENTS);
+				if (i % 2 == 0) {
+					writer.write(new DebugCommand(Command.INSERTED_BEL, agent,
+							"item(" + i + ")"));
+				} else {
+					writer.write(new DebugCommand(Command.RULE_EVALUATION,
+							agent, Arrays.asList("[X/" + i + "]", "[Y/"
+									+ (i + 1) + "]")));
+				}
+			}
+			writer.flush();
+			return received.get();
+		} finally {
+			out.close();
+		}
+	}
+
+	private DebugProtocol create(InputStream is, OutputStream os)
+			throws IOException {
+		if ("binary".equals(this.protocol)) {
+			return new BinaryDebugProtocol(is, os);
+		} else {
+			return new TextDebugProtocol(is, os);
+		}
+	}
+}
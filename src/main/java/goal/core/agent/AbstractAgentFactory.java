@@ -1,5 +1,6 @@
 package goal.core.agent;
 
+import goal.core.gamygdala.Engine;
 import goal.core.runtime.MessagingService;
 import goal.core.runtime.service.environmentport.EnvironmentPort;
 import goal.tools.adapt.FileLearner;
@@ -10,10 +11,13 @@ import goal.tools.logging.GOALLoggerDelayed;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import krTools.errors.exceptions.KRInitFailedException;
 import languageTools.program.agent.AgentId;
 import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.msg.Message;
 import nl.tudelft.goal.messaging.exceptions.CommunicationFailureException;
 import nl.tudelft.goal.messaging.exceptions.MessagingException;
 import nl.tudelft.goal.messaging.messagebox.MessageBox;
@@ -80,6 +84,18 @@ implements AgentFactory<D, C> {
 	 */
 	private final Date factoryCreationTime = new Date();
 
+	/**
+	 * The settings of the inboxes of the agents, by default from the
+	 * preferences.
+	 */
+	private volatile Inbox.Settings inboxSettings = Inbox.Settings
+			.fromPreferences();
+
+	/**
+	 * The settings of the inboxes of specific agents, by base name.
+	 */
+	private final Map<String, Inbox.Settings> agentInboxSettings = new ConcurrentHashMap<>();
+
 	/**
 	 * Constructs a new factory.
 	 *
@@ -97,54 +113,75 @@ implements AgentFactory<D, C> {
 		this(null);
 	}
 
+	/**
+	 * Builds an agent. The components of the agent are provided one agent at
+	 * a time, as the provide methods use the fields of this factory. The
+	 * agent itself, which initializes its databases, is constructed outside
+	 * the lock so that several agents can be built in parallel.
+	 */
 	@Override
-	public synchronized Agent<C> build(AgentProgram program,
-			String agentBaseName, EnvironmentPort environment)
-					throws MessagingException, KRInitFailedException {
-		/*
-		 * Initialize variables used in agent construction.
-		 */
-		this.program = program;
-		this.environment = environment;
-		this.agentBaseName = agentBaseName;
+	public Agent<C> build(AgentProgram program, String agentBaseName,
+			EnvironmentPort environment, Engine engine)
+			throws MessagingException, KRInitFailedException {
+		AgentId agentId;
+		MessageBox messageBox;
+		MessagingCapabilities messagingCapabilities;
+		EnvironmentCapabilities environmentCapabilities;
+		LoggingCapabilities loggingCapabilities;
+		C controller;
+		synchronized (this) {
+			/*
+			 * Initialize variables used in agent construction.
+			 */
+			this.program = program;
+			this.environment = environment;
+			this.agentBaseName = agentBaseName;
 
-		if (this.messaging != null) {
-			this.messageBoxId = provideMessageBoxId(agentBaseName);
-			this.messageBox = provideMessageBox(this.messageBoxId);
-		}
+			try {
+				if (this.messaging != null) {
+					this.messageBoxId = provideMessageBoxId(agentBaseName);
+					this.messageBox = provideMessageBox(this.messageBoxId);
+				}
 
-		this.agentId = provideAgentId(this.messageBoxId);
+				this.agentId = provideAgentId(this.messageBoxId);
 
-		/*
-		 * Construct agent components.
-		 */
-		MessagingCapabilities messagingCapabilities = provideMessagingCapabilities();
-		EnvironmentCapabilities environmentCapabilities = provideEnvironmentCapabilities();
-		LoggingCapabilities loggingCapabilities = provideLoggingCapabilities();
-		D debugger = provideDebugger();
-		Learner learner = provideLearner();
-		C controller = provideController(debugger, learner);
+				/*
+				 * Construct agent components.
+				 */
+				messagingCapabilities = provideMessagingCapabilities();
+				environmentCapabilities = provideEnvironmentCapabilities();
+				loggingCapabilities = provideLoggingCapabilities();
+				D debugger = provideDebugger();
+				Learner learner = provideLearner();
+				controller = provideController(debugger, learner);
+				agentId = this.agentId;
+				messageBox = this.messageBox;
+			} finally {
+				/*
+				 * Clean up variables used in construction.
+				 */
+				this.program = null;
+				this.environment = null;
+				this.agentBaseName = null;
+
+				this.messageBoxId = null;
+				this.agentId = null;
+				this.messageBox = null;
+			}
+		}
 
 		/*
 		 * Construct agent.
 		 */
 		try {
-			return new Agent<>(this.agentId, environmentCapabilities,
-					messagingCapabilities, loggingCapabilities, controller);
+			return new Agent<>(agentId, environmentCapabilities,
+					messagingCapabilities, loggingCapabilities, controller,
+					engine);
 		} catch (KRInitFailedException e) {
-			this.messaging.deleteMessageBox(this.messageBox);
+			if (messageBox != null) {
+				this.messaging.deleteMessageBox(messageBox);
+			}
 			throw e;
-		} finally {
-			/*
-			 * Clean up variables used in construction.
-			 */
-			this.program = null;
-			this.environment = null;
-			this.agentBaseName = null;
-
-			this.messageBoxId = null;
-			this.agentId = null;
-			this.messageBox = null;
 		}
 	}
 
@@ -166,6 +203,31 @@ implements AgentFactory<D, C> {
 		}
 	}
 
+	/**
+	 * Sets the capacity, overflow policy and message budget of the inboxes of
+	 * all agents built after this call.
+	 *
+	 * @param settings
+	 *            the inbox settings.
+	 */
+	public void setInboxSettings(Inbox.Settings settings) {
+		this.inboxSettings = settings;
+	}
+
+	/**
+	 * Sets the capacity, overflow policy and message budget of the inboxes of
+	 * the agents with the given base name, overriding
+	 * {@link #setInboxSettings(Inbox.Settings)}.
+	 *
+	 * @param agentBaseName
+	 *            the base name of the agents.
+	 * @param settings
+	 *            the inbox settings.
+	 */
+	public void setInboxSettings(String agentBaseName, Inbox.Settings settings) {
+		this.agentInboxSettings.put(agentBaseName, settings);
+	}
+
 	/**
 	 * Creates the messaging capabilities used by the agents. Subclasses can
 	 * override this method to provide their own messaging capabilities.
@@ -173,7 +235,23 @@ implements AgentFactory<D, C> {
 	 * @return messaging capabilities used by the agent.
 	 */
 	protected MessagingCapabilities provideMessagingCapabilities() {
-		return new DefaultMessagingCapabilities(this.messaging, this.messageBox);
+		return new DefaultMessagingCapabilities(this.messaging,
+				this.messageBox, provideInbox());
+	}
+
+	/**
+	 * Creates the inbox of the agent. Subclasses can override this method to
+	 * provide inboxes with other settings.
+	 *
+	 * @return the inbox for incoming messages of the agent.
+	 */
+	protected Inbox<Message> provideInbox() {
+		Inbox.Settings settings = this.agentInboxSettings
+				.get(this.agentBaseName);
+		if (settings == null) {
+			settings = this.inboxSettings;
+		}
+		return settings.newInbox();
 	}
 
 	/**
@@ -40,9 +40,10 @@ public class Agent<CONTROLLER extends Controller> {
 	private final AgentId id;
 	private final MessagingCapabilities messaging;
 	private final LoggingCapabilities logging;
+	private final Engine engine;
 
 	/**
-	 * Creates new agent.
+	 * Creates new agent with an emotion engine of its own.
 	 *
 	 * @param id
 	 *            unique identity of the agent
@@ -62,15 +63,39 @@ public class Agent<CONTROLLER extends Controller> {
 	public Agent(AgentId id, EnvironmentCapabilities environment,
 			MessagingCapabilities messaging, LoggingCapabilities logger,
 			CONTROLLER controller) throws KRInitFailedException {
+		this(id, environment, messaging, logger, controller, new Engine());
+	}
+
+	/**
+	 * Creates new agent.
+	 *
+	 * @param id
+	 *            unique identity of the agent
+	 * @param environment
+	 *            capabilities for the environment in which the agent is
+	 *            situated
+	 * @param messaging
+	 *            capabilities of the agent
+	 * @param controller
+	 *            that controls the agent
+	 * @param logger
+	 *            a logger for {@link LogAction}s.
+	 * @param engine
+	 *            the emotion engine of the runtime of the agent.
+	 *
+	 * @throws KRInitFailedException
+	 *             when the agent could not initialize the KRInterface
+	 */
+	public Agent(AgentId id, EnvironmentCapabilities environment,
+			MessagingCapabilities messaging, LoggingCapabilities logger,
+			CONTROLLER controller, Engine engine) throws KRInitFailedException {
 		this.id = id;
 		this.environment = environment;
 		this.messaging = messaging;
 		this.logging = logger;
 		this.controller = controller;
+		this.engine = engine;
 		this.controller.initalizeController(this);
-		if(Engine.getInstance().getAgentByName(id.getName()) == null) {
-			Engine.getInstance().createAgent(id.getName());
-		}
 	}
 
 	/**
@@ -132,6 +157,13 @@ public class Agent<CONTROLLER extends Controller> {
 		return this.environment;
 	}
 
+	/**
+	 * @return the emotion engine of the runtime of the agent.
+	 */
+	public Engine getEngine() {
+		return this.engine;
+	}
+
 	/**
 	 * Returns the name of the {@link Agent}.
 	 *
@@ -1,5 +1,6 @@
 package goal.core.agent;
 
+import goal.core.gamygdala.Engine;
 import goal.core.runtime.service.agent.AgentService;
 import goal.core.runtime.service.environmentport.EnvironmentPort;
 import goal.tools.debugger.Debugger;
@@ -37,6 +38,8 @@ public interface AgentFactory<DEBUGGER extends Debugger, CONTROLLER extends GOAL
 	 * @param environment
 	 *            in which the agent should be launched. May be null when no
 	 *            environment is available.
+	 * @param engine
+	 *            the emotion engine of the runtime the agent is launched in.
 	 * @return a new agent.
 	 * @throws MessagingException
 	 *             thrown when the agent could not setup a {@link MessageBox}
@@ -46,7 +49,7 @@ public interface AgentFactory<DEBUGGER extends Debugger, CONTROLLER extends GOAL
 	 */
 	// FIXME: AgentProgram should have a reference to its .goal file.
 	public Agent<CONTROLLER> build(AgentProgram program, String agentBaseName,
-			EnvironmentPort environment) throws MessagingException,
-			KRInitFailedException;
+			EnvironmentPort environment, Engine engine)
+			throws MessagingException, KRInitFailedException;
 
 }
@@ -0,0 +1,36 @@
+package goal.core.agent;
+
+import goal.preferences.PMPreferences;
+
+/**
+ * Runs the tasks of agents on a set of threads. The {@link Controller} of an
+ * agent submits every step of the agent (see
+ * {@link Controller#getRunnable(java.util.concurrent.Executor, java.util.concurrent.Callable)}
+ * ) to its scheduler. An agent only submits its next step at the end of the
+ * current one, so the steps of one agent never run concurrently.
+ *
+ * Which scheduler is used is configured by
+ * {@link PMPreferences#getScheduler()}.
+ */
+public interface AgentScheduler {
+	/**
+	 * Schedules a step of an agent.
+	 *
+	 * @param agent
+	 *            the controller of the agent the step belongs to.
+	 * @param step
+	 *            the step to run.
+	 */
+	public abstract void execute(Controller agent, Runnable step);
+
+	/**
+	 * @return a snapshot of the statistics of this scheduler.
+	 */
+	public abstract SchedulerStatistics getStatistics();
+
+	/**
+	 * Stops the threads of this scheduler once the steps that have been
+	 * submitted have been run.
+	 */
+	public abstract void shutdown();
+}
@@ -2,11 +2,16 @@ package goal.core.agent;
 
 import goal.preferences.PMPreferences;
 import goal.tools.AbstractRun;
+import goal.tools.errorhandling.Warning;
 
 import java.rmi.activation.UnknownObjectException;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import krTools.errors.exceptions.KRDatabaseException;
 import krTools.errors.exceptions.KRInitFailedException;
@@ -19,11 +24,46 @@ import krTools.errors.exceptions.KRQueryFailedException;
  * agents actions. This process can be stopped, started and reset through the
  * agent.
  *
+ * An agent that has nothing to do can go to sleep by handing its next task to
+ * {@link #sleep(Runnable)} instead of submitting it to the thread pool. The
+ * task is resubmitted upon {@link #wakeUp()}, which is called whenever new
+ * input arrives for the agent (and periodically, to allow the agent to poll
+ * for input that is not pushed to it). A sleeping agent thus does not occupy a
+ * thread of the pool.
+ *
+ * The tasks of all agents are run by an {@link AgentScheduler}, see
+ * {@link #getScheduler()}. The share of the threads an agent gets from a
+ * scheduler that supports this is set by {@link #setWeight(int)}.
+ *
  * @author mpkorstanje
  */
 public abstract class Controller {
-	private final static Executor pool = Executors
-			.newFixedThreadPool(PMPreferences.getThreadPoolSize());
+	/**
+	 * The types of scheduler, see {@link #createScheduler(String)}.
+	 */
+	public static final String[] SCHEDULERS = { "pool", "workstealing", //$NON-NLS-1$ //$NON-NLS-2$
+			"thread" }; //$NON-NLS-1$
+	/**
+	 * The scheduler used for agents that are started; created on first use.
+	 */
+	private static AgentScheduler scheduler = null;
+	/**
+	 * Timer used to periodically wake up sleeping agents. Polls that are
+	 * cancelled because the agent was woken up earlier are removed from the
+	 * timer right away.
+	 */
+	private final static ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(
+			1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "Agent wake-up timer");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+	static {
+		timer.setRemoveOnCancelPolicy(true);
+	}
 
 	/**
 	 * The agent controlled by the controller.
@@ -38,6 +78,117 @@ public abstract class Controller {
 	private volatile boolean running = false;
 	private volatile boolean terminated = true;
 	private boolean disposeOnTermination = false;
+	/**
+	 * The task of the agent while it is sleeping; {@code null} when the agent
+	 * is not sleeping.
+	 */
+	private final AtomicReference<Runnable> sleeping = new AtomicReference<>();
+	/**
+	 * The scheduled {@link #pollTask} of the agent while it is sleeping;
+	 * cancelled when the agent is woken up.
+	 */
+	private final AtomicReference<ScheduledFuture<?>> poll = new AtomicReference<>();
+	/**
+	 * The scheduler of this agent; set when the agent is started, unless it
+	 * has been set by {@link #setAgentScheduler(AgentScheduler)}.
+	 */
+	private volatile AgentScheduler agentScheduler = null;
+	/**
+	 * Submits the tasks of this agent to its scheduler.
+	 */
+	private final Executor pool = new Executor() {
+		@Override
+		public void execute(Runnable task) {
+			Controller.this.agentScheduler.execute(Controller.this, task);
+		}
+	};
+	private volatile int weight = 1;
+	/**
+	 * The home thread of the agent in a {@link WorkStealingScheduler}; -1
+	 * if none has been assigned yet.
+	 */
+	volatile int worker = -1;
+	/**
+	 * Lock used by {@link #awaitWakeUp()}. The flag is set when a wake up
+	 * occurred that has not been consumed yet.
+	 */
+	private final Object wakeUpLock = new Object();
+	private boolean wakeUpPending = false;
+	/**
+	 * Wakes up the agent when new input arrives.
+	 */
+	private final InputListener inputListener = new InputListener() {
+		@Override
+		public void inputAvailable() {
+			wakeUp();
+		}
+	};
+	/**
+	 * Wakes up the agent when the poll interval has passed.
+	 */
+	private final Runnable pollTask = new Runnable() {
+		@Override
+		public void run() {
+			wakeUp();
+		}
+	};
+
+	/**
+	 * Returns the scheduler that runs the agents that are started, creating it
+	 * as configured by {@link PMPreferences#getScheduler()} the first time.
+	 *
+	 * @return the scheduler.
+	 */
+	public static synchronized AgentScheduler getScheduler() {
+		if (scheduler == null) {
+			try {
+				scheduler = createScheduler(PMPreferences.getScheduler());
+			} catch (IllegalArgumentException e) {
+				new Warning("using the default scheduler", e); //$NON-NLS-1$
+				scheduler = createScheduler("pool"); //$NON-NLS-1$
+			}
+		}
+		return scheduler;
+	}
+
+	/**
+	 * Creates a new scheduler. The number of threads of a pool is set by
+	 * {@link PMPreferences#getThreadPoolSize()}.
+	 *
+	 * @param type
+	 *            "pool" for a {@link PoolScheduler}, "workstealing" for a
+	 *            {@link WorkStealingScheduler} or "thread" for a
+	 *            {@link ThreadPerAgentScheduler}.
+	 * @return the scheduler.
+	 * @throws IllegalArgumentException
+	 *             if the type is unknown.
+	 */
+	public static AgentScheduler createScheduler(String type) {
+		switch (type) {
+		case "pool": //$NON-NLS-1$
+			return new PoolScheduler(PMPreferences.getThreadPoolSize());
+		case "workstealing": //$NON-NLS-1$
+			return new WorkStealingScheduler(
+					PMPreferences.getThreadPoolSize(),
+					PMPreferences.getSchedulerQuantum(), TimeUnit.MILLISECONDS);
+		case "thread": //$NON-NLS-1$
+			return new ThreadPerAgentScheduler();
+		default:
+			throw new IllegalArgumentException("unknown scheduler: " + type); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Sets the scheduler for agents that are started after this call. Agents
+	 * that are running keep using the scheduler they were started with, so
+	 * the previous scheduler is not shut down.
+	 *
+	 * @param newScheduler
+	 *            the scheduler.
+	 */
+	public static synchronized void setScheduler(AgentScheduler newScheduler) {
+		scheduler = newScheduler;
+	}
 
 	/**
 	 * Initializes the controller with the agent it controls. Subclasses can
@@ -52,6 +203,8 @@ public abstract class Controller {
 	protected void initalizeController(Agent<? extends Controller> agent)
 			throws KRInitFailedException {
 		this.agent = agent;
+		agent.getEnvironment().setInputListener(this.inputListener);
+		agent.getMessaging().setInputListener(this.inputListener);
 	}
 
 	/**
@@ -73,6 +226,41 @@ public abstract class Controller {
 		this.disposeOnTermination = true;
 	}
 
+	/**
+	 * Sets the scheduler that runs this agent, instead of the one returned by
+	 * {@link #getScheduler()}. Should be called before the agent is started.
+	 *
+	 * @param agentScheduler
+	 *            the scheduler.
+	 */
+	public final void setAgentScheduler(AgentScheduler agentScheduler) {
+		this.agentScheduler = agentScheduler;
+	}
+
+	/**
+	 * @return the weight of the agent, see {@link #setWeight(int)}.
+	 */
+	public final int getWeight() {
+		return this.weight;
+	}
+
+	/**
+	 * Sets the share of the threads this agent gets relative to other agents,
+	 * if the scheduler supports it (see {@link WorkStealingScheduler}). An
+	 * agent with weight 2 may run twice as long as an agent with weight 1
+	 * before it has to let other agents run. The default weight is 1.
+	 *
+	 * @param weight
+	 *            the weight, at least 1.
+	 */
+	public final void setWeight(int weight) {
+		if (weight < 1) {
+			throw new IllegalArgumentException("weight should be at least 1: " //$NON-NLS-1$
+					+ weight);
+		}
+		this.weight = weight;
+	}
+
 	/**
 	 * @return true when the agent is running.
 	 */
@@ -95,7 +283,10 @@ public abstract class Controller {
 		if (!this.running) {
 			this.running = true;
 			this.terminated = false;
-			pool.execute(getRunnable(pool, null));
+			if (this.agentScheduler == null) {
+				this.agentScheduler = getScheduler();
+			}
+			this.pool.execute(getRunnable(this.pool, null));
 		}
 	}
 
@@ -109,6 +300,90 @@ public abstract class Controller {
 		if (this.running) {
 			this.running = false;
 			onTerminate();
+			// make sure a sleeping agent notices it should stop.
+			wakeUp();
+		}
+	}
+
+	/**
+	 * Puts the agent to sleep. The given task is not submitted to the thread
+	 * pool until {@link #wakeUp()} is called, which happens when new input
+	 * arrives for the agent, when the agent is terminated, or when the sleep
+	 * poll interval (see {@link PMPreferences#getSleepPollInterval()}) has
+	 * passed. The task should check whether the agent should really continue,
+	 * and may put the agent to sleep again otherwise.
+	 *
+	 * @param task
+	 *            the task to run when the agent is woken up.
+	 */
+	protected final void sleep(Runnable task) {
+		int interval = PMPreferences.getSleepPollInterval();
+		if (interval > 0) {
+			ScheduledFuture<?> previous = this.poll.getAndSet(timer.schedule(
+					this.pollTask, interval, TimeUnit.MILLISECONDS));
+			if (previous != null) {
+				previous.cancel(false);
+			}
+		}
+		this.sleeping.set(task);
+		// a wake up that occurred before the task was set would be lost.
+		boolean pending;
+		synchronized (this.wakeUpLock) {
+			pending = this.wakeUpPending;
+			this.wakeUpPending = false;
+		}
+		if (!this.running) {
+			wakeUp();
+		} else if (pending) {
+			resume();
+		}
+	}
+
+	/**
+	 * Wakes up the agent. If the agent is sleeping (see
+	 * {@link #sleep(Runnable)}), its task is submitted to the thread pool
+	 * again. Threads waiting in {@link #awaitWakeUp()} are released as well.
+	 * Does nothing when the agent is awake.
+	 */
+	public final void wakeUp() {
+		synchronized (this.wakeUpLock) {
+			this.wakeUpPending = true;
+			this.wakeUpLock.notifyAll();
+		}
+		resume();
+	}
+
+	/**
+	 * Submits the task of the agent to the thread pool if it is sleeping, and
+	 * cancels its poll.
+	 */
+	private void resume() {
+		ScheduledFuture<?> scheduled = this.poll.getAndSet(null);
+		if (scheduled != null) {
+			scheduled.cancel(false);
+		}
+		Runnable task = this.sleeping.getAndSet(null);
+		if (task != null) {
+			this.pool.execute(task);
+		}
+	}
+
+	/**
+	 * Blocks the calling thread until {@link #wakeUp()} is called, or until
+	 * the sleep poll interval (see {@link PMPreferences#getSleepPollInterval()}
+	 * ) has passed. Returns immediately if a wake up occurred since the last
+	 * call. Used by agents that cannot hand over their task using
+	 * {@link #sleep(Runnable)}.
+	 *
+	 * @throws InterruptedException
+	 *             when interrupted while waiting.
+	 */
+	public final void awaitWakeUp() throws InterruptedException {
+		synchronized (this.wakeUpLock) {
+			if (!this.wakeUpPending && this.running) {
+				this.wakeUpLock.wait(PMPreferences.getSleepPollInterval());
+			}
+			this.wakeUpPending = false;
 		}
 	}
 
@@ -4,12 +4,15 @@ import eis.exceptions.EnvironmentInterfaceException;
 import eis.iilang.Action;
 import eis.iilang.Percept;
 import goal.core.runtime.service.environmentport.EnvironmentPort;
+import goal.core.runtime.service.environmentport.EnvironmentPortObserver;
+import goal.core.runtime.service.environmentport.environmentport.events.EnvironmentEvent;
+import goal.core.runtime.service.environmentport.environmentport.events.NewPerceptEvent;
 
 import java.util.Collection;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import languageTools.program.agent.AgentId;
 import nl.tudelft.goal.messaging.exceptions.MessagingException;
@@ -24,14 +27,46 @@ import nl.tudelft.goal.messaging.exceptions.MessagingException;
  */
 public class DefaultEnvironmentCapabilities implements EnvironmentCapabilities {
 	/**
-	 * The percept buffer of the {@link AgentMesg}.
+	 * The percept buffer of the {@link AgentMesg}. Thread safe, as percepts
+	 * pushed by the environment are added on the environment port's thread.
 	 */
-	private final Queue<Percept> perceptBuffer = new LinkedList<>();
+	private final Queue<Percept> perceptBuffer = new ConcurrentLinkedQueue<>();
 
 	private final EnvironmentPort environment;
 
 	private final AgentId id;
 
+	/**
+	 * Listener informed about percepts pushed by the environment; may be
+	 * {@code null}.
+	 */
+	private volatile InputListener inputListener = null;
+
+	/**
+	 * Buffers percepts that the environment pushes to this agent (see
+	 * {@link NewPerceptEvent}) and informs the {@link InputListener}.
+	 */
+	private final EnvironmentPortObserver perceptObserver = new EnvironmentPortObserver() {
+		@Override
+		public void EnvironmentPortEventOccured(
+				EnvironmentPort environmentPort, EnvironmentEvent event) {
+			if (!(event instanceof NewPerceptEvent)) {
+				return;
+			}
+			NewPerceptEvent percept = (NewPerceptEvent) event;
+			if (!DefaultEnvironmentCapabilities.this.id.getName().equals(
+					percept.getAgent())) {
+				return;
+			}
+			DefaultEnvironmentCapabilities.this.perceptBuffer.add(percept
+					.getPercept());
+			InputListener listener = DefaultEnvironmentCapabilities.this.inputListener;
+			if (listener != null) {
+				listener.inputAvailable();
+			}
+		}
+	};
+
 	/**
 	 * Constructs the default environment capabilities.
 	 *
@@ -44,6 +79,7 @@ public class DefaultEnvironmentCapabilities implements EnvironmentCapabilities {
 			EnvironmentPort environmentPort) {
 		this.id = agentId;
 		this.environment = environmentPort;
+		this.environment.addObserver(this.perceptObserver);
 	}
 
 	/*
@@ -67,8 +103,10 @@ public class DefaultEnvironmentCapabilities implements EnvironmentCapabilities {
 	EnvironmentInterfaceException {
 		Set<Percept> percepts = new LinkedHashSet<>();
 
-		percepts.addAll(this.perceptBuffer);
-		this.perceptBuffer.clear();
+		Percept buffered;
+		while ((buffered = this.perceptBuffer.poll()) != null) {
+			percepts.add(buffered);
+		}
 
 		// Only request percepts from environment if we are connected to an
 		// environment and that environment is running;
@@ -93,9 +131,16 @@ public class DefaultEnvironmentCapabilities implements EnvironmentCapabilities {
 		this.perceptBuffer.addAll(percepts);
 	}
 
+	@Override
+	public void setInputListener(InputListener listener) {
+		this.inputListener = listener;
+	}
+
 	@Override
 	public void dispose() throws MessagingException,
 	EnvironmentInterfaceException {
+		this.inputListener = null;
+		this.environment.deleteObserver(this.perceptObserver);
 		this.environment.freeAgent(this.id.getName());
 	}
 }
@@ -25,6 +25,7 @@ public class DefaultLoggingCapabilities implements LoggingCapabilities {
 
 	@Override
 	public void dispose() {
-		// TODO (Wouter): Implement dispose in logger to close file.
+		// writes the records that are still waiting and closes the file.
+		this.logActionLogger.removeLogToFileHandler();
 	}
 }
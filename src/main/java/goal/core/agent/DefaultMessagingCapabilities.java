@@ -2,21 +2,17 @@ package goal.core.agent;
 
 import goal.core.runtime.MessagingService;
 import goal.tools.errorhandling.Warning;
-import goal.tools.errorhandling.exceptions.GOALBug;
 import goal.tools.errorhandling.exceptions.GOALMessagingException;
 
-import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 import languageTools.program.agent.AgentId;
 import languageTools.program.agent.msg.Message;
 import nl.tudelft.goal.messaging.exceptions.MessagingException;
 import nl.tudelft.goal.messaging.messagebox.MessageBox;
 import nl.tudelft.goal.messaging.messagebox.MessageBoxId;
-import nl.tudelft.goal.messaging.messagebox.MessageBoxId.Type;
 import nl.tudelft.goal.messaging.messagebox.MessageBoxListener;
 
 /**
@@ -35,10 +31,15 @@ public class DefaultMessagingCapabilities implements MessagingCapabilities {
 	/**
 	 * The incoming message queue of the {@link AgentMesg}. Thread safe.
 	 */
-	private final Queue<Message> messageInQueue = new ConcurrentLinkedQueue<>();
+	private final Inbox<Message> messageInQueue;
 
 	private final MessagingService messaging;
 
+	/**
+	 * Listener informed about newly received messages; may be {@code null}.
+	 */
+	private volatile InputListener inputListener = null;
+
 	/**
 	 * Constructs the default messaging capabilities.
 	 *
@@ -49,8 +50,25 @@ public class DefaultMessagingCapabilities implements MessagingCapabilities {
 	 */
 	public DefaultMessagingCapabilities(MessagingService messaging,
 			MessageBox messageBox) {
+		this(messaging, messageBox, new Inbox<Message>());
+	}
+
+	/**
+	 * Constructs the default messaging capabilities.
+	 *
+	 * @param messaging
+	 *            system used to communicate
+	 * @param messageBox
+	 *            connected to the messaging system
+	 * @param inbox
+	 *            the queue for incoming messages; determines how many
+	 *            messages are kept and how many are handled every cycle.
+	 */
+	public DefaultMessagingCapabilities(MessagingService messaging,
+			MessageBox messageBox, Inbox<Message> inbox) {
 		this.messaging = messaging;
 		this.messageBox = messageBox;
+		this.messageInQueue = inbox;
 
 		this.messageBox.addListener(this.listener);
 	}
@@ -62,8 +80,15 @@ public class DefaultMessagingCapabilities implements MessagingCapabilities {
 			switch (message.getSender().getType()) {
 			case GOALAGENT:
 				// another agent has sent us a message.
-				DefaultMessagingCapabilities.this.messageInQueue
-						.add((Message) message.getContent());
+				if (!DefaultMessagingCapabilities.this.messageInQueue
+						.offer((Message) message.getContent())) {
+					// dropped or coalesced; nothing new for the agent.
+					return true;
+				}
+				InputListener listener = DefaultMessagingCapabilities.this.inputListener;
+				if (listener != null) {
+					listener.inputAvailable();
+				}
 				return true;
 			default:
 				// If we get here, we don't know how to handle the
@@ -97,11 +122,15 @@ public class DefaultMessagingCapabilities implements MessagingCapabilities {
 	 */
 	@Override
 	public Set<Message> getAllMessages() {
-		LinkedHashSet<Message> messages = new LinkedHashSet<>();
-		while (!this.messageInQueue.isEmpty()) {
-			messages.add(this.messageInQueue.remove());
-		}
-		return messages;
+		return this.messageInQueue.drain();
+	}
+
+	/**
+	 * @return the queue of incoming messages, e.g. to inspect how many
+	 *         messages have been dropped.
+	 */
+	public Inbox<Message> getInbox() {
+		return this.messageInQueue;
 	}
 
 	/*
@@ -111,30 +140,41 @@ public class DefaultMessagingCapabilities implements MessagingCapabilities {
 	 */
 	@Override
 	public void postMessage(Message message) {
-		// Send mails to each of the receivers of the message.
-		for (AgentId receiver : message.getReceivers()) {
+		// Send mails to each of the receivers of the message; the message
+		// boxes of all receivers are resolved at once by the routing table.
+		List<AgentId> unknown = new LinkedList<>();
+		List<MessageBoxId> recvBoxes;
+		try {
+			recvBoxes = this.messaging.getRoutes(message.getReceivers(),
+					unknown);
+		} catch (MessagingException e) {
+			throw new GOALMessagingException(e.getMessage(), e);
+		}
+		for (AgentId receiver : unknown) {
+			new Warning("unknown receiver " + receiver);
+		}
+		for (MessageBoxId recvBox : recvBoxes) {
 			try {
-				List<MessageBoxId> recvBoxes = this.messaging.getClient()
-						.getMessageBoxes(Type.GOALAGENT, receiver.getName());
-				if (recvBoxes.isEmpty()) {
-					new Warning("unknown receiver " + receiver);
-					continue;
-				}
-				if (recvBoxes.size() != 1) {
-					throw new GOALBug(
-							"there are multiple agents using the messagebox name "
-									+ receiver);
-				}
-				this.messageBox.send(this.messageBox.createMessage(
-						recvBoxes.get(0), message, null));
+				this.messageBox.send(this.messageBox.createMessage(recvBox,
+						message, null));
 			} catch (MessagingException e) {
+				// the route may be stale; look it up again next time.
+				this.messaging.removeRoute(recvBox.getName());
 				throw new GOALMessagingException(e.getMessage(), e);
 			}
 		}
 	}
 
+	@Override
+	public void setInputListener(InputListener listener) {
+		this.inputListener = listener;
+	}
+
 	@Override
 	public void dispose() {
+		this.inputListener = null;
+		// release senders that are waiting for room in our inbox.
+		this.messageInQueue.close();
 		try {
 			this.messageBox.removeListener(this.listener);
 		} catch (MessagingException e) {
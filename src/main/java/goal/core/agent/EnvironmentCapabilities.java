@@ -57,6 +57,16 @@ public interface EnvironmentCapabilities {
 	public abstract Set<Percept> getPercepts() throws MessagingException,
 	EnvironmentInterfaceException;
 
+	/**
+	 * Sets the listener that should be informed when new percepts are pushed
+	 * to the agent by the environment.
+	 *
+	 * @param listener
+	 *            to inform about new percepts, or {@code null} to remove the
+	 *            current listener.
+	 */
+	public abstract void setInputListener(InputListener listener);
+
 	/**
 	 * Releases any resources held.
 	 *
@@ -92,10 +92,15 @@ public class GOALInterpreter<DEBUGGER extends Debugger> extends Controller {
 	protected void initalizeController(Agent<? extends Controller> agent)
 			throws KRInitFailedException {
 		super.initalizeController(agent);
-		this.program.getKRInterface().initialize();
+		// agents may be built in parallel; the KR interface they share is
+		// initialized by one of them.
+		synchronized (this.program.getKRInterface()) {
+			this.program.getKRInterface().initialize();
+		}
 		this.runState = new RunState<>(this, agent.getId(),
 				agent.getEnvironment(), agent.getMessaging(),
-				agent.getLogging(), this.program, this.debugger, this.learner);
+				agent.getLogging(), this.program, this.debugger, this.learner,
+				agent.getEngine());
 	}
 
 	@Override
@@ -132,15 +137,32 @@ public class GOALInterpreter<DEBUGGER extends Debugger> extends Controller {
 										GOALInterpreter.this.program
 												.getKRInterface()
 												.getSubstitution(null));
+					} else if (GOALInterpreter.this.runState.isAsleep()
+							&& isRunning()) {
+						// We have been woken up; continue only when new input
+						// has arrived, go back to sleep otherwise.
+						if (!GOALInterpreter.this.runState.resumeCycle()) {
+							sleep(getRunnable(pool, call));
+							return;
+						}
 					}
 					Callable<Callable<?>> out = null;
-					if (call != null) {
+					if (call != null
+							&& GOALInterpreter.this.runState.isAsleep()) {
+						// Postpone the current task until we are woken up
+						out = call;
+					} else if (call != null) {
 						// Run the current task
 						out = (Callable<Callable<?>>) call.call();
 					}
 					if (out != null && isRunning()) {
-						// Submit the next task (when any)
-						pool.execute(getRunnable(pool, out));
+						if (GOALInterpreter.this.runState.isAsleep()) {
+							// Release our thread until new input arrives
+							sleep(getRunnable(pool, out));
+						} else {
+							// Submit the next task (when any)
+							pool.execute(getRunnable(pool, out));
+						}
 					} else {
 						// Clean-up (terminate/dispose)
 						GOALInterpreter.this.learner.terminate(
@@ -0,0 +1,378 @@
+package goal.core.agent;
+
+import goal.preferences.PMPreferences;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The queue of incoming messages of an agent. An inbox can have a capacity;
+ * what happens to a message that arrives when the inbox is full is
+ * determined by its {@link OverflowPolicy}. An inbox can also have a budget:
+ * the maximum number of messages that the agent takes out of the inbox in one
+ * cycle, so that an agent that is flooded with messages still gets to run its
+ * own rules. The remaining messages are handled in the next cycles.
+ *
+ * @param <E>
+ *            the type of the messages.
+ */
+public class Inbox<E> {
+	/**
+	 * What happens when a message arrives at a full inbox.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * The sender waits until there is room in the inbox, for at most
+		 * {@link Inbox#BLOCK_TIMEOUT} milliseconds; the message is dropped if
+		 * there is no room by then.
+		 */
+		BLOCK,
+		/**
+		 * The oldest message in the inbox is dropped.
+		 */
+		DROP_OLDEST,
+		/**
+		 * The new message is dropped.
+		 */
+		DROP_NEWEST,
+		/**
+		 * A message that is equal to a message that is still in the inbox is
+		 * always dropped (also when the inbox is not full), as the agent
+		 * would handle both in the same cycle anyway. If the inbox is full,
+		 * the oldest message is dropped.
+		 */
+		COALESCE;
+
+		/**
+		 * @param name
+		 *            the name of the policy: "block", "dropoldest",
+		 *            "dropnewest" or "coalesce" (case insensitive).
+		 * @return the policy.
+		 * @throws IllegalArgumentException
+		 *             if there is no policy with the name.
+		 */
+		public static OverflowPolicy parse(String name) {
+			switch (name.toLowerCase()) {
+			case "block": //$NON-NLS-1$
+				return BLOCK;
+			case "dropoldest": //$NON-NLS-1$
+				return DROP_OLDEST;
+			case "dropnewest": //$NON-NLS-1$
+				return DROP_NEWEST;
+			case "coalesce": //$NON-NLS-1$
+				return COALESCE;
+			default:
+				throw new IllegalArgumentException("unknown overflow policy " //$NON-NLS-1$
+						+ name);
+			}
+		}
+	}
+
+	/**
+	 * The capacity, overflow policy and budget of an inbox; used to configure
+	 * the inboxes of (some of) the agents of a MAS before they are created.
+	 */
+	public static final class Settings {
+		private final int capacity;
+		private final OverflowPolicy policy;
+		private final int budget;
+
+		/**
+		 * @param capacity
+		 *            the maximum number of messages in the inbox, or 0 for an
+		 *            unbounded inbox.
+		 * @param policy
+		 *            what happens when a message arrives at a full inbox.
+		 * @param budget
+		 *            the maximum number of messages handled in one cycle, or 0
+		 *            to handle all messages.
+		 */
+		public Settings(int capacity, OverflowPolicy policy, int budget) {
+			this.capacity = capacity;
+			this.policy = policy;
+			this.budget = budget;
+		}
+
+		/**
+		 * @return the settings of the inbox preferences, see
+		 *         {@link PMPreferences#getInboxCapacity()},
+		 *         {@link PMPreferences#getInboxPolicy()} and
+		 *         {@link PMPreferences#getMessageBudget()}.
+		 */
+		public static Settings fromPreferences() {
+			return new Settings(PMPreferences.getInboxCapacity(),
+					OverflowPolicy.parse(PMPreferences.getInboxPolicy()),
+					PMPreferences.getMessageBudget());
+		}
+
+		/**
+		 * @return a new, empty inbox with these settings.
+		 */
+		public <E> Inbox<E> newInbox() {
+			return new Inbox<E>(this.capacity, this.policy, this.budget);
+		}
+
+		@Override
+		public String toString() {
+			return "capacity " + this.capacity + " " + this.policy //$NON-NLS-1$ //$NON-NLS-2$
+					+ " budget " + this.budget; //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * The maximum time (in milliseconds) a sender waits for room in a full
+	 * inbox with the {@link OverflowPolicy#BLOCK} policy. Senders do not wait
+	 * indefinitely, as two agents that wait for each other would deadlock.
+	 */
+	public static final long BLOCK_TIMEOUT = 1000;
+
+	private final int capacity;
+	private final OverflowPolicy policy;
+	private final int budget;
+	private final ArrayDeque<E> queue = new ArrayDeque<>();
+	/**
+	 * The number of times every message is in the queue; only kept for the
+	 * {@link OverflowPolicy#COALESCE} policy.
+	 */
+	private final Map<E, Integer> queued;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notFull = this.lock.newCondition();
+	private long dropped = 0;
+	private long coalesced = 0;
+	private boolean closed = false;
+
+	/**
+	 * Creates an unbounded inbox without a budget.
+	 */
+	public Inbox() {
+		this(0, OverflowPolicy.DROP_OLDEST, 0);
+	}
+
+	/**
+	 * @param capacity
+	 *            the maximum number of messages in the inbox, or 0 for an
+	 *            unbounded inbox.
+	 * @param policy
+	 *            what happens when a message arrives at a full inbox.
+	 * @param budget
+	 *            the maximum number of messages returned by {@link #drain()},
+	 *            or 0 to return all messages.
+	 */
+	public Inbox(int capacity, OverflowPolicy policy, int budget) {
+		if (capacity < 0 || budget < 0) {
+			throw new IllegalArgumentException(
+					"capacity and budget should not be negative"); //$NON-NLS-1$
+		}
+		this.capacity = capacity;
+		this.policy = policy;
+		this.budget = budget;
+		this.queued = (policy == OverflowPolicy.COALESCE) ? new HashMap<E, Integer>()
+				: null;
+	}
+
+	/**
+	 * Adds a message to the inbox, applying the overflow policy if the inbox
+	 * is full.
+	 *
+	 * @param message
+	 *            the message.
+	 * @return true if the message was added; false if it was dropped or
+	 *         coalesced with a message in the inbox.
+	 */
+	public boolean offer(E message) {
+		this.lock.lock();
+		try {
+			if (this.closed) {
+				this.dropped++;
+				return false;
+			}
+			if (this.queued != null && this.queued.containsKey(message)) {
+				this.coalesced++;
+				return false;
+			}
+			if (this.capacity > 0 && this.queue.size() >= this.capacity) {
+				switch (this.policy) {
+				case BLOCK:
+					if (!awaitRoom()) {
+						this.dropped++;
+						return false;
+					}
+					break;
+				case DROP_NEWEST:
+					this.dropped++;
+					return false;
+				default:
+					removed(this.queue.poll());
+					this.dropped++;
+					break;
+				}
+			}
+			this.queue.add(message);
+			if (this.queued != null) {
+				Integer count = this.queued.get(message);
+				this.queued.put(message, (count == null) ? 1 : count + 1);
+			}
+			return true;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until the inbox is not full. Should be called while holding the
+	 * lock.
+	 *
+	 * @return false if there is still no room after {@link #BLOCK_TIMEOUT},
+	 *         or if the inbox has been closed.
+	 */
+	private boolean awaitRoom() {
+		long nanos = TimeUnit.MILLISECONDS.toNanos(BLOCK_TIMEOUT);
+		try {
+			while (this.queue.size() >= this.capacity && !this.closed) {
+				if (nanos <= 0) {
+					return false;
+				}
+				nanos = this.notFull.awaitNanos(nanos);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		return !this.closed;
+	}
+
+	private void removed(E message) {
+		if (this.queued != null) {
+			Integer count = this.queued.get(message);
+			if (count == null || count <= 1) {
+				this.queued.remove(message);
+			} else {
+				this.queued.put(message, count - 1);
+			}
+		}
+	}
+
+	/**
+	 * Takes the oldest messages out of the inbox, at most the budget of the
+	 * inbox.
+	 *
+	 * @return the messages, in the order in which they arrived.
+	 */
+	public Set<E> drain() {
+		this.lock.lock();
+		try {
+			int count = this.queue.size();
+			if (this.budget > 0) {
+				count = Math.min(count, this.budget);
+			}
+			Set<E> messages = new LinkedHashSet<>(count);
+			for (int i = 0; i < count; i++) {
+				E message = this.queue.poll();
+				removed(message);
+				messages.add(message);
+			}
+			if (count > 0) {
+				this.notFull.signalAll();
+			}
+			return messages;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all messages from the inbox.
+	 */
+	public void clear() {
+		this.lock.lock();
+		try {
+			this.queue.clear();
+			if (this.queued != null) {
+				this.queued.clear();
+			}
+			this.notFull.signalAll();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Closes the inbox: senders that are waiting for room give up, and new
+	 * messages are dropped.
+	 */
+	public void close() {
+		this.lock.lock();
+		try {
+			this.closed = true;
+			this.notFull.signalAll();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of messages in the inbox.
+	 */
+	public int size() {
+		this.lock.lock();
+		try {
+			return this.queue.size();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the maximum number of messages in the inbox; 0 if unbounded.
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * @return the overflow policy of the inbox.
+	 */
+	public OverflowPolicy getPolicy() {
+		return this.policy;
+	}
+
+	/**
+	 * @return the maximum number of messages returned by {@link #drain()}; 0
+	 *         if unlimited.
+	 */
+	public int getBudget() {
+		return this.budget;
+	}
+
+	/**
+	 * @return the number of messages that have been dropped because the
+	 *         inbox was full (or closed).
+	 */
+	public long getDropped() {
+		this.lock.lock();
+		try {
+			return this.dropped;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of messages that have been dropped because an equal
+	 *         message was in the inbox, see {@link OverflowPolicy#COALESCE}.
+	 */
+	public long getCoalesced() {
+		this.lock.lock();
+		try {
+			return this.coalesced;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package goal.core.agent;
+
+import goal.core.runtime.service.agent.PerceptDelta;
+import nl.tudelft.goal.messaging.exceptions.MessagingException;
+import eis.exceptions.EnvironmentInterfaceException;
+
+/**
+ * {@link EnvironmentCapabilities} of an environment that can tell which
+ * percepts of the agent have changed, instead of sending all percepts every
+ * cycle. The agent then uses {@link #getPerceptDelta()} instead of
+ * {@link #getPercepts()}, so that the cost of processing percepts only depends
+ * on the number of changes.
+ */
+public interface IncrementalEnvironmentCapabilities extends
+		EnvironmentCapabilities {
+
+	/**
+	 * Collects the changes of the percepts since the previous call. The first
+	 * call returns all percepts as added.
+	 *
+	 * @return the changes of the percepts of the agent.
+	 * @throws MessagingException
+	 * @throws EnvironmentInterfaceException
+	 */
+	public abstract PerceptDelta getPerceptDelta() throws MessagingException,
+			EnvironmentInterfaceException;
+}
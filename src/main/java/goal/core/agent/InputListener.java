@@ -0,0 +1,18 @@
+package goal.core.agent;
+
+/**
+ * Listener that is informed when new input (percepts or messages) becomes
+ * available for an agent. Used to wake up agents that went to sleep because
+ * their input did not change.
+ *
+ * Implementations should return quickly, as they are called on the thread
+ * that delivers the input (e.g. the messaging or environment thread).
+ */
+public interface InputListener {
+
+	/**
+	 * Called when new input has become available for the agent.
+	 */
+	public abstract void inputAvailable();
+
+}
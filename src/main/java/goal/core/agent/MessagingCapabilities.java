@@ -22,9 +22,11 @@ public interface MessagingCapabilities {
 	public abstract void reset();
 
 	/**
-	 * Get all messages from the queue and empties the queue.
+	 * Get all messages from the queue and empties the queue. Implementations
+	 * may limit the number of messages that is returned in one call (see
+	 * {@link Inbox#getBudget()}); the remaining messages stay in the queue.
 	 *
-	 * @return all messages in the queue
+	 * @return all (or the oldest) messages in the queue
 	 */
 	public abstract Set<Message> getAllMessages();
 
@@ -36,6 +38,16 @@ public interface MessagingCapabilities {
 	 */
 	public abstract void postMessage(Message message);
 
+	/**
+	 * Sets the listener that should be informed when a new message has been
+	 * received.
+	 *
+	 * @param listener
+	 *            to inform about new messages, or {@code null} to remove the
+	 *            current listener.
+	 */
+	public abstract void setInputListener(InputListener listener);
+
 	/**
 	 * Release any resources held.
 	 */
@@ -34,6 +34,11 @@ public class NoEnvironmentCapabilities implements EnvironmentCapabilities {
 				action.toProlog()));
 	}
 
+	@Override
+	public void setInputListener(InputListener listener) {
+		// No input will ever arrive.
+	}
+
 	@Override
 	public void dispose() {
 		// Does nothing.
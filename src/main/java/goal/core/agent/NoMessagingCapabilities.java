@@ -28,6 +28,11 @@ public class NoMessagingCapabilities implements MessagingCapabilities {
 		// Does nothing.
 	}
 
+	@Override
+	public void setInputListener(InputListener listener) {
+		// No input will ever arrive.
+	}
+
 	@Override
 	public void dispose() {
 		// Does nothing.
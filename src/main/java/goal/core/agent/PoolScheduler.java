@@ -0,0 +1,40 @@
+package goal.core.agent;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the steps of all agents on a fixed thread pool with a single shared
+ * queue, in the order in which they are submitted. This is the original
+ * scheduler of the platform.
+ */
+public class PoolScheduler implements AgentScheduler {
+	private final ThreadPoolExecutor pool;
+
+	/**
+	 * @param threads
+	 *            the number of threads of the pool.
+	 */
+	public PoolScheduler(int threads) {
+		this.pool = new ThreadPoolExecutor(threads, threads, 0L,
+				TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+	}
+
+	@Override
+	public void execute(Controller agent, Runnable step) {
+		this.pool.execute(step);
+	}
+
+	@Override
+	public SchedulerStatistics getStatistics() {
+		return new SchedulerStatistics(
+				new int[] { this.pool.getQueue().size() },
+				this.pool.getCompletedTaskCount(), 0, 0);
+	}
+
+	@Override
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+}
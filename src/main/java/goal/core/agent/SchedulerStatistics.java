@@ -0,0 +1,83 @@
+package goal.core.agent;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of the statistics of an {@link AgentScheduler}.
+ */
+public class SchedulerStatistics {
+	private final int[] queueDepths;
+	private final long executed;
+	private final long steals;
+	private final long yields;
+
+	/**
+	 * @param queueDepths
+	 *            the number of steps waiting in the queue of every thread (or
+	 *            in the single shared queue).
+	 * @param executed
+	 *            the number of steps that have been run.
+	 * @param steals
+	 *            the number of steps that have been taken by a thread from the
+	 *            queue of another thread.
+	 * @param yields
+	 *            the number of times an agent had to let other agents run
+	 *            because it used up its quantum.
+	 */
+	public SchedulerStatistics(int[] queueDepths, long executed, long steals,
+			long yields) {
+		this.queueDepths = queueDepths.clone();
+		this.executed = executed;
+		this.steals = steals;
+		this.yields = yields;
+	}
+
+	/**
+	 * @return the number of steps waiting in the queue of every thread (or in
+	 *         the single shared queue).
+	 */
+	public int[] getQueueDepths() {
+		return this.queueDepths.clone();
+	}
+
+	/**
+	 * @return the total number of steps waiting to be run.
+	 */
+	public int getQueued() {
+		int queued = 0;
+		for (int depth : this.queueDepths) {
+			queued += depth;
+		}
+		return queued;
+	}
+
+	/**
+	 * @return the number of steps that have been run.
+	 */
+	public long getExecuted() {
+		return this.executed;
+	}
+
+	/**
+	 * @return the number of steps that have been taken by a thread from the
+	 *         queue of another thread.
+	 */
+	public long getSteals() {
+		return this.steals;
+	}
+
+	/**
+	 * @return the number of times an agent had to let other agents run
+	 *         because it used up its quantum.
+	 */
+	public long getYields() {
+		return this.yields;
+	}
+
+	@Override
+	public String toString() {
+		return "executed=" + this.executed + " queued=" //$NON-NLS-1$ //$NON-NLS-2$
+				+ Arrays.toString(this.queueDepths) + " steals=" + this.steals //$NON-NLS-1$
+				+ " yields=" + this.yields; //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,169 @@
+package goal.core.agent;
+
+import goal.tools.errorhandling.Warning;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs every agent on a thread of its own. The steps of an agent are run one
+ * after the other in a loop on its thread, so a step that blocks (on the
+ * environment, the KR engine or a paused debugger) only blocks its own agent
+ * and the number of threads does not have to be sized by hand. A sleeping
+ * agent waits on its thread until it is woken up. The thread ends when the
+ * agent has terminated, which is as soon as its last step has run.
+ * <p>
+ * Threads are daemon threads with a small stack, so that a MAS can have
+ * thousands of agents that spend most of their time waiting.
+ * </p>
+ */
+public class ThreadPerAgentScheduler implements AgentScheduler {
+	/**
+	 * Stack size of the threads of the agents. Deep recursion happens in the
+	 * KR engine, which has its own stacks.
+	 */
+	private static final long STACK_SIZE = 512 * 1024;
+	/**
+	 * Interval at which the thread of a waiting agent checks whether the
+	 * agent has terminated, in case it was not terminated by its own step.
+	 */
+	private static final long POLL_INTERVAL = 1000;
+
+	private final Map<Controller, AgentThread> threads = new IdentityHashMap<>();
+	private final AtomicLong executed = new AtomicLong();
+	private volatile boolean shutdown = false;
+
+	@Override
+	public void execute(Controller agent, Runnable step) {
+		Thread current = Thread.currentThread();
+		if (current instanceof AgentThread) {
+			AgentThread thread = (AgentThread) current;
+			if (thread.getScheduler() == this && thread.agent == agent) {
+				// the next step of the agent that is running on this thread.
+				thread.next = step;
+				return;
+			}
+		}
+		synchronized (this) {
+			AgentThread thread = this.threads.get(agent);
+			if (thread == null) {
+				thread = new AgentThread(agent, step);
+				this.threads.put(agent, thread);
+				thread.start();
+			} else {
+				thread.inbox.add(step);
+			}
+		}
+	}
+
+	@Override
+	public synchronized SchedulerStatistics getStatistics() {
+		int[] depths = new int[this.threads.size()];
+		int i = 0;
+		for (AgentThread thread : this.threads.values()) {
+			depths[i++] = thread.inbox.size();
+		}
+		return new SchedulerStatistics(depths, this.executed.get(), 0, 0);
+	}
+
+	/**
+	 * @return the number of agents that have a thread.
+	 */
+	public synchronized int getThreadCount() {
+		return this.threads.size();
+	}
+
+	@Override
+	public void shutdown() {
+		this.shutdown = true;
+	}
+
+	/**
+	 * Removes the thread of an agent if no steps have been submitted to it.
+	 *
+	 * @return true if the thread was removed and should end.
+	 */
+	private synchronized boolean remove(AgentThread thread) {
+		if (thread.inbox.isEmpty()) {
+			this.threads.remove(thread.agent);
+			return true;
+		}
+		return false;
+	}
+
+	private class AgentThread extends Thread {
+		private final Controller agent;
+		/**
+		 * Steps submitted from other threads, e.g. when the agent is woken
+		 * up.
+		 */
+		private final LinkedBlockingQueue<Runnable> inbox = new LinkedBlockingQueue<>();
+		/**
+		 * The next step, when it is submitted by the running step.
+		 */
+		private Runnable next;
+		private Runnable first;
+
+		AgentThread(Controller agent, Runnable first) {
+			super(null, null, "Agent " //$NON-NLS-1$
+					+ ((agent.agent == null) ? "" : agent.agent.getId()), //$NON-NLS-1$
+					STACK_SIZE);
+			setDaemon(true);
+			this.agent = agent;
+			this.first = first;
+		}
+
+		ThreadPerAgentScheduler getScheduler() {
+			return ThreadPerAgentScheduler.this;
+		}
+
+		@Override
+		public void run() {
+			Runnable step = this.first;
+			this.first = null;
+			while (step != null) {
+				this.next = null;
+				try {
+					step.run();
+				} catch (RuntimeException e) {
+					new Warning("step of agent failed", e); //$NON-NLS-1$
+				} finally {
+					ThreadPerAgentScheduler.this.executed.incrementAndGet();
+				}
+				step = this.next;
+				if (step == null) {
+					step = await();
+				}
+			}
+		}
+
+		/**
+		 * Waits for a step from another thread, as long as the agent has not
+		 * terminated. An agent usually terminates in its last step, so this
+		 * is checked before waiting, and the thread ends right away.
+		 *
+		 * @return the step, or null if the thread should end.
+		 */
+		private Runnable await() {
+			try {
+				while (true) {
+					if ((this.agent.isTerminated() || ThreadPerAgentScheduler.this.shutdown)
+							&& remove(this)) {
+						return null;
+					}
+					Runnable step = this.inbox.poll(POLL_INTERVAL,
+							TimeUnit.MILLISECONDS);
+					if (step != null) {
+						return step;
+					}
+				}
+			} catch (InterruptedException e) {
+				remove(this);
+				return this.inbox.poll();
+			}
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package goal.core.agent;
+
+import goal.tools.errorhandling.Warning;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the steps of agents on a set of threads that each have their own queue.
+ * <p>
+ * Every agent has a home thread. Steps submitted from outside the scheduler
+ * (starting an agent, waking it up) are added to the back of the queue of the
+ * home thread. The next step of an agent that is submitted while it runs is
+ * put at the front of the queue of the same thread, so that an agent keeps
+ * running on one thread (and its data stays in the caches of that thread),
+ * until it has run for its quantum: the configured quantum times the
+ * {@link Controller#getWeight()} of the agent. The agent then yields: its
+ * next step is put at the back of the queue, behind the steps of the other
+ * agents. A heavy agent can thus not starve light agents that share its
+ * thread.
+ * </p>
+ * <p>
+ * A thread that has nothing to do steals the newest step from the back of the
+ * queue of another thread, so that it does not take the continuation at the
+ * front that the owner of the queue is about to run. The thread becomes the
+ * new home of the agent of that step.
+ * </p>
+ */
+public class WorkStealingScheduler implements AgentScheduler {
+	private final Worker[] workers;
+	private final long quantum;
+	/**
+	 * The number of steps in all queues.
+	 */
+	private final AtomicInteger pending = new AtomicInteger();
+	/**
+	 * The number of threads that are waiting for steps on {@link #idleLock}.
+	 */
+	private final AtomicInteger idle = new AtomicInteger();
+	private final Object idleLock = new Object();
+	/**
+	 * Used to assign home threads to agents round-robin.
+	 */
+	private final AtomicInteger nextHome = new AtomicInteger();
+	private final AtomicLong executed = new AtomicLong();
+	private final AtomicLong steals = new AtomicLong();
+	private final AtomicLong yields = new AtomicLong();
+	private volatile boolean shutdown = false;
+
+	/**
+	 * @param threads
+	 *            the number of threads.
+	 * @param quantum
+	 *            the time an agent with weight 1 may run before it has to
+	 *            yield.
+	 * @param unit
+	 *            the unit of the quantum.
+	 */
+	public WorkStealingScheduler(int threads, long quantum, TimeUnit unit) {
+		this.quantum = unit.toNanos(quantum);
+		this.workers = new Worker[Math.max(1, threads)];
+		for (int i = 0; i < this.workers.length; i++) {
+			this.workers[i] = new Worker(i);
+		}
+		for (Worker worker : this.workers) {
+			worker.start();
+		}
+	}
+
+	@Override
+	public void execute(Controller agent, Runnable step) {
+		Thread current = Thread.currentThread();
+		Worker worker = null;
+		if (current instanceof Worker
+				&& ((Worker) current).getScheduler() == this) {
+			worker = (Worker) current;
+		}
+		if (worker != null && worker.running == agent) {
+			// the next step of the agent that is running on this thread.
+			if (System.nanoTime() - worker.turnStart < this.quantum
+					* agent.getWeight()) {
+				worker.queue.offerFirst(new Step(agent, step, true));
+			} else {
+				this.yields.incrementAndGet();
+				worker.queue.offerLast(new Step(agent, step, false));
+			}
+		} else {
+			getHome(agent).queue.offerLast(new Step(agent, step, false));
+		}
+		this.pending.incrementAndGet();
+		if (this.idle.get() > 0) {
+			synchronized (this.idleLock) {
+				this.idleLock.notify();
+			}
+		}
+	}
+
+	@Override
+	public SchedulerStatistics getStatistics() {
+		int[] depths = new int[this.workers.length];
+		for (int i = 0; i < depths.length; i++) {
+			depths[i] = this.workers[i].queue.size();
+		}
+		return new SchedulerStatistics(depths, this.executed.get(),
+				this.steals.get(), this.yields.get());
+	}
+
+	@Override
+	public void shutdown() {
+		this.shutdown = true;
+		synchronized (this.idleLock) {
+			this.idleLock.notifyAll();
+		}
+	}
+
+	private Worker getHome(Controller agent) {
+		int home = agent.worker;
+		if (home < 0 || home >= this.workers.length) {
+			home = (this.nextHome.getAndIncrement() & Integer.MAX_VALUE)
+					% this.workers.length;
+			agent.worker = home;
+		}
+		return this.workers[home];
+	}
+
+	/**
+	 * A step of an agent.
+	 */
+	private static class Step {
+		private final Controller agent;
+		private final Runnable task;
+		/**
+		 * True if the step continues the turn of the agent.
+		 */
+		private final boolean continuation;
+
+		Step(Controller agent, Runnable task, boolean continuation) {
+			this.agent = agent;
+			this.task = task;
+			this.continuation = continuation;
+		}
+	}
+
+	private class Worker extends Thread {
+		private final int index;
+		private final ConcurrentLinkedDeque<Step> queue = new ConcurrentLinkedDeque<>();
+		/**
+		 * The agent of the step that is being run, if any.
+		 */
+		private volatile Controller running = null;
+		/**
+		 * When the turn of the running agent started.
+		 */
+		private long turnStart = 0;
+
+		Worker(int index) {
+			super("Agent scheduler " + index); //$NON-NLS-1$
+			setDaemon(true);
+			this.index = index;
+		}
+
+		WorkStealingScheduler getScheduler() {
+			return WorkStealingScheduler.this;
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				boolean newTurn = false;
+				Step step = this.queue.pollFirst();
+				if (step == null) {
+					step = steal();
+					newTurn = true;
+				}
+				if (step == null) {
+					if (await()) {
+						continue;
+					}
+					return;
+				}
+				WorkStealingScheduler.this.pending.decrementAndGet();
+				if (newTurn || !step.continuation) {
+					this.turnStart = System.nanoTime();
+				}
+				this.running = step.agent;
+				try {
+					step.task.run();
+				} catch (RuntimeException e) {
+					new Warning("step of agent failed", e); //$NON-NLS-1$
+				} finally {
+					this.running = null;
+					WorkStealingScheduler.this.executed.incrementAndGet();
+				}
+			}
+		}
+
+		/**
+		 * Takes the newest step (the back of the queue) of another thread,
+		 * starting at a random thread.
+		 *
+		 * @return the step, or null if all other queues are empty.
+		 */
+		private Step steal() {
+			Worker[] workers = WorkStealingScheduler.this.workers;
+			int start = ThreadLocalRandom.current().nextInt(workers.length);
+			for (int i = 0; i < workers.length; i++) {
+				Worker victim = workers[(start + i) % workers.length];
+				if (victim != this) {
+					Step step = victim.queue.pollLast();
+					if (step != null) {
+						WorkStealingScheduler.this.steals.incrementAndGet();
+						step.agent.worker = this.index;
+						return step;
+					}
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Waits until there are steps in any of the queues.
+		 *
+		 * @return false if the scheduler has been shut down (or the thread
+		 *         was interrupted) and there are no more steps.
+		 */
+		private boolean await() {
+			synchronized (WorkStealingScheduler.this.idleLock) {
+				WorkStealingScheduler.this.idle.incrementAndGet();
+				try {
+					while (WorkStealingScheduler.this.pending.get() == 0) {
+						if (WorkStealingScheduler.this.shutdown) {
+							return false;
+						}
+						WorkStealingScheduler.this.idleLock.wait();
+					}
+					return true;
+				} catch (InterruptedException e) {
+					return false;
+				} finally {
+					WorkStealingScheduler.this.idle.decrementAndGet();
+				}
+			}
+		}
+	}
+}
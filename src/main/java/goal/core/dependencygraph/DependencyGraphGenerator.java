@@ -178,9 +178,10 @@ public abstract class DependencyGraphGenerator<T> {
 	}
 
 	/**
-	 * @return The errors
+	 * @return The errors encountered while creating the graph; if there are
+	 *         any, the graph may be incomplete.
 	 */
-	protected List<KRException> getErrors() {
+	public List<KRException> getErrors() {
 		return this.errors;
 	}
 
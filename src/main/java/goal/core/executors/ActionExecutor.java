@@ -121,9 +121,11 @@ public abstract class ActionExecutor {
 		if (action != null) {
 			// Check if action is closed.
 			if (isSufficientlyClosed(action.getAction())) {
-				debugger.breakpoint(Channel.ACTION_PRECOND_EVALUATION,
-						getAction(), getAction().getSourceInfo(),
-						"precondition of %s holds", getAction());
+				if (debugger.isEnabled(Channel.ACTION_PRECOND_EVALUATION)) {
+					debugger.breakpoint(Channel.ACTION_PRECOND_EVALUATION,
+							getAction(), getAction().getSourceInfo(),
+							"precondition of %s holds", getAction());
+				}
 				// Perform the action if precondition holds.
 				result.merge(action.executeAction(runState, debugger));
 			} else {
@@ -133,9 +135,12 @@ public abstract class ActionExecutor {
 								+ action.getAction().getSourceInfo());
 			}
 		} else {
-			debugger.breakpoint(Channel.ACTION_PRECOND_EVALUATION, getAction(),
-					getAction().getSourceInfo(),
-					"precondition of %s does not hold", getAction().getName());
+			if (debugger.isEnabled(Channel.ACTION_PRECOND_EVALUATION)) {
+				debugger.breakpoint(Channel.ACTION_PRECOND_EVALUATION,
+						getAction(), getAction().getSourceInfo(),
+						"precondition of %s does not hold", getAction()
+								.getName());
+			}
 		}
 
 		return result;
@@ -198,9 +203,12 @@ public abstract class ActionExecutor {
 	 */
 	protected final void report(Debugger debugger) {
 		boolean builtin = !(this instanceof UserSpecActionExecutor);
-		debugger.breakpoint(builtin ? Channel.ACTION_EXECUTED_BUILTIN
-				: Channel.ACTION_EXECUTED_USERSPEC, getAction(), getAction()
-				.getSourceInfo(), "Performed %s.", getAction());
+		Channel channel = builtin ? Channel.ACTION_EXECUTED_BUILTIN
+				: Channel.ACTION_EXECUTED_USERSPEC;
+		if (debugger.isEnabled(channel)) {
+			debugger.breakpoint(channel, getAction(), getAction()
+					.getSourceInfo(), "Performed %s.", getAction());
+		}
 	}
 
 	@Override
@@ -38,10 +38,12 @@ public class AdoptActionExecutor extends ActionExecutor {
 			Selector selector = this.action.getSelector();
 			if (selector.getType() == SelectorType.SELF
 					|| selector.getType() == SelectorType.THIS) {
-				debugger.breakpoint(Channel.ACTION_PRECOND_EVALUATION,
-						this.action, this.action.getSourceInfo(),
-						"Precondition of action %s holds.",
-						this.action.getName());
+				if (debugger.isEnabled(Channel.ACTION_PRECOND_EVALUATION)) {
+					debugger.breakpoint(Channel.ACTION_PRECOND_EVALUATION,
+							this.action, this.action.getSourceInfo(),
+							"Precondition of action %s holds.",
+							this.action.getName());
+				}
 				return this;
 			} else {
 				throw new UnsupportedOperationException(
@@ -49,10 +51,12 @@ public class AdoptActionExecutor extends ActionExecutor {
 			}
 		}
 
-		debugger.breakpoint(Channel.ACTION_PRECOND_EVALUATION, this.action,
-				this.action.getSourceInfo(),
-				"Precondition of action %s does not hold.",
-				this.action.getName());
+		if (debugger.isEnabled(Channel.ACTION_PRECOND_EVALUATION)) {
+			debugger.breakpoint(Channel.ACTION_PRECOND_EVALUATION, this.action,
+					this.action.getSourceInfo(),
+					"Precondition of action %s does not hold.",
+					this.action.getName());
+		}
 		return null;
 	}
 
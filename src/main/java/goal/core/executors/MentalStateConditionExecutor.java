@@ -5,13 +5,28 @@ import goal.tools.debugger.Debugger;
 import goal.tools.debugger.SteppingDebugger;
 import goal.tools.errorhandling.exceptions.GOALDatabaseException;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import krTools.language.DatabaseFormula;
 import krTools.language.Substitution;
+import krTools.language.Term;
+import krTools.language.Update;
+import krTools.language.Var;
+import languageTools.program.agent.msc.BelLiteral;
 import languageTools.program.agent.msc.MentalLiteral;
 import languageTools.program.agent.msc.MentalStateCondition;
+import languageTools.program.agent.selector.Selector.SelectorType;
+import mentalState.BASETYPE;
 
 public class MentalStateConditionExecutor {
 	private final MentalStateCondition condition;
@@ -54,6 +69,445 @@ public class MentalStateConditionExecutor {
 
 	/**
 	 * Evaluates this {@link MentalStateCond} on the given {@link MentalState}.
+	 * <p>
+	 * The literals of the condition are split into groups that do not share
+	 * variables; the solutions of the groups are combined. Evaluation stops as
+	 * soon as a group has no solutions.
+	 * </p>
+	 * <p>
+	 * Within a group, a positive belief literal of the agent itself that only
+	 * queries facts of its belief base (see
+	 * {@link #isIndependent(MentalLiteral, Map)}) does not depend on the
+	 * bindings of other literals. Such a literal is queried exactly once,
+	 * without bindings, and its solutions are hash-joined with the partial
+	 * solutions on their shared variables. These literals are queried in the
+	 * order of the number of facts with their signature, and joined smallest
+	 * first, preferring literals that share variables with the literals that
+	 * have been joined. Other literals (negated literals, built-ins, derived
+	 * predicates, goals, literals of other agents) are evaluated in order,
+	 * after all literals before them, and are queried once for every distinct
+	 * binding of their variables.
+	 * </p>
+	 * <p>
+	 * The result is the same as the one of
+	 * {@link #evaluateNestedLoop(MentalState, Debugger)}, in the same order:
+	 * rules that iterate over the substitutions (e.g. forall-do rules) observe
+	 * this order.
+	 * </p>
+	 *
+	 * @param mentalState
+	 *            The mental state on which the condition is evaluated.
+	 * @param debugger
+	 *            The {@link Debugger} to report on.
+	 * @return The set of substitutions for which this mental state condition
+	 *         holds in the given mental state. If non-empty the condition
+	 *         holds, otherwise it does not hold.
+	 * @throws GOALDatabaseException
+	 */
+	public Set<Substitution> evaluate(MentalState mentalState, Debugger debugger)
+			throws GOALDatabaseException {
+		List<MentalLiteral> formulas = this.condition.getAllLiterals();
+		if (formulas.size() < 2) {
+			return evaluateNestedLoop(mentalState, debugger);
+		}
+		Map<String, Integer> counts = mentalState
+				.getOwnBase(BASETYPE.BELIEFBASE).getTheory()
+				.getSignatureCounts();
+		List<Row> result = null;
+		for (List<Integer> group : plan(formulas)) {
+			List<Row> groupResult = join(formulas, group, counts, mentalState,
+					debugger);
+			if (groupResult.isEmpty()) {
+				return new LinkedHashSet<>(0);
+			} else if (result == null) {
+				result = groupResult;
+			} else {
+				List<Row> newResults = new ArrayList<>(result.size()
+						* groupResult.size());
+				for (Row oldRow : result) {
+					for (Row subRow : groupResult) {
+						newResults.add(oldRow.combine(subRow));
+					}
+				}
+				result = newResults;
+			}
+		}
+		// the order of the nested loop.
+		Collections.sort(result);
+		Set<Substitution> substitutions = new LinkedHashSet<>(result.size());
+		for (Row row : result) {
+			substitutions.add(row.substitution);
+		}
+		return substitutions;
+	}
+
+	/**
+	 * Splits the literals of a condition into groups of literals that share
+	 * variables, keeping the order of the literals within a group. Groups of
+	 * a single closed literal come first, the other groups follow in the order
+	 * of their first literal.
+	 *
+	 * @param formulas
+	 *            The literals of the condition.
+	 * @return The groups of the indices of the literals, in the order in which
+	 *         they should be evaluated.
+	 */
+	private static List<List<Integer>> plan(List<MentalLiteral> formulas) {
+		int size = formulas.size();
+		List<Set<Var>> vars = new ArrayList<>(size);
+		int[] group = new int[size];
+		for (int i = 0; i < size; i++) {
+			vars.add(formulas.get(i).getFreeVar());
+			group[i] = i;
+		}
+		// merge the group of every literal with the groups of earlier literals
+		// that share a variable with it.
+		for (int i = 1; i < size; i++) {
+			for (int j = 0; j < i; j++) {
+				if (group[j] != group[i]
+						&& !Collections.disjoint(vars.get(i), vars.get(j))) {
+					int from = group[i], to = group[j];
+					for (int k = 0; k <= i; k++) {
+						if (group[k] == from) {
+							group[k] = to;
+						}
+					}
+				}
+			}
+		}
+		Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+		List<List<Integer>> tests = new LinkedList<>();
+		for (int i = 0; i < size; i++) {
+			if (vars.get(i).isEmpty()) {
+				tests.add(Collections.singletonList(i));
+			} else {
+				List<Integer> literals = groups.get(group[i]);
+				if (literals == null) {
+					literals = new ArrayList<>();
+					groups.put(group[i], literals);
+				}
+				literals.add(i);
+			}
+		}
+		tests.addAll(groups.values());
+		return tests;
+	}
+
+	/**
+	 * @param literal
+	 *            A literal of a condition.
+	 * @param counts
+	 *            The number of facts per signature in the belief base.
+	 * @return true if the literal is a positive belief literal of the agent
+	 *         itself that only consists of predicates of which the belief base
+	 *         has facts. Such a literal can be queried without the bindings
+	 *         of other literals: it has the same solutions for a binding as
+	 *         the solutions of the unbound literal that agree with the
+	 *         binding, in the same order.
+	 */
+	private static boolean isIndependent(MentalLiteral literal,
+			Map<String, Integer> counts) {
+		if (!literal.isPositive() || !(literal instanceof BelLiteral)
+				|| literal.getSelector().getType() != SelectorType.SELF
+				|| literal.getFreeVar().isEmpty()) {
+			return false;
+		}
+		Update conjuncts = literal.getFormula().toUpdate();
+		if (conjuncts.getAddList().isEmpty()
+				|| !conjuncts.getDeleteList().isEmpty()) {
+			return false;
+		}
+		for (DatabaseFormula conjunct : conjuncts.getAddList()) {
+			if (!counts.containsKey(conjunct.getSignature())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return an estimate of the number of solutions of an independent
+	 *         literal: the smallest number of facts of any of its predicates.
+	 */
+	private static int estimate(MentalLiteral literal,
+			Map<String, Integer> counts) {
+		int estimate = Integer.MAX_VALUE;
+		for (DatabaseFormula conjunct : literal.getFormula().toUpdate()
+				.getAddList()) {
+			estimate = Math.min(estimate, counts.get(conjunct.getSignature()));
+		}
+		return estimate;
+	}
+
+	/**
+	 * Evaluates a group of literals, see
+	 * {@link #evaluate(MentalState, Debugger)}.
+	 *
+	 * @param formulas
+	 *            All literals of the condition.
+	 * @param group
+	 *            The indices of the literals of the group, in order.
+	 * @param counts
+	 *            The number of facts per signature in the belief base.
+	 * @param mentalState
+	 *            The mental state on which the literals are evaluated.
+	 * @param debugger
+	 *            The {@link Debugger} to report on.
+	 * @return The solutions for which all literals of the group hold, in no
+	 *         particular order.
+	 * @throws GOALDatabaseException
+	 */
+	private static List<Row> join(final List<MentalLiteral> formulas,
+			List<Integer> group, final Map<String, Integer> counts,
+			MentalState mentalState, Debugger debugger)
+			throws GOALDatabaseException {
+		// query the independent literals once, the cheapest first.
+		List<Integer> independent = new ArrayList<>(group.size());
+		for (int index : group) {
+			if (isIndependent(formulas.get(index), counts)) {
+				independent.add(index);
+			}
+		}
+		Collections.sort(independent, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				return Integer.compare(estimate(formulas.get(first), counts),
+						estimate(formulas.get(second), counts));
+			}
+		});
+		Map<Integer, List<Substitution>> solutions = new HashMap<>();
+		for (int index : independent) {
+			List<Substitution> solution = new ArrayList<>(mentalState.query(
+					formulas.get(index), debugger));
+			if (solution.isEmpty()) {
+				return new ArrayList<>(0);
+			}
+			solutions.put(index, solution);
+		}
+
+		List<Row> result = new ArrayList<>(1);
+		result.add(new Row(mentalState.getOwner().getKRInterface()
+				.getSubstitution(null), new int[formulas.size()]));
+		Set<Var> joined = new HashSet<>();
+		List<Integer> pending = new ArrayList<>();
+		for (int index : group) {
+			if (solutions.containsKey(index)) {
+				pending.add(index);
+				continue;
+			}
+			// all literals before a dependent literal are evaluated first, and
+			// none after it, so that it sees the same bindings as in order.
+			result = hashJoin(result, pending, formulas, solutions, joined);
+			if (result.isEmpty()) {
+				return result;
+			}
+			result = nestedJoin(result, index, formulas.get(index),
+					mentalState, debugger);
+			joined.addAll(formulas.get(index).getFreeVar());
+			if (result.isEmpty()) {
+				return result;
+			}
+		}
+		return hashJoin(result, pending, formulas, solutions, joined);
+	}
+
+	/**
+	 * Joins the solutions of independent literals with partial solutions, on
+	 * the variables they share.
+	 *
+	 * @param rows
+	 *            The partial solutions.
+	 * @param pending
+	 *            The indices of the literals to join; emptied.
+	 * @param formulas
+	 *            All literals of the condition.
+	 * @param solutions
+	 *            The solutions of the independent literals.
+	 * @param joined
+	 *            The variables of the literals that have been joined; the
+	 *            variables of the joined literals are added.
+	 * @return The partial solutions that agree with a solution of every
+	 *         literal, combined with that solution.
+	 */
+	private static List<Row> hashJoin(List<Row> rows, List<Integer> pending,
+			List<MentalLiteral> formulas,
+			Map<Integer, List<Substitution>> solutions, Set<Var> joined) {
+		while (!pending.isEmpty() && !rows.isEmpty()) {
+			// the smallest literal that shares variables, if any.
+			int next = -1;
+			boolean shares = false;
+			for (int index : pending) {
+				boolean connected = !Collections.disjoint(formulas.get(index)
+						.getFreeVar(), joined);
+				if (next < 0
+						|| (connected && !shares)
+						|| (connected == shares && solutions.get(index).size() < solutions
+								.get(next).size())) {
+					next = index;
+					shares = connected;
+				}
+			}
+			pending.remove(Integer.valueOf(next));
+
+			Set<Var> vars = formulas.get(next).getFreeVar();
+			List<Var> keys = new ArrayList<>(vars);
+			keys.retainAll(joined);
+			List<Var> others = new ArrayList<>(vars);
+			others.removeAll(joined);
+			List<Substitution> solution = solutions.get(next);
+			Map<List<Term>, List<Integer>> index = new HashMap<>();
+			List<Substitution> residuals = new ArrayList<>(solution.size());
+			for (int i = 0; i < solution.size(); i++) {
+				List<Term> key = key(solution.get(i), keys);
+				List<Integer> matches = index.get(key);
+				if (matches == null) {
+					matches = new ArrayList<>(1);
+					index.put(key, matches);
+				}
+				matches.add(i);
+				Substitution residual = solution.get(i).clone();
+				residual.retainAll(others);
+				residuals.add(residual);
+			}
+			List<Row> newRows = new ArrayList<>();
+			for (Row row : rows) {
+				List<Term> key = key(row.substitution, keys);
+				if (!key.contains(null)) {
+					List<Integer> matches = index.get(key);
+					if (matches != null) {
+						for (int i : matches) {
+							newRows.add(row.extend(residuals.get(i), next, i));
+						}
+					}
+				} else {
+					// a variable that a dependent literal did not bind.
+					newRows.addAll(scan(row, keys, others, solution, next));
+				}
+			}
+			rows = newRows;
+			joined.addAll(vars);
+		}
+		pending.clear();
+		return rows;
+	}
+
+	/**
+	 * Joins a partial solution in which some of the shared variables are not
+	 * bound with the solutions of an independent literal, by comparing it
+	 * with all of them.
+	 */
+	private static List<Row> scan(Row row, List<Var> keys, List<Var> others,
+			List<Substitution> solution, int literal) {
+		List<Var> bound = new ArrayList<>(keys.size());
+		List<Var> retained = new ArrayList<>(others);
+		for (Var var : keys) {
+			if (row.substitution.get(var) == null) {
+				retained.add(var);
+			} else {
+				bound.add(var);
+			}
+		}
+		List<Term> key = key(row.substitution, bound);
+		List<Row> rows = new ArrayList<>();
+		for (int i = 0; i < solution.size(); i++) {
+			if (key.equals(key(solution.get(i), bound))) {
+				Substitution residual = solution.get(i).clone();
+				residual.retainAll(retained);
+				rows.add(row.extend(residual, literal, i));
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Evaluates a literal for every partial solution, querying it once for
+	 * every distinct binding of its variables.
+	 *
+	 * @return The partial solutions combined with the solutions of the literal
+	 *         for them.
+	 * @throws GOALDatabaseException
+	 */
+	private static List<Row> nestedJoin(List<Row> rows, int index,
+			MentalLiteral literal, MentalState mentalState, Debugger debugger)
+			throws GOALDatabaseException {
+		List<Var> vars = new ArrayList<>(literal.getFreeVar());
+		Map<List<Term>, List<Substitution>> queried = new HashMap<>();
+		List<Row> newRows = new ArrayList<>();
+		for (Row row : rows) {
+			List<Term> key = key(row.substitution, vars);
+			List<Substitution> subResults = queried.get(key);
+			if (subResults == null) {
+				subResults = new ArrayList<>(mentalState.query(
+						literal.applySubst(row.substitution), debugger));
+				queried.put(key, subResults);
+			}
+			for (int i = 0; i < subResults.size(); i++) {
+				newRows.add(row.extend(subResults.get(i), index, i));
+			}
+		}
+		return newRows;
+	}
+
+	/**
+	 * @return the values of the variables in a substitution; null for the
+	 *         variables that are not bound.
+	 */
+	private static List<Term> key(Substitution substitution, List<Var> vars) {
+		List<Term> key = new ArrayList<>(vars.size());
+		for (Var var : vars) {
+			key.add(substitution.get(var));
+		}
+		return key;
+	}
+
+	/**
+	 * A (partial) solution, with for every literal the position of the
+	 * solution of the literal it was combined with among the solutions of
+	 * that literal. The solutions of the nested loop are ordered on these
+	 * positions, in the order of the literals.
+	 */
+	private static class Row implements Comparable<Row> {
+		private final Substitution substitution;
+		private final int[] ranks;
+
+		Row(Substitution substitution, int[] ranks) {
+			this.substitution = substitution;
+			this.ranks = ranks;
+		}
+
+		Row extend(Substitution solution, int literal, int rank) {
+			int[] ranks = this.ranks.clone();
+			ranks[literal] = rank;
+			return new Row(this.substitution.combine(solution), ranks);
+		}
+
+		/**
+		 * Combines two solutions of groups that do not share literals.
+		 */
+		Row combine(Row other) {
+			int[] ranks = new int[this.ranks.length];
+			for (int i = 0; i < ranks.length; i++) {
+				ranks[i] = this.ranks[i] + other.ranks[i];
+			}
+			return new Row(this.substitution.combine(other.substitution),
+					ranks);
+		}
+
+		@Override
+		public int compareTo(Row other) {
+			for (int i = 0; i < this.ranks.length; i++) {
+				if (this.ranks[i] != other.ranks[i]) {
+					return Integer.compare(this.ranks[i], other.ranks[i]);
+				}
+			}
+			return 0;
+		}
+	}
+
+	/**
+	 * Evaluates this {@link MentalStateCond} on the given {@link MentalState}
+	 * by evaluating its literals in order, querying every literal again for
+	 * every partial solution of the literals before it.
 	 *
 	 * @param mentalState
 	 *            The mental state on which the condition is evaluated.
@@ -64,7 +518,8 @@ public class MentalStateConditionExecutor {
 	 *         holds, otherwise it does not hold.
 	 * @throws GOALDatabaseException 
 	 */
-	public Set<Substitution> evaluate(MentalState mentalState, Debugger debugger) throws GOALDatabaseException {
+	public Set<Substitution> evaluateNestedLoop(MentalState mentalState,
+			Debugger debugger) throws GOALDatabaseException {
 		Set<Substitution> result, newResults, subResults;
 		List<MentalLiteral> formulas = this.condition.getAllLiterals();
 		if (formulas.isEmpty()) {
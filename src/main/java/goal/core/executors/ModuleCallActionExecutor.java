@@ -121,13 +121,14 @@ public class ModuleCallActionExecutor extends ActionExecutor {
 		switch (this.action.getTarget().getFocusMethod()) {
 		case NEW:
 			// Create new empty goal base to construct a new attention set.
-			return new GoalBase(mentalstate.getState(),
-					mentalstate.getAgentId(), mentalstate.getOwner(),
-					this.action.getTarget().getName());
+			return new GoalBase(mentalstate.getOwnModel().getGoalStore(),
+					mentalstate.getEngine(), mentalstate.getAgentId(),
+					mentalstate.getOwner(), this.action.getTarget().getName());
 		case SELECT:
-			GoalBase newAttentionSet = new GoalBase(mentalstate.getState(),
-					mentalstate.getAgentId(), mentalstate.getOwner(),
-					this.action.getTarget().getName());
+			GoalBase newAttentionSet = new GoalBase(mentalstate
+					.getOwnModel().getGoalStore(), mentalstate.getEngine(),
+					mentalstate.getAgentId(),
+					mentalstate.getOwner(), this.action.getTarget().getName());
 			newAttentionSet.addGoal(goal, debugger);
 			return newAttentionSet;
 		case FILTER:
@@ -188,9 +189,9 @@ public class ModuleCallActionExecutor extends ActionExecutor {
 			throws GOALActionFailedException {
 		MentalModel agentModel = mentalstate.getOwnModel();
 
-		GoalBase newAttentionSet = new GoalBase(mentalstate.getState(),
-				mentalstate.getAgentId(), mentalstate.getOwner(), this.action
-						.getTarget().getName());
+		GoalBase newAttentionSet = new GoalBase(agentModel.getGoalStore(),
+				agentModel.getEngine(), mentalstate.getAgentId(),
+				mentalstate.getOwner(), this.action.getTarget().getName());
 
 		// get the goals as obtained from the context, and add them to
 		// the goalbase
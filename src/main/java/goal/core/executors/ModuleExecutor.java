@@ -38,6 +38,13 @@ public class ModuleExecutor {
 	 * The last result of an execute-call
 	 */
 	private Result result;
+	/**
+	 * True if the agent may be left sleeping when a new cycle is started, see
+	 * {@link RunState#startCycle(boolean, boolean)}. This is only allowed when
+	 * the steps of this module are driven by the agent's controller; not when
+	 * the module is executed fully at once.
+	 */
+	private boolean deferSleep = true;
 
 	public ModuleExecutor(Module mod) {
 		this.module = mod;
@@ -70,6 +77,7 @@ public class ModuleExecutor {
 	@SuppressWarnings("unchecked")
 	public Result executeFully(final RunState<?> runState,
 			final Substitution substitution) throws GOALActionFailedException {
+		this.deferSleep = false;
 		Callable<Callable<?>> call = execute(runState, substitution, true);
 		while (call != null) {
 			try {
@@ -97,7 +105,10 @@ public class ModuleExecutor {
 	 *            it was called, already with the variables renamed according to
 	 *            the focus call so that the module can use it without renaming.
 	 * @return {@link Runnable} for continuing to execute this module. Null when
-	 *         we should stop.
+	 *         we should stop. The agent may be left sleeping (see
+	 *         {@link RunState#isAsleep()}), in which case the returned
+	 *         {@link Runnable} should only be called after the cycle has been
+	 *         resumed.
 	 * @throws GOALActionFailedException
 	 */
 	public Callable<Callable<?>> execute(final RunState<?> runState,
@@ -150,9 +161,11 @@ public class ModuleExecutor {
 		}
 		// Report (re)entry of non-anonymous module on debug channel.
 		if (this.module.getType() != TYPE.ANONYMOUS) {
-			runState.getDebugger().breakpoint(this.entrychannel, this.module,
-					this.module.getSourceInfo(),
-					"Entering " + this.module.getNamePhrase());
+			if (runState.getDebugger().isEnabled(this.entrychannel)) {
+				runState.getDebugger().breakpoint(this.entrychannel,
+						this.module, this.module.getSourceInfo(),
+						"Entering " + this.module.getNamePhrase());
+			}
 		}
 
 		// Evaluate and apply the rules of this module
@@ -190,7 +203,8 @@ public class ModuleExecutor {
 		// module called from either of these two modules).
 		if (!exit && !this.result.hasPerformedAction()
 				&& runState.isMainModuleRunning()) {
-			runState.startCycle(this.result.hasPerformedAction());
+			runState.startCycle(this.result.hasPerformedAction(),
+					this.deferSleep);
 		}
 		if (exit) {
 			// If module termination flag has been set, reset it except when
@@ -199,9 +213,11 @@ public class ModuleExecutor {
 			// Also report the module exit on the module's debug channel.
 			if (this.module.getType() != TYPE.ANONYMOUS) {
 				this.result.setModuleTerminated(false);
-				runState.getDebugger().breakpoint(this.exitchannel,
-						this.module, this.module.getSourceInfo(),
-						"Exiting " + this.module.getNamePhrase());
+				if (runState.getDebugger().isEnabled(this.exitchannel)) {
+					runState.getDebugger().breakpoint(this.exitchannel,
+							this.module, this.module.getSourceInfo(),
+							"Exiting " + this.module.getNamePhrase());
+				}
 			}
 
 			// Remove module again from stack of modules that have been entered
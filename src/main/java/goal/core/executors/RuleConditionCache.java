@@ -0,0 +1,293 @@
+package goal.core.executors;
+
+import goal.core.dependencygraph.RuleGraphGenerator;
+import goal.core.mentalstate.BeliefBase;
+import goal.core.mentalstate.GoalBase;
+import goal.core.mentalstate.MentalState;
+import goal.tools.debugger.Debugger;
+import goal.tools.errorhandling.exceptions.GOALDatabaseException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import krTools.language.DatabaseFormula;
+import krTools.language.Expression;
+import krTools.language.Substitution;
+import languageTools.program.agent.msc.BelLiteral;
+import languageTools.program.agent.msc.MentalLiteral;
+import languageTools.program.agent.rules.Rule;
+import languageTools.program.agent.selector.Selector.SelectorType;
+import mentalState.BASETYPE;
+
+/**
+ * Caches the results of the conditions of the rules of an agent. Agents often
+ * evaluate the same rules in the same mental state for many cycles; the
+ * result of a condition is reused until a base the condition reads from
+ * changes.
+ * <p>
+ * Whether a base has changed is determined by its generation (see
+ * {@link goal.core.mentalstate.Theory#getGeneration()} and
+ * {@link GoalBase#getGeneration()}). The knowledge and belief base are
+ * checked as a whole. The percept base and mailbox only contain facts; for
+ * these only the predicates that the rule queries are checked, as computed by
+ * the {@link RuleGraphGenerator}, so e.g. new percepts that the rule does not
+ * look at do not invalidate its result. This is not possible if a queried
+ * predicate may be derived by a rule in the knowledge or belief base (which
+ * could read any percept or message): then the percept base and mailbox are
+ * checked as a whole as well. The goal base is only checked by rules with
+ * goal literals.
+ * </p>
+ * <p>
+ * Only conditions that are evaluated on the agent's own mental state, i.e.
+ * without selectors, are cached. A cache is used by a single agent and is not
+ * thread safe.
+ * </p>
+ */
+public class RuleConditionCache {
+	/**
+	 * The bases that may contain rules, checked as a whole.
+	 */
+	private static final BASETYPE[] DERIVING = { BASETYPE.KNOWLEDGEBASE,
+		BASETYPE.BELIEFBASE };
+	/**
+	 * The bases that only contain facts, checked per predicate.
+	 */
+	private static final BASETYPE[] FACTS = { BASETYPE.PERCEPTBASE,
+		BASETYPE.MAILBOX };
+
+	/**
+	 * A cached result, with the state in which it was computed.
+	 */
+	private static class Entry {
+		private final MentalState mentalState;
+		private final Substitution substitution;
+		private final GoalBase attentionSet;
+		private final long[] stamp;
+		private final Set<Substitution> result;
+
+		private Entry(MentalState mentalState, Substitution substitution,
+				GoalBase attentionSet, long[] stamp, Set<Substitution> result) {
+			this.mentalState = mentalState;
+			this.substitution = substitution;
+			this.attentionSet = attentionSet;
+			this.stamp = stamp;
+			this.result = result;
+		}
+	}
+
+	/**
+	 * What a rule condition reads from.
+	 */
+	private static class Dependencies {
+		/**
+		 * The signatures of the predicates queried by the rule, or null if
+		 * they are not known.
+		 */
+		private final List<String> signatures;
+		private final boolean readsGoals;
+
+		private Dependencies(List<String> signatures, boolean readsGoals) {
+			this.signatures = signatures;
+			this.readsGoals = readsGoals;
+		}
+	}
+
+	private final Map<Rule, Entry> entries = new IdentityHashMap<>();
+	private final Map<Rule, Dependencies> dependencies = new IdentityHashMap<>();
+	private long hits = 0;
+	private long misses = 0;
+
+	/**
+	 * @param rule
+	 *            a rule.
+	 * @return true if the result of the condition of the rule can be cached:
+	 *         it is not evaluated on single goals, and only queries the
+	 *         agent's own mental state.
+	 */
+	public static boolean isCacheable(Rule rule) {
+		if (rule.isRuleSinglegoal()) {
+			return false;
+		}
+		for (MentalLiteral literal : rule.getCondition().getAllLiterals()) {
+			if (literal.getSelector().getType() != SelectorType.SELF) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Evaluates the condition of a rule, or returns the result of the last
+	 * evaluation if nothing it depends on has changed since. The rule should
+	 * be {@link #isCacheable(Rule)}.
+	 *
+	 * @param rule
+	 *            the rule.
+	 * @param substitution
+	 *            the substitution of the module context.
+	 * @param mentalState
+	 *            the mental state to evaluate the condition on.
+	 * @param debugger
+	 *            the debugger to report on.
+	 * @return the substitutions for which the condition holds, see
+	 *         {@link MentalStateConditionExecutor#evaluate(Substitution, MentalState, Debugger)}
+	 * @throws GOALDatabaseException
+	 *             if the condition can not be evaluated.
+	 */
+	public Set<Substitution> evaluate(Rule rule, Substitution substitution,
+			MentalState mentalState, Debugger debugger)
+			throws GOALDatabaseException {
+		Dependencies reads = getDependencies(rule, mentalState);
+		GoalBase attentionSet = reads.readsGoals ? mentalState
+				.getAttentionSet() : null;
+		long[] stamp = stamp(reads, mentalState, attentionSet);
+
+		Entry entry = this.entries.get(rule);
+		if (entry != null && entry.mentalState == mentalState
+				&& entry.attentionSet == attentionSet
+				&& Arrays.equals(entry.stamp, stamp)
+				&& entry.substitution.equals(substitution)) {
+			this.hits++;
+			return copy(entry.result);
+		}
+		this.misses++;
+		Set<Substitution> result = new MentalStateConditionExecutor(
+				rule.getCondition()).evaluate(substitution, mentalState,
+				debugger);
+		this.entries.put(rule, new Entry(mentalState, substitution.clone(),
+				attentionSet, stamp, copy(result)));
+		return result;
+	}
+
+	private Dependencies getDependencies(Rule rule, MentalState mentalState) {
+		Dependencies reads = this.dependencies.get(rule);
+		if (reads == null) {
+			List<String> signatures = null;
+			try {
+				RuleGraphGenerator generator = new RuleGraphGenerator();
+				generator.setKRlanguage(mentalState.getOwner()
+						.getKRInterface());
+				generator.createGraph(rule, null);
+				List<? extends Expression> queries = generator.getGraph()
+						.getQueries();
+				Set<String> unique = new LinkedHashSet<>(queries.size());
+				for (Expression query : queries) {
+					unique.add(query.getSignature());
+				}
+				if (generator.getErrors().isEmpty()
+						&& !isDerived(unique, mentalState)) {
+					signatures = new ArrayList<>(unique);
+				}
+			} catch (UnsupportedOperationException e) {
+				// no dependency graph for this language; check whole bases.
+			}
+			boolean readsGoals = false;
+			for (MentalLiteral literal : rule.getCondition().getAllLiterals()) {
+				readsGoals |= !(literal instanceof BelLiteral);
+			}
+			reads = new Dependencies(signatures, readsGoals);
+			this.dependencies.put(rule, reads);
+		}
+		return reads;
+	}
+
+	/**
+	 * @return true if one of the signatures may be derived by a rule in the
+	 *         knowledge base (of which every formula is considered to be a
+	 *         rule) or belief base (of which formulas with variables are
+	 *         considered to be rules).
+	 */
+	private static boolean isDerived(Set<String> signatures,
+			MentalState mentalState) {
+		for (BASETYPE type : DERIVING) {
+			BeliefBase base = mentalState.getOwnBase(type);
+			if (base == null) {
+				continue;
+			}
+			for (DatabaseFormula formula : base.getTheory().getFormulas()) {
+				if ((type == BASETYPE.KNOWLEDGEBASE || !formula.isClosed())
+						&& (signatures.contains(formula.getSignature()) || formula
+								.getSignature().startsWith(":-/"))) { //$NON-NLS-1$
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static long[] stamp(Dependencies reads, MentalState mentalState,
+			GoalBase attentionSet) {
+		int perBase = (reads.signatures == null) ? 1 : reads.signatures
+				.size();
+		long[] stamp = new long[DERIVING.length + FACTS.length * perBase + 1];
+		int i = 0;
+		for (BASETYPE type : DERIVING) {
+			stamp[i++] = generation(mentalState.getOwnBase(type));
+		}
+		for (BASETYPE type : FACTS) {
+			BeliefBase base = mentalState.getOwnBase(type);
+			if (reads.signatures == null || base == null) {
+				for (int j = 0; j < perBase; j++) {
+					stamp[i++] = generation(base);
+				}
+			} else {
+				for (String signature : reads.signatures) {
+					stamp[i++] = base.getTheory().getGeneration(signature);
+				}
+			}
+		}
+		stamp[i] = (attentionSet == null) ? 0 : attentionSet.getGeneration();
+		return stamp;
+	}
+
+	private static long generation(BeliefBase base) {
+		return (base == null) ? 0 : base.getTheory().getGeneration();
+	}
+
+	/**
+	 * Copies a set of substitutions, as the rule that uses them may change
+	 * them.
+	 */
+	private static Set<Substitution> copy(Set<Substitution> substitutions) {
+		Set<Substitution> copy = new LinkedHashSet<>(substitutions.size());
+		for (Substitution substitution : substitutions) {
+			copy.add(substitution.clone());
+		}
+		return copy;
+	}
+
+	/**
+	 * Forgets all cached results.
+	 */
+	public void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * @return the number of evaluations that used a cached result.
+	 */
+	public long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * @return the number of evaluations that had to evaluate the condition.
+	 */
+	public long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * @return the fraction of evaluations that used a cached result; 0 if
+	 *         nothing has been evaluated yet.
+	 */
+	public double getHitRate() {
+		long total = this.hits + this.misses;
+		return (total == 0) ? 0 : (double) this.hits / total;
+	}
+}
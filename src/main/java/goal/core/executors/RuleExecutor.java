@@ -78,9 +78,11 @@ public class RuleExecutor {
 		}
 
 		// FIXME using #toRuleString to prevent adding trailing dot...
-		debugger.breakpoint(Channel.RULE_CONDITIONAL_VIEW,
-				this.rule.getCondition(), pos, "Evaluating rule %s.",
-				this.rule.prettyPrint());
+		if (debugger.isEnabled(Channel.RULE_CONDITIONAL_VIEW)) {
+			debugger.breakpoint(Channel.RULE_CONDITIONAL_VIEW,
+					this.rule.getCondition(), pos, "Evaluating rule %s.",
+					this.rule.prettyPrint());
+		}
 
 		// Get substitutions that satisfy rule condition.
 		// determine the rule mode
@@ -89,6 +91,13 @@ public class RuleExecutor {
 			substGoalLinks = new HashMap<>();
 			substset = mentalState.contextQuery(this.rule.getCondition(),
 					substGoalLinks, debugger);
+		} else if (runState.getConditionCache() != null
+				&& RuleConditionCache.isCacheable(this.rule)
+				&& !debugger.isEnabled(Channel.ATOM_QUERIES)) {
+			// reuse the result of the condition if the mental state it reads
+			// from has not changed; not while queries are being reported.
+			substset = runState.getConditionCache().evaluate(this.rule,
+					substitution, mentalState, debugger);
 		} else {
 			// rule is evaluated using all goals in current attention set.
 			substset = new MentalStateConditionExecutor(
@@ -100,22 +109,28 @@ public class RuleExecutor {
 		if (substset.isEmpty()) {
 			// FIXME using #toRuleString to prevent adding trailing dot...
 			// #3079 this must NOT pass the action to the debugger.
-			debugger.breakpoint(Channel.RULE_CONDITION_EVALUATION,
-					this.rule.getCondition(), pos,
-					"Condition of rule %s does not hold.",
-					this.rule.prettyPrint());
+			if (debugger.isEnabled(Channel.RULE_CONDITION_EVALUATION)) {
+				debugger.breakpoint(Channel.RULE_CONDITION_EVALUATION,
+						this.rule.getCondition(), pos,
+						"Condition of rule %s does not hold.",
+						this.rule.prettyPrint());
+			}
 			return new Result();
 		}
 
 		// FIXME using #toRuleString to prevent adding trailing dot...
 		// #3079 this must pass the ACTION to the debugger
-		debugger.breakpoint(Channel.HIDDEN_RULE_CONDITION_EVALUATION,
-				this.rule.getAction(), pos, "Condition of rule %s holds.",
-				this.rule.prettyPrint());
-		debugger.breakpoint(Channel.RULE_CONDITION_EVALUATION,
-				this.rule.getCondition(), pos,
-				"Condition of rule %s holds for: %s.", this.rule.prettyPrint(),
-				substset);
+		if (debugger.isEnabled(Channel.HIDDEN_RULE_CONDITION_EVALUATION)) {
+			debugger.breakpoint(Channel.HIDDEN_RULE_CONDITION_EVALUATION,
+					this.rule.getAction(), pos, "Condition of rule %s holds.",
+					this.rule.prettyPrint());
+		}
+		if (debugger.isEnabled(Channel.RULE_CONDITION_EVALUATION)) {
+			debugger.breakpoint(Channel.RULE_CONDITION_EVALUATION,
+					this.rule.getCondition(), pos,
+					"Condition of rule %s holds for: %s.",
+					this.rule.prettyPrint(), substset);
+		}
 
 		// Apply rule.
 		Result result = apply(runState, substset, substGoalLinks, substitution);
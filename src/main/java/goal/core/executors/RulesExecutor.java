@@ -76,12 +76,15 @@ public class RulesExecutor {
 			MentalState ms = runState.getMentalState();
 
 			runState.incrementRoundCounter();
-			runState.getDebugger().breakpoint(
-					Channel.REASONING_CYCLE_SEPARATOR,
-					null,
-					null,
-					"+++++++ Adaptive Cycle " + runState.getRoundCounter()
-							+ " +++++++ ");
+			if (runState.getDebugger().isEnabled(
+					Channel.REASONING_CYCLE_SEPARATOR)) {
+				runState.getDebugger().breakpoint(
+						Channel.REASONING_CYCLE_SEPARATOR,
+						null,
+						null,
+						"+++++++ Adaptive Cycle " + runState.getRoundCounter()
+								+ " +++++++ ");
+			}
 
 			/*
 			 * Get the learner to choose one action option, from the input list
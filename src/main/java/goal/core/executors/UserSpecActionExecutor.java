@@ -68,9 +68,12 @@ public class UserSpecActionExecutor extends ActionExecutor {
 		// substitution to instantiate the action.
 		if (solutions.isEmpty()) {
 			if (last) {
-				debugger.breakpoint(Channel.ACTION_PRECOND_EVALUATION_USERSPEC,
-						this.action, this.action.getSourceInfo(),
-						"Preconditions of action %s failed.", this.action);
+				if (debugger
+						.isEnabled(Channel.ACTION_PRECOND_EVALUATION_USERSPEC)) {
+					debugger.breakpoint(Channel.ACTION_PRECOND_EVALUATION_USERSPEC,
+							this.action, this.action.getSourceInfo(),
+							"Preconditions of action %s failed.", this.action);
+				}
 			}
 			return null;
 		} else {
@@ -79,10 +82,12 @@ public class UserSpecActionExecutor extends ActionExecutor {
 			Collections.shuffle(substitutions);
 			Substitution solution = substitutions.get(0);
 			// Report success
-			debugger.breakpoint(Channel.ACTION_PRECOND_EVALUATION_USERSPEC,
-					this.action, this.action.getSourceInfo(),
-					"Precondition { %s } of action %s holds for: %s.",
-					this.action.getPrecondition(), this.action, solution);
+			if (debugger.isEnabled(Channel.ACTION_PRECOND_EVALUATION_USERSPEC)) {
+				debugger.breakpoint(Channel.ACTION_PRECOND_EVALUATION_USERSPEC,
+						this.action, this.action.getSourceInfo(),
+						"Precondition { %s } of action %s holds for: %s.",
+						this.action.getPrecondition(), this.action, solution);
+			}
 			return new UserSpecActionExecutor(this.action.applySubst(solution));
 		}
 	}
@@ -4,6 +4,13 @@ import java.util.ArrayList;
 
 /**
  * The main interacting character in the Gamygdala engine.
+ * <p>
+ * Each agent is a shard of the emotional state kept by the engine: its
+ * emotions, relations and decay timestamp are only changed while holding the
+ * lock of the agent. Appraisals by one agent may change the state of other
+ * agents (social emotions), so code that reads the emotions or relations of an
+ * agent should synchronize on the agent as well. No method locks more than one
+ * agent at a time.
  */
 public class Agent {
 
@@ -28,6 +35,10 @@ public class Agent {
      * Collection of emotions for this Agent.
      */
     AgentInternalState internalState;
+    /**
+     * Time of the last decay of this Agent.
+     */
+    private long lastDecayMillis = System.currentTimeMillis();
 
     /**
      * Create new Agent.
@@ -113,7 +124,7 @@ public class Agent {
      *
      * @param emotion The emotion with which this Agent should be updated.
      */
-    public void updateEmotionalState(Emotion emotion) {
+    public synchronized void updateEmotionalState(Emotion emotion) {
         this.internalState.updateEmotionalState(emotion);
     }
 
@@ -123,7 +134,7 @@ public class Agent {
      * @param gain The gain factor. Leave blank (null) to ignore gain.
      * @return An array of emotions.
      */
-    public AgentInternalState getEmotionalState(Double gain) {
+    public synchronized AgentInternalState getEmotionalState(Double gain) {
         return this.internalState.getEmotionalState(gain);
     }
 
@@ -138,7 +149,7 @@ public class Agent {
      *
      * @param gained Print only gained emotions or not.
      */
-    public void printEmotionalState(boolean gained) {
+    public synchronized void printEmotionalState(boolean gained) {
         String output = this.name + " feels ";
         Double gain = gained ? this.gain : null;
         output += internalState.printEmotionalState(gain);
@@ -154,7 +165,7 @@ public class Agent {
      * @param agent    The agent who is the target of the relation.
      * @param relation The relation (between -1 and 1).
      */
-    public Relation updateRelation(Agent agent, double relation) {
+    public synchronized Relation updateRelation(Agent agent, double relation) {
         if (relation >= -1 && relation <= 1) {
             return this.currentRelations.updateRelation(agent, relation);
         } else {
@@ -169,7 +180,7 @@ public class Agent {
      * @param agent The agent who is the target of the relation.
      * @return Boolean if the relation exists, otherwise false.
      */
-    public boolean hasRelationWith(Agent agent) {
+    public synchronized boolean hasRelationWith(Agent agent) {
         return this.currentRelations.hasRelationWith(agent);
     }
 
@@ -180,7 +191,7 @@ public class Agent {
      * @param agent The agent who is the target of the relation.
      * @return Relation The relation object or null if non existing.
      */
-    public Relation getRelation(Agent agent) {
+    public synchronized Relation getRelation(Agent agent) {
         return this.currentRelations.getRelation(agent);
     }
 
@@ -190,7 +201,7 @@ public class Agent {
      * @param agent The agent who is the target of the relation. When omitted,
      *              all relations are printed.
      */
-    public void printRelations(Agent agent) {
+    public synchronized void printRelations(Agent agent) {
         String output = this.name + " has the following sentiments:\n   ";
         output += this.currentRelations.printRelations(agent);
         System.out.println(output);
@@ -205,7 +216,7 @@ public class Agent {
      *                      to the action.
      * @return The Emotion arising from the action.
      */
-    public Emotion agentActions(Agent affectedAgent, Agent causalAgent, double desirability) {
+    public synchronized Emotion agentActions(Agent affectedAgent, Agent causalAgent, double desirability) {
 
         // Check for empty agent
         if (causalAgent == null) {
@@ -272,7 +283,7 @@ public class Agent {
      * @param relation        A relation object between the agent being evaluated and
      *                        the goal owner of the affected goal.
      */
-    public Emotion evaluateSocialEmotion(double desirability, Relation relation) {
+    public synchronized Emotion evaluateSocialEmotion(double desirability, Relation relation) {
         Emotion emotion = new Emotion(null, 0);
 
         if (desirability >= 0) {
@@ -298,7 +309,7 @@ public class Agent {
      * @param deltaLikelh the delta likelihood.
      * @param likelihood  the likelihood.
      */
-    public boolean evaluateInternalEmotion(double utility, double deltaLikelh, double likelihood) {
+    public synchronized boolean evaluateInternalEmotion(double utility, double deltaLikelh, double likelihood) {
 
         ArrayList<String> emotion = Emotion.determineEmotions(utility, deltaLikelh, likelihood);
 
@@ -331,7 +342,7 @@ public class Agent {
      * @param millisPassed The time passed (in milliseconds) since the last
      *                     decay.
      */
-    public void decay(DecayFunction dfunc, long millisPassed) {
+    public synchronized void decay(DecayFunction dfunc, long millisPassed) {
         // Decay all internal emotions
         for (int i = 0; i < this.internalState.size(); i++) {
 
@@ -352,6 +363,22 @@ public class Agent {
         }
     }
 
+    /**
+     * Decays the emotional state and relations of this agent for the time that
+     * passed since the last decay of this agent. Every agent keeps its own
+     * timestamp, so agents can be decayed on their own cycle.
+     *
+     * @param dfunc         The Decay Function used to decay emotions and relations.
+     * @param currentMillis The current time in milliseconds.
+     */
+    public synchronized void decayUntil(DecayFunction dfunc, long currentMillis) {
+        long millisPassed = currentMillis - this.lastDecayMillis;
+        this.lastDecayMillis = currentMillis;
+        if (millisPassed > 0) {
+            decay(dfunc, millisPassed);
+        }
+    }
+
     /**
      * String representation of Agent.
      */
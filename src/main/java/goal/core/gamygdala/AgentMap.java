@@ -1,13 +1,14 @@
 package goal.core.gamygdala;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * HashMap containing Agents.
+ * Map containing Agents. Agents of different threads register themselves and
+ * are looked up concurrently, so this is a concurrent map.
  */
-public class AgentMap extends HashMap<String, Agent> {
+public class AgentMap extends ConcurrentHashMap<String, Agent> {
 
     /**
      * Serialization ID.
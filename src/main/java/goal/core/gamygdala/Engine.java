@@ -23,11 +23,6 @@ import languageTools.program.mas.MASProgram;
  */
 public class Engine {
 
-    /**
-     * Singleton Engine object.
-     */
-    private static Engine engineInstance;
-
     /**
      * Debug flag.
      */
@@ -36,43 +31,30 @@ public class Engine {
     /**
      * Gamygdala instance.
      */
-    private Gamygdala gamygdala = new Gamygdala();
-
-    /**
-     * Timestamp of last emotion calculation.
-     */
-    private long lastMillis = System.currentTimeMillis();
+    private volatile Gamygdala gamygdala = new Gamygdala();
 
     /**
-     * Empty constructor to prevent instantiating.
-     * Use Engine.getInstance() instead.
+     * Creates an Engine with a fresh Gamygdala instance. Every runtime owns
+     * its own Engine (see {@link goal.core.runtime.RuntimeManager#getEngine()}),
+     * which it hands to the agents it launches, so that concurrent runs do not
+     * see each other's emotions.
      */
-    private Engine() {
+    public Engine() {
     }
 
     /**
-     * Get the Engine object. If no Engine has been instantiated,
-     * create a new Engine with a fresh Gamygdala instance.
+     * Returns the agent with the given name, and creates it if it does not
+     * exist yet.
+     *
+     * @param name The name of the Agent.
+     * @return the Agent with the name.
      */
-    public static synchronized Engine getInstance() {
-
-        if (engineInstance == null) {
-            engineInstance = new Engine();
-        }
-
-        return engineInstance;
-    }
-
-    public static Engine reset() {
-        if (engineInstance != null) {
-            synchronized (Engine.class) {
-                if (engineInstance != null) {
-                    engineInstance = new Engine();
-                }
-            }
+    public synchronized Agent obtainAgent(String name) {
+        Agent agent = getAgentByName(name);
+        if (agent == null) {
+            agent = createAgent(name);
         }
-
-        return engineInstance;
+        return agent;
     }
 
     /**
@@ -120,11 +102,11 @@ public class Engine {
     public Goal createGoalForAgent(SingleGoal goal, Agent gamAgent) {
     	GamGoal gamGoal = EmotionConfig.getInstance().getGoal(goal.getGoal().getSignature(), gamAgent.name);
 		if(gamGoal.isIndividualGoal()) {
-		 Engine.getInstance().getSubgoalMap().addIndividualGoal(goal.getGoal().getSignature(), gamAgent.name, goal.getGoal().getAddList().get(0).toString());
-		 return Engine.getInstance().createGoalForAgent(gamAgent,goal.getGoal().getAddList().get(0).toString() + gamAgent.name,gamGoal.getValue(),false);
+		 getSubgoalMap().addIndividualGoal(goal.getGoal().getSignature(), gamAgent.name, goal.getGoal().getAddList().get(0).toString());
+		 return createGoalForAgent(gamAgent,goal.getGoal().getAddList().get(0).toString() + gamAgent.name,gamGoal.getValue(),false);
 		} else {
-		 Engine.getInstance().getSubgoalMap().addCommonGoal(goal.getGoal().getSignature(), goal.getGoal().getAddList().get(0).toString());
-		 return Engine.getInstance().createGoalForAgent(gamAgent,goal.getGoal().getAddList().get(0).toString(),gamGoal.getValue(),false);
+		 getSubgoalMap().addCommonGoal(goal.getGoal().getSignature(), goal.getGoal().getAddList().get(0).toString());
+		 return createGoalForAgent(gamAgent,goal.getGoal().getAddList().get(0).toString(),gamGoal.getValue(),false);
 		}	
     }
 
@@ -152,18 +134,27 @@ public class Engine {
      * default now). Further, if you want to tweak the emotional intensity decay
      * of individual agents, you should tweak the decayFactor per agent not the
      * "frame rate" of the decay (as this doesn't change the rate).
+     * <p>
+     * Every agent keeps track of its own last decay, so this can be mixed
+     * with {@link #decay(String)}.
      */
     public void decayAll() {
+        gamygdala.decayAll(System.currentTimeMillis());
+    }
 
-        // Record current time
-        long now = System.currentTimeMillis();
-
-        // Decay all emotions.
-        gamygdala.decayAll(this.lastMillis, now);
-
-        // Store time of last decay.
-        this.lastMillis = now;
-
+    /**
+     * Decays the emotional state and relations of a single agent according to
+     * the time passed since that agent was last decayed. Agents call this on
+     * their own cycle, so the cost of decay grows with the number of agents
+     * instead of with its square.
+     *
+     * @param agentName The name of the agent to decay.
+     */
+    public void decay(String agentName) {
+        Agent agent = getAgentByName(agentName);
+        if (agent != null) {
+            gamygdala.decay(agent, System.currentTimeMillis());
+        }
     }
 
     /**
@@ -295,10 +286,10 @@ public class Engine {
     public Goal getGoal(SingleGoal goal, String agentName){
     	boolean isIndividual = EmotionConfig.getInstance().getGoal(goal.getGoal().getSignature(), agentName).isIndividualGoal();
 		if(isIndividual) {
-		 return  this.getInstance().getGoalByName(goal.getGoal().getAddList().get(0).toString() + agentName);
+		 return getGoalByName(goal.getGoal().getAddList().get(0).toString() + agentName);
 		}
 		else {
-		 return this.getInstance().getGoalByName(goal.getGoal().getAddList().get(0).toString());
+		 return getGoalByName(goal.getGoal().getAddList().get(0).toString());
 		}
     }
     
@@ -313,10 +304,8 @@ public class Engine {
     /**
      * Inserts relations into gamygdala according to how they're defined in the emotionconfiguration
      */
-    public static void insertRelations(){
-		// getting both instances
+    public void insertRelations(){
 		EmotionConfig emo = EmotionConfig.getInstance();
-		Engine engine = Engine.getInstance();
 		
 		//for all relations
 		ArrayList<GamRelation> map = emo.getRelations();
@@ -324,16 +313,10 @@ public class Engine {
 			
 			//create agents via their names
 			GamRelation relation = map.get(i);
-			Agent agent1 = Engine.getInstance().getAgentByName(relation.getAgent1());
-			if(agent1 == null) {
-			 agent1 = Engine.getInstance().createAgent(relation.getAgent1());
-			}
-			Agent agent2 = Engine.getInstance().getAgentByName(relation.getAgent2());
-			if(agent2 == null) {
-			 agent2 = Engine.getInstance().createAgent(relation.getAgent2());
-			}
+			Agent agent1 = obtainAgent(relation.getAgent1());
+			Agent agent2 = obtainAgent(relation.getAgent2());
 			//add relation to gamygdala instance
- 			engine.createRelation(agent1, agent2, relation.getValue());
+ 			createRelation(agent1, agent2, relation.getValue());
 		}
 	}
     
@@ -380,9 +363,8 @@ public class Engine {
 	 * @param goal
 	 */
 	public void appraiseGoal(Agent agent, SingleGoal goal) {
-		Engine gam = Engine.getInstance();
 		EmotionConfig config = EmotionConfig.getInstance();
-		Goal gamGoal = gam.getGoal(goal, agent.name);
+		Goal gamGoal = getGoal(goal, agent.name);
 		if(gamGoal != null) { //if it is null then the agent did not have this goal
 			ArrayList<Goal> affectedGoals = new ArrayList<Goal>();
 			affectedGoals.add(gamGoal); //we're appraising only this goal so the affected goals are the goal itself
@@ -390,13 +372,13 @@ public class Engine {
 			congruences.add(config.getDefaultPositiveCongruence());
 			try {
 				Belief bel = new Belief(config.getDefaultBelLikelihood(), agent, affectedGoals, congruences, config.isDefaultIsIncremental());
-				gam.appraise(bel);
+				appraise(bel);
 			} catch (GoalCongruenceMapException e) {
 				e.printStackTrace();
 			}
 			agent.removeGoal(gamGoal); //remove the goals from gamygdala
-			gam.getMap().getGoalMap().remove(gamGoal.getName());
-			gam.getSubgoalMap().removeGoal(goal, agent.name);
+			getMap().getGoalMap().remove(gamGoal.getName());
+			getSubgoalMap().removeGoal(goal, agent.name);
 		}
 	}
 	
@@ -407,7 +389,6 @@ public class Engine {
 	 */
 	public void appraiseGoalAsSubgoal(Agent agent, SingleGoal goal) {
 		if(EmotionConfig.getInstance().getSubGoals().containsKey(goal.getGoal().getSignature())) {	
-		 Engine gam = Engine.getInstance();
 		 EmotionConfig config = EmotionConfig.getInstance();
 		 ArrayList<GamSubGoal> subGoals;
 		 try {
@@ -415,18 +396,18 @@ public class Engine {
 			for(int i = 0; i<subGoals.size(); i++) { //we should loop through all subgoals and appraise them
 				GamSubGoal currSub = subGoals.get(i);
 				HashSet<String> affectedNames = new HashSet<String>();
-				affectedNames = gam.getSubgoalMap().getAffectedGoals(currSub, agent.name);
+				affectedNames = getSubgoalMap().getAffectedGoals(currSub, agent.name);
 				Iterator<String> it = affectedNames.iterator();
 				while(it.hasNext()) { //appraise the affected goals one by one
 					String affectedName = it.next();
-					if(gam.getMap().getGoalMap().containsKey(affectedName)) {
-						Goal affectedGoal = gam.getGoalByName(affectedName);
+					if(getMap().getGoalMap().containsKey(affectedName)) {
+						Goal affectedGoal = getGoalByName(affectedName);
 						ArrayList<Goal> affectedGoals = new ArrayList<Goal>();
 						affectedGoals.add(affectedGoal);
 						ArrayList<Double> congruences = new ArrayList<Double>();
 						congruences.add(currSub.getCongruence());
 						Belief bel = new Belief(currSub.getLikelihood(), agent, affectedGoals, congruences, currSub.isIncremental());
-						gam.appraise(bel);
+						appraise(bel);
 					}
 				}
 			}
@@ -440,7 +421,17 @@ public class Engine {
 				
 	}
 	
-	public static void setup(MASProgram program) throws FileNotFoundException, InvalidEmotionConfigFile{
+	/**
+	 * Configures this engine for a MAS: parses the emotion configuration of
+	 * the MAS, if it has one, and sets the decay and relations of the
+	 * configuration. Note that the parsed configuration itself
+	 * ({@link EmotionConfig#getInstance()}) is shared by the whole process.
+	 *
+	 * @param program the MAS to configure the engine for.
+	 * @throws FileNotFoundException if the emotion configuration does not exist.
+	 * @throws InvalidEmotionConfigFile if the emotion configuration is invalid.
+	 */
+	public void setup(MASProgram program) throws FileNotFoundException, InvalidEmotionConfigFile{
 		// checking for emotionConfig file
 		if(program.hasEmotionFile()) {
 			String emoString = program.getEmotionFile();
@@ -453,20 +444,22 @@ public class Engine {
 				emotionFile = new File(emoPath, emoString);
 			}
 			
+			// parsing config file
+			EmotionConfig.parse(emotionFile.getAbsolutePath());
+
 			// getting info
 			EmotionConfig config = EmotionConfig.getInstance();
 			double decayFactor = config.getDecay();
 			
 			//setting decay
 			if (config.isDecayExponential()) {
-				Engine.getInstance().setDecay(decayFactor, new ExponentialDecay(decayFactor));
+				setDecay(decayFactor, new ExponentialDecay(decayFactor));
 			} else {
-				Engine.getInstance().setDecay(decayFactor, new LinearDecay(decayFactor));
+				setDecay(decayFactor, new LinearDecay(decayFactor));
 			}
 			
-			//inserting relations + parsing config file
-			EmotionConfig.parse(emotionFile.getAbsolutePath());
-			Engine.insertRelations();
+			//inserting relations
+			insertRelations();
 		}
 		
 		
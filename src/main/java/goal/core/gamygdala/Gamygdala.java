@@ -6,6 +6,10 @@ import java.util.Map;
  * This is the main appraisal engine class taking care of interpreting a
  * situation emotionally. Typically you create one instance of this class and
  * then register all agents (emotional entities) to it, as well as all goals.
+ * <p>
+ * Appraisals and decay may be performed by the threads of different agents at
+ * the same time. The state of each agent is guarded by the agent itself (see
+ * {@link Agent}), the likelihood of a goal by the goal.
  */
 public class Gamygdala {
 
@@ -17,7 +21,7 @@ public class Gamygdala {
     /**
      * The decay function used to calculate emotion intensity.
      */
-    private DecayFunction decayFunction;
+    private volatile DecayFunction decayFunction;
     
     private SubgoalMap subgoalMap;
 
@@ -25,7 +29,7 @@ public class Gamygdala {
 	/**
      * The decay factor used in the DecayFunction.
      */
-    private double decayFactor;
+    private volatile double decayFactor;
 
     /**
      * Constructor for Gamygdala Emotion Engine.
@@ -169,6 +173,29 @@ public class Gamygdala {
         }
     }
 
+    /**
+     * Decay emotional state of a single Agent for the time passed since its
+     * own last decay.
+     *
+     * @param agent The agent to decay.
+     * @param currentMillis The current time in milliseconds.
+     */
+    public void decay(Agent agent, long currentMillis) {
+        agent.decayUntil(decayFunction, currentMillis);
+    }
+
+    /**
+     * Decay emotional state of all Agents, each for the time passed since its
+     * own last decay.
+     *
+     * @param currentMillis The current time in milliseconds.
+     */
+    public void decayAll(long currentMillis) {
+        for (Agent agent : gamygdalaMap.getAgentMap().values()) {
+            decay(agent, currentMillis);
+        }
+    }
+
     /**
      * Decay emotional state of all Agents.
      */
@@ -202,6 +229,13 @@ public class Gamygdala {
      * @return the delta likelihood.
      */
     double calculateDeltaLikelihood(Goal goal, double congruence, double likelihood, boolean isIncremental) {
+        // Goals can be shared by agents that appraise concurrently.
+        synchronized (goal) {
+            return calculateDeltaLikelihoodLocked(goal, congruence, likelihood, isIncremental);
+        }
+    }
+
+    private double calculateDeltaLikelihoodLocked(Goal goal, double congruence, double likelihood, boolean isIncremental) {
 
         Double oldLikelihood = goal.getLikelihood();
         double newLikelihood;
@@ -1,12 +1,13 @@
 package goal.core.gamygdala;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * HashMap to store Goals. Extended with add / remove / has goal methods for
- * quick and concise access.
+ * Map to store Goals. Extended with add / remove / has goal methods for
+ * quick and concise access. Goals are added and removed by the threads of
+ * different agents, so this is a concurrent map.
  */
-public class GoalMap extends HashMap<String, Goal> {
+public class GoalMap extends ConcurrentHashMap<String, Goal> {
 
     /**
      * ID for serialization.
@@ -27,14 +28,11 @@ public class GoalMap extends HashMap<String, Goal> {
             return false;
         }
 
-        // Check for duplicate Goal
-        if (containsKey(goal.getName())) {
+        // Add goal to GoalMap, unless there is a duplicate Goal.
+        if (putIfAbsent(goal.getName(), goal) != null) {
             Engine.debug("[GoalMap.addGoal] Goal already exists for Agent.");
             return false;
         }
-
-        // Add goal to GoalMap.
-        put(goal.getName(), goal);
         return true;
 
     }
@@ -86,9 +84,7 @@ public class GoalMap extends HashMap<String, Goal> {
 
     @Override
     public Goal put(String name, Goal goal) {
-        if (!this.containsKey(goal.getName())) {
-            return super.put(goal.getName(), goal);
-        } else {
+        if (super.putIfAbsent(goal.getName(), goal) != null) {
             Engine.debug("Warning: failed adding a second goal with the same name: " + goal.getName());
         }
         return null;
@@ -27,7 +27,7 @@ public class Main {
 
     private void runMarioGame() throws GoalCongruenceMapException, InterruptedException {
         // Create new Gamygdala engine
-        Engine engine = Engine.getInstance();
+        Engine engine = new Engine();
 
         // Create new Agents
         Agent mario = engine.createAgent("mario");
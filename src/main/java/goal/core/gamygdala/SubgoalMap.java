@@ -12,12 +12,14 @@ import languageTools.parser.relationParser.GamSubGoal;
 
 /**
  * This map maintains data needed to appraise maingoals of subgoals.
+ * Agents update it from their own threads, so all access to the map and the
+ * sets in it is synchronized on the map; the getters return copies.
  *
  */
 public class SubgoalMap extends HashMap<String, HashSet<String>>{
-	public HashSet<String> getAffectedCommonGoals(String mainGoalName) {
+	public synchronized HashSet<String> getAffectedCommonGoals(String mainGoalName) {
 		if(this.containsKey(mainGoalName))  {
-			return this.get(mainGoalName);
+			return new HashSet<String>(this.get(mainGoalName));
 		} else {
 			return new HashSet<String>();
 		}
@@ -32,7 +34,7 @@ public class SubgoalMap extends HashMap<String, HashSet<String>>{
 	public HashSet<String> getAffectedGoals(GamSubGoal subGoal, String agent) {
 		boolean isIndividual = EmotionConfig.getInstance().getGoal(subGoal.getAffectedGoalName(), agent).isIndividualGoal();
 		if(isIndividual) { //if the goal is individual then we need to add the name of the agent to each returned goal since we add individual goals to gamygdala that way to make them unique
-			HashSet<String> temp = Engine.getInstance().getSubgoalMap().getAffectedIndividualGoal(subGoal.getAffectedGoalName(), agent);
+			HashSet<String> temp = getAffectedIndividualGoal(subGoal.getAffectedGoalName(), agent);
 			HashSet<String> res = new HashSet<String>();
 			Iterator<String > it = temp.iterator();
 			while(it.hasNext()) {
@@ -40,7 +42,7 @@ public class SubgoalMap extends HashMap<String, HashSet<String>>{
 			}
 			return res;
 		} else { //else we can just return the goal name since if it is a common goal it does not need to be unique between agents
-			return Engine.getInstance().getSubgoalMap().getAffectedCommonGoals(subGoal.getAffectedGoalName());
+			return getAffectedCommonGoals(subGoal.getAffectedGoalName());
 		}
 	}
 	
@@ -50,10 +52,10 @@ public class SubgoalMap extends HashMap<String, HashSet<String>>{
 	 * @param agentId the agent that is trying to get the affected goals
 	 * @return
 	 */
-	public HashSet<String> getAffectedIndividualGoal(String mainGoalName, String agentId) {
+	public synchronized HashSet<String> getAffectedIndividualGoal(String mainGoalName, String agentId) {
 		String key = mainGoalName + agentId;
 		if(this.containsKey(key)) {
-			return this.get(key);
+			return new HashSet<String>(this.get(key));
 		} else {
 			return new HashSet<String>();
 		}
@@ -65,7 +67,7 @@ public class SubgoalMap extends HashMap<String, HashSet<String>>{
 	 * @param agentId the name of the agent that is adding the goal
 	 * @param fullName the full name of the goal including the parameters of the goal
 	 */
-	public void addIndividualGoal(String goalName, String agentId, String fullName) { 
+	public synchronized void addIndividualGoal(String goalName, String agentId, String fullName) { 
 		String key = goalName + agentId; //it's an individual goal so it will be saved to the subgoalmap under goalName + agentId;
 		if(this.containsKey(key)) {
 			HashSet<String> toEdit = this.get(key);
@@ -84,7 +86,7 @@ public class SubgoalMap extends HashMap<String, HashSet<String>>{
 	 * @param goalName the general name of the goal (on a singlegoal goal.getGoal().getSignature())
 	 * @param fullName the full name of the goal including the parameters of the goal
 	 */
-	public void addCommonGoal(String goalName, String fullName) { 
+	public synchronized void addCommonGoal(String goalName, String fullName) { 
 		String key = goalName; //it's a common goal so it will just be saved under the goalname
 		if(this.containsKey(key)) {
 			HashSet<String> toEdit = this.get(key);
@@ -102,7 +104,7 @@ public class SubgoalMap extends HashMap<String, HashSet<String>>{
 	 * removes a common goal from the subgoalmap
 	 * @param goalName the general name of the goal (on a singlegoal goal.getGoal().getSignature())
 	 */
-	public void removeCommonGoal(String goalName, String fullName) {
+	public synchronized void removeCommonGoal(String goalName, String fullName) {
 		if(this.containsKey(goalName)) {
 			HashSet<String> toEdit = this.get(goalName);
 			if(toEdit.contains(fullName)) {
@@ -118,7 +120,7 @@ public class SubgoalMap extends HashMap<String, HashSet<String>>{
 	 * @param agentId agent for who the individual goal should be removed
 	 * @param fullName the full name of the goal including the parameters of the goal
 	 */
-	public void removeIndividualGoal(String goalName, String agentId, String fullName) {
+	public synchronized void removeIndividualGoal(String goalName, String agentId, String fullName) {
 		String key = goalName + agentId;
 		if(this.containsKey(key)) {
 			HashSet<String> toEdit = this.get(key);
@@ -138,9 +140,9 @@ public class SubgoalMap extends HashMap<String, HashSet<String>>{
 	public void removeGoal(SingleGoal goal, String agentName) {
 		boolean isIndividual = EmotionConfig.getInstance().getGoal(goal.getGoal().getSignature(), agentName).isIndividualGoal();
 		if(isIndividual) {
-			Engine.getInstance().getSubgoalMap().removeIndividualGoal(goal.getGoal().getSignature(), agentName, goal.getGoal().getAddList().get(0).toString());
+			removeIndividualGoal(goal.getGoal().getSignature(), agentName, goal.getGoal().getAddList().get(0).toString());
 		} else {
-			Engine.getInstance().getSubgoalMap().removeCommonGoal(goal.getGoal().getSignature(), goal.getGoal().getAddList().get(0).toString());
+			removeCommonGoal(goal.getGoal().getSignature(), goal.getGoal().getAddList().get(0).toString());
 		}
 	}
 }
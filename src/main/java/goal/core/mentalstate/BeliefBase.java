@@ -28,6 +28,9 @@ import goal.tools.errorhandling.exceptions.GOALBug;
 import goal.tools.errorhandling.exceptions.GOALDatabaseException;
 import goal.tools.errorhandling.exceptions.GOALRuntimeErrorException;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.MissingResourceException;
 import java.util.Observable;
@@ -229,9 +232,12 @@ public class BeliefBase {
 
 			}
 
-			debugger.breakpoint(getChannel(), formula, formula.getSourceInfo(),
-					"%s has been inserted into the belief base of %s.",
-					formula, this.agentName);
+			if (debugger.isEnabled(getChannel())) {
+				debugger.breakpoint(getChannel(), formula,
+						formula.getSourceInfo(),
+						"%s has been inserted into the belief base of %s.",
+						formula, this.agentName);
+			}
 		}
 		return change;
 	}
@@ -270,7 +276,7 @@ public class BeliefBase {
 		}
 		for (DatabaseFormula formula : updates) {
 			boolean change = this.theory.add(formula);
-			if (change) {
+			if (change && debugger.isEnabled(getChannel())) {
 				debugger.breakpoint(getChannel(), formula,
 						formula.getSourceInfo(),
 						"%s has been inserted into the mailbox of %s.",
@@ -306,9 +312,12 @@ public class BeliefBase {
 				// changed = !this.theory.add(formula);
 			}
 
-			debugger.breakpoint(getChannel(), formula, formula.getSourceInfo(),
-					"%s has been deleted from the belief base of %s.", formula,
-					this.agentName);
+			if (debugger.isEnabled(getChannel())) {
+				debugger.breakpoint(getChannel(), formula,
+						formula.getSourceInfo(),
+						"%s has been deleted from the belief base of %s.",
+						formula, this.agentName);
+			}
 		}
 		return changed;
 	}
@@ -334,6 +343,15 @@ public class BeliefBase {
 	 * list to this {@link BeliefBase}. First removes and then adds, so any
 	 * formulas that appear in both lists will result in adding the formula if
 	 * it is not already present.
+	 * <p>
+	 * The theory is updated for all formulas at once, after which the changes
+	 * are applied to the database. A debugger that listens to the changes of
+	 * individual formulas (e.g. a stepping debugger that may pause on them)
+	 * instead gets the original behaviour: every formula is removed or added
+	 * and reported before the next one is handled. In both cases, observers
+	 * of {@link Channel#BB_BATCH_UPDATES} get a single
+	 * {@link BeliefBaseChange} for the whole update of a belief base.
+	 * </p>
 	 *
 	 * @param addList
 	 *            The 'add' list of formulas that are to be inserted.
@@ -348,19 +366,52 @@ public class BeliefBase {
 	 */
 	public boolean update(List<DatabaseFormula> addList,
 			List<DatabaseFormula> deleteList, Debugger debugger) throws GOALDatabaseException {
-		boolean changed = false;
-
-		// Delegate reporting to methods called.
-
-		// First handle the delete list and remove formulas.
-		for (DatabaseFormula formula : deleteList) {
-			changed = this.delete(formula, debugger) || changed;
-		}
-		// And then handle the add list and add formulas.
-		for (DatabaseFormula formula : addList) {
-			changed = this.insert(formula, debugger) || changed;
+		List<DatabaseFormula> added = new ArrayList<>(addList.size());
+		List<DatabaseFormula> deleted = new ArrayList<>(deleteList.size());
+		if (debugger.isEnabled(getChannel())) {
+			// Delegate reporting to methods called.
+			// First handle the delete list and remove formulas.
+			for (DatabaseFormula formula : deleteList) {
+				if (this.delete(formula, debugger)) {
+					deleted.add(formula);
+				}
+			}
+			// And then handle the add list and add formulas.
+			for (DatabaseFormula formula : addList) {
+				if (this.insert(formula, debugger)) {
+					added.add(formula);
+				}
+			}
+		} else {
+			this.theory.update(addList, deleteList, added, deleted);
+			for (DatabaseFormula formula : deleted) {
+				try {
+					this.database.delete(formula);
+				} catch (KRDatabaseException e) {
+					throw new GOALDatabaseException(String.format(
+							Resources.get(WarningStrings.FAILED_DEL_DBFORMULA),
+							formula.toString()), e);
+				}
+			}
+			for (DatabaseFormula formula : added) {
+				try {
+					this.database.insert(formula);
+				} catch (KRDatabaseException e) {
+					throw new GOALDatabaseException(String.format(
+							Resources.get(WarningStrings.FAILED_ADD_DBFORMULA),
+							formula.toString(), this.database.getName()), e);
+				}
+			}
 		}
 
+		boolean changed = !added.isEmpty() || !deleted.isEmpty();
+		if (changed && this.type == BASETYPE.BELIEFBASE
+				&& debugger.isEnabled(Channel.BB_BATCH_UPDATES)) {
+			debugger.breakpoint(Channel.BB_BATCH_UPDATES, new BeliefBaseChange(
+					this.type, added, deleted), null,
+					"%s formulas have been inserted into and %s deleted from the belief base of %s.",
+					added.size(), deleted.size(), this.agentName);
+		}
 		return changed;
 	}
 
@@ -377,45 +428,59 @@ public class BeliefBase {
 	 * @param debugger
 	 *            The debugger monitoring the call.
 	 */
-	public void updatePercepts(Set<Percept> addList, Set<Percept> deleteList,
-			Debugger debugger) {
-		if (!addList.isEmpty() || !deleteList.isEmpty()) {
+	public void updatePercepts(Collection<Percept> addList,
+			Collection<Percept> deleteList, Debugger debugger) {
+		if (addList.isEmpty() && deleteList.isEmpty()) {
+			return;
+		}
+		boolean reportBatch = debugger.isEnabled(Channel.PERCEPTS);
+		boolean reportFormulas = debugger.isEnabled(getChannel());
+		if (reportBatch) {
 			debugger.breakpoint(Channel.PERCEPTS, null, null,
 					"Processing percepts.");
+		}
 
-			Database perceptbase = getDatabase();
-			for (eis.iilang.Percept percept : deleteList) {
-				try {
-					DatabaseFormula formula = this.state.delete(perceptbase,
-							percept);
-					this.theory.remove(formula);
-					debugger.breakpoint(getChannel(), formula,
-							formula.getSourceInfo(),
-							"%s has been deleted from the percept base of %s.",
-							formula, this.agentName);
-				} catch (KRDatabaseException e) {
-					throw new GOALRuntimeErrorException(
-							"Could not delete percept" + percept + " from "
-									+ this.agentName + "'s" + "percept base", e);
-				}
+		// The database is updated percept by percept, but the theory (and
+		// the debugger) only once for all percepts.
+		Database perceptbase = getDatabase();
+		List<DatabaseFormula> deleted = new ArrayList<>(deleteList.size());
+		for (eis.iilang.Percept percept : deleteList) {
+			try {
+				deleted.add(this.state.delete(perceptbase, percept));
+			} catch (KRDatabaseException e) {
+				throw new GOALRuntimeErrorException("Could not delete percept"
+						+ percept + " from " + this.agentName + "'s"
+						+ "percept base", e);
 			}
-			for (eis.iilang.Percept percept : addList) {
-				try {
-					DatabaseFormula formula = this.state.insert(perceptbase,
-							percept);
-					this.theory.add(formula);
-					debugger.breakpoint(
-							getChannel(),
-							formula,
-							formula.getSourceInfo(),
-							"%s has been inserted into the percept base of %s.",
-							formula, this.agentName);
-				} catch (KRDatabaseException e) {
-					throw new GOALRuntimeErrorException("Could not add percept"
-							+ percept + " into " + this.agentName + "'s"
-							+ "percept base", e);
-				}
+		}
+		Set<DatabaseFormula> added = new LinkedHashSet<>(addList.size());
+		for (eis.iilang.Percept percept : addList) {
+			try {
+				added.add(this.state.insert(perceptbase, percept));
+			} catch (KRDatabaseException e) {
+				throw new GOALRuntimeErrorException("Could not add percept"
+						+ percept + " into " + this.agentName + "'s"
+						+ "percept base", e);
+			}
+		}
+		this.theory.remove(deleted);
+		this.theory.add(added);
+
+		if (reportFormulas) {
+			for (DatabaseFormula formula : deleted) {
+				debugger.breakpoint(getChannel(), formula,
+						formula.getSourceInfo(),
+						"%s has been deleted from the percept base of %s.",
+						formula, this.agentName);
+			}
+			for (DatabaseFormula formula : added) {
+				debugger.breakpoint(getChannel(), formula,
+						formula.getSourceInfo(),
+						"%s has been inserted into the percept base of %s.",
+						formula, this.agentName);
 			}
+		}
+		if (reportBatch) {
 			debugger.breakpoint(Channel.PERCEPTS, null, null,
 					"Percepts processed.");
 		}
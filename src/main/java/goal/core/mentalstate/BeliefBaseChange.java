@@ -0,0 +1,61 @@
+package goal.core.mentalstate;
+
+import java.util.Collections;
+import java.util.List;
+
+import krTools.language.DatabaseFormula;
+import mentalState.BASETYPE;
+
+/**
+ * The formulas that have been added to and removed from a {@link BeliefBase}
+ * by a single update. Reported on
+ * {@link goal.tools.debugger.Channel#BB_BATCH_UPDATES}.
+ */
+public class BeliefBaseChange {
+	private final BASETYPE type;
+	private final List<DatabaseFormula> added;
+	private final List<DatabaseFormula> deleted;
+
+	/**
+	 * @param type
+	 *            the type of the base that has changed.
+	 * @param added
+	 *            the formulas that have been added.
+	 * @param deleted
+	 *            the formulas that have been removed.
+	 */
+	public BeliefBaseChange(BASETYPE type, List<DatabaseFormula> added,
+			List<DatabaseFormula> deleted) {
+		this.type = type;
+		this.added = Collections.unmodifiableList(added);
+		this.deleted = Collections.unmodifiableList(deleted);
+	}
+
+	/**
+	 * @return the type of the base that has changed.
+	 */
+	public BASETYPE getType() {
+		return this.type;
+	}
+
+	/**
+	 * @return the formulas that have been added, in the order in which they
+	 *         were added.
+	 */
+	public List<DatabaseFormula> getAdded() {
+		return this.added;
+	}
+
+	/**
+	 * @return the formulas that have been removed, in the order in which they
+	 *         were removed.
+	 */
+	public List<DatabaseFormula> getDeleted() {
+		return this.deleted;
+	}
+
+	@Override
+	public String toString() {
+		return "+" + this.added + " -" + this.deleted; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
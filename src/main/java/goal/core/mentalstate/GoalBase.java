@@ -34,6 +34,8 @@ import goal.tools.errorhandling.exceptions.GOALDatabaseException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -67,6 +69,9 @@ import languageTools.program.agent.AgentProgram;
  * </p>
  * <p>
  * Note that each goal of the agent is implemented as a separate database.
+ * Goals are created through the {@link GoalStore} of the mental model, which
+ * may share goals between goal bases and is used to skip goals that can not
+ * entail a query.
  *
  * </p>
  * <p>
@@ -95,9 +100,13 @@ public final class GoalBase implements Iterable<SingleGoal> {
 	 */
 	private final Set<SingleGoal> goals = new LinkedHashSet<>();
 	/**
-	 * DOC
+	 * The store used to create the goals of this goal base.
+	 */
+	private final GoalStore store;
+	/**
+	 * The emotion engine that is told about the goals in this goal base.
 	 */
-	private final mentalState.MentalState state;
+	private final Engine engine;
 	/**
 	 * The name of the {@link AgentProgram} that owns this {@link GoalBase}.
 	 */
@@ -122,13 +131,19 @@ public final class GoalBase implements Iterable<SingleGoal> {
 	 * Keeps track of number of queries and updates performed.
 	 */
 	private long count = 0;
+	/**
+	 * The number of changes made to the goals in this goal base.
+	 */
+	private long generation = 0;
 
 	/**
 	 * Creates a new {@link GoalBase}. Use {@link #setGoals(List, String)} to
 	 * add initial content to this goal base.
 	 *
-	 * @param language
-	 *            The KR language used for representing goals.
+	 * @param store
+	 *            The store used for creating goals.
+	 * @param engine
+	 *            The emotion engine of the agent.
 	 * @param owner
 	 *            The agent that owns this goal base.
 	 * @param me
@@ -139,9 +154,10 @@ public final class GoalBase implements Iterable<SingleGoal> {
 	 *            The name of the agent whose goals are modeled in this goal
 	 *            base.
 	 */
-	public GoalBase(mentalState.MentalState state, AgentId me,
+	public GoalBase(GoalStore store, Engine engine, AgentId me,
 			AgentProgram owner, String name, AgentId... agentName) {
-		this.state = state;
+		this.store = store;
+		this.engine = engine;
 		this.owner = owner;
 		this.name = name;
 		if (agentName.length == 0) {
@@ -156,6 +172,10 @@ public final class GoalBase implements Iterable<SingleGoal> {
 	 *
 	 * @param singleGoal
 	 *            The goal to be inserted as only goal in the new goal base.
+	 * @param store
+	 *            The store used for creating goals.
+	 * @param engine
+	 *            The emotion engine of the agent.
 	 * @param owner
 	 *            The agent that owns this goal base.
 	 * @param me
@@ -168,10 +188,10 @@ public final class GoalBase implements Iterable<SingleGoal> {
 	 *            The name of the agent whose goals are modeled in this goal
 	 *            base.
 	 */
-	public GoalBase(SingleGoal singleGoal, mentalState.MentalState state,
+	public GoalBase(SingleGoal singleGoal, GoalStore store, Engine engine,
 			AgentId me, AgentProgram owner, String name, Debugger debugger,
 			AgentId... agentName) {
-		this(state, me, owner, name, agentName);
+		this(store, engine, me, owner, name, agentName);
 		addGoal(singleGoal, debugger);
 	}
 
@@ -206,7 +226,7 @@ public final class GoalBase implements Iterable<SingleGoal> {
 		for (Update goal : content) {
 			this.count++;
 			getTime();
-			addGoal(new SingleGoal(goal, this.owner, this.state), debugger);
+			addGoal(this.store.obtain(goal), debugger);
 			updateTimeUsed();
 		}
 	}
@@ -218,6 +238,15 @@ public final class GoalBase implements Iterable<SingleGoal> {
 		return this.goals.isEmpty();
 	}
 
+	/**
+	 * @return the number of changes that have been made to the goals in this
+	 *         goal base. Two calls that return the same number see the same
+	 *         goals.
+	 */
+	public long getGeneration() {
+		return this.generation;
+	}
+
 	@Override
 	public Iterator<SingleGoal> iterator() {
 		return this.goals.iterator();
@@ -243,8 +272,37 @@ public final class GoalBase implements Iterable<SingleGoal> {
 	 * @throws GOALActionFailedException if the query fails to be executed.
 	 */
 	public final Set<Substitution> query(Query query, Debugger debugger) throws GOALDatabaseException {
+		return query(query, Collections.singleton(query.getSignature()),
+				debugger);
+	}
+
+	/**
+	 * Checks whether a goal follows from a single goal in this goal base; see
+	 * {@link #query(Query, Debugger)}. Uses the formulas of the goal to limit
+	 * the goals that need to be queried.
+	 *
+	 * @param goal
+	 *            The goal, e.g. a goal that is about to be adopted.
+	 * @param debugger
+	 *            The current debugger.
+	 * @return a (possibly empty) set of substitutions each of which make the
+	 *         goal follow from a single goal.
+	 * @throws GOALDatabaseException
+	 *             if the query fails to be executed.
+	 */
+	public final Set<Substitution> query(Update goal, Debugger debugger)
+			throws GOALDatabaseException {
+		return query(goal.toQuery(), GoalStore.getSignatures(goal), debugger);
+	}
+
+	/**
+	 * Queries the goals that the {@link GoalStore} selects for the given
+	 * signatures.
+	 */
+	private Set<Substitution> query(Query query, Collection<String> signatures,
+			Debugger debugger) throws GOALDatabaseException {
 		Set<Substitution> substitutions = new LinkedHashSet<>();
-		for (SingleGoal goal : this.goals) {
+		for (SingleGoal goal : this.store.select(signatures, this.goals)) {
 			try {
 				// Get current time used in this thread.
 				this.count++;
@@ -276,7 +334,7 @@ public final class GoalBase implements Iterable<SingleGoal> {
 	public boolean insert(Update goal, Debugger debugger)  {
 		this.count++;
 		getTime();
-		addGoal(new SingleGoal(goal, this.owner, this.state), debugger);
+		addGoal(this.store.obtain(goal), debugger);
 		updateTimeUsed();
 		return true;
 	}
@@ -284,7 +342,8 @@ public final class GoalBase implements Iterable<SingleGoal> {
 	/**
 	 * Adds a single, existing goal to the goal base. Should always be used to
 	 * add goals to this goal base, also internally, since it will mark the goal
-	 * as used (by this goal base).
+	 * as used (by this goal base). If an equal goal already is present, the
+	 * given goal is released if nothing else uses it, and nothing is reported.
 	 *
 	 * @param goal
 	 *            the goal to add.
@@ -292,37 +351,48 @@ public final class GoalBase implements Iterable<SingleGoal> {
 	 *            The current debugger.
 	 */
 	public void addGoal(SingleGoal goal, Debugger debugger) {
-		addGoalPrivate(goal);
-		debugger.breakpoint(
-				Channel.GB_UPDATES,
-				goal,
-				goal.getGoal().getSourceInfo(),
-				"%s has been adopted into the "
-						+ (this.owner.equals(this.agentName) ? ""
-								: this.agentName + "'s ") + "goal base: %s.",
-				goal.toString(), this.name);
+		if (!addGoalPrivate(goal)) {
+			// an equal goal is already present; this one is not needed.
+			goal.releaseIfUnused();
+			return;
+		}
+		if (debugger.isEnabled(Channel.GB_UPDATES)) {
+			debugger.breakpoint(
+					Channel.GB_UPDATES,
+					goal,
+					goal.getGoal().getSourceInfo(),
+					"%s has been adopted into the "
+							+ (this.owner.equals(this.agentName) ? ""
+									: this.agentName + "'s ") + "goal base: %s.",
+					goal.toString(), this.name);
+		}
 	}
 
 	/**
 	 * Non-overwritable version of addGoal, as we need this during
 	 * initialization.
+	 *
+	 * @return true if the goal was added; false if it already was present.
 	 */
-	private void addGoalPrivate(SingleGoal goal) {
-		this.goals.add(goal);
+	private boolean addGoalPrivate(SingleGoal goal) {
+		if (!this.goals.add(goal)) {
+			return false;
+		}
+		this.generation++;
 		goal.markOccurrence();
 		
 		this.addGamygdalaGoal(goal);
+		return true;
 	}
 	
 	/**
 	 * Add goal to the gamygdala engine.
 	 */
 	private void addGamygdalaGoal(SingleGoal goal) {
-		Engine engine = Engine.getInstance();
 		Agent gamAgent = 
-					engine.getAgentByName(this.agentName.getName());
+					this.engine.getAgentByName(this.agentName.getName());
 		EmotionConfig conf = EmotionConfig.getInstance();
-		engine.createGoalForAgent(goal, gamAgent);
+		this.engine.createGoalForAgent(goal, gamAgent);
 			
 			
 	}
@@ -340,12 +410,14 @@ public final class GoalBase implements Iterable<SingleGoal> {
 	 */
 	public List<SingleGoal> drop(Update dropgoal, Debugger debugger) throws GOALDatabaseException{
 		List<SingleGoal> goalsToBeDropped = new LinkedList<>();
-		for (SingleGoal goal : this.goals) {
+		Query query = dropgoal.toQuery();
+		for (SingleGoal goal : this.store.select(
+				GoalStore.getSignatures(dropgoal), this.goals)) {
 			try {
 				// Get current time used in this thread.
 				this.count++;
 				getTime();
-				if (!goal.getGoalDatabase().query(dropgoal.toQuery()).isEmpty()) {
+				if (!goal.getGoalDatabase().query(query).isEmpty()) {
 					goalsToBeDropped.add(goal);
 				}
 				// Update time used.
@@ -356,13 +428,17 @@ public final class GoalBase implements Iterable<SingleGoal> {
 						.toQuery().toString(), this.owner.toString()), e);
 			}
 		}
-		this.goals.removeAll(goalsToBeDropped);
+		if (this.goals.removeAll(goalsToBeDropped)) {
+			this.generation++;
+		}
 		for (SingleGoal goal : goalsToBeDropped) {
-			debugger.breakpoint(Channel.GB_UPDATES, goal, goal.getGoal()
-					.getSourceInfo(), "Goal %s"
-					+ " has been dropped from the "
-					+ (this.owner.equals(this.agentName) ? "" : this.agentName
-							+ "'s ") + "goal base: %s.", goal, this.name);
+			if (debugger.isEnabled(Channel.GB_UPDATES)) {
+				debugger.breakpoint(Channel.GB_UPDATES, goal, goal.getGoal()
+						.getSourceInfo(), "Goal %s"
+						+ " has been dropped from the "
+						+ (this.owner.equals(this.agentName) ? "" : this.agentName
+								+ "'s ") + "goal base: %s.", goal, this.name);
+			}
 
 			this.count++;
 			getTime();
@@ -384,12 +460,14 @@ public final class GoalBase implements Iterable<SingleGoal> {
 	 */
 	public List<SingleGoal> dropWithGamygdala(Update dropgoal, Debugger debugger, AgentId self) throws GOALDatabaseException{
 		List<SingleGoal> goalsToBeDropped = new LinkedList<>();
-		for (SingleGoal goal : this.goals) {
+		Query query = dropgoal.toQuery();
+		for (SingleGoal goal : this.store.select(
+				GoalStore.getSignatures(dropgoal), this.goals)) {
 			try {
 				// Get current time used in this thread.
 				this.count++;
 				getTime();
-				if (!goal.getGoalDatabase().query(dropgoal.toQuery()).isEmpty()) {
+				if (!goal.getGoalDatabase().query(query).isEmpty()) {
 					goalsToBeDropped.add(goal);
 				}
 				// Update time used.
@@ -400,17 +478,20 @@ public final class GoalBase implements Iterable<SingleGoal> {
 						.toQuery().toString(), this.owner.toString()), e);
 			}
 		}
-		this.goals.removeAll(goalsToBeDropped);
+		if (this.goals.removeAll(goalsToBeDropped)) {
+			this.generation++;
+		}
 
 	
-		Engine gam = Engine.getInstance();
-		Agent agent = gam.getAgentByName(self.getName());
+		Agent agent = this.engine.getAgentByName(self.getName());
 		for (SingleGoal goal : goalsToBeDropped) {
-			debugger.breakpoint(Channel.GB_UPDATES, goal, goal.getGoal()
-					.getSourceInfo(), "Goal %s"
-					+ " has been dropped from the "
-					+ (this.owner.equals(this.agentName) ? "" : this.agentName
-							+ "'s ") + "goal base: %s.", goal, this.name);
+			if (debugger.isEnabled(Channel.GB_UPDATES)) {
+				debugger.breakpoint(Channel.GB_UPDATES, goal, goal.getGoal()
+						.getSourceInfo(), "Goal %s"
+						+ " has been dropped from the "
+						+ (this.owner.equals(this.agentName) ? "" : this.agentName
+								+ "'s ") + "goal base: %s.", goal, this.name);
+			}
 			dropGamGoal(agent, goal);
 			this.count++;
 			getTime();
@@ -421,10 +502,9 @@ public final class GoalBase implements Iterable<SingleGoal> {
 		return goalsToBeDropped;
 	}
 	
-	public static void dropGamGoal(Agent agent, SingleGoal goal) {
-		Engine gam = Engine.getInstance();
+	public void dropGamGoal(Agent agent, SingleGoal goal) {
 		EmotionConfig config = EmotionConfig.getInstance();
-		Goal gamGoal = gam.getGoal(goal, agent.name);
+		Goal gamGoal = this.engine.getGoal(goal, agent.name);
 		if(gamGoal != null) {
 			ArrayList<Goal> affectedGoals = new ArrayList<Goal>();
 			affectedGoals.add(gamGoal);
@@ -436,10 +516,10 @@ public final class GoalBase implements Iterable<SingleGoal> {
 			} catch (GoalCongruenceMapException e) {
 				e.printStackTrace();
 			}
-			gam.appraise(bel, agent);
+			this.engine.appraise(bel, agent);
 			agent.removeGoal(gamGoal);
-			gam.getMap().getGoalMap().remove(gamGoal.getName());
-			gam.getSubgoalMap().removeGoal(goal, agent.name);
+			this.engine.getMap().getGoalMap().remove(gamGoal.getName());
+			this.engine.getSubgoalMap().removeGoal(goal, agent.name);
 		}
 	}
 
@@ -457,12 +537,15 @@ public final class GoalBase implements Iterable<SingleGoal> {
 			throws KRInitFailedException {
 		boolean result = this.goals.remove(goal);
 		if (result) {
-			debugger.breakpoint(Channel.GOAL_ACHIEVED, goal, goal.getGoal()
-					.getSourceInfo(),
-					"Goal %s has been achieved and removed from the "
-							+ (this.owner.equals(this.agentName) ? ""
-									: this.agentName + "'s ")
-							+ "goal base: %s.", goal, this.name);
+			this.generation++;
+			if (debugger.isEnabled(Channel.GOAL_ACHIEVED)) {
+				debugger.breakpoint(Channel.GOAL_ACHIEVED, goal, goal.getGoal()
+						.getSourceInfo(),
+						"Goal %s has been achieved and removed from the "
+								+ (this.owner.equals(this.agentName) ? ""
+										: this.agentName + "'s ")
+								+ "goal base: %s.", goal, this.name);
+			}
 			// #2968 goal is to be disposed. Don't use with delay..
 			goal.unmarkOccurrence();
 		}
@@ -0,0 +1,344 @@
+/**
+ * GOAL interpreter that facilitates developing and executing GOAL multi-agent
+ * programs. Copyright (C) 2011 K.V. Hindriks, W. Pasman
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package goal.core.mentalstate;
+
+import goal.tools.errorhandling.exceptions.GOALRuntimeErrorException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import krTools.database.Database;
+import krTools.errors.exceptions.KRDatabaseException;
+import krTools.errors.exceptions.KRInitFailedException;
+import krTools.errors.exceptions.KRQueryFailedException;
+import krTools.language.DatabaseFormula;
+import krTools.language.Update;
+import languageTools.program.agent.AgentProgram;
+import mentalState.BASETYPE;
+
+/**
+ * <p>
+ * Keeps track of all {@link SingleGoal}s of one {@link MentalModel}. All
+ * {@link GoalBase}s of the model (the attention stack, but also temporary goal
+ * bases used for evaluating conditions) create their goals through this store.
+ * </p>
+ * <p>
+ * The KR layer requires that a query on the goal base follows from a single
+ * goal (plus knowledge), so each goal still is backed by its own database.
+ * In shared mode the store however makes sure that:
+ * <ul>
+ * <li>equal goals are represented by a single {@link SingleGoal}, so adopting a
+ * goal that is already present in another attention set does not create a new
+ * database;</li>
+ * <li>databases of goals that are no longer used are emptied and reused for new
+ * goals instead of being destroyed and created again;</li>
+ * <li>goals are indexed on the signatures of the formulas they consist of, so
+ * that queries and drops only have to visit the goals that can possibly
+ * entail them.</li>
+ * </ul>
+ * The reference counting of {@link SingleGoal#markOccurrence()} and
+ * {@link SingleGoal#unmarkOccurrence()} is unchanged: a goal is released back
+ * to this store when its use count drops to zero.
+ * </p>
+ * <p>
+ * If the store is not shared, every call to {@link #obtain(Update)} creates a
+ * new database, released goals are destroyed, and {@link #select} never
+ * filters; this is the original per-goal layout.
+ * </p>
+ */
+public class GoalStore {
+	/**
+	 * Maximum number of emptied goal databases that are kept for reuse.
+	 */
+	private static final int MAX_POOLED_DATABASES = 64;
+	/**
+	 * Signature of a clause. If the knowledge does not report the signature of
+	 * the head of its rules we can not tell which predicates are derived.
+	 */
+	private static final String CLAUSE = ":-/2";
+
+	/**
+	 * The interface used to create goal databases.
+	 */
+	private final mentalState.MentalState state;
+	/**
+	 * The agent program whose knowledge is imported in goal databases.
+	 */
+	private final AgentProgram owner;
+	/**
+	 * True if goals are shared and indexed; false for the per-goal layout.
+	 */
+	private final boolean shared;
+	/**
+	 * Signatures of predicates that are defined by the knowledge of the owner.
+	 * Such predicates may follow from goals that do not mention them.
+	 */
+	private final Set<String> derived = new HashSet<>();
+	/**
+	 * False if the derived predicates could not be determined; the index is not
+	 * used in that case.
+	 */
+	private final boolean indexable;
+	/**
+	 * The goals that are currently in use, by their content.
+	 */
+	private final Map<Update, SingleGoal> goals = new HashMap<>();
+	/**
+	 * The goals that are currently in use, by the signatures of the formulas
+	 * they consist of.
+	 */
+	private final Map<String, Set<SingleGoal>> index = new HashMap<>();
+	/**
+	 * Emptied goal databases that can be reused.
+	 */
+	private final Deque<Database> pool = new ArrayDeque<>();
+
+	/**
+	 * Creates a goal store.
+	 *
+	 * @param state
+	 *            The interface used for creating goal databases.
+	 * @param owner
+	 *            The agent program that owns the goals.
+	 * @param shared
+	 *            true to share and index goals, false for the per-goal layout.
+	 */
+	public GoalStore(mentalState.MentalState state, AgentProgram owner,
+			boolean shared) {
+		this.state = state;
+		this.owner = owner;
+		this.shared = shared;
+		boolean clauses = false;
+		for (DatabaseFormula formula : owner.getAllKnowledge()) {
+			String signature = formula.getSignature();
+			clauses |= CLAUSE.equals(signature);
+			this.derived.add(signature);
+		}
+		this.indexable = !clauses;
+	}
+
+	/**
+	 * @return true if goals are shared and indexed by this store.
+	 */
+	public boolean isShared() {
+		return this.shared;
+	}
+
+	/**
+	 * Returns a {@link SingleGoal} for the given goal. In shared mode an
+	 * existing goal with the same content is returned if there is one. The
+	 * returned goal should be marked with {@link SingleGoal#markOccurrence()}
+	 * by the goal base it is added to.
+	 *
+	 * @param goal
+	 *            The goal. ASSUMES the goal consists of a list of database
+	 *            formulas to be added only.
+	 * @return A single goal representing the goal.
+	 * @throws GOALRuntimeErrorException
+	 *             If no database could be created for the goal.
+	 */
+	public synchronized SingleGoal obtain(Update goal) {
+		SingleGoal single = this.shared ? this.goals.get(goal) : null;
+		if (single != null) {
+			return single;
+		}
+		Database database = this.pool.poll();
+		try {
+			if (database == null) {
+				database = this.state.makeDatabase(BASETYPE.GOALBASE,
+						goal.getAddList(), this.owner);
+			} else {
+				for (DatabaseFormula formula : goal.getAddList()) {
+					database.insert(formula);
+				}
+			}
+		} catch (KRInitFailedException | KRDatabaseException
+				| KRQueryFailedException e) {
+			throw new GOALRuntimeErrorException("Could not add new goal "
+					+ goal, e);
+		}
+		single = new SingleGoal(goal, database, this);
+		if (this.shared) {
+			this.goals.put(goal, single);
+			for (String signature : getSignatures(goal)) {
+				Set<SingleGoal> indexed = this.index.get(signature);
+				if (indexed == null) {
+					indexed = new LinkedHashSet<>();
+					this.index.put(signature, indexed);
+				}
+				indexed.add(single);
+			}
+		}
+		return single;
+	}
+
+	/**
+	 * Releases a goal that is no longer used. In shared mode the database of
+	 * the goal is emptied and kept for reuse; otherwise it is destroyed.
+	 *
+	 * @param single
+	 *            The goal to release.
+	 * @throws GOALRuntimeErrorException
+	 *             If the database of the goal could not be cleaned up.
+	 */
+	protected synchronized void release(SingleGoal single) {
+		Update goal = single.getGoal();
+		Database database = single.getGoalDatabase();
+		if (database == null) {
+			return; // already released.
+		}
+		if (this.shared) {
+			if (this.goals.get(goal) == single) {
+				this.goals.remove(goal);
+			}
+			for (String signature : getSignatures(goal)) {
+				Set<SingleGoal> indexed = this.index.get(signature);
+				if (indexed != null) {
+					indexed.remove(single);
+					if (indexed.isEmpty()) {
+						this.index.remove(signature);
+					}
+				}
+			}
+		}
+		try {
+			if (this.shared && this.pool.size() < MAX_POOLED_DATABASES) {
+				for (DatabaseFormula formula : goal.getAddList()) {
+					database.delete(formula);
+				}
+				this.pool.push(database);
+			} else {
+				database.destroy();
+			}
+		} catch (KRDatabaseException e) {
+			throw new GOALRuntimeErrorException("Could not remove goal " + goal
+					+ " from database", e);
+		}
+	}
+
+	/**
+	 * Selects the goals that may entail a conjunction of formulas with the
+	 * given signatures. Only goals that contain a formula for every signature
+	 * can entail such a conjunction, unless a signature is defined by the
+	 * knowledge or is not known to the store at all (e.g. a built-in or a
+	 * compound query); in those cases all candidates are returned.
+	 *
+	 * @param signatures
+	 *            The signatures of the conjuncts of a query. An empty
+	 *            collection means the signatures are not known.
+	 * @param candidates
+	 *            The goals to select from, in order.
+	 * @return The candidates that may entail the query, in their original
+	 *         order.
+	 */
+	public synchronized Collection<SingleGoal> select(
+			Collection<String> signatures, Set<SingleGoal> candidates) {
+		if (!this.shared || !this.indexable || signatures.isEmpty()) {
+			return candidates;
+		}
+		Set<SingleGoal> smallest = null;
+		for (String signature : signatures) {
+			Set<SingleGoal> indexed = this.index.get(signature);
+			if (indexed == null || this.derived.contains(signature)) {
+				return candidates;
+			} else if (smallest == null || indexed.size() < smallest.size()) {
+				smallest = indexed;
+			}
+		}
+		List<SingleGoal> selected = new ArrayList<>(Math.min(smallest.size(),
+				candidates.size()));
+		if (smallest.size() < candidates.size()) {
+			for (SingleGoal goal : smallest) {
+				if (candidates.contains(goal)
+						&& goal.getSignatures().containsAll(signatures)) {
+					selected.add(goal);
+				}
+			}
+		} else {
+			for (SingleGoal goal : candidates) {
+				if (smallest.contains(goal)
+						&& goal.getSignatures().containsAll(signatures)) {
+					selected.add(goal);
+				}
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * Returns the signatures of the conjuncts of an update, for use with
+	 * {@link #select(Collection, Set)}.
+	 *
+	 * @param update
+	 *            The update.
+	 * @return The signatures of the formulas in the add list, or an empty set
+	 *         if the update also has a delete list (negated conjuncts can be
+	 *         entailed by any goal).
+	 */
+	public static Set<String> getSignatures(Update update) {
+		if (!update.getDeleteList().isEmpty()) {
+			return Collections.emptySet();
+		}
+		Set<String> signatures = new HashSet<>();
+		for (DatabaseFormula formula : update.getAddList()) {
+			signatures.add(formula.getSignature());
+		}
+		return signatures;
+	}
+
+	/**
+	 * @return The number of distinct goals currently stored. Always 0 if the
+	 *         store is not shared.
+	 */
+	public synchronized int size() {
+		return this.goals.size();
+	}
+
+	/**
+	 * @return The number of emptied databases that are available for reuse.
+	 */
+	public synchronized int getPooledDatabases() {
+		return this.pool.size();
+	}
+
+	/**
+	 * Destroys all databases kept for reuse. Goals still in use are cleaned up
+	 * by the goal bases that use them. Should be called when the mental model
+	 * is deleted.
+	 */
+	public synchronized void cleanUp() {
+		while (!this.pool.isEmpty()) {
+			try {
+				this.pool.pop().destroy();
+			} catch (KRDatabaseException e) {
+				throw new GOALRuntimeErrorException(
+						"Could not remove goal database", e);
+			}
+		}
+	}
+}
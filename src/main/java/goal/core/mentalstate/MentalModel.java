@@ -24,6 +24,7 @@ import goal.core.gamygdala.Belief;
 import goal.core.gamygdala.Engine;
 import goal.core.gamygdala.Goal;
 import goal.core.gamygdala.GoalCongruenceMapException;
+import goal.preferences.CorePreferences;
 import goal.tools.debugger.Channel;
 import goal.tools.debugger.Debugger;
 import goal.tools.errorhandling.Resources;
@@ -143,6 +144,11 @@ public class MentalModel {
 	 * </p>
 	 */
 	private final Stack<GoalBase> goalBases = new Stack<>();
+	/**
+	 * The store that creates and indexes the goals of all goal bases of this
+	 * {@link MentalModel}. Created together with the first goal base.
+	 */
+	private GoalStore goalStore = null;
 	/**
 	 * Stack that keeps track of the 'views' on the {@link BeliefBase} of the
 	 * {@link Agent} that owns this {@link MentalModel}.
@@ -156,6 +162,32 @@ public class MentalModel {
 	 * Keeps track of number of queries and updates performed.
 	 */
 	private long count = 0;
+	/**
+	 * When this model was last used ({@link System#nanoTime()}); only kept
+	 * for models of other agents, see {@link MentalState}.
+	 */
+	private volatile long lastUsed = System.nanoTime();
+	/**
+	 * The emotion engine that is told about the goals in this model.
+	 */
+	private final Engine engine;
+
+	/**
+	 * Creates an empty model.
+	 *
+	 * @param engine
+	 *            the emotion engine of the agent that owns this model.
+	 */
+	public MentalModel(Engine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * @return the emotion engine of the agent that owns this model.
+	 */
+	public Engine getEngine() {
+		return this.engine;
+	}
 
 	/**
 	 * @param type
@@ -220,8 +252,13 @@ public class MentalModel {
 	public void addGoalBase(List<Update> content,
 			mentalState.MentalState state, AgentProgram agent, AgentId owner,
 			String name, AgentId agentName, Debugger debugger) {
+		if (this.goalStore == null) {
+			this.goalStore = new GoalStore(state, agent,
+					CorePreferences.isSharedGoalStore());
+		}
 		// Create new goal base and add content.
-		GoalBase goalBase = new GoalBase(state, owner, agent, name, agentName);
+		GoalBase goalBase = new GoalBase(this.goalStore, this.engine, owner,
+				agent, name, agentName);
 		goalBase.setGoals(content, debugger);
 		// Push the goal base on the stack of goal bases.
 		this.goalBases.push(goalBase);
@@ -254,6 +291,52 @@ public class MentalModel {
 			this.count += this.goalBases.peek().getCount();
 			this.goalBases.pop().cleanUp();
 		}
+		if (this.goalStore != null) {
+			this.goalStore.cleanUp();
+		}
+	}
+
+	/**
+	 * Records that this model is being used.
+	 */
+	void touch() {
+		this.lastUsed = System.nanoTime();
+	}
+
+	/**
+	 * @return when this model was last used, see {@link #touch()}.
+	 */
+	long getLastUsed() {
+		return this.lastUsed;
+	}
+
+	/**
+	 * @return true if none of the bases of this model contain anything, i.e.
+	 *         the model is the same as a newly created one.
+	 */
+	boolean isEmpty() {
+		for (BeliefBase base : this.beliefBases.values()) {
+			if (!base.getTheory().isEmpty()) {
+				return false;
+			}
+		}
+		for (GoalBase base : this.goalBases) {
+			if (!base.isEmpty()) {
+				return false;
+			}
+		}
+		return this.goalBases.size() <= 1;
+	}
+
+	/**
+	 * Returns the store that is used to create the goals of the goal bases of
+	 * this {@link MentalModel}. New goal bases for this model should use this
+	 * store.
+	 *
+	 * @return The goal store of this model.
+	 */
+	public GoalStore getGoalStore() {
+		return this.goalStore;
 	}
 
 	/**
@@ -315,7 +398,9 @@ public class MentalModel {
 			substitutions = goalaQuery(formula, focus, debugger);
 		}
 
-		if (substitutions.isEmpty()) {
+		if (!debugger.isEnabled(Channel.ATOM_QUERIES)) {
+			return substitutions;
+		} else if (substitutions.isEmpty()) {
 			debugger.breakpoint(Channel.ATOM_QUERIES, literal,
 					literal.getSourceInfo(), "Condition %s has no solutions.",
 					literal);
@@ -573,12 +658,11 @@ public class MentalModel {
 		Set<SingleGoal> goals = getAttentionSet(true).getGoals();
 		List<SingleGoal> goalsToBeRemoved = getGoalsToBeRemoved(debugger);
 
-		Engine gam = Engine.getInstance();
-		Agent agent = gam.getAgentByName(self.getName());
+		Agent agent = this.engine.getAgentByName(self.getName());
 		EmotionConfig config = EmotionConfig.getInstance();
 		for (SingleGoal goal : goalsToBeRemoved) {
-			gam.appraiseGoalAsSubgoal(agent,goal);
-			gam.appraiseGoal(agent, goal);
+			this.engine.appraiseGoalAsSubgoal(agent,goal);
+			this.engine.appraiseGoal(agent, goal);
 		}
 		
 		removeGoals(debugger, goalsToBeRemoved);
@@ -39,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 
 import krTools.KRInterface;
 import krTools.errors.exceptions.KRDatabaseException;
@@ -98,8 +99,18 @@ public class MentalState {
 	/**
 	 * Keys are string that represent the agent name as known and provided by
 	 * EIS. Note that the Prolog representation may be different. TRAC #1128.
+	 * <p>
+	 * Models of other agents are only created when they are first used, see
+	 * {@link #getModel(AgentId, Debugger)}, and may be released again when
+	 * they are not used, see {@link #releaseIdleModels(long)}.
+	 * </p>
+	 */
+	private final Map<AgentId, MentalModel> models = new ConcurrentHashMap<>();
+	/**
+	 * The number of queries and updates performed on models that have been
+	 * released.
 	 */
-	private final Map<AgentId, MentalModel> models = new HashMap<>();
+	private long releasedCount = 0;
 	/**
 	 * Indicates whether the agent will use mental models for modeling other
 	 * agent's mental states. This can be derived from the fact that an agent
@@ -108,6 +119,33 @@ public class MentalState {
 	 * or {@link SelectorType#THIS} (i.e., a variable, quantor, or constant).
 	 */
 	private boolean usesMentalModeling = false;
+	/**
+	 * The emotion engine of the runtime of the agent.
+	 */
+	private final Engine engine;
+
+	/**
+	 * Creates a mental state of an agent outside of a runtime, with an emotion
+	 * engine of its own.
+	 *
+	 * @param id
+	 *            The agent that owns this {@link MentalState}.
+	 * @param program
+	 *            The parsed AgentProgram of the agent
+	 * @param debugger
+	 *            The current debugger
+	 * @throws KRInitFailedException
+	 *             when initialization of the belief base, goal base, mailbox or
+	 *             percept base failed.
+	 * @throws KRQueryFailedException
+	 * @throws KRDatabaseException
+	 * @throws UnknownObjectException
+	 */
+	public MentalState(AgentId id, AgentProgram program, Debugger debugger)
+			throws KRInitFailedException, KRDatabaseException,
+			KRQueryFailedException, UnknownObjectException {
+		this(id, program, debugger, new Engine());
+	}
 
 	/**
 	 * Creates a mental state of an agent, including the initial belief and goal
@@ -121,6 +159,8 @@ public class MentalState {
 	 *            The parsed AgentProgram of the agent
 	 * @param debugger
 	 *            The current debugger
+	 * @param engine
+	 *            The emotion engine of the runtime of the agent.
 	 * @throws KRInitFailedException
 	 *             when initialization of the belief base, goal base, mailbox or
 	 *             percept base failed.
@@ -128,14 +168,16 @@ public class MentalState {
 	 * @throws KRDatabaseException
 	 * @throws UnknownObjectException
 	 */
-	public MentalState(AgentId id, AgentProgram program, Debugger debugger)
-			throws KRInitFailedException, KRDatabaseException,
+	public MentalState(AgentId id, AgentProgram program, Debugger debugger,
+			Engine engine) throws KRInitFailedException, KRDatabaseException,
 			KRQueryFailedException, UnknownObjectException {
 		// Log creation of mental state event.
 		new InfoLog("initializing mental state...");
 		this.usesMentalModeling = program.usesMentalModels();
 		this.agentId = id;
 		this.agentProgram = program;
+		this.engine = engine;
+		this.engine.obtainAgent(id.getName());
 		Class<? extends KRInterface> krClass = this.agentProgram
 				.getKRInterface().getClass();
 		try {
@@ -155,6 +197,13 @@ public class MentalState {
 		return this.state;
 	}
 
+	/**
+	 * @return the emotion engine of the runtime of the agent.
+	 */
+	public Engine getEngine() {
+		return this.engine;
+	}
+
 	/**
 	 * Returns the name of the {@link Agent} that owns this {@link MentalState}.
 	 *
@@ -224,7 +273,8 @@ public class MentalState {
 
 	/**
 	 * Returns the names of the other agents for which this {@link MentalState}
-	 * maintains {@link MentalModel}s.
+	 * maintains {@link MentalModel}s. The models are created when they are
+	 * first used.
 	 *
 	 * @return The names of other agents whose mental state are modeled in this
 	 *         mental state.
@@ -234,8 +284,10 @@ public class MentalState {
 	}
 
 	/**
-	 * Adds a {@link MentalModel} for a (new) agent. Also used to create a
-	 * mental model for the owner of this {@link MentalState}.
+	 * Adds a (new) agent to the known agents. Also used to create the mental
+	 * model for the owner of this {@link MentalState}; the
+	 * {@link MentalModel}s of other agents are created when they are first
+	 * used.
 	 *
 	 * CHECK that this method is thread safe. The agent may be running when this
 	 * is called!
@@ -261,47 +313,9 @@ public class MentalState {
 		// true if its me, the owner of this mental state.
 		boolean me = id.equals(this.agentId);
 
-		if (me || this.usesMentalModeling) {
-			/**
-			 * DO NOT CHANGE THE ORDER OF CREATION OF DATABASES BELOW! The
-			 * {@link KnowledgeBase} of an agent must be created before any
-			 * {@link GoalBase} or {@link BeliefBase} is created. This is
-			 * because the latter import the knowledge base. Also, the order of
-			 * introducing the mailbox, percept base, and belief base is
-			 * important. The belief base may assume that the mailbox and
-			 * percept base have already been created.
-			 */
-
-			// TODO: lazy creation of OTHER agents' models.
-
-			// Add a mental model that can be used to model the (other) agent.
-			// We know
-			// that there is an(other) agent because we have a(n empty) mental
-			// state.
-			MentalModel model = new MentalModel();
-
-			// Get content for the initial belief and goal base.
-			if (me) {
-				// Create the bases from the parsed GOAL agent program.
-				model.addBase(this.agentProgram, this.agentId, this.state,
-						this.agentProgram.getAllKnowledge(),
-						BASETYPE.KNOWLEDGEBASE);
-				model.addBase(this.agentProgram, this.agentId, this.state,
-						new LinkedList<DatabaseFormula>(), BASETYPE.MAILBOX);
-				model.addBase(this.agentProgram, this.agentId, this.state,
-						new LinkedList<DatabaseFormula>(), BASETYPE.PERCEPTBASE);
-			}
-			// Create the belief base.
-			model.addBase(this.agentProgram, id, this.state,
-					new LinkedList<DatabaseFormula>(), BASETYPE.BELIEFBASE);
-			// Create the goal base.
-			model.addGoalBase(new LinkedList<Update>(), this.state,
-					this.agentProgram, this.agentId, "main", id, debugger);
-
-			// Add the mental model to the map of mental models maintained by
-			// this
-			// mental state.
-			this.models.put(id, model);
+		// Models of other agents are created when they are used.
+		if (me) {
+			this.models.put(id, createModel(id, debugger));
 		}
 
 		// Insert the agent's existence as a fact 'agent(name)' in the belief
@@ -310,6 +324,90 @@ public class MentalState {
 		this.knownAgents.add(id);
 	}
 
+	/**
+	 * Returns the {@link MentalModel} of an agent, creating it if the agent is
+	 * known but its model has not been used before (or has been released).
+	 *
+	 * @param id
+	 *            The agent.
+	 * @param debugger
+	 *            debugger to report on the creation of the model.
+	 * @return The model of the agent, or {@code null} if this mental state
+	 *         does not model the agent.
+	 */
+	private MentalModel getModel(AgentId id, Debugger debugger) {
+		MentalModel model = this.models.get(id);
+		if (model == null) {
+			model = materializeModel(id, debugger);
+		}
+		if (model != null && !id.equals(this.agentId)) {
+			model.touch();
+		}
+		return model;
+	}
+
+	private synchronized MentalModel materializeModel(AgentId id,
+			Debugger debugger) {
+		MentalModel model = this.models.get(id);
+		if (model == null && this.usesMentalModeling
+				&& this.knownAgents.contains(id)) {
+			try {
+				model = createModel(id, debugger);
+			} catch (KRInitFailedException | KRDatabaseException
+					| KRQueryFailedException | UnknownObjectException e) {
+				throw new GOALRuntimeErrorException(
+						"Could not create a mental model of " + id + " for "
+								+ this.agentId, e);
+			}
+			this.models.put(id, model);
+		}
+		return model;
+	}
+
+	/**
+	 * Creates the {@link MentalModel} of an agent.
+	 */
+	private MentalModel createModel(AgentId id, Debugger debugger)
+			throws KRInitFailedException, KRDatabaseException,
+			KRQueryFailedException, UnknownObjectException {
+		boolean me = id.equals(this.agentId);
+		/**
+		 * DO NOT CHANGE THE ORDER OF CREATION OF DATABASES BELOW! The
+		 * {@link KnowledgeBase} of an agent must be created before any
+		 * {@link GoalBase} or {@link BeliefBase} is created. This is
+		 * because the latter import the knowledge base. Also, the order of
+		 * introducing the mailbox, percept base, and belief base is
+		 * important. The belief base may assume that the mailbox and
+		 * percept base have already been created.
+		 */
+
+		// Add a mental model that can be used to model the (other) agent.
+		// We know
+		// that there is an(other) agent because we have a(n empty) mental
+		// state.
+		MentalModel model = new MentalModel(this.engine);
+
+		// Get content for the initial belief and goal base.
+		if (me) {
+			// Create the bases from the parsed GOAL agent program.
+			model.addBase(this.agentProgram, this.agentId, this.state,
+					this.agentProgram.getAllKnowledge(),
+					BASETYPE.KNOWLEDGEBASE);
+			model.addBase(this.agentProgram, this.agentId, this.state,
+					new LinkedList<DatabaseFormula>(), BASETYPE.MAILBOX);
+			model.addBase(this.agentProgram, this.agentId, this.state,
+					new LinkedList<DatabaseFormula>(), BASETYPE.PERCEPTBASE);
+		}
+		// Create the belief base.
+		model.addBase(this.agentProgram, id, this.state,
+				new LinkedList<DatabaseFormula>(), BASETYPE.BELIEFBASE);
+		// Create the goal base.
+		model.addGoalBase(new LinkedList<Update>(), this.state,
+				this.agentProgram, this.agentId, "main", id, debugger);
+
+		return model;
+	}
+
 	/**
 	 * Removes a {@link MentalModel} of another agent from this
 	 * {@link MentalState}. Also deletes any references to this agent in the
@@ -318,10 +416,13 @@ public class MentalState {
 	 *
 	 * SHOULD ONLY BE USED TO REMOVE OTHER AGENTS' MODELS.
 	 *
+	 * Synchronized with the creation of models when they are used, so that a
+	 * model that is created while the agent is removed is not left behind.
+	 *
 	 * @param id
 	 *            The name of the agent whose model needs to be removed.
 	 */
-	public void removeAgentModel(AgentId id) {
+	public synchronized void removeAgentModel(AgentId id) {
 
 		// Delete the fact that (other) agent exists from this agent's belief
 		// base.
@@ -330,9 +431,9 @@ public class MentalState {
 
 		// Agent with agentName no longer exists; remove corresponding mental
 		// model.
-		if (this.models.get(id) != null) {
-			this.models.get(id).cleanUp();
-			this.models.remove(id);
+		MentalModel model = this.models.remove(id);
+		if (model != null) {
+			model.cleanUp();
 		}
 	}
 
@@ -341,12 +442,49 @@ public class MentalState {
 	 * and removes the agent's mental model.
 	 */
 	public void cleanUp() {
-		for (AgentId id : this.models.keySet()) {
-			this.models.get(id).cleanUp();
+		for (MentalModel model : this.models.values()) {
+			model.cleanUp();
 		}
 		this.models.clear();
 	}
 
+	/**
+	 * Releases the {@link MentalModel}s of other agents that have not been
+	 * used for the given time and do not contain anything. Such a model is
+	 * created again when it is used (see {@link #getModel(AgentId, Debugger)}
+	 * ), so releasing it does not change the mental state.
+	 *
+	 * @param idleTime
+	 *            the time in nanoseconds a model should not have been used.
+	 * @return the number of models that were released.
+	 */
+	public synchronized int releaseIdleModels(long idleTime) {
+		long now = System.nanoTime();
+		int released = 0;
+		Iterator<Map.Entry<AgentId, MentalModel>> entries = this.models
+				.entrySet().iterator();
+		while (entries.hasNext()) {
+			Map.Entry<AgentId, MentalModel> entry = entries.next();
+			MentalModel model = entry.getValue();
+			if (!entry.getKey().equals(this.agentId)
+					&& now - model.getLastUsed() >= idleTime && model.isEmpty()) {
+				this.releasedCount += getCount(model);
+				entries.remove();
+				model.cleanUp();
+				released++;
+			}
+		}
+		return released;
+	}
+
+	/**
+	 * @return the number of {@link MentalModel}s this mental state currently
+	 *         maintains, including the model of its owner.
+	 */
+	public int getModelCount() {
+		return this.models.size();
+	}
+
 	/*********** query and update methods (interface to {@link MentalModel}s) ************/
 
 	/**
@@ -370,15 +508,15 @@ public class MentalState {
 		boolean focus = literal.getSelector().getType() != SelectorType.SELF;
 
 		// Evaluate query and compute solutions.
-		Set<Substitution> result = this.models.get(agents.next()).query(
+		Set<Substitution> result = getModel(agents.next(), debugger).query(
 				literal, focus, debugger);
 
 		if (any) {
 			// We need to find only one agent whose mental model satisfies this
 			// literal.
 			while (agents.hasNext() && result.isEmpty()) {
-				result = this.models.get(agents.next()).query(literal, focus,
-						debugger);
+				result = getModel(agents.next(), debugger).query(literal,
+						focus, debugger);
 			}
 		} else {
 			// We need to verify that all models of agents in the set satisfy
@@ -387,9 +525,9 @@ public class MentalState {
 			while (agents.hasNext() && result.size() > 0) {
 				Set<Substitution> currentResults = new LinkedHashSet<>();
 				for (Substitution subst : result) {
-					Set<Substitution> tempResult = this.models.get(
-							agents.next()).query(literal.applySubst(subst),
-							focus, debugger);
+					Set<Substitution> tempResult = getModel(agents.next(),
+							debugger).query(literal.applySubst(subst), focus,
+							debugger);
 					for (Substitution tempSubst : tempResult) {
 						currentResults.add(subst.combine(tempSubst));
 					}
@@ -447,7 +585,7 @@ public class MentalState {
 	public boolean insert(Update update, BASETYPE type, Debugger debugger,
 			AgentId... agent) throws GOALDatabaseException {
 		AgentId id = ((agent.length == 0) ? this.agentId : agent[0]);
-		return this.models.get(id).getBase(type).insert(update, debugger);
+		return getModel(id, debugger).getBase(type).insert(update, debugger);
 	}
 
 	/**
@@ -469,7 +607,8 @@ public class MentalState {
 	public boolean insert(DatabaseFormula formula, BASETYPE type,
 			Debugger debugger, AgentId... agent) throws GOALDatabaseException {
 		AgentId name = ((agent.length == 0) ? this.agentId : agent[0]);
-		return this.models.get(name).getBase(type).insert(formula, debugger);
+		return getModel(name, debugger).getBase(type).insert(formula,
+				debugger);
 	}
 
 	/**
@@ -491,7 +630,7 @@ public class MentalState {
 	public boolean delete(Update update, BASETYPE type, Debugger debugger,
 			AgentId... agent) throws GOALDatabaseException {
 		AgentId name = ((agent.length == 0) ? getAgentId() : agent[0]);
-		return this.models.get(name).getBase(type).delete(update, debugger);
+		return getModel(name, debugger).getBase(type).delete(update, debugger);
 	}
 
 	/**
@@ -513,7 +652,8 @@ public class MentalState {
 	public boolean delete(DatabaseFormula formula, BASETYPE type,
 			Debugger debugger, AgentId... agent) throws GOALDatabaseException {
 		AgentId name = ((agent.length == 0) ? getAgentId() : agent[0]);
-		return this.models.get(name).getBase(type).delete(formula, debugger);
+		return getModel(name, debugger).getBase(type).delete(formula,
+				debugger);
 	}
 
 	/**
@@ -539,12 +679,11 @@ public class MentalState {
 		// Do not add goal if it already is implicated by an existing goal.
 		// TODO: this is a precondition of adopt action; probably duplicating
 		// code in actions.AdoptAction...
-		if (!this.models.get(name).getAttentionSet(focus)
-				.query(update.toQuery(), debugger).isEmpty()) {
+		MentalModel model = getModel(name, debugger);
+		if (!model.getAttentionSet(focus).query(update, debugger).isEmpty()) {
 			return false;
 		}
-		return this.models.get(name).getAttentionSet(focus)
-				.insert(update, debugger);
+		return model.getAttentionSet(focus).insert(update, debugger);
 	}
 
 	/**
@@ -563,9 +702,9 @@ public class MentalState {
 	public void drop(Update update, Debugger debugger, AgentId... agent) throws GOALDatabaseException {
 		AgentId name = ((agent.length == 0) ? getAgentId() : agent[0]);
 		if(!this.getAgentId().equals(name)) {
-			this.models.get(name).drop(update, debugger);
+			getModel(name, debugger).drop(update, debugger);
 		} else {
-			this.models.get(name).dropWithGamygdala(update, debugger, name);
+			getModel(name, debugger).dropWithGamygdala(update, debugger, name);
 		}
 	}
 
@@ -595,15 +734,15 @@ public class MentalState {
 		AgentId name = ((agent.length == 0) ? getAgentId() : agent[0]);
 
 		if(!name.equals(this.getAgentId())) {
-		 this.models.get(name).updateGoalState(debugger);
+		 getModel(name, debugger).updateGoalState(debugger);
 
 		} else {
-		 this.models.get(name).updateGoalStateAndGamygdala(debugger, name);
+		 getModel(name, debugger).updateGoalStateAndGamygdala(debugger, name);
 		}
 		
-		Engine gam = Engine.getInstance();
-		Engine.getInstance().decayAll();
-		// Engine.getInstance().printAllEmotions(false);
+		// Only decay our own emotions; other agents do so on their own cycle.
+		this.engine.decay(getAgentId().getName());
+		// this.engine.printAllEmotions(false);
 		
 		
 
@@ -689,9 +828,9 @@ public class MentalState {
 			this.models
 					.get(this.agentId)
 					.getAttentionStack()
-					.push(new GoalBase(goal, this.state, this.agentId,
-							this.agentProgram, getAgentId().getName(),
-							debugger, this.agentId));
+					.push(new GoalBase(goal, getOwnModel().getGoalStore(),
+							this.engine, this.agentId, this.agentProgram,
+							getAgentId().getName(), debugger, this.agentId));
 
 			// get the substitutions that make the given context true, given
 			// the current single goal. Add these to the total set of
@@ -818,24 +957,30 @@ public class MentalState {
 	 * @return The total number of queries and updates that have been performed.
 	 */
 	public long getCount() {
-		long countSum = 0;
+		long countSum = this.releasedCount;
 
 		for (MentalModel model : this.models.values()) {
-			// Add count for mailbox, percept and belief bases.
-			for (BASETYPE type : BASETYPE.values()) {
-				if (model.getBase(type) != null) {
-					countSum += model.getBase(type).getCount();
-				}
-			}
-			// Add count for goal bases.
-			for (GoalBase base : model.getAttentionStack()) {
-				countSum += base.getCount();
+			countSum += getCount(model);
+		}
+		return countSum;
+	}
+
+	private static long getCount(MentalModel model) {
+		long countSum = 0;
+		// Add count for mailbox, percept and belief bases.
+		for (BASETYPE type : BASETYPE.values()) {
+			if (model.getBase(type) != null) {
+				countSum += model.getBase(type).getCount();
 			}
-			// Add count for queries and updates that have been performed on
-			// goal bases that have been removed, which is stored in the mental
-			// model.
-			countSum += model.getCount();
 		}
+		// Add count for goal bases.
+		for (GoalBase base : model.getAttentionStack()) {
+			countSum += base.getCount();
+		}
+		// Add count for queries and updates that have been performed on
+		// goal bases that have been removed, which is stored in the mental
+		// model.
+		countSum += model.getCount();
 		return countSum;
 	}
 
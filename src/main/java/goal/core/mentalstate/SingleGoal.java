@@ -1,14 +1,11 @@
 package goal.core.mentalstate;
 
 import goal.tools.errorhandling.exceptions.GOALRuntimeErrorException;
-import krTools.KRInterface;
+
+import java.util.Set;
+
 import krTools.database.Database;
-import krTools.errors.exceptions.KRDatabaseException;
-import krTools.errors.exceptions.KRInitFailedException;
-import krTools.errors.exceptions.KRQueryFailedException;
 import krTools.language.Update;
-import languageTools.program.agent.AgentProgram;
-import mentalState.BASETYPE;
 
 /*********** SingleGoal class ****************/
 
@@ -39,7 +36,7 @@ public class SingleGoal {
 	/**
 	 * The single goal represented as an {@link Update}.
 	 */
-	private Update goal;
+	private final Update goal;
 	/**
 	 * The KR database that stores the goal.
 	 */
@@ -50,30 +47,32 @@ public class SingleGoal {
 	private int useCount = 0;
 
 	/**
-	 * DOC
+	 * The store that created this goal and that the database is returned to
+	 * once the goal is no longer used.
+	 */
+	private final GoalStore store;
+	/**
+	 * The signatures of the formulas this goal consists of.
+	 */
+	private final Set<String> signatures;
+
+	/**
+	 * Creates a single goal. Use {@link GoalStore#obtain(Update)} to get one.
 	 *
 	 * @param goal
 	 *            goal to be added. ASSUMES goal consists of a list of database
 	 *            formulas to be added only (i.e. delete and mailbox lists of
 	 *            update are empty).
-	 * @param agent
-	 *            The agent this goal is for
-	 * @param state
-	 *            DOC
-	 * @throws GOALRuntimeErrorException
-	 *             see {@link KRInterface#makeDatabase}.
+	 * @param database
+	 *            The KR database that holds the goal.
+	 * @param store
+	 *            The store that created the goal.
 	 */
-	protected SingleGoal(Update goal, AgentProgram agent,
-			mentalState.MentalState state) {
+	protected SingleGoal(Update goal, Database database, GoalStore store) {
 		this.goal = goal;
-		try {
-			this.database = state.makeDatabase(BASETYPE.GOALBASE,
-					this.goal.getAddList(), agent);
-		} catch (KRInitFailedException | KRDatabaseException
-				| KRQueryFailedException e) {
-			throw new GOALRuntimeErrorException("Could not add new goal "
-					+ goal, e);
-		}
+		this.database = database;
+		this.store = store;
+		this.signatures = GoalStore.getSignatures(goal);
 	}
 
 	/**
@@ -97,6 +96,13 @@ public class SingleGoal {
 		return this.database;
 	}
 
+	/**
+	 * @return The signatures of the formulas this goal consists of.
+	 */
+	protected Set<String> getSignatures() {
+		return this.signatures;
+	}
+
 	/**
 	 * @return string representation of goal.
 	 */
@@ -115,7 +121,8 @@ public class SingleGoal {
 
 	/**
 	 * Removes one from the counter counting the number of times this SingleGoal
-	 * is used. If the counter reaches zero, the database is cleaned up.
+	 * is used. If the counter reaches zero, the goal is released to its
+	 * {@link GoalStore}.
 	 */
 	protected void unmarkOccurrence() {
 		this.useCount--;
@@ -124,20 +131,29 @@ public class SingleGoal {
 		}
 	}
 
+	/**
+	 * Cleans up the goal if it is not used (anymore), for example because an
+	 * equal goal already was present where it was to be added.
+	 */
+	protected void releaseIfUnused() {
+		if (this.useCount == 0) {
+			cleanUp();
+		}
+	}
+
 	/**
 	 * Forces clean up of the KR database. Should be used only as a forced final
 	 * attempt to clean up, never during normal run. See
-	 * {@link #unmarkOccurrence()}.
+	 * {@link #unmarkOccurrence()}. The goal itself is kept, so a released
+	 * goal still can be compared and printed.
+	 *
+	 * @throws GOALRuntimeErrorException
+	 *             If the database could not be cleaned up.
 	 */
 	protected void cleanUp() {
-		try {
-			this.database.destroy();
-		} catch (KRDatabaseException e) {
-			throw new GOALRuntimeErrorException("Could not remove goal "
-					+ this.goal + " from database", e);
-		}
+		this.store.release(this);
 
-		this.goal = null;
+		this.database = null;
 	}
 
 	/**
@@ -19,8 +19,10 @@
 package goal.core.mentalstate;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 import krTools.language.DatabaseFormula;
@@ -43,6 +45,12 @@ import krTools.language.DatabaseFormula;
  * avoid duplication of clauses or facts in a database (a Theory itself is a
  * set).
  *
+ * Readers get an immutable snapshot of the formulas. The snapshot is shared by
+ * all readers until the theory changes, so reading an unchanged theory does
+ * not copy it and does not wait for writers. Every change increases the
+ * generation of the theory; the theory also remembers the generation in which
+ * formulas with a given signature last changed.
+ *
  * @author K.Hindriks
  */
 public class Theory {
@@ -51,6 +59,30 @@ public class Theory {
 	 * The formulas in this {@link Theory}.
 	 */
 	private final Set<DatabaseFormula> content;
+	/**
+	 * Immutable copy of {@link #content}, or null if the theory has changed
+	 * since the last copy was made.
+	 */
+	private volatile Set<DatabaseFormula> snapshot = null;
+	/**
+	 * The number of changes made to this theory.
+	 */
+	private volatile long generation = 0;
+	/**
+	 * The generation in which a formula with a signature was last added or
+	 * removed.
+	 */
+	private final Map<String, Long> signatureGenerations = new HashMap<>();
+	/**
+	 * The generation of the last change of which the signatures are not
+	 * known; all signatures have changed in that generation.
+	 */
+	private long allGeneration = 0;
+	/**
+	 * The number of formulas per signature, or null if the theory has changed
+	 * since they were last counted.
+	 */
+	private volatile Map<String, Integer> signatureCounts = null;
 
 	/**
 	 * Creates a theory and adds all given formulas to it.
@@ -63,12 +95,116 @@ public class Theory {
 	}
 
 	/**
-	 * Returns copy of the set of all formulas that are part of this theory.
+	 * Returns a snapshot of the set of all formulas that are part of this
+	 * theory. The snapshot does not change when the theory changes; it is
+	 * shared with other callers until then.
+	 *
+	 * @return an unmodifiable set of the {@link DatabaseFormula}s in this
+	 *         theory, in the order in which they were added.
+	 */
+	public Set<DatabaseFormula> getFormulas() {
+		Set<DatabaseFormula> formulas = this.snapshot;
+		if (formulas == null) {
+			synchronized (this) {
+				formulas = this.snapshot;
+				if (formulas == null) {
+					formulas = Collections
+							.unmodifiableSet(new LinkedHashSet<>(this.content));
+					this.snapshot = formulas;
+				}
+			}
+		}
+		return formulas;
+	}
+
+	/**
+	 * @return the number of changes that have been made to this theory. Two
+	 *         calls that return the same number see the same formulas.
+	 */
+	public long getGeneration() {
+		return this.generation;
+	}
+
+	/**
+	 * @param signature
+	 *            the signature of a predicate, e.g. "on/2".
+	 * @return the generation of this theory in which a formula with the given
+	 *         signature was last added or removed (0 if never). Two calls that
+	 *         return the same number see the same formulas with the
+	 *         signature.
+	 */
+	public synchronized long getGeneration(String signature) {
+		Long changed = this.signatureGenerations.get(signature);
+		return (changed == null) ? this.allGeneration : Math.max(changed,
+				this.allGeneration);
+	}
+
+	/**
+	 * Returns the number of formulas in this theory per signature. The counts
+	 * are kept until the theory changes, like the snapshot of
+	 * {@link #getFormulas()}.
+	 *
+	 * @return an unmodifiable map from the signatures of the formulas in this
+	 *         theory, e.g. "on/2", to the number of formulas with that
+	 *         signature.
+	 */
+	public Map<String, Integer> getSignatureCounts() {
+		Map<String, Integer> counts = this.signatureCounts;
+		if (counts == null) {
+			synchronized (this) {
+				counts = this.signatureCounts;
+				if (counts == null) {
+					counts = new HashMap<>();
+					for (DatabaseFormula formula : this.content) {
+						Integer count = counts.get(formula.getSignature());
+						counts.put(formula.getSignature(), (count == null) ? 1
+								: count + 1);
+					}
+					counts = Collections.unmodifiableMap(counts);
+					this.signatureCounts = counts;
+				}
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Invalidates the snapshot after a change of which the signatures are not
+	 * known. Should be called while holding the lock of this theory.
+	 *
+	 * @param changed
+	 *            true if the theory has changed.
+	 * @return changed.
+	 */
+	private boolean changed(boolean changed) {
+		if (changed) {
+			this.snapshot = null;
+			this.signatureCounts = null;
+			this.generation++;
+			this.allGeneration = this.generation;
+		}
+		return changed;
+	}
+
+	/**
+	 * Invalidates the snapshot after a formula has been added or removed.
+	 * Should be called while holding the lock of this theory.
 	 *
-	 * @return a copy of the {@link DatabaseFormula}s in this theory.
+	 * @param formula
+	 *            the formula that has been added or removed.
 	 */
-	public synchronized Set<DatabaseFormula> getFormulas() {
-		return new HashSet<>(this.content);
+	private void changed(DatabaseFormula formula) {
+		this.snapshot = null;
+		this.signatureCounts = null;
+		this.generation++;
+		this.signatureGenerations.put(formula.getSignature(), this.generation);
+	}
+
+	/**
+	 * @return {@code true} if this theory does not contain any formulas.
+	 */
+	public synchronized boolean isEmpty() {
+		return this.content.isEmpty();
 	}
 
 	// *************** insertion methods *************/
@@ -84,7 +220,11 @@ public class Theory {
 	 *         otherwise.
 	 */
 	protected synchronized boolean add(DatabaseFormula formula) {
-		return this.content.add(formula);
+		if (this.content.add(formula)) {
+			changed(formula);
+			return true;
+		}
+		return false;
 	}
 
 	/**
@@ -97,7 +237,7 @@ public class Theory {
 	 * @return {@code true} if theory changed; {@code false} otherwise.
 	 */
 	protected synchronized boolean add(Set<DatabaseFormula> content) {
-		return this.content.addAll(content);
+		return changed(this.content.addAll(content));
 	}
 
 	// *************** deletion methods *************/
@@ -112,13 +252,71 @@ public class Theory {
 	 *         successfully removed.
 	 */
 	protected synchronized boolean remove(DatabaseFormula formula) {
-		return this.content.remove(formula);
+		if (this.content.remove(formula)) {
+			changed(formula);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes all given formulas that occur literally as element in the theory.
+	 *
+	 * @param formulas
+	 *            formulas to be removed from theory.
+	 * @return {@code true} if theory changed; {@code false} otherwise.
+	 */
+	protected synchronized boolean remove(Collection<DatabaseFormula> formulas) {
+		// Not Set#removeAll, which scans the theory when it is the smaller one.
+		boolean changed = false;
+		for (DatabaseFormula formula : formulas) {
+			if (this.content.remove(formula)) {
+				changed(formula);
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	// *************** update methods *************/
+
+	/**
+	 * Removes the formulas in the delete list from and then adds the formulas
+	 * in the add list to this theory, all at once.
+	 *
+	 * @param addList
+	 *            formulas to be added to the theory.
+	 * @param deleteList
+	 *            formulas to be removed from the theory.
+	 * @param added
+	 *            receives the formulas that have been added, i.e. did not
+	 *            occur in the theory (anymore).
+	 * @param deleted
+	 *            receives the formulas that have been removed.
+	 */
+	protected synchronized void update(Collection<DatabaseFormula> addList,
+			Collection<DatabaseFormula> deleteList,
+			Collection<DatabaseFormula> added,
+			Collection<DatabaseFormula> deleted) {
+		for (DatabaseFormula formula : deleteList) {
+			if (this.content.remove(formula)) {
+				deleted.add(formula);
+				changed(formula);
+			}
+		}
+		for (DatabaseFormula formula : addList) {
+			if (this.content.add(formula)) {
+				added.add(formula);
+				changed(formula);
+			}
+		}
 	}
 
 	/**
 	 * Erases all content in the theory.
 	 */
-	protected void eraseContent() {
+	protected synchronized void eraseContent() {
+		changed(!this.content.isEmpty());
 		this.content.clear();
 	}
 
@@ -1,13 +1,20 @@
 package goal.core.runtime;
 
+import goal.tools.errorhandling.exceptions.GOALBug;
 import goal.tools.errorhandling.exceptions.GOALLaunchFailureException;
 import goal.tools.errorhandling.exceptions.GOALRuntimeErrorException;
 import goal.tools.logging.InfoLog;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import languageTools.program.agent.AgentId;
 
 import nl.tudelft.goal.messaging.Messaging;
 import nl.tudelft.goal.messaging.client.MessagingClient;
@@ -36,6 +43,13 @@ public class MessagingService {
 	 * managed locally.
 	 */
 	private final Set<MessageBoxId> localIDs = new LinkedHashSet<>();
+	/**
+	 * Routing table: the message boxes of GOAL agents by agent name. Boxes
+	 * created by this service are added when they are created, other boxes
+	 * when they are first looked up. Routes are removed when a box is deleted
+	 * or an agent is reported to be gone, see {@link #removeRoute(String)}.
+	 */
+	private final ConcurrentHashMap<String, MessageBoxId> routes = new ConcurrentHashMap<>();
 
 	/**
 	 * DOC
@@ -129,7 +143,83 @@ public class MessagingService {
 	 */
 	public MessageBox getNewMessageBox(MessageBoxId id)
 			throws MessagingException {
-		return this.messagingClient.createMessageBox(id);
+		MessageBox box = this.messagingClient.createMessageBox(id);
+		if (id.getType() == Type.GOALAGENT) {
+			this.routes.put(id.getName(), id);
+		}
+		return box;
+	}
+
+	/**
+	 * Returns the message box of a GOAL agent. The box is looked up on the
+	 * messaging infrastructure only the first time.
+	 *
+	 * @param name
+	 *            The name of the agent.
+	 * @return The ID of the message box of the agent, or null if there is no
+	 *         such agent.
+	 * @throws MessagingException
+	 *             If looking up the message box failed.
+	 */
+	public MessageBoxId getRoute(String name) throws MessagingException {
+		MessageBoxId id = this.routes.get(name);
+		if (id == null) {
+			List<MessageBoxId> boxes = this.messagingClient.getMessageBoxes(
+					Type.GOALAGENT, name);
+			if (boxes.isEmpty()) {
+				return null;
+			}
+			if (boxes.size() != 1) {
+				throw new GOALBug(
+						"there are multiple agents using the messagebox name "
+								+ name);
+			}
+			id = boxes.get(0);
+			MessageBoxId known = this.routes.putIfAbsent(name, id);
+			if (known != null) {
+				id = known;
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the message boxes of a number of GOAL agents, e.g. all receivers
+	 * of a message, see {@link #getRoute(String)}.
+	 *
+	 * @param agents
+	 *            The agents.
+	 * @param unknown
+	 *            Receives the agents for which there is no message box.
+	 * @return The IDs of the message boxes of the other agents, in the order
+	 *         of the given agents.
+	 * @throws MessagingException
+	 *             If looking up a message box failed.
+	 */
+	public List<MessageBoxId> getRoutes(Collection<AgentId> agents,
+			Collection<AgentId> unknown) throws MessagingException {
+		List<MessageBoxId> boxes = new ArrayList<>(agents.size());
+		for (AgentId agent : agents) {
+			MessageBoxId id = getRoute(agent.getName());
+			if (id == null) {
+				unknown.add(agent);
+			} else {
+				boxes.add(id);
+			}
+		}
+		return boxes;
+	}
+
+	/**
+	 * Removes the route to an agent, e.g. when it has been removed from the
+	 * MAS. The next lookup of the agent goes to the messaging
+	 * infrastructure again.
+	 *
+	 * @param name
+	 *            The name of the agent.
+	 */
+	public void removeRoute(String name) {
+		this.routes.remove(name);
 	}
 
 	/**
@@ -142,6 +232,7 @@ public class MessagingService {
 	 *             If message box could not be removed.
 	 */
 	public void deleteMessageBox(MessageBox messageBox) {
+		this.routes.remove(messageBox.getId().getName(), messageBox.getId());
 		if (this.localIDs.contains(messageBox.getId())) {
 			try {
 				this.messagingClient.deleteMessageBox(messageBox);
@@ -160,6 +251,7 @@ public class MessagingService {
 	 */
 	public void shutDown() throws MessagingException {
 		this.localIDs.clear();
+		this.routes.clear();
 		if (this.messaging != null) {
 			this.messagingClient.dispose();
 			this.messaging.stopServer();
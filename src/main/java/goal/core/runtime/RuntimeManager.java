@@ -348,6 +348,8 @@ public class RuntimeManager<D extends Debugger, C extends GOALInterpreter<D>>
 						.getAgentId());
 			} else if (event instanceof DeadAgent) {
 				DeadAgent deadAgent = (DeadAgent) event;
+				RuntimeManager.this.messagingService.removeRoute(deadAgent
+						.getAgentId().getName());
 				RuntimeManager.this.agentService.handleAgentRemoved(deadAgent
 						.getAgentId());
 			} else if (event instanceof RuntimeLaunched) {
@@ -373,7 +375,10 @@ public class RuntimeManager<D extends Debugger, C extends GOALInterpreter<D>>
 
 	private final RemoteRuntimeService<D, C> remoteRuntimeService;
 
-	private final Engine gamEngine;
+	/**
+	 * The emotion engine of the agents of this runtime.
+	 */
+	private final Engine gamEngine = new Engine();
 
 	/**
 	 * Creates a new runtime service manager to manage a multi-agent system.
@@ -399,6 +404,7 @@ public class RuntimeManager<D extends Debugger, C extends GOALInterpreter<D>>
 		this.agentService = agentService;
 		this.environmentService = environmentService;
 		this.remoteRuntimeService = remoteRuntimeService;
+		agentService.setEngine(this.gamEngine);
 
 		reportGoalUsage();
 
@@ -444,8 +450,6 @@ public class RuntimeManager<D extends Debugger, C extends GOALInterpreter<D>>
 			throw new GOALLaunchFailureException(
 					"EIS failed to start environment", e);
 		}
-		
-		gamEngine = Engine.getInstance();
 
 		// inform other Runtimes about this launch
 		remoteRuntimeService.broadcastRuntimeLaunched();
@@ -580,6 +584,16 @@ public class RuntimeManager<D extends Debugger, C extends GOALInterpreter<D>>
 		return this.environmentService.getEnvironmentPorts();
 	}
 
+	/**
+	 * Returns the emotion engine of this runtime. Every runtime has its own
+	 * engine, which is shared by all agents it launches.
+	 *
+	 * @return the emotion engine of the agents of this runtime.
+	 */
+	public Engine getEngine() {
+		return this.gamEngine;
+	}
+
 	/**
 	 * Shuts down all runtime services, kills and cleans all agents.
 	 *
@@ -640,18 +654,23 @@ public class RuntimeManager<D extends Debugger, C extends GOALInterpreter<D>>
 
 	/**
 	 * Starts all environment and agents that were launched paused (through the
-	 * environment). If there is no environment, start all agents anyway.
+	 * environment). If there is no environment, start all agents anyway. The
+	 * emotion engine is configured with the emotion configuration of the MAS
+	 * first.
 	 *
 	 * @throws MessagingException
 	 *             when it was not possible to connect to the environment.
 	 * @throws EnvironmentInterfaceException
 	 *             when the environment could not be started.
 	 * @throws GOALLaunchFailureException
-	 * @throws InvalidEmotionConfigFile 
-	 * @throws FileNotFoundException 
+	 * @throws InvalidEmotionConfigFile
+	 *             when the emotion configuration of the MAS is invalid.
+	 * @throws FileNotFoundException
+	 *             when the emotion configuration of the MAS does not exist.
 	 */
 	public void start(boolean startEnvironments) throws MessagingException,
 			EnvironmentInterfaceException, GOALLaunchFailureException, FileNotFoundException, InvalidEmotionConfigFile {
+		this.gamEngine.setup(this.agentService.getMAS());
 		Collection<EnvironmentPort> ports = this.environmentService
 				.getEnvironmentPorts();
 		if (startEnvironments) {
@@ -0,0 +1,107 @@
+package goal.core.runtime;
+
+import goal.core.agent.Agent;
+import goal.core.agent.Controller;
+import goal.core.runtime.service.environmentport.EnvironmentPort;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import languageTools.program.agent.AgentId;
+
+/**
+ * Indexes the local agents and environment ports of a {@link RuntimeManager}
+ * by id and by name, so that tools that act on agents or environments by name
+ * do not have to search all of them.
+ * <p>
+ * The registry is kept up to date by the events of the runtime; add it as an
+ * observer to the runtime (see {@link RuntimeManager#addObserver}), which
+ * also registers the agents and environments that are already running. The
+ * registry can be used by several threads.
+ * </p>
+ *
+ * @param <C>
+ *            the type of the controllers of the agents.
+ */
+public class RuntimeRegistry<C extends Controller> implements
+		RuntimeEventObserver {
+	private final Map<AgentId, Agent<C>> agents = new ConcurrentHashMap<>();
+	private final Map<String, Agent<C>> agentNames = new ConcurrentHashMap<>();
+	private final Map<String, EnvironmentPort> environments = new ConcurrentHashMap<>();
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void eventOccured(RuntimeManager<?, ?> observable, RuntimeEvent event) {
+		switch (event.getType()) {
+		case AGENT_IS_LOCAL_AND_READY:
+			final Agent<C> agent = (Agent<C>) event.getSource();
+			this.agents.put(agent.getId(), agent);
+			this.agentNames.put(agent.getId().getName(), agent);
+			break;
+		case AGENT_REMOVED:
+			// the source is the name of the agent.
+			final Agent<C> removed = this.agentNames.remove(event.getSource()
+					.toString());
+			if (removed != null) {
+				this.agents.remove(removed.getId());
+			}
+			break;
+		case ENVIRONMENT_LAUNCHED:
+			final EnvironmentPort launched = (EnvironmentPort) event
+					.getSource();
+			this.environments.put(launched.getMessageBoxId().getName(),
+					launched);
+			break;
+		case ENVIRONMENT_KILLED:
+			final EnvironmentPort killed = (EnvironmentPort) event.getSource();
+			this.environments.remove(killed.getMessageBoxId().getName());
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * @param id
+	 *            the id of an agent.
+	 * @return the local agent with the id, or null if there is none.
+	 */
+	public Agent<C> getAgent(AgentId id) {
+		return this.agents.get(id);
+	}
+
+	/**
+	 * @param name
+	 *            the name of an agent.
+	 * @return the local agent with the name, or null if there is none.
+	 */
+	public Agent<C> getAgent(String name) {
+		return this.agentNames.get(name);
+	}
+
+	/**
+	 * @return the local agents.
+	 */
+	public Collection<Agent<C>> getAgents() {
+		return Collections.unmodifiableCollection(this.agents.values());
+	}
+
+	/**
+	 * @param name
+	 *            the name of an environment.
+	 * @return the port of the environment with the name, or null if there is
+	 *         none.
+	 */
+	public EnvironmentPort getEnvironmentPort(String name) {
+		return this.environments.get(name);
+	}
+
+	/**
+	 * @return the ports of the environments.
+	 */
+	public Collection<EnvironmentPort> getEnvironmentPorts() {
+		return Collections.unmodifiableCollection(this.environments.values());
+	}
+}
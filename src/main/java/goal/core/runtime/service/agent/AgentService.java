@@ -2,7 +2,10 @@ package goal.core.runtime.service.agent;
 
 import goal.core.agent.Agent;
 import goal.core.agent.AgentFactory;
+import goal.core.agent.AgentScheduler;
+import goal.core.agent.Controller;
 import goal.core.agent.GOALInterpreter;
+import goal.core.gamygdala.Engine;
 import goal.core.runtime.service.agent.events.AddedLocalAgent;
 import goal.core.runtime.service.agent.events.AddedRemoteAgent;
 import goal.core.runtime.service.agent.events.AgentServiceEvent;
@@ -26,12 +29,23 @@ import java.io.File;
 import java.rmi.activation.UnknownObjectException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import krTools.errors.exceptions.KRDatabaseException;
 import krTools.errors.exceptions.KRInitFailedException;
@@ -49,6 +63,12 @@ import nl.tudelft.goal.messaging.exceptions.MessagingException;
  * when a new entity appears.
  * <p>
  * This class must be thread safe.
+ * <p>
+ * Agents are built in parallel on a pool of launch threads (see
+ * {@link PMPreferences#getLaunchThreads()}), as building an agent, which
+ * initializes its databases, takes much longer than matching the launch
+ * rules. Launch rules are matched on the thread that reports an entity, so
+ * the maximum number of applications of a rule is never exceeded.
  *
  * @param <D>
  *            The debugger type
@@ -61,7 +81,22 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 	private final Agents agents = new Agents();
 	private final AgentFactory<D, C> factory;
 	private final List<AgentServiceEventObserver> observers = new LinkedList<>();
-	private final Map<LaunchRule, Integer> applicationCount = new HashMap<>();
+	private final ConcurrentMap<LaunchRule, AtomicInteger> applicationCount = new ConcurrentHashMap<>();
+	private volatile AgentScheduler scheduler = null;
+	/**
+	 * The emotion engine of the agents launched by this service, see
+	 * {@link #setEngine(Engine)}.
+	 */
+	private volatile Engine engine = new Engine();
+	/**
+	 * Builds the agents, or null if agents are built on the thread that
+	 * launches them.
+	 */
+	private final ExecutorService launcher;
+	/**
+	 * The number of agents that are being launched.
+	 */
+	private final AtomicInteger pendingLaunches = new AtomicInteger();
 
 	private class Agents {
 		/**
@@ -70,9 +105,10 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 		 * real agents if these agents are constructed and running locally (on
 		 * this JVM) here by this service manager.
 		 */
-		private final Map<AgentId, Agent<C>> local = new HashMap<>();
+		private final Map<AgentId, Agent<C>> local = new ConcurrentHashMap<>();
 
-		private final Set<AgentId> all = new HashSet<>();
+		private final Set<AgentId> all = Collections
+				.newSetFromMap(new ConcurrentHashMap<AgentId, Boolean>());
 
 		/**
 		 * get All known agent ids.
@@ -88,8 +124,11 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 			this.all.add(agent.getId());
 		}
 
-		public void add(AgentId id) {
-			this.all.add(id);
+		/**
+		 * @return true if the agent was not known yet.
+		 */
+		public boolean add(AgentId id) {
+			return this.all.add(id);
 		}
 
 		/**
@@ -127,26 +166,94 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 		this.masProgram = program;
 		this.agentPrograms = agents;
 		this.factory = factory;
+		int threads = PMPreferences.getLaunchThreads();
+		this.launcher = (threads > 1) ? Executors.newFixedThreadPool(threads,
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "Agent launcher " //$NON-NLS-1$
+								+ this.count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				}) : null;
+	}
+
+	/**
+	 * Sets the scheduler that runs the agents launched by this service from
+	 * now on.
+	 *
+	 * @param scheduler
+	 *            the scheduler, or null to use the default scheduler of the
+	 *            platform (see {@link Controller#getScheduler()}).
+	 */
+	public void setScheduler(AgentScheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Sets the emotion engine of the agents launched by this service from now
+	 * on. The runtime that uses this service sets its own engine (see
+	 * {@link goal.core.runtime.RuntimeManager#getEngine()}).
+	 *
+	 * @param engine
+	 *            the emotion engine.
+	 */
+	public void setEngine(Engine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * @return the emotion engine of the agents launched by this service.
+	 */
+	public Engine getEngine() {
+		return this.engine;
 	}
 
 	/**
 	 * Launches multi-agent system. This comes down to applying the
 	 * non-conditional launch rules; the conditional launch rules are handled by
-	 * an environment.
+	 * an environment. Returns when all agents have been launched.
 	 *
 	 * @throws GOALLaunchFailureException
-	 *             DOC
+	 *             if one of the agents could not be launched.
 	 */
-	public synchronized void start() throws GOALLaunchFailureException {
+	public void start() throws GOALLaunchFailureException {
+		List<Future<Agent<C>>> launches = new LinkedList<>();
 		for (LaunchRule multilaunch : this.masProgram.getLaunchRules()) {
 			if (!multilaunch.getConditional()) {
 				for (Launch launch : multilaunch.getInstructions()) {
 					for (int i = 0; i < launch.getNumberOfAgentsToLaunch(); i++) {
-						launchAgent(launch, null, null);
+						launches.add(submitLaunch(launch, null, null));
 					}
 				}
 			}
 		}
+		GOALLaunchFailureException failure = null;
+		for (Future<Agent<C>> launch : launches) {
+			try {
+				launch.get();
+			} catch (ExecutionException e) {
+				// report the first failure, after all launches have finished.
+				if (failure != null) {
+					continue;
+				} else if (e.getCause() instanceof GOALLaunchFailureException) {
+					failure = (GOALLaunchFailureException) e.getCause();
+				} else {
+					failure = new GOALLaunchFailureException(
+							"could not launch agent", e.getCause()); //$NON-NLS-1$
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new GOALLaunchFailureException(
+						"interrupted while launching agents", e); //$NON-NLS-1$
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
 	}
 
 	/**
@@ -179,7 +286,7 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 	 *
 	 * @return a list of the agents
 	 */
-	public synchronized Collection<Agent<C>> getAgents() {
+	public Collection<Agent<C>> getAgents() {
 		return new ArrayList<>(this.agents.local());
 	}
 
@@ -209,7 +316,7 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 	 * @return GOAL agent with name agentName, or null if a GOAL agent with that
 	 *         name does not exist locally on THIS JVM.
 	 */
-	public synchronized Agent<C> getAgent(AgentId id) {
+	public Agent<C> getAgent(AgentId id) {
 		return this.agents.getLocal(id);
 	}
 
@@ -219,7 +326,7 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 	 *
 	 * @return all local agents that are running.
 	 */
-	public synchronized List<Agent<C>> getAliveAgents() {
+	public List<Agent<C>> getAliveAgents() {
 		List<Agent<C>> aliveAgents = new LinkedList<>();
 		for (Agent<C> agent : this.agents.local()) {
 			if (agent.isRunning()) {
@@ -234,7 +341,7 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 	 *
 	 * @return all local agents that are dead.
 	 */
-	public synchronized List<Agent<C>> getDeadAgents() {
+	public List<Agent<C>> getDeadAgents() {
 		List<Agent<C>> deadAgents = new LinkedList<>();
 		for (Agent<C> agent : this.agents.local()) {
 			if (!agent.isRunning()) {
@@ -247,7 +354,7 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 	/**
 	 * @return True if there are any running local agents.
 	 */
-	public synchronized boolean hasAliveLocalAgents() {
+	public boolean hasAliveLocalAgents() {
 		for (Agent<C> agent : this.agents.local()) {
 			if (agent.isRunning()) {
 				return true;
@@ -259,7 +366,7 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 	/**
 	 * @return True if there are any local agents (running or not).
 	 */
-	public synchronized boolean hasLocalAgents() {
+	public boolean hasLocalAgents() {
 		return !this.agents.local().isEmpty();
 	}
 
@@ -269,7 +376,7 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 	 * @param id
 	 *            The agent to stop.
 	 */
-	public synchronized void stopAgent(AgentId id) {
+	public void stopAgent(AgentId id) {
 		if (this.agents.containsLocal(id)) {
 			this.agents.getLocal(id).stop();
 		}
@@ -278,24 +385,26 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 	/**
 	 * This is called by remote {@link Runtime} when it is notified that a new
 	 * agent has been created. It can be remote or local agent. All local agents
-	 * are notified of the new agent.
+	 * are notified of the new agent, unless it was already known (e.g. a local
+	 * agent, of which the local agents have been notified when it was
+	 * launched).
 	 *
 	 * @param id
 	 *            of the created message box.
 	 */
 	public void handleAgentCreated(AgentId id) {
 		synchronized (this) {
-			this.agents.add(id);
-
 			// We don't know if the id is remote ore local.
-			// We just pass the message onto the agent.
-			for (Agent<C> agent : this.agents.local()) {
-				try {
-					agent.getController().updateAgentAvailability(id, true);
-				} catch (Exception e) { // callback protection
-					new Warning(String.format(
-							Resources.get(WarningStrings.FAILED_ACK_NEW_AGENT),
-							agent.getId().getName(), id.getName()), e);
+			// We just pass the message onto the agents if it is new.
+			if (this.agents.add(id)) {
+				for (Agent<C> agent : this.agents.local()) {
+					try {
+						agent.getController().updateAgentAvailability(id, true);
+					} catch (Exception e) { // callback protection
+						new Warning(String.format(Resources
+								.get(WarningStrings.FAILED_ACK_NEW_AGENT), agent
+								.getId().getName(), id.getName()), e);
+					}
 				}
 			}
 		}
@@ -425,7 +534,8 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 		AgentProgram program = this.agentPrograms.get(launch.getAgentFile());
 		Agent<C> agent;
 		try {
-			agent = this.factory.build(program, agentBaseName, environment);
+			agent = this.factory.build(program, agentBaseName, environment,
+					this.engine);
 		} catch (KRInitFailedException | MessagingException e) {
 			throw new GOALLaunchFailureException("could not create agent", e);
 		}
@@ -476,6 +586,9 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 
 		// Start agent. Agent now runs in its own thread. Be careful with
 		// modifications. Moved to before notifyObservers #3060
+		if (this.scheduler != null) {
+			agent.getController().setAgentScheduler(this.scheduler);
+		}
 		agent.start();
 
 		synchronized (this) {
@@ -489,7 +602,81 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 	}
 
 	/**
-	 * DOC
+	 * Launches an agent on a launch thread, or on this thread if agents are
+	 * not launched in parallel. If the launch was triggered by an entity, a
+	 * failure is reported as a warning as well.
+	 *
+	 * @return the launched agent, when it has been launched.
+	 */
+	private Future<Agent<C>> submitLaunch(final Launch launch,
+			final String newEntity, final EnvironmentPort environment) {
+		this.pendingLaunches.incrementAndGet();
+		FutureTask<Agent<C>> task = new FutureTask<>(new Callable<Agent<C>>() {
+			@Override
+			public Agent<C> call() throws GOALLaunchFailureException {
+				try {
+					return launchAgent(launch, newEntity, environment);
+				} catch (GOALLaunchFailureException | RuntimeException e) {
+					if (newEntity != null) {
+						new Warning(String.format(Resources
+								.get(WarningStrings.FAILED_LAUNCH_AGENT),
+								newEntity), e);
+					}
+					throw e;
+				} finally {
+					launchFinished();
+				}
+			}
+		});
+		if (this.launcher == null) {
+			task.run();
+		} else {
+			this.launcher.execute(task);
+		}
+		return task;
+	}
+
+	private void launchFinished() {
+		this.pendingLaunches.decrementAndGet();
+		synchronized (this) {
+			// Wake up sleeping threads in awaitLaunches.
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Applies a launch rule once more, if it has not been applied the maximum
+	 * number of times yet.
+	 *
+	 * @return true if the rule may be applied.
+	 */
+	private boolean claim(LaunchRule launchRule) {
+		AtomicInteger count = this.applicationCount.get(launchRule);
+		if (count == null) {
+			AtomicInteger initial = new AtomicInteger();
+			count = this.applicationCount.putIfAbsent(launchRule, initial);
+			if (count == null) {
+				count = initial;
+			}
+		}
+		int max = launchRule.getMaxNumberOfApplications();
+		if (max < 1) {
+			max = Integer.MAX_VALUE;
+		}
+		while (true) {
+			int appCount = count.get();
+			if (appCount >= max) {
+				return false;
+			}
+			if (count.compareAndSet(appCount, appCount + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Finds the first applicable launch rule for a new entity and launches its
+	 * agents, in parallel if there are launch threads.
 	 *
 	 * @param newEntity
 	 */
@@ -524,26 +711,9 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 
 			// check if the maximum number of times this rule should be fired
 			// has been reached.
-			int appCount = 0;
-			if (this.applicationCount.containsKey(launchRule)) {
-				appCount = this.applicationCount.get(launchRule);
-			} else {
-				this.applicationCount.put(launchRule, appCount);
-			}
-			int max = launchRule.getMaxNumberOfApplications();
-			if (max < 1) {
-				max = Integer.MAX_VALUE;
-			}
-			if (appCount < max) {
-				this.applicationCount.put(launchRule, ++appCount);
+			if (claim(launchRule)) {
 				for (Launch launch : launchRule.getInstructions()) {
-					try {
-						launchAgent(launch, newEntity, port);
-					} catch (Exception e) {
-						new Warning(String.format(Resources
-								.get(WarningStrings.FAILED_LAUNCH_AGENT),
-								newEntity), e);
-					}
+					submitLaunch(launch, newEntity, port);
 				}
 				launched = true;
 				break;
@@ -641,7 +811,7 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 	 *            the id of the agent to check
 	 * @return true if the agent id belongs to a local agent
 	 */
-	public synchronized boolean isLocal(AgentId id) {
+	public boolean isLocal(AgentId id) {
 		return this.agents.getLocal(id) != null;
 	}
 
@@ -649,6 +819,15 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 	 * Disposes all agents and any resources held by them.
 	 */
 	public void dispose() {
+		if (this.launcher != null) {
+			// no new agents while disposing the existing ones.
+			this.launcher.shutdownNow();
+			try {
+				this.launcher.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
 		for (Agent<C> agent : getAgents()) {
 			agent.dispose();
 			this.agents.remove(agent.getId());
@@ -686,6 +865,34 @@ public class AgentService<D extends Debugger, C extends GOALInterpreter<D>> {
 		}
 	}
 
+	/**
+	 * Awaits the launch of all agents that are being launched.
+	 *
+	 * @param timeout
+	 *            the maximum time to wait in seconds; 0 to wait until all
+	 *            agents have been launched.
+	 * @return true if no agents are being launched anymore.
+	 * @throws InterruptedException
+	 */
+	public boolean awaitLaunches(long timeout) throws InterruptedException {
+		long end = System.currentTimeMillis() + (timeout * 1000L);
+		synchronized (this) {
+			while (this.pendingLaunches.get() > 0) {
+				// Wake up call is done in launchFinished().
+				if (timeout <= 0) {
+					wait();
+				} else {
+					long left = end - System.currentTimeMillis();
+					if (left <= 0) {
+						return false;
+					}
+					wait(left);
+				}
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Await the launch of the first agent. This method will return once an
 	 * agent has been launched.
@@ -0,0 +1,104 @@
+package goal.core.runtime.service.agent;
+
+import eis.iilang.Percept;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The change of the percepts of an agent from one cycle to the next: the
+ * percepts that are new and the percepts that are gone. Deleted percepts are
+ * processed before added percepts.
+ */
+public class PerceptDelta {
+	/**
+	 * No change.
+	 */
+	public static final PerceptDelta EMPTY = new PerceptDelta(
+			Collections.<Percept> emptyList(),
+			Collections.<Percept> emptyList());
+
+	private final Collection<Percept> added;
+	private final Collection<Percept> deleted;
+
+	/**
+	 * @param added
+	 *            the percepts that are new.
+	 * @param deleted
+	 *            the percepts that are gone.
+	 */
+	public PerceptDelta(Collection<Percept> added, Collection<Percept> deleted) {
+		this.added = Collections.unmodifiableCollection(added);
+		this.deleted = Collections.unmodifiableCollection(deleted);
+	}
+
+	/**
+	 * Computes the delta between two complete sets of percepts.
+	 *
+	 * @param newPercepts
+	 *            The percepts of this round.
+	 * @param previousPercepts
+	 *            The percepts of the previous round.
+	 * @return the delta from the previous to the new percepts.
+	 */
+	public static PerceptDelta between(Set<Percept> newPercepts,
+			Set<Percept> previousPercepts) {
+		Set<Percept> deleteList = new HashSet<>(previousPercepts);
+		deleteList.removeAll(newPercepts);
+		Set<Percept> addList = new HashSet<>(newPercepts);
+		addList.removeAll(previousPercepts);
+		return new PerceptDelta(addList, deleteList);
+	}
+
+	/**
+	 * @return the percepts that are new.
+	 */
+	public Collection<Percept> getAdded() {
+		return this.added;
+	}
+
+	/**
+	 * @return the percepts that are gone.
+	 */
+	public Collection<Percept> getDeleted() {
+		return this.deleted;
+	}
+
+	/**
+	 * @return true if nothing changed.
+	 */
+	public boolean isEmpty() {
+		return this.added.isEmpty() && this.deleted.isEmpty();
+	}
+
+	/**
+	 * @param other
+	 *            the delta of another (disjoint) source of percepts.
+	 * @return the combined changes of this and the other delta.
+	 */
+	public PerceptDelta merge(PerceptDelta other) {
+		if (other.isEmpty()) {
+			return this;
+		} else if (isEmpty()) {
+			return other;
+		}
+		List<Percept> add = new ArrayList<>(this.added.size()
+				+ other.added.size());
+		add.addAll(this.added);
+		add.addAll(other.added);
+		List<Percept> delete = new ArrayList<>(this.deleted.size()
+				+ other.deleted.size());
+		delete.addAll(this.deleted);
+		delete.addAll(other.deleted);
+		return new PerceptDelta(add, delete);
+	}
+
+	@Override
+	public String toString() {
+		return "+" + this.added + " -" + this.deleted; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
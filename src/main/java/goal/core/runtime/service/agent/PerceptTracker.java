@@ -0,0 +1,136 @@
+package goal.core.runtime.service.agent;
+
+import eis.iilang.Percept;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the current percepts of an agent and turns the percepts
+ * received every cycle into a {@link PerceptDelta}.
+ * <p>
+ * When the environment sends all percepts every cycle, every percept is looked
+ * up once in the (reused) table of current percepts, which is stamped with the
+ * cycle in which the percept was last seen. Only when some percepts were not
+ * seen the table is scanned for them. When the environment sends the changes
+ * itself (see {@link #apply(PerceptDelta)}) the cost only depends on the
+ * number of changes.
+ */
+public class PerceptTracker {
+	private final Map<Percept, Stamp> percepts = new HashMap<>();
+	private int cycle = 0;
+
+	/**
+	 * Replaces the current percepts with the given percepts.
+	 *
+	 * @param snapshot
+	 *            all percepts of this cycle.
+	 * @return the changes from the previous percepts.
+	 */
+	public PerceptDelta update(Collection<Percept> snapshot) {
+		this.cycle++;
+		List<Percept> added = null;
+		int seen = 0;
+		for (Percept percept : snapshot) {
+			Stamp stamp = this.percepts.get(percept);
+			if (stamp == null) {
+				this.percepts.put(percept, new Stamp(this.cycle));
+				if (added == null) {
+					added = new ArrayList<>();
+				}
+				added.add(percept);
+				seen++;
+			} else if (stamp.cycle != this.cycle) {
+				stamp.cycle = this.cycle;
+				seen++;
+			}
+		}
+		List<Percept> deleted = null;
+		if (seen < this.percepts.size()) {
+			deleted = new ArrayList<>(this.percepts.size() - seen);
+			Iterator<Map.Entry<Percept, Stamp>> entries = this.percepts
+					.entrySet().iterator();
+			while (entries.hasNext()) {
+				Map.Entry<Percept, Stamp> entry = entries.next();
+				if (entry.getValue().cycle != this.cycle) {
+					deleted.add(entry.getKey());
+					entries.remove();
+				}
+			}
+		}
+		if (added == null && deleted == null) {
+			return PerceptDelta.EMPTY;
+		}
+		return new PerceptDelta(
+				(added == null) ? Collections.<Percept> emptyList() : added,
+				(deleted == null) ? Collections.<Percept> emptyList()
+						: deleted);
+	}
+
+	/**
+	 * Applies changes reported by the environment to the current percepts.
+	 * Changes that do not change anything (deleting a percept that is not
+	 * there, adding one that already is) are left out of the result.
+	 *
+	 * @param delta
+	 *            the changes.
+	 * @return the effective changes.
+	 */
+	public PerceptDelta apply(PerceptDelta delta) {
+		if (delta.isEmpty()) {
+			return PerceptDelta.EMPTY;
+		}
+		List<Percept> deleted = new ArrayList<>(delta.getDeleted().size());
+		for (Percept percept : delta.getDeleted()) {
+			if (this.percepts.remove(percept) != null) {
+				deleted.add(percept);
+			}
+		}
+		List<Percept> added = new ArrayList<>(delta.getAdded().size());
+		for (Percept percept : delta.getAdded()) {
+			if (!this.percepts.containsKey(percept)) {
+				this.percepts.put(percept, new Stamp(this.cycle));
+				added.add(percept);
+			}
+		}
+		return new PerceptDelta(added, deleted);
+	}
+
+	/**
+	 * @return the current percepts.
+	 */
+	public Set<Percept> getPercepts() {
+		return Collections.unmodifiableSet(this.percepts.keySet());
+	}
+
+	/**
+	 * @return true if there are no current percepts.
+	 */
+	public boolean isEmpty() {
+		return this.percepts.isEmpty();
+	}
+
+	/**
+	 * Forgets all current percepts.
+	 */
+	public void clear() {
+		this.percepts.clear();
+	}
+
+	/**
+	 * The cycle in which a percept was last seen.
+	 */
+	private static class Stamp {
+		private int cycle;
+
+		Stamp(int cycle) {
+			this.cycle = cycle;
+		}
+	}
+}
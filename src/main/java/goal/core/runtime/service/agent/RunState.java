@@ -27,9 +27,11 @@ import eis.iilang.Percept;
 import goal.core.agent.Agent;
 import goal.core.agent.Controller;
 import goal.core.agent.EnvironmentCapabilities;
+import goal.core.agent.IncrementalEnvironmentCapabilities;
 import goal.core.agent.LoggingCapabilities;
 import goal.core.agent.MessagingCapabilities;
 import goal.core.executors.ModuleExecutor;
+import goal.core.executors.RuleConditionCache;
 import goal.core.gamygdala.AgentInternalState;
 import goal.core.gamygdala.AgentRelations;
 import goal.core.gamygdala.Emotion;
@@ -38,6 +40,7 @@ import goal.core.gamygdala.Relation;
 import goal.core.mentalstate.MentalState;
 import goal.core.mentalstate.SingleGoal;
 import goal.core.runtime.service.environmentport.EnvironmentPort;
+import goal.preferences.CorePreferences;
 import goal.preferences.PMPreferences;
 import goal.tools.adapt.FileLearner;
 import goal.tools.adapt.Learner;
@@ -61,6 +64,7 @@ import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.ListIterator;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import krTools.errors.exceptions.KRDatabaseException;
 import krTools.errors.exceptions.KRInitFailedException;
@@ -96,6 +100,13 @@ import nl.tudelft.goal.messaging.messagebox.MessageBox;
  * @modified K.Hindriks
  */
 public class RunState<D extends Debugger> {
+	/**
+	 * The message of the {@link Channel#REASONING_CYCLE_SEPARATOR} event that
+	 * starts a new cycle. The associated object and only argument of the event
+	 * is the number of the cycle.
+	 */
+	public static final String CYCLE_SEPARATOR = " +++++++ Cycle %s +++++++ "; //$NON-NLS-1$
+
 	private final Controller parent;
 	/**
 	 * The agent's name. The name of an agent is derived from its
@@ -131,6 +142,11 @@ public class RunState<D extends Debugger> {
 	private MentalState mentalState = null;
 
 	private boolean usesMentalModels = false;
+	/**
+	 * The number of rounds between checks for mental models of other agents
+	 * that can be released, see {@link MentalState#releaseIdleModels(long)}.
+	 */
+	private static final int MODEL_RELEASE_INTERVAL = 100;
 	/**
 	 * The port to the environment.
 	 */
@@ -141,10 +157,13 @@ public class RunState<D extends Debugger> {
 	private final LoggingCapabilities logActionsLogger;
 
 	/**
-	 * Previous input states recording inputs from previous round. Used to check
-	 * whether agent can go to sleep.
+	 * Previous input states recording inputs from previous round. Used to
+	 * compute which percepts changed and to check whether agent can go to
+	 * sleep. Percepts of the environment and of the emotion engine are tracked
+	 * separately, as they are obtained in different ways.
 	 */
-	private Set<Percept> previousPercepts = new LinkedHashSet<>();
+	private final PerceptTracker environmentPercepts = new PerceptTracker();
+	private final PerceptTracker emotionPercepts = new PerceptTracker();
 	private Set<Message> previousMessages = new LinkedHashSet<>();
 	/**
 	 * The goal that is focused on is stored temporarily in the run state for
@@ -181,14 +200,40 @@ public class RunState<D extends Debugger> {
 	 * Learner that allows agent to learn from repeated trials.
 	 */
 	private final Learner learner;
+	/**
+	 * The emotion engine of the runtime of the agent.
+	 */
+	private final Engine engine;
 	/**
 	 * Keep track whether sleep condition held previous cycle.
 	 */
 	private boolean sleepConditionsHoldingPreviousCycle;
+	/**
+	 * Keep track whether the agent is sleeping, see {@link #isAsleep()}.
+	 */
+	private volatile boolean asleep = false;
 	/**
 	 * Keep track of executed actions
 	 */
 	private UserSpecAction lastAction;
+	/**
+	 * The cache of rule condition results, or null if conditions are not
+	 * cached, see {@link CorePreferences#isRuleConditionCache()}.
+	 */
+	private final RuleConditionCache conditionCache;
+	/**
+	 * The time (from {@link System#nanoTime()}) at which the last cycle
+	 * started; 0 before the first cycle.
+	 */
+	private long cycleStart = 0;
+	/**
+	 * The duration of the last completed cycle, in nanoseconds.
+	 */
+	private long lastCycleTime = 0;
+	/**
+	 * The total duration of all completed cycles, in nanoseconds.
+	 */
+	private long totalCycleTime = 0;
 
 	/**
 	 * Creates a new {@link RunState}.
@@ -201,14 +246,17 @@ public class RunState<D extends Debugger> {
 	 * @param program
 	 * @param debugger
 	 * @param learner
+	 * @param engine
+	 *            the emotion engine of the runtime of the agent.
 	 * @throws KRInitFailedException
 	 */
 	public RunState(Controller parent, AgentId agentName,
 			EnvironmentCapabilities environment,
 			MessagingCapabilities messaging, LoggingCapabilities logger,
-			AgentProgram program, D debugger, Learner learner)
+			AgentProgram program, D debugger, Learner learner, Engine engine)
 			throws KRInitFailedException {
 		this.parent = parent;
+		this.engine = engine;
 		this.environment = environment;
 		this.messaging = messaging;
 		this.logActionsLogger = logger;
@@ -240,7 +288,8 @@ public class RunState<D extends Debugger> {
 
 		// Create a new mental state for the agent.
 		try {
-			this.mentalState = new MentalState(this.getId(), program, debugger);
+			this.mentalState = new MentalState(this.getId(), program, debugger,
+					engine);
 		} catch (KRDatabaseException | KRQueryFailedException
 				| UnknownObjectException e) {
 			throw new KRInitFailedException(
@@ -251,6 +300,8 @@ public class RunState<D extends Debugger> {
 
 		// Configure learner.
 		this.learner = learner;
+		this.conditionCache = CorePreferences.isRuleConditionCache() ? new RuleConditionCache()
+				: null;
 	}
 
 	public Controller getParent() {
@@ -282,6 +333,32 @@ public class RunState<D extends Debugger> {
 		this.roundCounter++;
 	}
 
+	/**
+	 * @return the cache of rule condition results of this agent, or null if
+	 *         conditions are not cached.
+	 */
+	public RuleConditionCache getConditionCache() {
+		return this.conditionCache;
+	}
+
+	/**
+	 * @return the duration of the last completed cycle, in nanoseconds; 0 if
+	 *         no cycle has been completed yet. Includes the time the agent
+	 *         was asleep or paused.
+	 */
+	public long getLastCycleTime() {
+		return this.lastCycleTime;
+	}
+
+	/**
+	 * @return the average duration of the completed cycles, in nanoseconds; 0
+	 *         if no cycle has been completed yet.
+	 */
+	public long getAverageCycleTime() {
+		int completed = getRoundCounter() - 1;
+		return (completed <= 0) ? 0 : this.totalCycleTime / completed;
+	}
+
 	public long getStartTime() {
 		return this.start;
 	}
@@ -325,15 +402,24 @@ public class RunState<D extends Debugger> {
 		this.roundCounter = 0;
 		// Clean up old and create new initial mental state.
 		this.mentalState.cleanUp();
-		this.mentalState = new MentalState(getId(), this.program, this.debugger);
+		this.mentalState = new MentalState(getId(), this.program,
+				this.debugger, this.engine);
 		//
-		this.previousPercepts.clear();
+		this.environmentPercepts.clear();
+		this.emotionPercepts.clear();
 		this.previousMessages.clear();
 		this.messaging.reset();
 		this.focusgoal = null;
 		this.activeStackOfModules.clear();
 		this.sleepConditionsHoldingPreviousCycle = false;
+		this.asleep = false;
 		this.topLevelRunContext = TYPE.MAIN;
+		if (this.conditionCache != null) {
+			this.conditionCache.clear();
+		}
+		this.cycleStart = 0;
+		this.lastCycleTime = 0;
+		this.totalCycleTime = 0;
 	}
 
 	/**
@@ -372,20 +458,23 @@ public class RunState<D extends Debugger> {
 	 */
 	public void processPercepts(Set<Percept> newPercepts,
 			Set<Percept> previousPercepts) {
-		// Compute which percepts need to be deleted and which percepts need to
-		// be added
-		// to the percept base using the list of percepts from the previous
-		// round. The
-		// set of percepts to be deleted/added are called lists for historical
-		// reasons.
-		Set<Percept> deleteList = new HashSet<>(previousPercepts);
-		deleteList.removeAll(newPercepts);
-		Set<Percept> addList = new HashSet<>(newPercepts);
-		addList.removeAll(previousPercepts);
+		processPercepts(PerceptDelta.between(newPercepts, previousPercepts));
+	}
 
+	/**
+	 * Processes changes of the EIS percepts received from the agent's
+	 * environment: removes the deleted percepts from and inserts the added
+	 * percepts into the percept base, in one batch.
+	 *
+	 * @param delta
+	 *            The changes to be processed.
+	 */
+	public void processPercepts(PerceptDelta delta) {
 		// nothing to do if both add and delete lists are empty.
-		getMentalState().getOwnBase(BASETYPE.PERCEPTBASE).updatePercepts(
-				addList, deleteList, this.debugger);
+		if (!delta.isEmpty()) {
+			getMentalState().getOwnBase(BASETYPE.PERCEPTBASE).updatePercepts(
+					delta.getAdded(), delta.getDeleted(), this.debugger);
+		}
 	}
 
 	/**
@@ -532,19 +621,64 @@ public class RunState<D extends Debugger> {
 		startCycle(isActionPerformed, new HashSet<Percept>());
 	}
 
-	private Set<Percept> getPercepts() throws DebuggerKilledException {
+	/**
+	 * Collects the percepts of this round and computes how they changed since
+	 * the previous round. Environments that can report the changes themselves
+	 * (see {@link IncrementalEnvironmentCapabilities}) are asked for those;
+	 * otherwise all percepts of the environment are compared with the ones of
+	 * the previous round.
+	 *
+	 * @param initial
+	 *            the percepts to use instead of those of the environment and
+	 *            the emotion engine, or {@code null}.
+	 * @return the changes of the percepts.
+	 */
+	private PerceptDelta getPerceptDelta(Set<Percept> initial)
+			throws DebuggerKilledException {
+		if (initial != null) {
+			return this.environmentPercepts.update(initial).merge(
+					this.emotionPercepts.update(new HashSet<Percept>(0)));
+		}
 		try {
-			// Update emotions
-			Set<Percept> addList = this.environment.getPercepts();
-	
-			AgentInternalState emoState = Engine.getInstance().getAgentByName(agentName.getName()).getEmotionalState(null);
+			PerceptDelta delta;
+			if (this.environment instanceof IncrementalEnvironmentCapabilities) {
+				delta = this.environmentPercepts
+						.apply(((IncrementalEnvironmentCapabilities) this.environment)
+								.getPerceptDelta());
+			} else {
+				delta = this.environmentPercepts.update(this.environment
+						.getPercepts());
+			}
+			return delta.merge(this.emotionPercepts.update(getEmotionPercepts()));
+		} catch (MessagingException e) {
+			// typically, when system is taken down.
+			// HACK Only Debugger should throw this.
+			throw new DebuggerKilledException(
+					"Fatal error: messaging is failing.", e);
+		} catch (EnvironmentInterfaceException e) {
+			new Warning(Resources.get(WarningStrings.FAILED_GET_PERCEPT), e);
+			return this.environmentPercepts.update(new HashSet<Percept>(0))
+					.merge(this.emotionPercepts.update(new HashSet<Percept>(0)));
+		}
+	}
+
+	/**
+	 * @return the current emotions of the agent, and its emotions towards
+	 *         other agents, as percepts.
+	 */
+	private Set<Percept> getEmotionPercepts() {
+		Set<Percept> percepts = new HashSet<>();
+		goal.core.gamygdala.Agent gamAgent = this.engine.getAgentByName(this.agentName.getName());
+		// Other agents may change our emotions while appraising events.
+		synchronized (gamAgent) {
+			AgentInternalState emoState = gamAgent.getEmotionalState(null);
 			ListIterator<Emotion> emoIterator = emoState.listIterator();
 			while(emoIterator.hasNext()){
 				Emotion emo = emoIterator.next();
 				Percept percept = new Percept("emotion", new Identifier(emo.name), new Numeral(emo.intensity));
-				addList.add(percept);
+				percepts.add(percept);
 			}
-			AgentRelations agentrelations = Engine.getInstance().getAgentByName(agentName.getName()).getCurrentRelations();
+			AgentRelations agentrelations = gamAgent.getCurrentRelations();
 			ListIterator<Relation> agentrelationsiterator = agentrelations.listIterator();
 			while(agentrelationsiterator.hasNext()){
 				Relation relation = agentrelationsiterator.next();
@@ -553,21 +687,11 @@ public class RunState<D extends Debugger> {
 				while(emoIterator.hasNext()){
 					Emotion emo2 = emoIterator.next();
 					Percept percept = new Percept("emotion", new Identifier(emo2.name), new Numeral(emo2.intensity), new Identifier(agentname));
-					addList.add(percept);
+					percepts.add(percept);
 				}
 			}
-			
-
-			return addList;
-		} catch (MessagingException e) {
-			// typically, when system is taken down.
-			// HACK Only Debugger should throw this.
-			throw new DebuggerKilledException(
-					"Fatal error: messaging is failing.", e);
-		} catch (EnvironmentInterfaceException e) {
-			new Warning(Resources.get(WarningStrings.FAILED_GET_PERCEPT), e);
-			return new HashSet<>(0);
 		}
+		return percepts;
 	}
 
 	/**
@@ -582,6 +706,8 @@ public class RunState<D extends Debugger> {
 	 * </ul>
 	 *
 	 * This function may go to sleep until there are new percepts or messages.
+	 * While sleeping, the calling thread is blocked until the agent's
+	 * {@link Controller} is woken up.
 	 *
 	 * @param isActionPerformed
 	 *            is true if there has been performed an action between this
@@ -590,23 +716,45 @@ public class RunState<D extends Debugger> {
 	 * @param initial
 	 *            the initial set of percepts to use
 	 * @throws GOALActionFailedException
-	 * @throws  
 	 */
 	// TODO: Does not yet support measuring time used in Thread.
 	public void startCycle(boolean isActionPerformed, Set<Percept> initial)
 			throws GOALActionFailedException {
+		startCycle(isActionPerformed, initial, false);
+	}
+
+	/**
+	 * Perform preparations for starting a new cycle, see
+	 * {@link #startCycle(boolean, Set)}. If the agent goes to sleep and
+	 * {@code deferSleep} is set, this function does not block but returns
+	 * immediately, leaving the agent {@link #isAsleep()}. The caller is then
+	 * responsible for calling {@link #resumeCycle()} when the agent is woken
+	 * up, which completes the preparations once new input has arrived. This
+	 * allows the thread of the agent to be released while it is sleeping.
+	 *
+	 * @param isActionPerformed
+	 *            is true if there has been performed an action between this
+	 *            call and the previous call to {@link #startCycle(boolean)}. We
+	 *            only consider going to sleep if this is false.
+	 * @param deferSleep
+	 *            true if the caller handles sleeping (see above).
+	 * @throws GOALActionFailedException
+	 */
+	public void startCycle(boolean isActionPerformed, boolean deferSleep)
+			throws GOALActionFailedException {
+		startCycle(isActionPerformed, new HashSet<Percept>(), deferSleep);
+	}
+
+	private void startCycle(boolean isActionPerformed, Set<Percept> initial,
+			boolean deferSleep) throws GOALActionFailedException {
 		Set<Message> newMessages = this.messaging.getAllMessages();
-		Set<Percept> newPercepts = initial;
-		if (initial.isEmpty()) {
-			newPercepts = getPercepts();
-		}
+		PerceptDelta newPercepts = getPerceptDelta(initial.isEmpty() ? null
+				: initial);
 
 		this.lastAction = null;
-		this.event = !newMessages.isEmpty() || !newPercepts.isEmpty()
-				|| isActionPerformed;
 
 		boolean sameMessages = newMessages.equals(this.previousMessages);
-		boolean samePercepts = newPercepts.equals(this.previousPercepts);
+		boolean samePercepts = newPercepts.isEmpty();
 		boolean sleepConditionsHoldingNow = samePercepts && sameMessages
 				&& !isActionPerformed;
 
@@ -620,49 +768,112 @@ public class RunState<D extends Debugger> {
 				// sleep condition holds also NOW. Go sleep.
 				this.debugger.breakpoint(Channel.SLEEP, null, null,
 						"Going to sleep mode."); //$NON-NLS-1$
-
-				while (this.sleepConditionsHoldingPreviousCycle) {
-					// TODO would be nice to be event triggered here,
-					// and wake up on new message or percept, e.g., by
-					// using a blocking queue. But we are using a pull model for
-					// percepts... Maybe we can hand over responsibility for
-					// checking
-					// our percepts to the environment port that is running in
-					// its own
-					// thread and have that port notify us when something has
-					// changed!?
-
-					// Check if thread has been interrupted, we're in a
-					// busy-waiting loop!
-					// If so, we should kill the thread we're using; the
-					// debugger will
-					// take care of this.
-					this.debugger.breakpoint(Channel.RUNMODE, null, null,
-							"sleeping"); //$NON-NLS-1$
-					Thread.yield();
-
-					newMessages = this.messaging.getAllMessages();
-					newPercepts = getPercepts();
-					sameMessages = newMessages.equals(this.previousMessages);
-					samePercepts = newPercepts.equals(this.previousPercepts);
-					this.sleepConditionsHoldingPreviousCycle = samePercepts
-							&& sameMessages;
+				this.asleep = true;
+				if (deferSleep) {
+					// the caller will resume the cycle when we are woken up.
+					return;
 				}
-				this.debugger.breakpoint(Channel.SLEEP, null, null,
-						"Woke up from sleep mode."); //$NON-NLS-1$
+				while (!resumeCycle()) {
+					if (!this.parent.isRunning()) {
+						throw new DebuggerKilledException();
+					}
+					// Our controller is woken up when new input arrives for
+					// us, when we are terminated, or when the poll interval
+					// has passed.
+					try {
+						this.parent.awaitWakeUp();
+					} catch (InterruptedException e) {
+						throw new DebuggerKilledException(
+								"Interrupted while sleeping.", e); //$NON-NLS-1$
+					}
+				}
+				return;
 			}
 		}
 
+		runCycle(newMessages, newPercepts, isActionPerformed,
+				sleepConditionsHoldingNow);
+	}
+
+	/**
+	 * Checks whether a sleeping agent (see {@link #isAsleep()}) has received
+	 * new percepts or messages. If so, the agent wakes up and the preparations
+	 * for the new cycle that were started by {@link #startCycle(boolean)} are
+	 * completed.
+	 *
+	 * @return {@code true} if the agent woke up (or was not sleeping at all);
+	 *         {@code false} if the agent is still sleeping.
+	 * @throws GOALActionFailedException
+	 */
+	public boolean resumeCycle() throws GOALActionFailedException {
+		if (!this.asleep) {
+			return true;
+		}
+		// Allow the debugger to pause or kill us while we are sleeping.
+		this.debugger.breakpoint(Channel.RUNMODE, null, null, "sleeping"); //$NON-NLS-1$
+
+		Set<Message> newMessages = this.messaging.getAllMessages();
+		PerceptDelta newPercepts = getPerceptDelta(null);
+		boolean sameMessages = newMessages.equals(this.previousMessages);
+		boolean samePercepts = newPercepts.isEmpty();
+		if (samePercepts && sameMessages) {
+			return false;
+		}
+
+		this.asleep = false;
+		this.debugger.breakpoint(Channel.SLEEP, null, null,
+				"Woke up from sleep mode."); //$NON-NLS-1$
+		runCycle(newMessages, newPercepts, false, false);
+		return true;
+	}
+
+	/**
+	 * @return {@code true} if the agent is sleeping, i.e. is waiting for new
+	 *         percepts or messages before it continues with its next cycle.
+	 */
+	public boolean isAsleep() {
+		return this.asleep;
+	}
+
+	/**
+	 * Starts a new cycle using the given input; see
+	 * {@link #startCycle(boolean, Set)}.
+	 */
+	private void runCycle(Set<Message> newMessages, PerceptDelta newPercepts,
+			boolean isActionPerformed, boolean sleepConditionsHoldingNow)
+			throws GOALActionFailedException {
+		this.event = !newMessages.isEmpty()
+				|| !this.environmentPercepts.isEmpty()
+				|| !this.emotionPercepts.isEmpty() || isActionPerformed;
+
+		// Measure the time of the previous cycle.
+		long now = System.nanoTime();
+		if (this.cycleStart != 0) {
+			this.lastCycleTime = now - this.cycleStart;
+			this.totalCycleTime += this.lastCycleTime;
+		}
+		this.cycleStart = now;
+
 		// Increment round counter and display round separator via debugger.
 		this.incrementRoundCounter();
-		this.debugger.breakpoint(Channel.REASONING_CYCLE_SEPARATOR,
-				getRoundCounter(), null, " +++++++ Cycle " + getRoundCounter() //$NON-NLS-1$
-						+ " +++++++ "); //$NON-NLS-1$
+		if (this.debugger.isEnabled(Channel.REASONING_CYCLE_SEPARATOR)) {
+			this.debugger.breakpoint(Channel.REASONING_CYCLE_SEPARATOR,
+					getRoundCounter(), null, CYCLE_SEPARATOR, getRoundCounter());
+		}
 
 		// Get and process percepts.
-		this.processPercepts(newPercepts, this.previousPercepts);
+		this.processPercepts(newPercepts);
 		// Get messages and update message box.
-			this.processMessages(newMessages);
+		this.processMessages(newMessages);
+		// Release the models of other agents that are not used any more.
+		if (this.usesMentalModels
+				&& getRoundCounter() % MODEL_RELEASE_INTERVAL == 0) {
+			int idleTime = CorePreferences.getMentalModelIdleTime();
+			if (idleTime > 0) {
+				getMentalState().releaseIdleModels(
+						TimeUnit.SECONDS.toNanos(idleTime));
+			}
+		}
 
 		// If there is an init module, run it in the first round.
 		if (this.initModule != null && this.getRoundCounter() == 1) {
@@ -679,7 +890,6 @@ public class RunState<D extends Debugger> {
 
 		this.event = false;
 		this.previousMessages = newMessages;
-		this.previousPercepts = newPercepts;
 		this.sleepConditionsHoldingPreviousCycle = sleepConditionsHoldingNow;
 	}
 
@@ -7,10 +7,21 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.swing.SwingUtilities;
 
@@ -39,6 +50,7 @@ import eis.iilang.Percept;
 import goal.core.runtime.MessagingService;
 import goal.core.runtime.service.environmentport.EnvironmentPort;
 import goal.core.runtime.service.environmentport.actions.Action;
+import goal.core.runtime.service.environmentport.actions.ActionResult;
 import goal.core.runtime.service.environmentport.actions.AssociateEntity;
 import goal.core.runtime.service.environmentport.actions.ExecuteAction;
 import goal.core.runtime.service.environmentport.actions.FreeAgent;
@@ -56,6 +68,7 @@ import goal.core.runtime.service.environmentport.environmentport.events.FreeEnti
 import goal.core.runtime.service.environmentport.environmentport.events.NewEntityEvent;
 import goal.core.runtime.service.environmentport.environmentport.events.NewPerceptEvent;
 import goal.core.runtime.service.environmentport.environmentport.events.StateChangeEvent;
+import goal.preferences.EnvironmentPreferences;
 import goal.tools.errorhandling.Resources;
 import goal.tools.errorhandling.Warning;
 import goal.tools.errorhandling.WarningStrings;
@@ -82,8 +95,15 @@ import goal.tools.logging.InfoLog;
  * using {@link Message}s.
  * <p>
  * To request command execution, construct a {@link EnvOnMsgAction} and send it
- * to us. All incoming command requests are strictly serialized by queing them
- * in a BlockingQueue and handling them in incoming order.
+ * to us. All incoming command requests are queued in a BlockingQueue and
+ * handled in incoming order. If the environment is thread safe (see
+ * {@link EnvironmentPreferences#isConcurrentAgents()}), requests of different
+ * agents are handled concurrently instead; the requests of one agent are still
+ * handled in order, and requests that manage the environment as a whole or the
+ * agent-entity relation are never handled at the same time as other requests.
+ * <p>
+ * Requests that carry a correlation id are answered with an
+ * {@link ActionResult} instead of a reply to the request message.
  * <p>
  * To receive callbacks on environmentListener events, you have to subscribe to
  * us, using the {@link Subscribe} command.
@@ -105,6 +125,16 @@ public class LocalMessagingEnvironment {
 
 	public class Messages2Environment implements Runnable, MessageBoxListener {
 		private final BlockingQueue<Action> requests = new LinkedBlockingQueue<>();
+		/**
+		 * The requests of each agent that are waiting to be handled, if agents
+		 * are handled concurrently.
+		 */
+		private final Map<String, AgentRequests> agentRequests = new ConcurrentHashMap<>();
+		/**
+		 * Agent local requests hold the read lock while they are handled, all
+		 * other requests the write lock.
+		 */
+		private final ReadWriteLock eisLock = new ReentrantReadWriteLock();
 
 		@Override
 		public boolean newMessage(final Message message) {
@@ -125,14 +155,9 @@ public class LocalMessagingEnvironment {
 			request.setMessage(message);
 
 			/*
-			 * TODO: All requests could be handled on the calling thread if EIS
-			 * was thread-safe. EIS specifications make no such guarantees. So
-			 * we treat all operations as if they are not thread safe and queue
-			 * them up.
-			 * 
-			 * On Thread-Safe implementations of EIS this creates somewhat of a
-			 * bottleneck because all agents are now waiting for the
-			 * environment.
+			 * EIS specifications make no guarantees about thread safety. So
+			 * unless the user told us the environment is thread safe, we treat
+			 * all operations as if they are not thread safe and queue them up.
 			 */
 
 			this.requests.add(request);
@@ -146,7 +171,19 @@ public class LocalMessagingEnvironment {
 			try {
 				while (LocalMessagingEnvironment.this.running) {
 					Action action = this.requests.take();
-					handleAction(action);
+					String agent = action.getAgentName();
+					if (LocalMessagingEnvironment.this.agentExecutor == null) {
+						handleAction(action);
+					} else if (agent == null) {
+						handleLocked(action);
+					} else {
+						AgentRequests queue = this.agentRequests.get(agent);
+						if (queue == null) {
+							queue = new AgentRequests();
+							this.agentRequests.put(agent, queue);
+						}
+						queue.add(action);
+					}
 				}
 			} catch (InterruptedException e1) {
 				// Breaking out of loop.
@@ -157,6 +194,24 @@ public class LocalMessagingEnvironment {
 			new InfoLog(Resources.get(WarningStrings.FAILED_MSG_ENV_STOPPED));
 		}
 
+		/**
+		 * Handles a request while holding the lock that keeps it from running
+		 * concurrently with requests it may conflict with.
+		 *
+		 * @param action
+		 *            The request.
+		 */
+		private void handleLocked(Action action) {
+			Lock lock = action.isAgentLocal() ? this.eisLock.readLock()
+					: this.eisLock.writeLock();
+			lock.lock();
+			try {
+				handleAction(action);
+			} finally {
+				lock.unlock();
+			}
+		}
+
 		private void handleAction(Action action) {
 			// Execute action.
 			Serializable result;
@@ -167,9 +222,17 @@ public class LocalMessagingEnvironment {
 			}
 
 			try {
-				Message replyMsg = LocalMessagingEnvironment.this.messageBox
-						.createMessage(action.getSender(), result,
-								action.getMessage());
+				Message replyMsg;
+				if (action.getCorrelationId() == 0) {
+					replyMsg = LocalMessagingEnvironment.this.messageBox
+							.createMessage(action.getSender(), result,
+									action.getMessage());
+				} else {
+					replyMsg = LocalMessagingEnvironment.this.messageBox
+							.createMessage(action.getSender(),
+									new ActionResult(action
+											.getCorrelationId(), result), null);
+				}
 				LocalMessagingEnvironment.this.messageBox.send(replyMsg);
 			} catch (MessagingException e) {
 				new Warning(
@@ -179,6 +242,45 @@ public class LocalMessagingEnvironment {
 			}
 		}
 
+		/**
+		 * The requests of one agent. The requests are handled in order by at
+		 * most one thread of the agent executor at a time.
+		 */
+		private class AgentRequests implements Runnable {
+			/**
+			 * Maximum number of requests handled before giving other agents a
+			 * turn.
+			 */
+			private static final int BATCH = 16;
+			private final Queue<Action> queue = new ConcurrentLinkedQueue<>();
+			private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+			void add(Action action) {
+				this.queue.add(action);
+				schedule();
+			}
+
+			private void schedule() {
+				if (this.scheduled.compareAndSet(false, true)) {
+					LocalMessagingEnvironment.this.agentExecutor.execute(this);
+				}
+			}
+
+			@Override
+			public void run() {
+				Action action;
+				for (int i = 0; i < BATCH
+						&& (action = this.queue.poll()) != null; i++) {
+					handleLocked(action);
+				}
+				this.scheduled.set(false);
+				// requests may have been added after our last poll.
+				if (!this.queue.isEmpty()) {
+					schedule();
+				}
+			}
+		}
+
 		/**
 		 * get the reward of given entity.
 		 *
@@ -458,6 +560,11 @@ public class LocalMessagingEnvironment {
 
 	private final MessagingService messagingService;
 	private MessageBox messageBox;
+	/**
+	 * Threads that handle the requests of agents, or null if all requests are
+	 * handled sequentially by the Messages->Environment thread.
+	 */
+	private final ExecutorService agentExecutor;
 	/**
 	 * {@link EnvironmentPort}s are listeners of this
 	 * {@link LocalMessagingEnvironment}.
@@ -465,7 +572,7 @@ public class LocalMessagingEnvironment {
 	private final List<MessageBoxId> subscribedEnvironmentPorts = new CopyOnWriteArrayList<>();
 	// needed for take down.
 
-	private boolean running = true;
+	private volatile boolean running = true;
 
 	/**
 	 * Launch an environment and put it on top of the messaging system. This
@@ -522,6 +629,23 @@ public class LocalMessagingEnvironment {
 		// interface.
 		eis.attachEnvironmentListener(this.environment2Messages);
 
+		if (EnvironmentPreferences.isConcurrentAgents()) {
+			this.agentExecutor = Executors.newFixedThreadPool(Runtime
+					.getRuntime().availableProcessors(), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "Environment worker " //$NON-NLS-1$
+							+ this.count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		} else {
+			this.agentExecutor = null;
+		}
+
 		this.messages2EnvironmentThread = new Thread(this.messages2Environment,
 				"Messages->Environment"); //$NON-NLS-1$
 		this.messages2EnvironmentThread.start();
@@ -553,6 +677,10 @@ public class LocalMessagingEnvironment {
 
 		this.messages2EnvironmentThread.join();
 		this.environment2MessagesThread.join();
+		if (this.agentExecutor != null) {
+			this.agentExecutor.shutdownNow();
+			this.agentExecutor.awaitTermination(1, TimeUnit.SECONDS);
+		}
 
 		this.eis.detachEnvironmentListener(this.environment2Messages);
 		this.messageBox.removeListener(this.messages2Environment);
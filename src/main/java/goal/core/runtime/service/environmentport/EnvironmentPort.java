@@ -28,6 +28,7 @@ import goal.core.agent.Agent;
 import goal.core.runtime.MessagingService;
 import goal.core.runtime.service.agent.AgentService;
 import goal.core.runtime.service.environment.LocalMessagingEnvironment;
+import goal.core.runtime.service.environmentport.actions.ActionResult;
 import goal.core.runtime.service.environmentport.actions.AssociateEntity;
 import goal.core.runtime.service.environmentport.actions.ExecuteAction;
 import goal.core.runtime.service.environmentport.actions.FreeAgent;
@@ -50,8 +51,11 @@ import goal.tools.errorhandling.exceptions.GOALLaunchFailureException;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import nl.tudelft.goal.messaging.Message;
 import nl.tudelft.goal.messaging.exceptions.MessagingException;
@@ -69,6 +73,20 @@ import nl.tudelft.goal.messaging.messagebox.MessageBoxListener;
  * <p>
  * This also handles events like newEntity and passes them on to the
  * {@link AgentService} if necessary.
+ * <p>
+ * Requests of agents (actions and percepts) are not sent with a blocking send.
+ * Each request gets a correlation id and is sent from the message box of its
+ * agent; the environment answers with an {@link ActionResult} carrying the same
+ * id. Many requests can therefore be in flight at the same time, while the
+ * requests of a single agent are still handled in the order they were sent.
+ * Freeing an agent goes the same way, as it has to be handled after the
+ * requests the agent already sent. Requests that manage the environment
+ * itself (start, pause, kill, reset, registering agents, associating
+ * entities and rewards) still use a blocking send on the message box of the
+ * port. An agent waits at most
+ * {@link goal.preferences.EnvironmentPreferences#getRequestTimeout()} for a
+ * result; pending requests fail when the environment is killed or the port
+ * is shut down.
  *
  * @author W.Pasman
  * @modified #2385 put this entirely on top of messaging system.
@@ -82,7 +100,11 @@ public class EnvironmentPort {
 	private final MessageBoxId environmentMessageBoxId;
 	protected volatile EnvironmentState environmentState = EnvironmentState.PAUSED;
 
-	private final List<EnvironmentPortObserver> observers = new LinkedList<>();
+	/**
+	 * Thread safe, as agents (de)register themselves while events are being
+	 * delivered.
+	 */
+	private final List<EnvironmentPortObserver> observers = new CopyOnWriteArrayList<>();
 
 	private final MessageBoxListener messageboxlistener = new MessageBoxListener() {
 		@Override
@@ -109,6 +131,9 @@ public class EnvironmentPort {
 				if (message.getContent() instanceof StateChangeEvent) {
 					EnvironmentPort.this.environmentState = ((StateChangeEvent) message
 							.getContent()).getState();
+					if (EnvironmentPort.this.environmentState == EnvironmentState.KILLED) {
+						failPending("environment has been killed"); //$NON-NLS-1$
+					}
 				}
 
 				notifyObservers((EnvironmentEvent) message.getContent());
@@ -124,6 +149,34 @@ public class EnvironmentPort {
 	private final HashMap<String, MessageBox> clients = new HashMap<>();
 	private final MessagingService messaging;
 
+	/**
+	 * Requests that have been sent but of which the result did not arrive yet,
+	 * by correlation id.
+	 */
+	private final Map<Long, EnvironmentRequest> pending = new ConcurrentHashMap<>();
+	private final AtomicLong correlationIds = new AtomicLong();
+
+	/**
+	 * Listens on the message boxes of the clients for the results of their
+	 * requests.
+	 */
+	private final MessageBoxListener resultListener = new MessageBoxListener() {
+		@Override
+		public boolean newMessage(Message message) {
+			if (!(message.getContent() instanceof ActionResult)) {
+				return false;
+			}
+			ActionResult result = (ActionResult) message.getContent();
+			EnvironmentRequest request = EnvironmentPort.this.pending
+					.remove(result.getCorrelationId());
+			if (request == null) {
+				return false;
+			}
+			request.complete(result.getResult());
+			return true;
+		}
+	};
+
 	/**
 	 * <p>
 	 * Create environment port to control environment.
@@ -162,9 +215,10 @@ public class EnvironmentPort {
 	}
 
 	/**
-	 * Call the {@link LocalMessagingEnvironment} to execute the action. Server
-	 * calls can return an exception, which needs to be checked. This function
-	 * checks and throws the exception as passed from the server.
+	 * Call the {@link LocalMessagingEnvironment} to execute the action and wait
+	 * for its result, see {@link EnvironmentRequest#getResult()}. Server calls can return an exception, which needs to be
+	 * checked. This function checks and throws the exception as passed from
+	 * the server.
 	 * <p>
 	 * Notice that EIS can throw ANY unchecked exception. However if it happens,
 	 * it is the environment implementation that threw it. The only official EIS
@@ -183,22 +237,56 @@ public class EnvironmentPort {
 			goal.core.runtime.service.environmentport.actions.Action action)
 			throws NoEnvironmentException, EnvironmentInterfaceException,
 			MessagingException {
-		/*
-		 * FIXME To handle the call, this function is using a temporary
-		 * messagebox. not clear why this is done. Older comments here indicate
-		 * it is to provide thread safety, but all functions here are already
-		 * synchronized so this makes no sense.
-		 */
+		return submit(agentName, action).getResult();
+	}
+
+	/**
+	 * Sends a request of an agent to the {@link LocalMessagingEnvironment}
+	 * without waiting for the result. Requests of the same agent are handled
+	 * in the order in which they are submitted.
+	 *
+	 * @param agentName
+	 *            The agent that makes the request.
+	 * @param action
+	 *            The request.
+	 * @return The pending request.
+	 * @throws MessagingException
+	 *             If the request could not be sent.
+	 */
+	private EnvironmentRequest submit(String agentName,
+			goal.core.runtime.service.environmentport.actions.Action action)
+			throws MessagingException {
+		long id = this.correlationIds.incrementAndGet();
+		action.setCorrelationId(id);
+		EnvironmentRequest request = new EnvironmentRequest(id, action);
+		this.pending.put(id, request);
+
 		MessageBox clientMessageBox = getClientMessageBox(agentName);
-		Message result = clientMessageBox.blockingSend(clientMessageBox
-				.createMessage(this.environmentMessageBoxId, action, null));
-		checkResult(result);
-		return result.getContent();
+		try {
+			clientMessageBox.send(clientMessageBox.createMessage(
+					this.environmentMessageBoxId, action, null));
+		} catch (MessagingException e) {
+			this.pending.remove(id);
+			throw e;
+		}
+		return request;
 	}
 
 	private static void checkResult(Message result)
 			throws NoEnvironmentException, EnvironmentInterfaceException {
-		Serializable content = result.getContent();
+		checkContent(result.getContent());
+	}
+
+	/**
+	 * Throws the exception returned by the environment, if any.
+	 *
+	 * @param content
+	 *            The result returned by the environment.
+	 * @throws NoEnvironmentException
+	 * @throws EnvironmentInterfaceException
+	 */
+	static void checkContent(Serializable content)
+			throws NoEnvironmentException, EnvironmentInterfaceException {
 		if (content instanceof RuntimeException) {
 			if (content instanceof NoEnvironmentException) {
 				throw (NoEnvironmentException) content;
@@ -236,8 +324,27 @@ public class EnvironmentPort {
 		this.messagebox.removeListener(this.messageboxlistener);
 		this.messaging.deleteMessageBox(this.messagebox);
 		for (MessageBox box : this.clients.values()) {
+			box.removeListener(this.resultListener);
 			this.messaging.deleteMessageBox(box);
 		}
+
+		failPending("environment port has been shut down"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Fails the requests that are still pending, as nobody is going to answer
+	 * them.
+	 *
+	 * @param reason
+	 *            Why the requests fail.
+	 */
+	private void failPending(String reason) {
+		for (Long id : this.pending.keySet()) {
+			EnvironmentRequest request = this.pending.remove(id);
+			if (request != null) {
+				request.complete(new NoEnvironmentException(reason));
+			}
+		}
 	}
 
 	public synchronized void startPort() throws MessagingException {
@@ -355,6 +462,7 @@ public class EnvironmentPort {
 			callRemoteAction(agentName, new FreeAgent(agentName));
 			// Clean up after agent frees itself.
 			MessageBox clientMessageBox = getClientMessageBox(agentName);
+			clientMessageBox.removeListener(this.resultListener);
 			this.messaging.deleteMessageBox(clientMessageBox);
 		} catch (EnvironmentInterfaceException e) {
 			throw e;
@@ -389,15 +497,56 @@ public class EnvironmentPort {
 		return this.environmentMessageBoxId.getName();
 	}
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Executes an action of an agent and waits for the percepts it returns.
+	 *
+	 * @param agentName
+	 *            The agent that performs the action.
+	 * @param action
+	 *            The action.
+	 * @return The percepts returned by the action.
+	 * @throws MessagingException
+	 * @throws ActException
+	 */
 	public Collection<Percept> performAction(String agentName, Action action)
 			throws MessagingException, ActException {
-		// FIXME: All methods are synchronized because we're using a single
-		// message box. This should be up to the environment.
+		return getActionResult(performActionAsync(agentName, action));
+	}
+
+	/**
+	 * Sends an action of an agent to the environment without waiting for it to
+	 * be executed. Use {@link #getActionResult(EnvironmentRequest)} to obtain
+	 * the result. Actions of the same agent are executed in the order in which
+	 * they are sent.
+	 *
+	 * @param agentName
+	 *            The agent that performs the action.
+	 * @param action
+	 *            The action.
+	 * @return The pending request.
+	 * @throws MessagingException
+	 */
+	public EnvironmentRequest performActionAsync(String agentName,
+			Action action) throws MessagingException {
+		return submit(agentName, new ExecuteAction(agentName, action));
+	}
+
+	/**
+	 * Waits for the result of an action sent with
+	 * {@link #performActionAsync(String, Action)}.
+	 *
+	 * @param request
+	 *            The pending action.
+	 * @return The percepts returned by the action.
+	 * @throws MessagingException
+	 * @throws ActException
+	 */
+	@SuppressWarnings("unchecked")
+	public Collection<Percept> getActionResult(EnvironmentRequest request)
+			throws MessagingException, ActException {
 		Serializable result;
 		try {
-			result = callRemoteAction(agentName, new ExecuteAction(agentName,
-					action));
+			result = request.getResult();
 		} catch (ActException e) {
 			throw e;
 		} catch (EnvironmentInterfaceException e) {
@@ -412,11 +561,12 @@ public class EnvironmentPort {
 
 	/**
 	 * Provides a message box for the client agent. This allows multiple agents
-	 * to concurrently request actions and percepts from the environment. It is
-	 * assumed that individual agents do not execute actions concurrently.
+	 * to concurrently request actions and percepts from the environment, and
+	 * keeps the requests of one agent in order.
 	 *
-	 * Note: {@link LocalMessagingEnvironment} handles all incoming request
-	 * sequentially.
+	 * Note: {@link LocalMessagingEnvironment} handles requests of different
+	 * agents concurrently only if the environment is thread safe, see
+	 * {@link goal.preferences.EnvironmentPreferences#isConcurrentAgents()}.
 	 *
 	 * @param agentName
 	 *            name of the agents.
@@ -429,22 +579,44 @@ public class EnvironmentPort {
 			MessageBoxId id = this.messaging.getNewUniqueID(agentName,
 					Type.ENVIRONMENTPORT);
 			MessageBox messageBox = this.messaging.getNewMessageBox(id);
+			messageBox.addListener(this.resultListener);
 			this.clients.put(agentName, messageBox);
 		}
 		return this.clients.get(agentName);
 	}
 
-	@SuppressWarnings("unchecked")
 	public Collection<Percept> getPercepts(String agentName)
 			throws MessagingException, EnvironmentInterfaceException {
-		Serializable result;
-		try {
-			result = callRemoteAction(agentName, new GetPercepts(agentName));
-		} catch (EnvironmentInterfaceException e) {
-			throw e;
-		} catch (MessagingException e) {
-			throw e;
-		}
+		return getPerceptsResult(getPerceptsAsync(agentName));
+	}
+
+	/**
+	 * Requests the percepts of an agent without waiting for them. Use
+	 * {@link #getPerceptsResult(EnvironmentRequest)} to obtain the percepts.
+	 *
+	 * @param agentName
+	 *            The agent.
+	 * @return The pending request.
+	 * @throws MessagingException
+	 */
+	public EnvironmentRequest getPerceptsAsync(String agentName)
+			throws MessagingException {
+		return submit(agentName, new GetPercepts(agentName));
+	}
+
+	/**
+	 * Waits for the result of {@link #getPerceptsAsync(String)}.
+	 *
+	 * @param request
+	 *            The pending request.
+	 * @return The percepts of the agent.
+	 * @throws MessagingException
+	 * @throws EnvironmentInterfaceException
+	 */
+	@SuppressWarnings("unchecked")
+	public Collection<Percept> getPerceptsResult(EnvironmentRequest request)
+			throws MessagingException, EnvironmentInterfaceException {
+		Serializable result = request.getResult();
 		if (result instanceof Collection<?>) {
 			return (Collection<Percept>) result;
 		} else {
@@ -0,0 +1,111 @@
+package goal.core.runtime.service.environmentport;
+
+import eis.exceptions.EnvironmentInterfaceException;
+import eis.exceptions.NoEnvironmentException;
+import goal.core.runtime.service.environmentport.actions.Action;
+import goal.preferences.EnvironmentPreferences;
+
+import java.io.Serializable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import nl.tudelft.goal.messaging.exceptions.MessagingException;
+
+/**
+ * A request that has been sent to the environment by an
+ * {@link EnvironmentPort} and of which the result may not have arrived yet. The
+ * port completes the request when the {@code ActionResult} with the same
+ * correlation id comes in.
+ */
+public class EnvironmentRequest {
+	private final long correlationId;
+	private final Action action;
+	private final CountDownLatch done = new CountDownLatch(1);
+	private volatile Serializable result;
+
+	EnvironmentRequest(long correlationId, Action action) {
+		this.correlationId = correlationId;
+		this.action = action;
+	}
+
+	/**
+	 * @return The id that matches the result to this request.
+	 */
+	public long getCorrelationId() {
+		return this.correlationId;
+	}
+
+	/**
+	 * Sets the result of the request and wakes up the threads waiting for it.
+	 * Only the first result is kept.
+	 *
+	 * @param result
+	 *            The result, or the exception thrown by the environment.
+	 */
+	void complete(Serializable result) {
+		if (this.done.getCount() > 0) {
+			this.result = result;
+			this.done.countDown();
+		}
+	}
+
+	/**
+	 * @return true if the result of this request is available.
+	 */
+	public boolean isDone() {
+		return this.done.getCount() == 0;
+	}
+
+	/**
+	 * Waits until the result of the request is available, at most
+	 * {@link EnvironmentPreferences#getRequestTimeout()} seconds.
+	 *
+	 * @return The result of the request.
+	 * @throws NoEnvironmentException
+	 *             If the environment is gone, threw an unchecked exception, or
+	 *             did not answer in time.
+	 * @throws EnvironmentInterfaceException
+	 *             If the environment threw an exception.
+	 * @throws MessagingException
+	 *             If we were interrupted while waiting.
+	 */
+	public Serializable getResult() throws NoEnvironmentException,
+			EnvironmentInterfaceException, MessagingException {
+		int timeout = EnvironmentPreferences.getRequestTimeout();
+		try {
+			if (timeout <= 0) {
+				this.done.await();
+			} else if (!await(timeout, TimeUnit.SECONDS)) {
+				// a result that still arrives is ignored.
+				complete(new NoEnvironmentException("no result for " + this //$NON-NLS-1$
+						+ " within " + timeout + " seconds")); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessagingException("interrupted while waiting for " //$NON-NLS-1$
+					+ this);
+		}
+		EnvironmentPort.checkContent(this.result);
+		return this.result;
+	}
+
+	/**
+	 * Waits at most the given time for the result of the request.
+	 *
+	 * @param timeout
+	 *            The maximum time to wait.
+	 * @param unit
+	 *            The unit of the timeout.
+	 * @return true if the result is available.
+	 * @throws InterruptedException
+	 */
+	public boolean await(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return this.done.await(timeout, unit);
+	}
+
+	@Override
+	public String toString() {
+		return this.action + "[" + this.correlationId + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
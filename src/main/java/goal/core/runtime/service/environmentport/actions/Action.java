@@ -13,6 +13,11 @@ public abstract class Action implements Serializable {
 	 */
 	private static final long serialVersionUID = -1176462250604499600L;
 	private Message message;
+	/**
+	 * Id used to match the {@link ActionResult} to this request, or 0 if the
+	 * request is sent with a blocking send and answered by a plain reply.
+	 */
+	private long correlationId = 0;
 
 	/**
 	 * @return The message
@@ -25,6 +30,41 @@ public abstract class Action implements Serializable {
 		this.message = message;
 	}
 
+	/**
+	 * @return The correlation id of this request, or 0 if the sender expects a
+	 *         plain reply to its message.
+	 */
+	public long getCorrelationId() {
+		return this.correlationId;
+	}
+
+	/**
+	 * @param correlationId
+	 *            the id that the environment should put in the
+	 *            {@link ActionResult} for this request.
+	 */
+	public void setCorrelationId(long correlationId) {
+		this.correlationId = correlationId;
+	}
+
+	/**
+	 * @return The name of the agent this request is executed for, or null if
+	 *         the request concerns the environment as a whole. Requests of the
+	 *         same agent are handled in the order they were sent.
+	 */
+	public String getAgentName() {
+		return null;
+	}
+
+	/**
+	 * @return true if this request only involves the entities of its agent,
+	 *         so that it may be handled concurrently with requests of other
+	 *         agents if the environment is thread safe.
+	 */
+	public boolean isAgentLocal() {
+		return false;
+	}
+
 	public abstract Serializable invoke(
 			Messages2Environment messages2Environment) throws Exception;
 
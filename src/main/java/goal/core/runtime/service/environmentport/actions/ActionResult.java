@@ -0,0 +1,46 @@
+package goal.core.runtime.service.environmentport.actions;
+
+import java.io.Serializable;
+
+/**
+ * The answer of the environment to an {@link Action} that was sent with a
+ * correlation id. The result is not sent as a reply to the original message
+ * but as a normal message, so that the sender does not have to block while
+ * waiting for it; the correlation id links it to the request.
+ */
+public class ActionResult implements Serializable {
+	/** Auto-generated serial version UID */
+	private static final long serialVersionUID = 6290271360950839213L;
+	private final long correlationId;
+	private final Serializable result;
+
+	/**
+	 * @param correlationId
+	 *            The id of the request, see {@link Action#getCorrelationId()}.
+	 * @param result
+	 *            The result of the request, or the exception it threw.
+	 */
+	public ActionResult(long correlationId, Serializable result) {
+		this.correlationId = correlationId;
+		this.result = result;
+	}
+
+	/**
+	 * @return The id of the request this is the result of.
+	 */
+	public long getCorrelationId() {
+		return this.correlationId;
+	}
+
+	/**
+	 * @return The result of the request, or the exception it threw.
+	 */
+	public Serializable getResult() {
+		return this.result;
+	}
+
+	@Override
+	public String toString() {
+		return "ActionResult[" + this.correlationId + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -24,6 +24,7 @@ public class AssociateEntity extends Action {
 	/**
 	 * @return the agentName
 	 */
+	@Override
 	public String getAgentName() {
 		return this.agentName;
 	}
@@ -48,7 +48,13 @@ public class ExecuteAction extends
 	/**
 	 * @return the agentName
 	 */
+	@Override
 	public String getAgentName() {
 		return this.agentName;
 	}
+
+	@Override
+	public boolean isAgentLocal() {
+		return true;
+	}
 }
\ No newline at end of file
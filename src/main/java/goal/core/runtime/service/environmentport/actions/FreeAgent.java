@@ -17,6 +17,7 @@ public class FreeAgent extends Action {
 	/**
 	 * @return the agentName
 	 */
+	@Override
 	public String getAgentName() {
 		return this.agentName;
 	}
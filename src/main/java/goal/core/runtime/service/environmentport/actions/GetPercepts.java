@@ -27,6 +27,7 @@ public class GetPercepts extends Action {
 	/**
 	 * @return the agentName
 	 */
+	@Override
 	public String getAgentName() {
 		return this.agentName;
 	}
@@ -36,4 +37,9 @@ public class GetPercepts extends Action {
 			throws PerceiveException, NoEnvironmentException {
 		return messages2Environment.invoke(this);
 	}
+
+	@Override
+	public boolean isAgentLocal() {
+		return true;
+	}
 }
\ No newline at end of file
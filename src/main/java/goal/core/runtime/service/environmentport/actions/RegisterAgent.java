@@ -25,6 +25,7 @@ public class RegisterAgent extends Action {
 	/**
 	 * @return the agentName
 	 */
+	@Override
 	public String getAgentName() {
 		return this.agentName;
 	}
@@ -0,0 +1,52 @@
+package goal.core.runtime.transport;
+
+/**
+ * A single message sent over a {@link NioTransport}: the names of the sender
+ * and receiver, and the content. The content can be anything that
+ * {@link FrameCodec} can encode.
+ */
+public class Frame {
+	private final String sender;
+	private final String receiver;
+	private final Object content;
+
+	/**
+	 * @param sender
+	 *            the name of the sender.
+	 * @param receiver
+	 *            the name of the receiver.
+	 * @param content
+	 *            the content; may be null.
+	 */
+	public Frame(String sender, String receiver, Object content) {
+		this.sender = sender;
+		this.receiver = receiver;
+		this.content = content;
+	}
+
+	/**
+	 * @return the name of the sender.
+	 */
+	public String getSender() {
+		return this.sender;
+	}
+
+	/**
+	 * @return the name of the receiver.
+	 */
+	public String getReceiver() {
+		return this.receiver;
+	}
+
+	/**
+	 * @return the content; may be null.
+	 */
+	public Object getContent() {
+		return this.content;
+	}
+
+	@Override
+	public String toString() {
+		return this.sender + "->" + this.receiver + ": " + this.content; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -0,0 +1,315 @@
+package goal.core.runtime.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import eis.iilang.Action;
+import eis.iilang.Function;
+import eis.iilang.Identifier;
+import eis.iilang.Numeral;
+import eis.iilang.Parameter;
+import eis.iilang.ParameterList;
+import eis.iilang.Percept;
+
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId.Type;
+
+/**
+ * Encodes {@link Frame}s in a compact binary format. A frame is a 4 byte
+ * length followed by the sender, the receiver and the content. The
+ * {@link NioMessage}s and {@link NioMessageBoxId}s of {@link NioMessaging},
+ * percepts, actions and their parameters, strings, numbers, booleans and
+ * lists are written with a one byte tag followed by their fields, which is a
+ * fraction of the size (and cost) of Java serialization. Other content, e.g.
+ * the agent message inside a {@link NioMessage} or runtime events, falls back
+ * to Java serialization and should therefore be {@link Serializable}.
+ */
+public final class FrameCodec {
+	private static final Charset UTF8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INT = 2;
+	private static final byte LONG = 3;
+	private static final byte DOUBLE = 4;
+	private static final byte FLOAT = 5;
+	private static final byte LIST = 6;
+	private static final byte PERCEPT = 7;
+	private static final byte ACTION = 8;
+	private static final byte IDENTIFIER = 9;
+	private static final byte NUMERAL = 10;
+	private static final byte FUNCTION = 11;
+	private static final byte PARAMETERLIST = 12;
+	private static final byte SERIALIZED = 13;
+	private static final byte BOOLEAN = 14;
+	private static final byte MESSAGEBOXID = 15;
+	private static final byte MESSAGE = 16;
+
+	private FrameCodec() {
+	}
+
+	/**
+	 * Encodes a frame, including its length.
+	 *
+	 * @param frame
+	 *            the frame.
+	 * @return the encoded frame.
+	 * @throws IOException
+	 *             if the content can not be encoded.
+	 */
+	public static byte[] encode(Frame frame) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0); // the length, filled in below.
+		writeString(out, frame.getSender());
+		writeString(out, frame.getReceiver());
+		writeObject(out, frame.getContent());
+		out.flush();
+		byte[] encoded = bytes.toByteArray();
+		int length = encoded.length - 4;
+		encoded[0] = (byte) (length >>> 24);
+		encoded[1] = (byte) (length >>> 16);
+		encoded[2] = (byte) (length >>> 8);
+		encoded[3] = (byte) length;
+		return encoded;
+	}
+
+	/**
+	 * Decodes a frame.
+	 *
+	 * @param data
+	 *            the encoded frame, without its length.
+	 * @param offset
+	 *            the start of the frame in the data.
+	 * @param length
+	 *            the length of the frame.
+	 * @return the frame.
+	 * @throws IOException
+	 *             if the data is not a valid frame.
+	 */
+	public static Frame decode(byte[] data, int offset, int length)
+			throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				data, offset, length));
+		String sender = readString(in);
+		String receiver = readString(in);
+		return new Frame(sender, receiver, readObject(in));
+	}
+
+	private static void writeString(DataOutputStream out, String string)
+			throws IOException {
+		if (string == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = string.getBytes(UTF8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	private static void writeObject(DataOutputStream out, Object object)
+			throws IOException {
+		if (object == null) {
+			out.writeByte(NULL);
+		} else if (object instanceof String) {
+			out.writeByte(STRING);
+			writeString(out, (String) object);
+		} else if (object instanceof Integer) {
+			out.writeByte(INT);
+			out.writeInt((Integer) object);
+		} else if (object instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) object);
+		} else if (object instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) object);
+		} else if (object instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) object);
+		} else if (object instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) object);
+		} else if (object instanceof NioMessageBoxId) {
+			out.writeByte(MESSAGEBOXID);
+			writeMessageBoxId(out, (NioMessageBoxId) object);
+		} else if (object instanceof NioMessage) {
+			NioMessage message = (NioMessage) object;
+			out.writeByte(MESSAGE);
+			out.writeLong(message.getId());
+			writeMessageBoxId(out, (NioMessageBoxId) message.getSender());
+			writeMessageBoxId(out, (NioMessageBoxId) message.getReceiver());
+			Long repliesTo = message.repliesToId();
+			out.writeBoolean(repliesTo != null);
+			if (repliesTo != null) {
+				out.writeLong(repliesTo);
+			}
+			writeObject(out, message.getContent());
+		} else if (object instanceof List) {
+			List<?> list = (List<?>) object;
+			out.writeByte(LIST);
+			out.writeInt(list.size());
+			for (Object element : list) {
+				writeObject(out, element);
+			}
+		} else if (object instanceof Percept) {
+			Percept percept = (Percept) object;
+			out.writeByte(PERCEPT);
+			writeString(out, percept.getName());
+			writeParameters(out, percept.getParameters());
+		} else if (object instanceof Action) {
+			Action action = (Action) object;
+			out.writeByte(ACTION);
+			writeString(out, action.getName());
+			writeParameters(out, action.getParameters());
+		} else if (object instanceof Identifier) {
+			out.writeByte(IDENTIFIER);
+			writeString(out, ((Identifier) object).getValue());
+		} else if (object instanceof Numeral
+				&& isCompact(((Numeral) object).getValue())) {
+			out.writeByte(NUMERAL);
+			writeObject(out, ((Numeral) object).getValue());
+		} else if (object instanceof Function) {
+			Function function = (Function) object;
+			out.writeByte(FUNCTION);
+			writeString(out, function.getName());
+			writeParameters(out, function.getParameters());
+		} else if (object instanceof ParameterList) {
+			List<Parameter> parameters = new LinkedList<>();
+			for (Parameter parameter : (ParameterList) object) {
+				parameters.add(parameter);
+			}
+			out.writeByte(PARAMETERLIST);
+			writeParameters(out, parameters);
+		} else if (object instanceof Serializable) {
+			out.writeByte(SERIALIZED);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+				objects.writeObject(object);
+			}
+			out.writeInt(bytes.size());
+			bytes.writeTo(out);
+		} else {
+			throw new IOException("can not encode " + object.getClass()); //$NON-NLS-1$
+		}
+	}
+
+	private static void writeMessageBoxId(DataOutputStream out,
+			NioMessageBoxId id) throws IOException {
+		writeString(out, id.getName());
+		writeString(out, id.getType().name());
+	}
+
+	private static NioMessageBoxId readMessageBoxId(DataInputStream in)
+			throws IOException {
+		String name = readString(in);
+		return new NioMessageBoxId(name, Type.valueOf(readString(in)));
+	}
+
+	private static boolean isCompact(Number number) {
+		return number instanceof Integer || number instanceof Long
+				|| number instanceof Double || number instanceof Float;
+	}
+
+	private static void writeParameters(DataOutputStream out,
+			List<Parameter> parameters) throws IOException {
+		out.writeInt(parameters.size());
+		for (Parameter parameter : parameters) {
+			writeObject(out, parameter);
+		}
+	}
+
+	private static Object readObject(DataInputStream in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case NULL:
+			return null;
+		case STRING:
+			return readString(in);
+		case INT:
+			return in.readInt();
+		case LONG:
+			return in.readLong();
+		case DOUBLE:
+			return in.readDouble();
+		case FLOAT:
+			return in.readFloat();
+		case BOOLEAN:
+			return in.readBoolean();
+		case MESSAGEBOXID:
+			return readMessageBoxId(in);
+		case MESSAGE:
+			long id = in.readLong();
+			NioMessageBoxId sender = readMessageBoxId(in);
+			NioMessageBoxId receiver = readMessageBoxId(in);
+			Long repliesTo = in.readBoolean() ? in.readLong() : null;
+			Object content = readObject(in);
+			if (content != null && !(content instanceof Serializable)) {
+				throw new IOException("message content " + content //$NON-NLS-1$
+						+ " is not serializable"); //$NON-NLS-1$
+			}
+			return new NioMessage(id, sender, receiver,
+					(Serializable) content, repliesTo);
+		case LIST:
+			int size = in.readInt();
+			List<Object> list = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				list.add(readObject(in));
+			}
+			return list;
+		case PERCEPT:
+			String percept = readString(in);
+			return new Percept(percept, readParameters(in));
+		case ACTION:
+			String action = readString(in);
+			return new Action(action, readParameters(in));
+		case IDENTIFIER:
+			return new Identifier(readString(in));
+		case NUMERAL:
+			return new Numeral((Number) readObject(in));
+		case FUNCTION:
+			String function = readString(in);
+			return new Function(function, readParameters(in));
+		case PARAMETERLIST:
+			return new ParameterList(readParameters(in));
+		case SERIALIZED:
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			try (ObjectInputStream objects = new ObjectInputStream(
+					new ByteArrayInputStream(bytes))) {
+				return objects.readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException("can not decode frame content", e); //$NON-NLS-1$
+			}
+		default:
+			throw new IOException("unknown tag " + tag); //$NON-NLS-1$
+		}
+	}
+
+	private static Parameter[] readParameters(DataInputStream in)
+			throws IOException {
+		Parameter[] parameters = new Parameter[in.readInt()];
+		for (int i = 0; i < parameters.length; i++) {
+			parameters[i] = (Parameter) readObject(in);
+		}
+		return parameters;
+	}
+}
@@ -0,0 +1,76 @@
+package goal.core.runtime.transport;
+
+import java.io.Serializable;
+
+import nl.tudelft.goal.messaging.Message;
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId;
+
+/**
+ * A message sent between {@link NioMessageBox}es. {@link FrameCodec} writes
+ * it as its id, the ids of the sender and receiver, the id of the message it
+ * replies to and the content.
+ */
+public class NioMessage implements Message {
+	private static final long serialVersionUID = 4695716523094158632L;
+
+	private final long id;
+	private final NioMessageBoxId sender;
+	private final NioMessageBoxId receiver;
+	private final Serializable content;
+	private final Long repliesTo;
+
+	/**
+	 * @param id
+	 *            the id of the message; unique for the messages of a
+	 *            {@link NioMessagingClient}.
+	 * @param sender
+	 *            the box that sends the message.
+	 * @param receiver
+	 *            the box the message is sent to.
+	 * @param content
+	 *            the content; may be null.
+	 * @param repliesTo
+	 *            the id of the message this message replies to, or null.
+	 */
+	public NioMessage(long id, NioMessageBoxId sender,
+			NioMessageBoxId receiver, Serializable content, Long repliesTo) {
+		this.id = id;
+		this.sender = sender;
+		this.receiver = receiver;
+		this.content = content;
+		this.repliesTo = repliesTo;
+	}
+
+	/**
+	 * @return the id of the message.
+	 */
+	public long getId() {
+		return this.id;
+	}
+
+	@Override
+	public MessageBoxId getSender() {
+		return this.sender;
+	}
+
+	@Override
+	public MessageBoxId getReceiver() {
+		return this.receiver;
+	}
+
+	@Override
+	public Serializable getContent() {
+		return this.content;
+	}
+
+	@Override
+	public Long repliesToId() {
+		return this.repliesTo;
+	}
+
+	@Override
+	public String toString() {
+		return this.sender + "->" + this.receiver + "[" + this.id + "]: " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ this.content;
+	}
+}
@@ -0,0 +1,92 @@
+package goal.core.runtime.transport;
+
+import goal.tools.errorhandling.Warning;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import nl.tudelft.goal.messaging.Message;
+import nl.tudelft.goal.messaging.exceptions.MessagingException;
+import nl.tudelft.goal.messaging.messagebox.MessageBox;
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId;
+import nl.tudelft.goal.messaging.messagebox.MessageBoxListener;
+
+/**
+ * A message box of a {@link NioMessagingClient}. Sent messages are handed to
+ * the client, which delivers them directly if the receiver is one of its own
+ * boxes and sends them to the server otherwise. Received messages are passed
+ * to the listeners of the box on the delivery thread of the client.
+ */
+public class NioMessageBox implements MessageBox {
+	private final NioMessageBoxId id;
+	private final NioMessagingClient client;
+	private final List<MessageBoxListener> listeners = new CopyOnWriteArrayList<>();
+
+	NioMessageBox(NioMessageBoxId id, NioMessagingClient client) {
+		this.id = id;
+		this.client = client;
+	}
+
+	@Override
+	public MessageBoxId getId() {
+		return this.id;
+	}
+
+	@Override
+	public Message createMessage(MessageBoxId receiver, Serializable content,
+			Message inReplyTo) {
+		return new NioMessage(this.client.nextId(), this.id,
+				(NioMessageBoxId) receiver, content, inReplyTo == null ? null
+						: ((NioMessage) inReplyTo).getId());
+	}
+
+	@Override
+	public void send(Message message) throws MessagingException {
+		this.client.send((NioMessage) message);
+	}
+
+	/**
+	 * Sends a message and waits for the reply, see
+	 * {@link #createMessage(MessageBoxId, Serializable, Message)}. The reply
+	 * is not passed to the listeners of the box.
+	 */
+	@Override
+	public Message blockingSend(Message message) throws MessagingException {
+		return this.client.blockingSend((NioMessage) message);
+	}
+
+	@Override
+	public void addListener(MessageBoxListener listener) {
+		this.listeners.add(listener);
+	}
+
+	@Override
+	public void removeListener(MessageBoxListener listener) {
+		this.listeners.remove(listener);
+	}
+
+	/**
+	 * Passes a message to the listeners, until one of them handles it.
+	 *
+	 * @param message
+	 *            the message.
+	 */
+	void deliver(NioMessage message) {
+		for (MessageBoxListener listener : this.listeners) {
+			try {
+				if (listener.newMessage(message)) {
+					return;
+				}
+			} catch (RuntimeException e) {
+				new Warning("delivering " + message + " failed", e); //$NON-NLS-1$ //$NON-NLS-2$
+				return;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "NioMessageBox[" + this.id + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -0,0 +1,57 @@
+package goal.core.runtime.transport;
+
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId;
+
+/**
+ * The id of a {@link NioMessageBox}: a name, which is unique for all boxes
+ * of a {@link NioMessaging} server, and the type of entity that uses the box.
+ */
+public class NioMessageBoxId implements MessageBoxId {
+	private static final long serialVersionUID = -2043622389716419744L;
+
+	private final String name;
+	private final Type type;
+
+	/**
+	 * @param name
+	 *            the name of the box.
+	 * @param type
+	 *            the type of entity that uses the box.
+	 */
+	public NioMessageBoxId(String name, Type type) {
+		this.name = name;
+		this.type = type;
+	}
+
+	@Override
+	public String getName() {
+		return this.name;
+	}
+
+	@Override
+	public Type getType() {
+		return this.type;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * this.name.hashCode() + this.type.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof NioMessageBoxId)) {
+			return false;
+		}
+		NioMessageBoxId other = (NioMessageBoxId) obj;
+		return this.name.equals(other.name) && this.type == other.type;
+	}
+
+	@Override
+	public String toString() {
+		return this.name;
+	}
+}
@@ -0,0 +1,100 @@
+package goal.core.runtime.transport;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+import nl.tudelft.goal.messaging.Messaging;
+import nl.tudelft.goal.messaging.client.MessagingClient;
+import nl.tudelft.goal.messaging.exceptions.MessagingException;
+
+/**
+ * Messaging over non-blocking sockets, see {@link NioTransport}. The server
+ * hands out the names of message boxes and forwards messages between
+ * clients; every runtime is a client. Unlike RMI messaging, a client uses a
+ * single thread for the network and one for delivering messages, no matter
+ * how many messages it sends or receives, and percepts, actions and messages
+ * are sent in the binary format of {@link FrameCodec}.
+ *
+ * The server is started on the loopback interface by {@link #runServer()};
+ * clients connect to the host given to {@link #getClient(URI)}.
+ */
+public class NioMessaging implements Messaging {
+	/**
+	 * The port the server listens on by default.
+	 */
+	public static final int DEFAULT_PORT = 1100;
+
+	private final int port;
+	private NioMessagingServer server = null;
+
+	/**
+	 * Creates messaging that uses the {@link #DEFAULT_PORT}.
+	 */
+	public NioMessaging() {
+		this(DEFAULT_PORT);
+	}
+
+	/**
+	 * @param port
+	 *            the port the server listens on, or 0 for any free port.
+	 */
+	public NioMessaging(int port) {
+		this.port = port;
+	}
+
+	@Override
+	public String getName() {
+		return "NIO"; //$NON-NLS-1$
+	}
+
+	@Override
+	public boolean requiresSerialization() {
+		return true;
+	}
+
+	@Override
+	public synchronized void runServer() throws MessagingException {
+		if (this.server != null) {
+			return;
+		}
+		try {
+			this.server = new NioMessagingServer(new InetSocketAddress(
+					InetAddress.getLoopbackAddress(), this.port));
+		} catch (IOException e) {
+			MessagingException failure = new MessagingException(
+					"can not start messaging server on port " + this.port); //$NON-NLS-1$
+			failure.initCause(e);
+			throw failure;
+		}
+	}
+
+	@Override
+	public synchronized void stopServer() {
+		if (this.server != null) {
+			this.server.close();
+			this.server = null;
+		}
+	}
+
+	/**
+	 * Connects to a server. The server that has been started by
+	 * {@link #runServer()} is used for "localhost", so it may listen on any
+	 * free port.
+	 */
+	@Override
+	public synchronized MessagingClient getClient(URI host)
+			throws MessagingException {
+		String name = host.getHost() == null ? host.toString() : host
+				.getHost();
+		InetSocketAddress address;
+		if (this.server != null && "localhost".equals(name)) { //$NON-NLS-1$
+			address = this.server.getAddress();
+		} else {
+			address = new InetSocketAddress(name,
+					host.getPort() < 0 ? this.port : host.getPort());
+		}
+		return new NioMessagingClient(address);
+	}
+}
@@ -0,0 +1,328 @@
+package goal.core.runtime.transport;
+
+import goal.core.runtime.transport.NioTransport.Connection;
+import goal.tools.errorhandling.Warning;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nl.tudelft.goal.messaging.Message;
+import nl.tudelft.goal.messaging.client.MessagingClient;
+import nl.tudelft.goal.messaging.client.MessagingEvent;
+import nl.tudelft.goal.messaging.client.MessagingListener;
+import nl.tudelft.goal.messaging.exceptions.CommunicationFailureException;
+import nl.tudelft.goal.messaging.exceptions.MessagingException;
+import nl.tudelft.goal.messaging.messagebox.MessageBox;
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId;
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId.Type;
+
+/**
+ * A client of a {@link NioMessaging} server. Messages between boxes of the
+ * same client are delivered directly; all other messages go through the
+ * server, over a single connection that is served by the selector thread of
+ * the client's {@link NioTransport}. Received messages are passed to the
+ * listeners of their box on a single delivery thread, in the order in which
+ * they arrived, so a slow listener never holds up the network.
+ */
+public class NioMessagingClient implements MessagingClient,
+		NioTransport.Listener {
+	/**
+	 * The result of a request to the server, or the reply to a blocking send,
+	 * that may not have arrived yet.
+	 */
+	private static class Pending {
+		private final CountDownLatch done = new CountDownLatch(1);
+		private volatile Object result;
+		private volatile MessagingException failure;
+
+		void complete(Object result) {
+			this.result = result;
+			this.done.countDown();
+		}
+
+		void fail(MessagingException failure) {
+			this.failure = failure;
+			this.done.countDown();
+		}
+
+		Object await(String what) throws MessagingException {
+			try {
+				this.done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MessagingException("interrupted while waiting for " //$NON-NLS-1$
+						+ what);
+			}
+			if (this.failure != null) {
+				throw this.failure;
+			}
+			return this.result;
+		}
+	}
+
+	private final NioTransport transport;
+	private final Connection connection;
+	private final Map<NioMessageBoxId, NioMessageBox> boxes = new ConcurrentHashMap<>();
+	/**
+	 * Requests to the server by request id.
+	 */
+	private final Map<Long, Pending> requests = new ConcurrentHashMap<>();
+	/**
+	 * Blocking sends by the id of the sent message.
+	 */
+	private final Map<Long, Pending> replies = new ConcurrentHashMap<>();
+	private final List<MessagingListener> listeners = new CopyOnWriteArrayList<>();
+	private final AtomicLong ids = new AtomicLong();
+	private final ExecutorService delivery;
+
+	/**
+	 * Connects to a server.
+	 *
+	 * @param server
+	 *            the address of the server.
+	 * @throws CommunicationFailureException
+	 *             if the server can not be reached.
+	 */
+	public NioMessagingClient(InetSocketAddress server)
+			throws CommunicationFailureException {
+		this.delivery = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "nio messaging delivery"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			this.transport = new NioTransport("nio messaging client", this); //$NON-NLS-1$
+			this.connection = this.transport.connect(server);
+			this.transport.send(this.connection, new Frame(
+					NioMessagingServer.SERVER, NioMessagingServer.SERVER,
+					Arrays.asList(NioMessagingServer.HELLO)));
+		} catch (IOException e) {
+			this.delivery.shutdown();
+			throw failure(new CommunicationFailureException(
+					"can not connect to " + server), e); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * @return a new id for a message or request.
+	 */
+	long nextId() {
+		return this.ids.incrementAndGet();
+	}
+
+	@Override
+	public MessageBoxId getNewUniqueID(String name, Type type)
+			throws CommunicationFailureException {
+		return (MessageBoxId) request(NioMessagingServer.ID, name, type.name());
+	}
+
+	@Override
+	public MessageBox createMessageBox(MessageBoxId id)
+			throws MessagingException {
+		NioMessageBoxId boxId = (NioMessageBoxId) id;
+		NioMessageBox box = new NioMessageBox(boxId, this);
+		if (this.boxes.putIfAbsent(boxId, box) != null
+				|| !(Boolean) request(NioMessagingServer.CREATE, boxId)) {
+			this.boxes.remove(boxId, box);
+			throw new MessagingException("message box " + id //$NON-NLS-1$
+					+ " already exists"); //$NON-NLS-1$
+		}
+		return box;
+	}
+
+	@Override
+	public void deleteMessageBox(MessageBox box) throws MessagingException {
+		this.boxes.remove(box.getId());
+		request(NioMessagingServer.DELETE, box.getId());
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<MessageBoxId> getMessageBoxes(Type type, String name)
+			throws CommunicationFailureException {
+		return new ArrayList<>((List<MessageBoxId>) request(
+				NioMessagingServer.FIND, type.name(), name));
+	}
+
+	@Override
+	public void addListener(MessagingListener listener) {
+		this.listeners.add(listener);
+	}
+
+	@Override
+	public void removeListener(MessagingListener listener) {
+		this.listeners.remove(listener);
+	}
+
+	/**
+	 * Closes the connection with the server. Requests and blocking sends that
+	 * are still waiting fail.
+	 */
+	@Override
+	public void dispose() {
+		this.transport.close();
+		this.delivery.shutdown();
+		failAll("messaging client has been disposed"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Sends a message; does not wait for it to arrive.
+	 *
+	 * @param message
+	 *            the message.
+	 * @throws MessagingException
+	 *             if the connection with the server has been closed.
+	 */
+	void send(NioMessage message) throws MessagingException {
+		if (this.boxes.containsKey(message.getReceiver())) {
+			receive(message);
+			return;
+		}
+		try {
+			this.transport.send(this.connection, new Frame(message.getSender()
+					.getName(), message.getReceiver().getName(), message));
+		} catch (IOException e) {
+			throw failure(new MessagingException("sending " + message //$NON-NLS-1$
+					+ " failed"), e); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Sends a message and waits for the reply to it.
+	 *
+	 * @param message
+	 *            the message.
+	 * @return the reply.
+	 * @throws MessagingException
+	 *             if the message can not be delivered, or the client is
+	 *             disposed before the reply arrives.
+	 */
+	Message blockingSend(NioMessage message) throws MessagingException {
+		Pending reply = new Pending();
+		this.replies.put(message.getId(), reply);
+		try {
+			send(message);
+			return (Message) reply.await("reply to " + message); //$NON-NLS-1$
+		} finally {
+			this.replies.remove(message.getId());
+		}
+	}
+
+	private Object request(Object... request)
+			throws CommunicationFailureException {
+		long id = nextId();
+		List<Object> control = new ArrayList<>(request.length + 1);
+		control.add(request[0]);
+		control.add(id);
+		control.addAll(Arrays.asList(request).subList(1, request.length));
+		Pending result = new Pending();
+		this.requests.put(id, result);
+		try {
+			this.transport.send(this.connection, new Frame(
+					NioMessagingServer.SERVER, NioMessagingServer.SERVER,
+					control));
+			return result.await(control.toString());
+		} catch (IOException | MessagingException e) {
+			throw failure(new CommunicationFailureException(control
+					+ " failed"), e); //$NON-NLS-1$
+		} finally {
+			this.requests.remove(id);
+		}
+	}
+
+	@Override
+	public void frameReceived(Connection connection, Frame frame) {
+		if (frame.getContent() instanceof NioMessage) {
+			receive((NioMessage) frame.getContent());
+			return;
+		}
+		List<?> control = (List<?>) frame.getContent();
+		Object operation = control.get(0);
+		if (NioMessagingServer.REPLY.equals(operation)) {
+			Pending result = this.requests.get(control.get(1));
+			if (result != null) {
+				result.complete(control.get(2));
+			}
+		} else if (NioMessagingServer.REMOVED.equals(operation)) {
+			final MessagingEvent event = new MessagingEvent(
+					MessagingEvent.EventType.REMOVED_MESSAGE_BOX,
+					(MessageBoxId) control.get(1));
+			this.delivery.execute(new Runnable() {
+				@Override
+				public void run() {
+					for (MessagingListener listener : NioMessagingClient.this.listeners) {
+						listener.messagingEventOccured(event);
+					}
+				}
+			});
+		} else if (NioMessagingServer.UNDELIVERABLE.equals(operation)) {
+			Pending reply = this.replies.get(control.get(1));
+			MessagingException failure = new MessagingException("message " //$NON-NLS-1$
+					+ control.get(1) + " could not be delivered"); //$NON-NLS-1$
+			if (reply == null) {
+				new Warning(failure.getMessage());
+			} else {
+				reply.fail(failure);
+			}
+		}
+	}
+
+	@Override
+	public void connectionClosed(Connection connection) {
+		failAll("connection with the messaging server has been closed"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Completes a blocking send if the message is the reply to it, and passes
+	 * the message to the listeners of its box otherwise.
+	 */
+	private void receive(final NioMessage message) {
+		if (message.repliesToId() != null) {
+			Pending reply = this.replies.get(message.repliesToId());
+			if (reply != null) {
+				reply.complete(message);
+				return;
+			}
+		}
+		final NioMessageBox box = this.boxes.get(message.getReceiver());
+		if (box == null) {
+			new Warning("there is no message box for " + message); //$NON-NLS-1$
+			return;
+		}
+		this.delivery.execute(new Runnable() {
+			@Override
+			public void run() {
+				box.deliver(message);
+			}
+		});
+	}
+
+	private void failAll(String reason) {
+		for (Pending pending : this.requests.values()) {
+			pending.fail(new MessagingException(reason));
+		}
+		for (Pending pending : this.replies.values()) {
+			pending.fail(new MessagingException(reason));
+		}
+	}
+
+	private static <E extends MessagingException> E failure(E exception,
+			Throwable cause) {
+		exception.initCause(cause);
+		return exception;
+	}
+}
@@ -0,0 +1,251 @@
+package goal.core.runtime.transport;
+
+import goal.core.runtime.transport.NioTransport.Connection;
+import goal.tools.errorhandling.Warning;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId.Type;
+
+/**
+ * The server of a {@link NioMessaging} infrastructure. Hands out the names of
+ * message boxes, keeps track of the client that owns each box and forwards
+ * messages between clients. Clients talk to the server with control frames,
+ * of which the content is a list that starts with one of the operations
+ * below; requests are followed by a request id, which the server returns in
+ * its reply.
+ *
+ * All state is only used on the selector thread of the transport, so it does
+ * not need to be synchronized.
+ */
+class NioMessagingServer implements NioTransport.Listener {
+	/**
+	 * The name of the server in frames.
+	 */
+	static final String SERVER = ""; //$NON-NLS-1$
+
+	/**
+	 * Announces a new client: [HELLO].
+	 */
+	static final String HELLO = "hello"; //$NON-NLS-1$
+	/**
+	 * Reserves a unique id: [ID, request, name, type]; returns the id.
+	 */
+	static final String ID = "id"; //$NON-NLS-1$
+	/**
+	 * Creates a box: [CREATE, request, id]; returns false if the box exists.
+	 */
+	static final String CREATE = "create"; //$NON-NLS-1$
+	/**
+	 * Deletes a box: [DELETE, request, id]; returns null.
+	 */
+	static final String DELETE = "delete"; //$NON-NLS-1$
+	/**
+	 * Looks up boxes: [FIND, request, type, name or null]; returns the ids.
+	 */
+	static final String FIND = "find"; //$NON-NLS-1$
+	/**
+	 * The result of a request: [REPLY, request, result].
+	 */
+	static final String REPLY = "reply"; //$NON-NLS-1$
+	/**
+	 * Tells all clients that a box has gone: [REMOVED, id].
+	 */
+	static final String REMOVED = "removed"; //$NON-NLS-1$
+	/**
+	 * Tells the sender of a message that the receiver does not exist:
+	 * [UNDELIVERABLE, message id].
+	 */
+	static final String UNDELIVERABLE = "undeliverable"; //$NON-NLS-1$
+
+	private final NioTransport transport;
+	private final InetSocketAddress address;
+	private final Set<Connection> clients = new LinkedHashSet<>();
+	/**
+	 * The names that have been handed out, by the client they were handed
+	 * out to.
+	 */
+	private final Map<Connection, Set<String>> names = new HashMap<>();
+	/**
+	 * The client that owns each box.
+	 */
+	private final Map<NioMessageBoxId, Connection> boxes = new HashMap<>();
+
+	/**
+	 * Starts a server.
+	 *
+	 * @param address
+	 *            the address to listen on.
+	 * @throws IOException
+	 *             if the address can not be opened.
+	 */
+	NioMessagingServer(InetSocketAddress address) throws IOException {
+		this.transport = new NioTransport("nio messaging server", this); //$NON-NLS-1$
+		try {
+			this.address = this.transport.bind(address);
+		} catch (IOException e) {
+			this.transport.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the address the server listens on.
+	 */
+	InetSocketAddress getAddress() {
+		return this.address;
+	}
+
+	/**
+	 * Closes the connections with all clients and stops the server.
+	 */
+	void close() {
+		this.transport.close();
+	}
+
+	@Override
+	public void frameReceived(Connection connection, Frame frame) {
+		if (frame.getContent() instanceof NioMessage) {
+			forward(connection, (NioMessage) frame.getContent());
+			return;
+		}
+		List<?> request = (List<?>) frame.getContent();
+		Object operation = request.get(0);
+		if (HELLO.equals(operation)) {
+			this.clients.add(connection);
+			return;
+		}
+		Object result;
+		if (ID.equals(operation)) {
+			result = reserve(connection, (String) request.get(2),
+					Type.valueOf((String) request.get(3)));
+		} else if (CREATE.equals(operation)) {
+			result = create(connection, (NioMessageBoxId) request.get(2));
+		} else if (DELETE.equals(operation)) {
+			delete((NioMessageBoxId) request.get(2));
+			result = null;
+		} else if (FIND.equals(operation)) {
+			result = find(Type.valueOf((String) request.get(2)),
+					(String) request.get(3));
+		} else {
+			new Warning("unknown request " + request); //$NON-NLS-1$
+			return;
+		}
+		send(connection, Arrays.asList(REPLY, request.get(1), result));
+	}
+
+	@Override
+	public void connectionClosed(Connection connection) {
+		this.clients.remove(connection);
+		this.names.remove(connection);
+		List<NioMessageBoxId> removed = new ArrayList<>();
+		for (Iterator<Map.Entry<NioMessageBoxId, Connection>> entries = this.boxes
+				.entrySet().iterator(); entries.hasNext();) {
+			Map.Entry<NioMessageBoxId, Connection> entry = entries.next();
+			if (entry.getValue() == connection) {
+				removed.add(entry.getKey());
+				entries.remove();
+			}
+		}
+		for (NioMessageBoxId id : removed) {
+			broadcast(id);
+		}
+	}
+
+	private void forward(Connection sender, NioMessage message) {
+		Connection receiver = this.boxes.get(message.getReceiver());
+		if (receiver == null) {
+			send(sender, Arrays.asList(UNDELIVERABLE, message.getId()));
+			return;
+		}
+		try {
+			this.transport.send(receiver, new Frame(message.getSender()
+					.getName(), message.getReceiver().getName(), message));
+		} catch (IOException e) {
+			new Warning("forwarding " + message + " failed", e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Hands out a name that has not been handed out before; the suggested
+	 * name if possible, otherwise the name followed by a number.
+	 */
+	private NioMessageBoxId reserve(Connection connection, String name,
+			Type type) {
+		String unique = name;
+		for (int n = 1; isTaken(unique); n++) {
+			unique = name + n;
+		}
+		Set<String> reserved = this.names.get(connection);
+		if (reserved == null) {
+			reserved = new HashSet<>();
+			this.names.put(connection, reserved);
+		}
+		reserved.add(unique);
+		return new NioMessageBoxId(unique, type);
+	}
+
+	private boolean isTaken(String name) {
+		for (Set<String> reserved : this.names.values()) {
+			if (reserved.contains(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean create(Connection connection, NioMessageBoxId id) {
+		if (this.boxes.containsKey(id)) {
+			return false;
+		}
+		this.boxes.put(id, connection);
+		return true;
+	}
+
+	private void delete(NioMessageBoxId id) {
+		Connection owner = this.boxes.remove(id);
+		if (owner != null) {
+			Set<String> reserved = this.names.get(owner);
+			if (reserved != null) {
+				reserved.remove(id.getName());
+			}
+			broadcast(id);
+		}
+	}
+
+	private List<NioMessageBoxId> find(Type type, String name) {
+		List<NioMessageBoxId> found = new ArrayList<>();
+		for (NioMessageBoxId id : this.boxes.keySet()) {
+			if (id.getType() == type
+					&& (name == null || name.equals(id.getName()))) {
+				found.add(id);
+			}
+		}
+		return found;
+	}
+
+	private void broadcast(NioMessageBoxId removed) {
+		for (Connection client : this.clients) {
+			send(client, Arrays.asList(REMOVED, removed));
+		}
+	}
+
+	private void send(Connection connection, List<?> control) {
+		try {
+			this.transport.send(connection, new Frame(SERVER, SERVER, control));
+		} catch (IOException e) {
+			new Warning("sending " + control + " to " //$NON-NLS-1$ //$NON-NLS-2$
+					+ connection.getRemoteAddress() + " failed", e); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,442 @@
+package goal.core.runtime.transport;
+
+import goal.tools.errorhandling.Warning;
+import goal.tools.logging.InfoLog;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends {@link Frame}s between runtimes over non-blocking sockets. All
+ * sockets of a transport are served by a single selector thread, so a
+ * runtime needs one thread for messaging no matter how many runtimes it talks
+ * to. Senders never wait for the network: {@link #send(Connection, Frame)}
+ * encodes the frame and queues it, and the selector thread writes all frames
+ * that are queued for a connection with as few writes as possible, so many
+ * small messages are batched into a single packet.
+ *
+ * Received frames are passed to the {@link Listener} on the selector thread;
+ * listeners should hand them off quickly (e.g. to the inbox of an agent).
+ */
+public class NioTransport {
+	/**
+	 * Receives the frames that arrive at a transport.
+	 */
+	public interface Listener {
+		/**
+		 * Called on the selector thread for every frame that arrives.
+		 *
+		 * @param connection
+		 *            the connection the frame arrived on; can be used to
+		 *            reply.
+		 * @param frame
+		 *            the frame.
+		 */
+		void frameReceived(Connection connection, Frame frame);
+
+		/**
+		 * Called on the selector thread when a connection has been closed by
+		 * the other side or because of an error; not when the transport
+		 * itself is closed.
+		 *
+		 * @param connection
+		 *            the connection.
+		 */
+		void connectionClosed(Connection connection);
+	}
+
+	/**
+	 * A connection with another transport.
+	 */
+	public static class Connection {
+		private final SocketChannel channel;
+		private final Queue<byte[]> outgoing = new ConcurrentLinkedQueue<>();
+		/**
+		 * True if the connection is in the queue of connections with frames
+		 * to write.
+		 */
+		private final AtomicBoolean pending = new AtomicBoolean();
+		private ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+		private final ByteBuffer writeBuffer = ByteBuffer
+				.allocateDirect(BUFFER_SIZE);
+		/**
+		 * The part of a frame that did not fit in the write buffer.
+		 */
+		private ByteBuffer remainder = null;
+		private SelectionKey key;
+
+		private Connection(SocketChannel channel) {
+			this.channel = channel;
+			this.writeBuffer.flip();
+		}
+
+		/**
+		 * @return the address of the other side.
+		 */
+		public InetSocketAddress getRemoteAddress() {
+			return (InetSocketAddress) this.channel.socket()
+					.getRemoteSocketAddress();
+		}
+
+		/**
+		 * @return true if the connection has not been closed.
+		 */
+		public boolean isOpen() {
+			return this.channel.isOpen();
+		}
+	}
+
+	/**
+	 * The size of the read and write buffer of every connection; frames that
+	 * are smaller are batched into a single write.
+	 */
+	public static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Listener listener;
+	private final Selector selector;
+	private final Thread thread;
+	/**
+	 * Connections to register with the selector.
+	 */
+	private final Queue<Connection> registrations = new ConcurrentLinkedQueue<>();
+	/**
+	 * Connections with frames to write.
+	 */
+	private final Queue<Connection> writes = new ConcurrentLinkedQueue<>();
+	private final Set<Connection> connections = new CopyOnWriteArraySet<>();
+	/**
+	 * True if the server socket should be registered with the selector.
+	 */
+	private final AtomicBoolean accepting = new AtomicBoolean();
+	private ServerSocketChannel server = null;
+	private volatile boolean running = true;
+
+	/**
+	 * Creates a transport and starts its selector thread.
+	 *
+	 * @param name
+	 *            the name of the selector thread.
+	 * @param listener
+	 *            receives the frames that arrive.
+	 * @throws IOException
+	 *             if the selector can not be opened.
+	 */
+	public NioTransport(String name, Listener listener) throws IOException {
+		this.listener = listener;
+		this.selector = Selector.open();
+		this.thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				select();
+			}
+		}, name);
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Accepts connections from other transports on the loopback interface.
+	 *
+	 * @param port
+	 *            the port, or 0 for any free port.
+	 * @return the address the transport listens on.
+	 * @throws IOException
+	 *             if the port can not be opened.
+	 */
+	public InetSocketAddress bind(int port) throws IOException {
+		return bind(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+				port));
+	}
+
+	/**
+	 * Accepts connections from other transports.
+	 *
+	 * @param address
+	 *            the address to listen on.
+	 * @return the address the transport listens on.
+	 * @throws IOException
+	 *             if the address can not be opened.
+	 */
+	public synchronized InetSocketAddress bind(InetSocketAddress address)
+			throws IOException {
+		if (this.server != null) {
+			throw new IllegalStateException("transport is already bound"); //$NON-NLS-1$
+		}
+		this.server = ServerSocketChannel.open();
+		this.server.socket().bind(address);
+		this.server.configureBlocking(false);
+		this.accepting.set(true);
+		this.selector.wakeup();
+		return (InetSocketAddress) this.server.socket().getLocalSocketAddress();
+	}
+
+	/**
+	 * Connects to another transport.
+	 *
+	 * @param address
+	 *            the address the other transport listens on.
+	 * @return the connection.
+	 * @throws IOException
+	 *             if the connection can not be made.
+	 */
+	public Connection connect(InetSocketAddress address) throws IOException {
+		SocketChannel channel = SocketChannel.open(address);
+		Connection connection = open(channel);
+		this.registrations.add(connection);
+		this.selector.wakeup();
+		return connection;
+	}
+
+	private Connection open(SocketChannel channel) throws IOException {
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		Connection connection = new Connection(channel);
+		this.connections.add(connection);
+		return connection;
+	}
+
+	/**
+	 * Sends a frame. Does not wait for the frame to be written.
+	 *
+	 * @param connection
+	 *            the connection to send the frame on.
+	 * @param frame
+	 *            the frame.
+	 * @throws IOException
+	 *             if the frame can not be encoded, or the connection has been
+	 *             closed.
+	 */
+	public void send(Connection connection, Frame frame) throws IOException {
+		if (!connection.isOpen()) {
+			throw new IOException("connection to " //$NON-NLS-1$
+					+ connection.getRemoteAddress() + " has been closed"); //$NON-NLS-1$
+		}
+		connection.outgoing.add(FrameCodec.encode(frame));
+		if (connection.pending.compareAndSet(false, true)) {
+			this.writes.add(connection);
+			this.selector.wakeup();
+		}
+	}
+
+	/**
+	 * Closes all connections and stops the selector thread.
+	 */
+	public void close() {
+		this.running = false;
+		this.selector.wakeup();
+		try {
+			this.thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void select() {
+		try {
+			while (this.running) {
+				this.selector.select();
+				register();
+				for (Connection connection; (connection = this.writes.poll()) != null;) {
+					connection.pending.set(false);
+					write(connection);
+				}
+				Set<SelectionKey> keys = this.selector.selectedKeys();
+				for (SelectionKey key : keys) {
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					Connection connection = (Connection) key.attachment();
+					if (key.isReadable()) {
+						read(connection);
+					}
+					if (key.isValid() && key.isWritable()) {
+						write(connection);
+					}
+				}
+				keys.clear();
+			}
+		} catch (IOException | ClosedSelectorException e) {
+			new Warning("transport stopped unexpectedly", e); //$NON-NLS-1$
+		} finally {
+			try {
+				for (Connection connection : this.connections) {
+					connection.channel.close();
+				}
+				if (this.server != null) {
+					this.server.close();
+				}
+				this.selector.close();
+			} catch (IOException e) {
+				new Warning("closing transport failed", e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private void register() throws IOException {
+		if (this.accepting.getAndSet(false)) {
+			this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+		}
+		for (Connection connection; (connection = this.registrations.poll()) != null;) {
+			connection.key = connection.channel.register(this.selector,
+					SelectionKey.OP_READ, connection);
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel = this.server.accept();
+		if (channel != null) {
+			Connection connection = open(channel);
+			connection.key = channel.register(this.selector,
+					SelectionKey.OP_READ, connection);
+			new InfoLog("accepted connection from " //$NON-NLS-1$
+					+ connection.getRemoteAddress());
+		}
+	}
+
+	private void read(Connection connection) {
+		ByteBuffer buffer = connection.readBuffer;
+		try {
+			if (connection.channel.read(buffer) < 0) {
+				closeQuietly(connection);
+				return;
+			}
+			buffer.flip();
+			while (buffer.remaining() >= 4) {
+				int length = buffer.getInt(buffer.position());
+				if (length < 0) {
+					throw new IOException("invalid frame length " + length); //$NON-NLS-1$
+				}
+				if (buffer.remaining() < 4 + length) {
+					break;
+				}
+				buffer.getInt();
+				Frame frame = FrameCodec.decode(buffer.array(),
+						buffer.arrayOffset() + buffer.position(), length);
+				buffer.position(buffer.position() + length);
+				try {
+					this.listener.frameReceived(connection, frame);
+				} catch (RuntimeException e) {
+					new Warning("handling frame " + frame + " failed", e); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+			connection.readBuffer = resize(buffer);
+		} catch (IOException e) {
+			new Warning("reading from " + connection.getRemoteAddress() //$NON-NLS-1$
+					+ " failed", e); //$NON-NLS-1$
+			closeQuietly(connection);
+		}
+	}
+
+	/**
+	 * Prepares a read buffer for the next read. A frame that is larger than
+	 * {@link #BUFFER_SIZE} gets a buffer of its own; once it has been read,
+	 * the connection returns to a buffer of the normal size.
+	 *
+	 * @param buffer
+	 *            the read buffer, ready to be read from.
+	 * @return the buffer for the next read, ready to be written to.
+	 */
+	private static ByteBuffer resize(ByteBuffer buffer) {
+		int needed = BUFFER_SIZE;
+		if (buffer.remaining() >= 4) {
+			needed = Math.max(needed, 4 + buffer.getInt(buffer.position()));
+		}
+		if (needed == buffer.capacity()) {
+			buffer.compact();
+			return buffer;
+		}
+		ByteBuffer resized = ByteBuffer.allocate(needed);
+		resized.put(buffer);
+		return resized;
+	}
+
+	private void write(Connection connection) {
+		if (connection.key == null || !connection.key.isValid()) {
+			// the connection has been closed.
+			return;
+		}
+		ByteBuffer buffer = connection.writeBuffer;
+		try {
+			while (true) {
+				if (!buffer.hasRemaining()) {
+					fill(connection);
+					if (!buffer.hasRemaining()) {
+						break;
+					}
+				}
+				if (connection.channel.write(buffer) == 0) {
+					break;
+				}
+			}
+			boolean done = !buffer.hasRemaining()
+					&& connection.outgoing.isEmpty();
+			connection.key.interestOps(done ? SelectionKey.OP_READ
+					: SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		} catch (IOException e) {
+			new Warning("writing to " + connection.getRemoteAddress() //$NON-NLS-1$
+					+ " failed", e); //$NON-NLS-1$
+			closeQuietly(connection);
+		}
+	}
+
+	/**
+	 * Fills the (empty) write buffer with as many queued frames as fit.
+	 */
+	private static void fill(Connection connection) {
+		ByteBuffer buffer = connection.writeBuffer;
+		buffer.clear();
+		while (buffer.hasRemaining()) {
+			if (connection.remainder == null) {
+				byte[] frame = connection.outgoing.poll();
+				if (frame == null) {
+					break;
+				}
+				connection.remainder = ByteBuffer.wrap(frame);
+			}
+			ByteBuffer remainder = connection.remainder;
+			if (remainder.remaining() <= buffer.remaining()) {
+				buffer.put(remainder);
+				connection.remainder = null;
+			} else {
+				int limit = remainder.limit();
+				remainder.limit(remainder.position() + buffer.remaining());
+				buffer.put(remainder);
+				remainder.limit(limit);
+			}
+		}
+		buffer.flip();
+	}
+
+	private void closeQuietly(Connection connection) {
+		if (!this.connections.remove(connection)) {
+			return;
+		}
+		try {
+			connection.channel.close();
+		} catch (IOException e) {
+			new Warning("closing connection failed", e); //$NON-NLS-1$
+		}
+		try {
+			this.listener.connectionClosed(connection);
+		} catch (RuntimeException e) {
+			new Warning("handling closed connection to " //$NON-NLS-1$
+					+ connection.getRemoteAddress() + " failed", e); //$NON-NLS-1$
+		}
+	}
+}
@@ -31,7 +31,23 @@ public class CorePreferences {
 		/**
 		 * true if learning is on, else false.
 		 */
-		learning
+		learning,
+		/**
+		 * true if all goals of an agent are kept in one shared, indexed goal
+		 * store; false to use the original layout where each goal gets its own
+		 * database.
+		 */
+		sharedGoalStore,
+		/**
+		 * number of seconds after which an unused, empty mental model of
+		 * another agent is released again; 0 to keep all models.
+		 */
+		mentalModelIdleTime,
+		/**
+		 * true if the results of rule conditions are cached until a base
+		 * they read from changes.
+		 */
+		ruleConditionCache
 	}
 
 	private static Map<String, Object> preferences;
@@ -45,6 +61,9 @@ public class CorePreferences {
 
 		init(Pref.learnedBehaviourFile, "");
 		init(Pref.learning, false);
+		init(Pref.sharedGoalStore, true);
+		init(Pref.mentalModelIdleTime, 60);
+		init(Pref.ruleConditionCache, false);
 	}
 
 	public static Map<String, Object> getPrefs() {
@@ -80,6 +99,65 @@ public class CorePreferences {
 		put(Pref.learning, learning);
 	}
 
+	/**
+	 * @return true if goal bases should use a shared, indexed goal store per
+	 *         agent (the default); false if every goal should get its own
+	 *         database that is always queried.
+	 */
+	public static boolean isSharedGoalStore() {
+		return (Boolean) get(Pref.sharedGoalStore);
+	}
+
+	/**
+	 * Select the goal storage layout used for agents that are created after
+	 * this call.
+	 *
+	 * @param shared
+	 *            true to use a shared goal store, false for the per-goal
+	 *            layout.
+	 */
+	public static void setSharedGoalStore(boolean shared) {
+		put(Pref.sharedGoalStore, shared);
+	}
+
+	/**
+	 * @return the number of seconds after which a mental model of another
+	 *         agent that is not used and does not contain anything is
+	 *         released; 0 if models are never released.
+	 */
+	public static int getMentalModelIdleTime() {
+		return (Integer) get(Pref.mentalModelIdleTime);
+	}
+
+	/**
+	 * @param seconds
+	 *            the number of seconds after which an unused, empty mental
+	 *            model of another agent is released; 0 to keep all models.
+	 */
+	public static void setMentalModelIdleTime(int seconds) {
+		put(Pref.mentalModelIdleTime, seconds);
+	}
+
+	/**
+	 * @return true if agents cache the results of their rule conditions until
+	 *         a base the condition reads from changes; false (the default) to
+	 *         evaluate every condition every time. Conditions that use
+	 *         built-ins whose results change by themselves (e.g. random or
+	 *         time predicates) should not be cached.
+	 */
+	public static boolean isRuleConditionCache() {
+		return (Boolean) get(Pref.ruleConditionCache);
+	}
+
+	/**
+	 * @param cache
+	 *            true to cache the results of rule conditions in agents that
+	 *            are created after this call.
+	 */
+	public static void setRuleConditionCache(boolean cache) {
+		put(Pref.ruleConditionCache, cache);
+	}
+
 	// 3 helper functions...
 	private static Object get(Pref pref) {
 		if (preferences == null) {
@@ -30,7 +30,18 @@ public class EnvironmentPreferences {
 		/**
 		 * The host address for the middleware server.
 		 */
-		registryhost
+		registryhost,
+		/**
+		 * true if the environment may handle actions and percept requests of
+		 * different agents at the same time. Only enable this for
+		 * environments that are thread safe.
+		 */
+		concurrentAgents,
+		/**
+		 * The number of seconds an agent waits for the result of an action or
+		 * percept request; 0 to wait as long as it takes.
+		 */
+		requestTimeout
 	}
 
 	private static Map<String, Object> preferences;
@@ -44,6 +55,8 @@ public class EnvironmentPreferences {
 
 		init(Pref.printNewEntities, true);
 		init(Pref.registryhost, "");
+		init(Pref.concurrentAgents, false);
+		init(Pref.requestTimeout, 300);
 	}
 
 	public static Map<String, Object> getPrefs() {
@@ -64,6 +77,23 @@ public class EnvironmentPreferences {
 		return (String) get(Pref.registryhost);
 	}
 
+	/**
+	 * @return true if requests of different agents may be handled by the
+	 *         environment concurrently. default false.
+	 */
+	public static boolean isConcurrentAgents() {
+		return (Boolean) get(Pref.concurrentAgents);
+	}
+
+	/**
+	 * @return the number of seconds an agent waits for the result of a request
+	 *         to the environment, or 0 if it waits as long as it takes.
+	 *         default 300.
+	 */
+	public static int getRequestTimeout() {
+		return (Integer) get(Pref.requestTimeout);
+	}
+
 	/**
 	 * if new entities should be printed
 	 */
@@ -75,6 +105,28 @@ public class EnvironmentPreferences {
 		put(Pref.registryhost, registryhost);
 	}
 
+	/**
+	 * Set whether environments that are launched after this call may handle
+	 * requests of different agents concurrently.
+	 *
+	 * @param concurrent
+	 *            true if the environment is thread safe.
+	 */
+	public static void setConcurrentAgents(boolean concurrent) {
+		put(Pref.concurrentAgents, concurrent);
+	}
+
+	/**
+	 * Set the number of seconds an agent waits for the result of a request
+	 * to the environment.
+	 *
+	 * @param seconds
+	 *            the timeout, or 0 to wait as long as it takes.
+	 */
+	public static void setRequestTimeout(int seconds) {
+		put(Pref.requestTimeout, seconds);
+	}
+
 	// 3 helper functions...
 	private static Object get(Pref pref) {
 		if (preferences == null) {
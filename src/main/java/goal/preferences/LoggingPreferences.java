@@ -23,7 +23,7 @@ import java.util.TreeMap;
 
 public class LoggingPreferences {
 	public enum Pref {
-		javadetails, stackdump, suppresslevel, logtofile, logconsoles, overwritelogfiles, showlogtime, logdirectory, showLogsInConsole, eclipseActionHistory, eclipseAgentConsoles, eclipseDebug
+		javadetails, stackdump, suppresslevel, logtofile, logconsoles, overwritelogfiles, showlogtime, logdirectory, showLogsInConsole, eclipseActionHistory, eclipseAgentConsoles, eclipseDebug, asynclogging, asynclogcapacity, asynclogpolicy, eclipseBinaryProtocol, eclipseBatchWindow, tracefilesize
 	}
 
 	private static final int DEFAULT_NUMBER_OF_WARNING_REPEATS = 5;
@@ -56,6 +56,12 @@ public class LoggingPreferences {
 		init(Pref.eclipseActionHistory, true);
 		init(Pref.eclipseAgentConsoles, true);
 		init(Pref.eclipseDebug, false);
+		init(Pref.asynclogging, false);
+		init(Pref.asynclogcapacity, 8192);
+		init(Pref.asynclogpolicy, "block");
+		init(Pref.eclipseBinaryProtocol, false);
+		init(Pref.eclipseBatchWindow, 10);
+		init(Pref.tracefilesize, 64);
 	}
 
 	public static Map<String, Object> getPrefs() {
@@ -166,6 +172,61 @@ public class LoggingPreferences {
 		return (Boolean) get(Pref.eclipseDebug);
 	}
 
+	/**
+	 * @return true if the Eclipse plug-in talks to the debugger with the
+	 *         {@link goal.tools.eclipse.BinaryDebugProtocol}. Default
+	 *         off/false
+	 */
+	public static boolean getEclipseBinaryProtocol() {
+		return (Boolean) get(Pref.eclipseBinaryProtocol);
+	}
+
+	/**
+	 * @return the number of milliseconds during which messages to the Eclipse
+	 *         plug-in are collected before they are sent together; 0 sends
+	 *         every message at once. 10 by default.
+	 */
+	public static int getEclipseBatchWindow() {
+		return Math.max(0, (Integer) get(Pref.eclipseBatchWindow));
+	}
+
+	/**
+	 * User preference whether log files should be written on a separate
+	 * thread, see {@link goal.tools.logging.AsyncLogHandler}.
+	 *
+	 * @return true if log files are written asynchronously. Default off/false
+	 */
+	public static boolean getAsyncLogging() {
+		return (Boolean) get(Pref.asynclogging);
+	}
+
+	/**
+	 * @return the number of records that can wait to be written to a log file
+	 *         when logging asynchronously. 8192 by default.
+	 */
+	public static int getAsyncLogCapacity() {
+		return Math.max(1, (Integer) get(Pref.asynclogcapacity));
+	}
+
+	/**
+	 * @return what happens when a record is logged while too many records are
+	 *         waiting to be written: "block" (the default), "drop" or
+	 *         "sample".
+	 */
+	public static String getAsyncLogPolicy() {
+		return (String) get(Pref.asynclogpolicy);
+	}
+
+	/**
+	 * @return the size in megabytes after which an execution trace is
+	 *         continued in a new file, see
+	 *         {@link goal.tools.trace.TraceWriter}; 0 for no maximum. 64 by
+	 *         default.
+	 */
+	public static int getTraceFileSize() {
+		return Math.max(0, (Integer) get(Pref.tracefilesize));
+	}
+
 	/**
 	 * User preference whether logging should overwrite old files. False by
 	 * default.
@@ -243,6 +304,34 @@ public class LoggingPreferences {
 		put(Pref.eclipseDebug, debug);
 	}
 
+	public static void setEclipseBinaryProtocol(boolean binary) {
+		put(Pref.eclipseBinaryProtocol, binary);
+	}
+
+	public static void setEclipseBatchWindow(int window) {
+		put(Pref.eclipseBatchWindow, window);
+	}
+
+	/**
+	 * User preference whether log files should be written on a separate
+	 * thread. False by default.
+	 */
+	public static void setAsyncLogging(boolean async) {
+		put(Pref.asynclogging, async);
+	}
+
+	public static void setAsyncLogCapacity(int capacity) {
+		put(Pref.asynclogcapacity, capacity);
+	}
+
+	public static void setAsyncLogPolicy(String policy) {
+		put(Pref.asynclogpolicy, policy);
+	}
+
+	public static void setTraceFileSize(int megabytes) {
+		put(Pref.tracefilesize, megabytes);
+	}
+
 	// 3 helper functions...
 	private static Object get(Pref pref) {
 		if (preferences == null) {
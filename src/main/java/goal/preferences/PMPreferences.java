@@ -45,6 +45,12 @@ public class PMPreferences {
 		 * the time
 		 */
 		sleepRepetetiveAgent,
+		/**
+		 * interval (in milliseconds) at which sleeping agents poll their
+		 * environment for changed percepts; 0 means sleeping agents are only
+		 * woken up by incoming messages and percepts pushed by the environment
+		 */
+		sleepPollInterval,
 		/**
 		 * remove agent from the platform when it is killed
 		 */
@@ -62,7 +68,41 @@ public class PMPreferences {
 		 * Amount of threads (e.g. cores) to use for running agents; uses
 		 * everything that is available by default.
 		 */
-		threadPoolSize
+		threadPoolSize,
+		/**
+		 * The scheduler that runs the agents: "pool" for a plain thread pool,
+		 * "workstealing" for a work-stealing scheduler that shares the threads
+		 * fairly between agents, "thread" to run every agent on a thread of
+		 * its own.
+		 */
+		scheduler,
+		/**
+		 * Time (in milliseconds) an agent (with weight 1) may run on a thread
+		 * of the work-stealing scheduler before it has to let other agents
+		 * run.
+		 */
+		schedulerQuantum,
+		/**
+		 * The maximum number of messages in the inbox of an agent; 0 for
+		 * unbounded inboxes.
+		 */
+		inboxCapacity,
+		/**
+		 * What happens when a message arrives at a full inbox: "block",
+		 * "dropoldest", "dropnewest" or "coalesce".
+		 */
+		inboxPolicy,
+		/**
+		 * The maximum number of messages an agent handles in one cycle; 0 to
+		 * handle all messages in the inbox.
+		 */
+		messageBudget,
+		/**
+		 * The number of threads that build agents for new entities in
+		 * parallel; 0 for one thread per processor, 1 to launch agents one by
+		 * one on the thread that reports the entity.
+		 */
+		launchThreads
 	}
 
 	private static Map<String, Object> preferences;
@@ -88,9 +128,16 @@ public class PMPreferences {
 		init(Pref.removeKilledAgent, false);
 		init(Pref.agentCopyEnvRunState, false);
 		init(Pref.sleepRepetetiveAgent, false);
+		init(Pref.sleepPollInterval, 100);
 		init(Pref.defaultKRInterface, "swiprolog");
 		init(Pref.agentsBrowseDir, runIn + "/GOALagents");
 		init(Pref.useMASNameAsAgentPrefix, false);
+		init(Pref.scheduler, "pool");
+		init(Pref.schedulerQuantum, 10);
+		init(Pref.inboxCapacity, 0);
+		init(Pref.inboxPolicy, "dropoldest");
+		init(Pref.messageBudget, 0);
+		init(Pref.launchThreads, 0);
 		init(Pref.threadPoolSize, 20); // NOTE: this default is in the
 										// get-function as well
 	}
@@ -157,6 +204,21 @@ public class PMPreferences {
 		return (Boolean) get(Pref.sleepRepetetiveAgent);
 	}
 
+	/**
+	 * @return The interval (in milliseconds) at which sleeping agents poll
+	 *         their environment for changed percepts; 0 if sleeping agents
+	 *         should only be woken up by incoming messages and percepts pushed
+	 *         by the environment.
+	 */
+	public static int getSleepPollInterval() {
+		int returned = (Integer) get(Pref.sleepPollInterval);
+		if (returned < 0) {
+			return 0;
+		} else {
+			return returned;
+		}
+	}
+
 	/**
 	 * get the Default KR Language to use
 	 *
@@ -232,6 +294,14 @@ public class PMPreferences {
 		put(Pref.sleepRepetetiveAgent, sleepRepetetiveAgent);
 	}
 
+	/**
+	 * Set the interval (in milliseconds) at which sleeping agents poll their
+	 * environment for changed percepts; 0 disables polling.
+	 */
+	public static void setSleepPollInterval(int interval) {
+		put(Pref.sleepPollInterval, interval);
+	}
+
 	/**
 	 * set the Default KR Language to use
 	 */
@@ -262,6 +332,87 @@ public class PMPreferences {
 		put(Pref.threadPoolSize, size);
 	}
 
+	/**
+	 * @return The scheduler that runs the agents: "pool" (the default),
+	 *         "workstealing" or "thread".
+	 */
+	public static String getScheduler() {
+		return (String) get(Pref.scheduler);
+	}
+
+	/**
+	 * Set the scheduler that runs agents that are started after this call.
+	 *
+	 * @param scheduler
+	 *            "pool", "workstealing" or "thread".
+	 */
+	public static void setScheduler(String scheduler) {
+		put(Pref.scheduler, scheduler);
+	}
+
+	/**
+	 * @return The time (in milliseconds) an agent with weight 1 may run on a
+	 *         thread of the work-stealing scheduler before it has to let other
+	 *         agents run; at least 1.
+	 */
+	public static int getSchedulerQuantum() {
+		return Math.max(1, (Integer) get(Pref.schedulerQuantum));
+	}
+
+	public static void setSchedulerQuantum(int quantum) {
+		put(Pref.schedulerQuantum, quantum);
+	}
+
+	/**
+	 * @return The maximum number of messages in the inbox of an agent; 0 (the
+	 *         default) for unbounded inboxes.
+	 */
+	public static int getInboxCapacity() {
+		return Math.max(0, (Integer) get(Pref.inboxCapacity));
+	}
+
+	public static void setInboxCapacity(int capacity) {
+		put(Pref.inboxCapacity, capacity);
+	}
+
+	/**
+	 * @return What happens when a message arrives at a full inbox: "block",
+	 *         "dropoldest" (the default), "dropnewest" or "coalesce".
+	 */
+	public static String getInboxPolicy() {
+		return (String) get(Pref.inboxPolicy);
+	}
+
+	public static void setInboxPolicy(String policy) {
+		put(Pref.inboxPolicy, policy);
+	}
+
+	/**
+	 * @return The maximum number of messages an agent handles in one cycle; 0
+	 *         (the default) to handle all messages in the inbox.
+	 */
+	public static int getMessageBudget() {
+		return Math.max(0, (Integer) get(Pref.messageBudget));
+	}
+
+	public static void setMessageBudget(int budget) {
+		put(Pref.messageBudget, budget);
+	}
+
+	/**
+	 * @return The number of threads that build agents in parallel; at least
+	 *         1. Defaults to the number of processors.
+	 */
+	public static int getLaunchThreads() {
+		int threads = (Integer) get(Pref.launchThreads);
+		return (threads <= 0) ? Runtime.getRuntime().availableProcessors()
+				: threads;
+	}
+
+	public static void setLaunchThreads(int threads) {
+		put(Pref.launchThreads, threads);
+	}
+
 	// 3 helper functions...
 	private static Object get(Pref pref) {
 		if (preferences == null) {
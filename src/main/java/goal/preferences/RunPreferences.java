@@ -46,7 +46,7 @@ public class RunPreferences {
 	 * Get middleware selection
 	 *
 	 * @return latest middleware selection. LOCAL is default value. Current
-	 *         values are "JADE","RMI" or "LOCAL".
+	 *         values are "JADE","RMI", "NIO" or "LOCAL".
 	 */
 	public static String getUsedMiddleware() {
 		return (String) get(Pref.middleware);
@@ -57,7 +57,7 @@ public class RunPreferences {
 	 *
 	 * @param middlewarename
 	 *            is middleware to run during startup. allowed values: NONE,
-	 *            JADE, RMI.
+	 *            JADE, RMI, NIO.
 	 */
 	public static void setUsedMiddleware(String middlewarename) {
 		put(Pref.middleware, middlewarename);
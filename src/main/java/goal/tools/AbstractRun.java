@@ -1,29 +1,37 @@
 package goal.tools;
 
 import eis.exceptions.EnvironmentInterfaceException;
+import goal.core.agent.AbstractAgentFactory;
 import goal.core.agent.Agent;
 import goal.core.agent.AgentFactory;
+import goal.core.agent.AgentScheduler;
+import goal.core.agent.Controller;
 import goal.core.agent.GOALInterpreter;
+import goal.core.agent.Inbox;
 import goal.core.gamygdala.Engine;
 import goal.core.runtime.MessagingService;
 import goal.core.runtime.RemoteRuntimeService;
 import goal.core.runtime.RuntimeManager;
 import goal.core.runtime.service.agent.AgentService;
 import goal.core.runtime.service.environment.EnvironmentService;
+import goal.preferences.LoggingPreferences;
 import goal.tools.debugger.Debugger;
+import goal.tools.errorhandling.Warning;
 import goal.tools.errorhandling.exceptions.GOALCommandCancelledException;
 import goal.tools.errorhandling.exceptions.GOALLaunchFailureException;
 import goal.tools.errorhandling.exceptions.GOALRunFailedException;
 import goal.tools.logging.InfoLog;
+import goal.tools.trace.TraceWriter;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.text.SimpleDateFormat;
 import java.util.Collection;
+import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import krTools.errors.exceptions.ParserException;
-import languageTools.exceptions.relationParser.InvalidEmotionConfigFile;
 import languageTools.parser.relationParser.EmotionConfig;
 import languageTools.program.agent.AgentProgram;
 import languageTools.program.mas.MASProgram;
@@ -63,6 +71,11 @@ public abstract class AbstractRun<D extends Debugger, C extends GOALInterpreter<
 	 * this to create agents that provide it.
 	 */
 	protected boolean debuggerOutput;
+	/**
+	 * Numbers the traces of runs, so that runs that start at the same time do
+	 * not write the same trace.
+	 */
+	private static final AtomicInteger traces = new AtomicInteger();
 
 	private ResultInspector<C> resultInspector = null;
 	private final MASProgram masProgram;
@@ -70,6 +83,11 @@ public abstract class AbstractRun<D extends Debugger, C extends GOALInterpreter<
 	private final Map<File, AgentProgram> agentPrograms;
 	private Messaging messaging = new LocalMessaging();
 	private String messagingHost = "localhost";
+	private AgentScheduler scheduler = null;
+	private Inbox.Settings inboxSettings = null;
+	private File traceDirectory = null;
+	private TraceWriter trace = null;
+	private Engine engine = null;
 
 	/**
 	 * Constructs a new abstract run of the MASProgram.
@@ -80,15 +98,12 @@ public abstract class AbstractRun<D extends Debugger, C extends GOALInterpreter<
 	 * @param timeout
 	 *            the number of seconds we should wait for the run to terminate;
 	 *            0 for indefinite.
-	 * @throws InvalidEmotionConfigFile 
-	 * @throws FileNotFoundException 
 	 */
 	public AbstractRun(MASProgram program, Map<File, AgentProgram> agents,
-			long timeout) throws FileNotFoundException, InvalidEmotionConfigFile {
+			long timeout) {
 		this.masProgram = program;
 		this.agentPrograms = agents;
 		this.timeout = timeout;
-		Engine.setup(program);
 	}
 
 	/**
@@ -120,6 +135,31 @@ public abstract class AbstractRun<D extends Debugger, C extends GOALInterpreter<
 		this.messaging = messaging;
 	}
 
+	/**
+	 * Sets the scheduler that runs the agents of this run. The caller remains
+	 * responsible for shutting it down.
+	 *
+	 * @param scheduler
+	 *            the scheduler, or null (the default) to use the scheduler of
+	 *            the platform, see {@link Controller#getScheduler()}.
+	 */
+	public void setScheduler(AgentScheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Sets the capacity, overflow policy and message budget of the inboxes of
+	 * the agents of this run. Only applies to factories that extend
+	 * {@link AbstractAgentFactory}.
+	 *
+	 * @param settings
+	 *            the inbox settings, or null (the default) to use the
+	 *            preferences, see {@link Inbox.Settings#fromPreferences()}.
+	 */
+	public void setInboxSettings(Inbox.Settings settings) {
+		this.inboxSettings = settings;
+	}
+
 	/**
 	 * Returns true if the {@link MASProgram} will be started with a logging
 	 * debugger.
@@ -141,6 +181,45 @@ public abstract class AbstractRun<D extends Debugger, C extends GOALInterpreter<
 		this.debuggerOutput = debuggerOutput;
 	}
 
+	/**
+	 * Returns the directory in which the execution traces of runs are
+	 * written.
+	 *
+	 * @return the directory, or null if runs are not traced.
+	 */
+	public File getTraceDirectory() {
+		return this.traceDirectory;
+	}
+
+	/**
+	 * Sets the directory in which the execution trace of every run is written,
+	 * see {@link TraceWriter}. Subclasses should record the agents they create
+	 * in {@link #getTrace()}.
+	 *
+	 * @param traceDirectory
+	 *            the directory, or null (the default) to not trace runs.
+	 */
+	public void setTraceDirectory(File traceDirectory) {
+		this.traceDirectory = traceDirectory;
+	}
+
+	/**
+	 * @return the execution trace of the current run, or null if the run is
+	 *         not traced.
+	 */
+	protected TraceWriter getTrace() {
+		return this.trace;
+	}
+
+	/**
+	 * @return the emotion engine of the last run (see
+	 *         {@link RuntimeManager#getEngine()}), or null if the MAS has not
+	 *         been run.
+	 */
+	public Engine getEngine() {
+		return this.engine;
+	}
+
 	/**
 	 * Gets the {@link ResultInspector} used to inspect the agent states at the
 	 * end of a run.
@@ -184,7 +263,12 @@ public abstract class AbstractRun<D extends Debugger, C extends GOALInterpreter<
 	public void run() throws GOALRunFailedException {
 		RuntimeManager<? extends D, ? extends C> runtimeManager = null;
 		try {
+			if (this.traceDirectory != null) {
+				this.trace = new TraceWriter(this.traceDirectory, traceName(),
+						LoggingPreferences.getTraceFileSize() * 1024L * 1024L);
+			}
 			runtimeManager = buildRuntime();
+			this.engine = runtimeManager.getEngine();
 
 			// Start the environment (if any).
 			// This will also start the multi-agent system!
@@ -223,9 +307,32 @@ public abstract class AbstractRun<D extends Debugger, C extends GOALInterpreter<
 			if (runtimeManager != null) {
 				runtimeManager.shutDown();
 			}
+			if (this.trace != null) {
+				try {
+					this.trace.close();
+				} catch (IOException e) {
+					new Warning("Could not close the trace of "
+							+ this.masProgram.getSourceFile().getName(), e);
+				}
+				this.trace = null;
+			}
 		}
 	}
 
+	/**
+	 * @return the name of the trace of a run: the name of the MAS, the time and
+	 *         the number of the run.
+	 */
+	private String traceName() {
+		String name = this.masProgram.getSourceFile().getName();
+		if (name.lastIndexOf('.') > 0) {
+			name = name.substring(0, name.lastIndexOf('.'));
+		}
+		return name + "-"
+				+ new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())
+				+ "-" + traces.incrementAndGet();
+	}
+
 	/**
 	 * Blocks until the agent system is terminated or times out.
 	 *
@@ -276,8 +383,14 @@ public abstract class AbstractRun<D extends Debugger, C extends GOALInterpreter<
 				this.masProgram, messagingService);
 
 		AgentFactory<D, C> agentFactory = buildAgentFactory(messagingService);
+		if (this.inboxSettings != null
+				&& agentFactory instanceof AbstractAgentFactory) {
+			((AbstractAgentFactory<?, ?>) agentFactory)
+					.setInboxSettings(this.inboxSettings);
+		}
 		AgentService<D, C> runtimeService = new AgentService<>(this.masProgram,
 				this.agentPrograms, agentFactory);
+		runtimeService.setScheduler(this.scheduler);
 
 		RemoteRuntimeService<D, C> remoteRuntimeService = new RemoteRuntimeService<>(
 				messagingService);
@@ -1,13 +1,32 @@
 package goal.tools;
 
+import goal.core.agent.AgentScheduler;
+import goal.core.agent.Controller;
+import goal.preferences.CorePreferences;
+import goal.preferences.PMPreferences;
 import goal.tools.adapt.FileLearner;
 import goal.tools.errorhandling.Warning;
 import goal.tools.errorhandling.exceptions.GOALRunFailedException;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import krTools.errors.exceptions.ParserException;
 import languageTools.exceptions.relationParser.InvalidEmotionConfigFile;
@@ -20,12 +39,27 @@ import nl.tudelft.goal.messaging.Messaging;
  * Between runs the state of the agents {@link FileLearner} can be persisted by
  * setting a {@link PersistanceHelper}. To inspect the results of each run the
  * {@link ResultInspector} can be used.
+ * <p>
+ * Every MAS is parsed only once per batch (see {@link ProgramCache}). Runs of
+ * different MAS files can be executed concurrently by setting a parallelism
+ * larger than 1. The repeats of one MAS file are always run one after the
+ * other: the agents of a run are identified by their names, which are the
+ * same in every repeat, and so are the Prolog modules, log files and learner
+ * files (see {@link FileLearner}) of these agents. For the same reason runs of
+ * different MAS files are only executed concurrently if the names of their
+ * agents are prefixed with the name of their MAS (see
+ * {@link PMPreferences#getUseMASNameAsAgentPrefix()}), these names differ,
+ * and the agents do not learn; otherwise the batch runs one run at a time.
+ * Runs of a MAS that uses an emotion configuration are never run at the same
+ * time as other runs: every run has an emotion engine of its own, but the
+ * parsed emotion configuration is shared by the whole process.
  *
  * @author mpkorstanje
  */
 public class BatchRun {
 	private long repeats = 1;
 	private long timeout;
+	private int parallelism = 1;
 
 	private final List<File> masFiles;
 
@@ -34,6 +68,12 @@ public class BatchRun {
 	 */
 	private boolean debuggerOutput = false;
 
+	/**
+	 * Directory to write the execution traces of the runs in; null to not
+	 * trace the runs.
+	 */
+	private File traceDirectory = null;
+
 	/**
 	 * Host for messaging service.
 	 */
@@ -41,6 +81,14 @@ public class BatchRun {
 
 	private String messagingHost = "localhost";
 
+	/**
+	 * The scheduler type (see {@link Controller#createScheduler(String)}) for
+	 * the runs of a MAS file, and for all other runs; null to use the
+	 * scheduler of the platform.
+	 */
+	private final Map<File, String> schedulers = new HashMap<>();
+	private String scheduler = null;
+
 	/**
 	 * Creates an instance of {@link BatchRun} that can be used to run the
 	 * <code>masFile</code>>.
@@ -84,6 +132,32 @@ public class BatchRun {
 		this.timeout = timeout;
 	}
 
+	/**
+	 * Sets the maximum number of runs that are executed at the same time. Only
+	 * runs of different MAS files are executed at the same time, and only if
+	 * their agents can not be confused (see {@link #getConflict()}). Parallel
+	 * runs each get their own {@link LocalMessaging}; other messaging
+	 * middleware does not support this and always runs one run at a time.
+	 *
+	 * @param parallelism
+	 *            the number of concurrent runs; 1 (the default) runs all runs
+	 *            one after the other.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism should be at least 1 but is " //$NON-NLS-1$
+					+ parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @return the maximum number of runs that are executed at the same time.
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
 	/**
 	 * Starts the BatchRun. This will repeat running all {@link MASProgram}s for
 	 * a given number of times.
@@ -95,26 +169,89 @@ public class BatchRun {
 	 *             exception is thrown, e.g. all runs are executed at all times
 	 */
 	public void run() throws GOALRunFailedException, FileNotFoundException, InvalidEmotionConfigFile {
-		GOALRunFailedException last = null;
-		for (long i = 0; i < this.repeats; i++) {
+		final ProgramCache cache = new ProgramCache();
+		final ReadWriteLock exclusive = new ReentrantReadWriteLock();
+		boolean parallel = this.parallelism > 1 && this.masFiles.size() > 1;
+		String conflict = parallel ? getConflict() : null;
+		if (conflict != null) {
+			new Warning(conflict + "; running them one at a time."); //$NON-NLS-1$
+			parallel = false;
+		}
+
+		List<Callable<GOALRunFailedException>> runs = new ArrayList<>();
+		if (parallel) {
+			// one task per MAS file, that runs its repeats one after the other.
 			for (File masFile : this.masFiles) {
+				final File mas = masFile;
+				runs.add(new Callable<GOALRunFailedException>() {
+					@Override
+					public GOALRunFailedException call() throws Exception {
+						GOALRunFailedException last = null;
+						for (long i = 0; i < BatchRun.this.repeats; i++) {
+							last = merge(last, runRepeat(i, mas, cache, exclusive,
+									new LocalMessaging()));
+						}
+						return last;
+					}
+				});
+			}
+		} else {
+			for (long i = 0; i < this.repeats; i++) {
+				for (File masFile : this.masFiles) {
+					final long repeat = i;
+					final File mas = masFile;
+					runs.add(new Callable<GOALRunFailedException>() {
+						@Override
+						public GOALRunFailedException call() throws Exception {
+							return runRepeat(repeat, mas, cache, exclusive,
+									BatchRun.this.messaging);
+						}
+					});
+				}
+			}
+		}
+
+		GOALRunFailedException last = null;
+		if (!parallel) {
+			for (Callable<GOALRunFailedException> run : runs) {
 				try {
-					SingleRun singleRun;
+					last = merge(last, run.call());
+				} catch (Exception e) {
+					rethrow(e);
+				}
+			}
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(
+					this.parallelism, new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "Batch run "
+									+ this.count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			try {
+				List<Future<GOALRunFailedException>> results = new ArrayList<>(
+						runs.size());
+				for (Callable<GOALRunFailedException> run : runs) {
+					results.add(executor.submit(run));
+				}
+				for (Future<GOALRunFailedException> result : results) {
 					try {
-						singleRun = new SingleRun(masFile, this.timeout);
-					} catch (ParserException e) {
-						throw new GOALRunFailedException("could not parse mas "
-								+ masFile, e);
+						last = merge(last, result.get());
+					} catch (ExecutionException e) {
+						rethrow(e.getCause());
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new GOALRunFailedException(
+								"interrupted while waiting for the batch", e);
 					}
-					singleRun.setDebuggerOutput(this.debuggerOutput);
-					singleRun.setMessaging(this.messaging);
-					singleRun.setMessagingHost(this.messagingHost);
-					singleRun.run();
-				} catch (GOALRunFailedException any) { // top level reporting
-					new Warning("Repeat " + i + " of " + masFile
-							+ " threw exception", any);
-					last = any;
 				}
+			} finally {
+				executor.shutdownNow();
 			}
 		}
 		if (last != null) {
@@ -122,6 +259,134 @@ public class BatchRun {
 		}
 	}
 
+	/**
+	 * Checks whether the runs of the MAS files of this batch can be executed at
+	 * the same time.
+	 *
+	 * @return the reason why the runs can not be executed concurrently, or
+	 *         null if they can.
+	 */
+	String getConflict() {
+		if (!(this.messaging instanceof LocalMessaging)) {
+			return "Runs using " + this.messaging.getClass().getSimpleName() //$NON-NLS-1$
+					+ " can not be run in parallel"; //$NON-NLS-1$
+		}
+		if (!PMPreferences.getUseMASNameAsAgentPrefix()) {
+			return "Agents of different MAS files can have the same name unless" //$NON-NLS-1$
+					+ " they are prefixed with the name of their MAS"; //$NON-NLS-1$
+		}
+		if (CorePreferences.isLearning()) {
+			return "Agents that learn share their learner files"; //$NON-NLS-1$
+		}
+		Set<String> prefixes = new HashSet<>();
+		for (File masFile : this.masFiles) {
+			// the prefix of the agents, see AgentService#launchAgent.
+			String name = masFile.getName();
+			if (name.indexOf('.') > 0) {
+				name = name.substring(0, name.indexOf('.'));
+			}
+			if (!prefixes.add(name)) {
+				return "The agents of " + masFile //$NON-NLS-1$
+						+ " have the same names as those of another MAS"; //$NON-NLS-1$
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Executes one run of a MAS file and reports its failure.
+	 *
+	 * @return the failure of the run, or null if it succeeded.
+	 */
+	private GOALRunFailedException runRepeat(long repeat, File masFile,
+			ProgramCache cache, ReadWriteLock exclusive, Messaging messaging)
+			throws FileNotFoundException, InvalidEmotionConfigFile {
+		try {
+			runOnce(masFile, cache, exclusive, messaging);
+			return null;
+		} catch (GOALRunFailedException any) {
+			// top level reporting
+			new Warning("Repeat " + repeat + " of " + masFile
+					+ " threw exception", any);
+			return any;
+		}
+	}
+
+	/**
+	 * Executes one run of a MAS file.
+	 *
+	 * @param masFile
+	 *            the MAS to run.
+	 * @param cache
+	 *            the cache with the parsed programs of the batch.
+	 * @param exclusive
+	 *            lock to prevent runs that use emotions from running at the
+	 *            same time as other runs.
+	 * @param messaging
+	 *            the messaging to use for this run.
+	 */
+	private void runOnce(File masFile, ProgramCache cache,
+			ReadWriteLock exclusive, Messaging messaging)
+			throws GOALRunFailedException, FileNotFoundException,
+			InvalidEmotionConfigFile {
+		ProgramCache.Programs programs;
+		try {
+			programs = cache.get(masFile);
+		} catch (ParserException e) {
+			throw new GOALRunFailedException("could not parse mas " + masFile,
+					e);
+		}
+		Lock lock = programs.getMASProgram().hasEmotionFile() ? exclusive
+				.writeLock() : exclusive.readLock();
+		AgentScheduler scheduler = null;
+		lock.lock();
+		try {
+			SingleRun singleRun = new SingleRun(programs.getMASProgram(),
+					programs.getAgentPrograms(), this.timeout);
+			singleRun.setDebuggerOutput(this.debuggerOutput);
+			singleRun.setTraceDirectory(this.traceDirectory);
+			singleRun.setMessaging(messaging);
+			singleRun.setMessagingHost(this.messagingHost);
+			String type = this.schedulers.get(masFile.getAbsoluteFile());
+			if (type == null) {
+				type = this.scheduler;
+			}
+			if (type != null) {
+				scheduler = Controller.createScheduler(type);
+				singleRun.setScheduler(scheduler);
+			}
+			singleRun.run();
+		} finally {
+			if (scheduler != null) {
+				scheduler.shutdown();
+			}
+			lock.unlock();
+		}
+	}
+
+	private static GOALRunFailedException merge(GOALRunFailedException last,
+			GOALRunFailedException failure) {
+		return (failure == null) ? last : failure;
+	}
+
+	/**
+	 * Rethrows the exceptions of a run that abort the whole batch.
+	 */
+	private static void rethrow(Throwable e) throws FileNotFoundException,
+			InvalidEmotionConfigFile {
+		if (e instanceof FileNotFoundException) {
+			throw (FileNotFoundException) e;
+		} else if (e instanceof InvalidEmotionConfigFile) {
+			throw (InvalidEmotionConfigFile) e;
+		} else if (e instanceof RuntimeException) {
+			throw (RuntimeException) e;
+		} else if (e instanceof Error) {
+			throw (Error) e;
+		} else {
+			throw new IllegalStateException("unexpected exception in run", e);
+		}
+	}
+
 	/**
 	 * Returns true if the {@link MASProgram} will be run with a debugger that
 	 * logs output.
@@ -144,6 +409,25 @@ public class BatchRun {
 		this.debuggerOutput = debuggerOutput;
 	}
 
+	/**
+	 * @return the directory in which the execution traces of the runs are
+	 *         written, or null if the runs are not traced.
+	 */
+	public File getTraceDirectory() {
+		return this.traceDirectory;
+	}
+
+	/**
+	 * Writes the execution trace of every run in a directory, see
+	 * {@link AbstractRun#setTraceDirectory(File)}.
+	 *
+	 * @param traceDirectory
+	 *            the directory, or null to not trace the runs.
+	 */
+	public void setTraceDirectory(File traceDirectory) {
+		this.traceDirectory = traceDirectory;
+	}
+
 	/**
 	 * @return the messagingHost
 	 */
@@ -159,6 +443,51 @@ public class BatchRun {
 		this.messagingHost = messagingHost;
 	}
 
+	/**
+	 * Sets the scheduler that runs the agents of all runs (that do not have a
+	 * scheduler of their own, see {@link #setScheduler(File, String)}). Every
+	 * run gets a new scheduler of this type.
+	 *
+	 * @param type
+	 *            the type of scheduler, see
+	 *            {@link Controller#createScheduler(String)}; null to use the
+	 *            scheduler of the platform.
+	 * @throws IllegalArgumentException
+	 *             if the type is unknown.
+	 */
+	public void setScheduler(String type) {
+		checkScheduler(type);
+		this.scheduler = type;
+	}
+
+	/**
+	 * Sets the scheduler that runs the agents of the runs of one MAS file.
+	 *
+	 * @param masFile
+	 *            the MAS file.
+	 * @param type
+	 *            the type of scheduler, see
+	 *            {@link Controller#createScheduler(String)}; null to use the
+	 *            scheduler of the other runs.
+	 * @throws IllegalArgumentException
+	 *             if the type is unknown.
+	 */
+	public void setScheduler(File masFile, String type) {
+		checkScheduler(type);
+		if (type == null) {
+			this.schedulers.remove(masFile.getAbsoluteFile());
+		} else {
+			this.schedulers.put(masFile.getAbsoluteFile(), type);
+		}
+	}
+
+	private static void checkScheduler(String type) {
+		if (type != null
+				&& !Arrays.asList(Controller.SCHEDULERS).contains(type)) {
+			throw new IllegalArgumentException("unknown scheduler: " + type); //$NON-NLS-1$
+		}
+	}
+
 	/**
 	 * Set the messaging used.
 	 *
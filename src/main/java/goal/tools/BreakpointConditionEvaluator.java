@@ -0,0 +1,116 @@
+package goal.tools;
+
+import goal.core.agent.GOALInterpreter;
+import goal.core.executors.MentalStateConditionExecutor;
+import goal.core.mentalstate.MentalState;
+import goal.tools.debugger.NOPDebugger;
+import goal.tools.debugger.UserBreakpoint;
+import goal.tools.errorhandling.Warning;
+import goal.tools.errorhandling.exceptions.GOALDatabaseException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import krTools.errors.exceptions.ParserException;
+import languageTools.analyzer.agent.AgentValidator;
+import languageTools.errors.Message;
+import languageTools.parser.GOAL;
+import languageTools.parser.GOALLexer;
+import languageTools.program.agent.msc.MentalStateCondition;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+/**
+ * Evaluates the conditions of breakpoints on the mental state of the agent
+ * that an interpreter runs. A condition is parsed the first time it is
+ * evaluated; after that, evaluating it only costs the query on the mental
+ * state.
+ * <p>
+ * A condition that can not be parsed or evaluated is reported once and is
+ * considered to hold, so that the user still notices the breakpoint.
+ * </p>
+ */
+public class BreakpointConditionEvaluator implements
+		UserBreakpoint.ConditionEvaluator {
+	private final GOALInterpreter<?> controller;
+	private final NOPDebugger debugger;
+	/**
+	 * The parsed conditions; null for conditions that could not be parsed.
+	 */
+	private final Map<String, MentalStateCondition> conditions = new HashMap<>();
+
+	/**
+	 * @param controller
+	 *            the interpreter of the agent to evaluate conditions for.
+	 */
+	public BreakpointConditionEvaluator(GOALInterpreter<?> controller) {
+		this.controller = controller;
+		this.debugger = new NOPDebugger("breakpoint condition"); //$NON-NLS-1$
+	}
+
+	@Override
+	public synchronized boolean holds(String condition) {
+		final MentalStateCondition msc;
+		if (this.conditions.containsKey(condition)) {
+			msc = this.conditions.get(condition);
+		} else {
+			msc = parse(condition);
+			this.conditions.put(condition, msc);
+		}
+		if (msc == null) {
+			return true;
+		}
+		final MentalState mentalState = this.controller.getRunState()
+				.getMentalState();
+		if (mentalState == null) {
+			// the agent has not yet initialized its databases.
+			return false;
+		}
+		try {
+			return !new MentalStateConditionExecutor(msc).evaluate(
+					mentalState, this.debugger).isEmpty();
+		} catch (GOALDatabaseException e) {
+			new Warning("Evaluating the breakpoint condition " + condition //$NON-NLS-1$
+					+ " failed; the agent stops as if it holds.", e); //$NON-NLS-1$
+			this.conditions.put(condition, null);
+			return true;
+		}
+	}
+
+	/**
+	 * Parses a condition the way the query tool parses a query.
+	 *
+	 * @return the condition, or null if it could not be parsed.
+	 */
+	private MentalStateCondition parse(String condition) {
+		try {
+			final ANTLRInputStream charstream = new ANTLRInputStream(
+					new StringReader(condition));
+			charstream.name = ""; //$NON-NLS-1$
+			final GOAL parser = new GOAL(new CommonTokenStream(new GOALLexer(
+					charstream)));
+			final AgentValidator validator = new AgentValidator("inline", //$NON-NLS-1$
+					this.controller.getProgram());
+			validator.setKRInterface(this.controller.getProgram()
+					.getKRInterface());
+			final MentalStateCondition msc = validator
+					.visitMentalStateCondition(parser.mentalStateCondition());
+			validator.getProgram().resolve(msc);
+			final Set<Message> errors = validator.getErrors();
+			errors.addAll(validator.getSyntaxErrors());
+			if (!errors.isEmpty()) {
+				throw new ParserException(errors.toString());
+			}
+			return msc;
+		} catch (IOException | ParserException e) {
+			new Warning("The breakpoint condition " + condition //$NON-NLS-1$
+					+ " is not a mental state condition; the agent stops as if it holds.", //$NON-NLS-1$
+					e);
+			return null;
+		}
+	}
+}
@@ -2,8 +2,11 @@ package goal.tools;
 
 import goal.tools.debugger.BreakPoint;
 import goal.tools.debugger.BreakPoint.Type;
+import goal.tools.debugger.UserBreakpoint;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -30,9 +33,10 @@ public class BreakpointManager {
 	/**
 	 * Map that keeps track for each file (not necessarily an agent file!) for
 	 * which {@link IParsedObject}s present in that file a breakpoint has been
-	 * set.
+	 * set, with the breakpoint (including its condition, hit count and log
+	 * message) at each.
 	 */
-	private final Map<File, Set<SourceInfo>> breakpoints;
+	private final Map<File, Map<SourceInfo, UserBreakpoint>> breakpoints;
 	private final PlatformManager platform;
 
 	public BreakpointManager(PlatformManager platform) {
@@ -126,7 +130,8 @@ public class BreakpointManager {
 			 */
 			if (bp.definedAfter(sourceFile, bpt.getLine())) {
 				line = bp.getLineNumber();
-				addBreakpoint(bp);
+				addBreakpoint(new UserBreakpoint(bp, bpt.getCondition(),
+						bpt.getHitCount(), bpt.getLogMessage()));
 				break;
 			}
 		}
@@ -136,18 +141,20 @@ public class BreakpointManager {
 	/**
 	 * Adds a breakpoint to the set of breakpoints of a certain file.
 	 *
-	 * @param breakpos
-	 *            The location to put a breakpoint. Contains a reference to the
-	 *            file it is located in.
+	 * @param breakpoint
+	 *            The breakpoint. Its location contains a reference to the file
+	 *            it is located in.
 	 */
-	private void addBreakpoint(SourceInfo breakpos) {
+	private void addBreakpoint(UserBreakpoint breakpoint) {
+		SourceInfo breakpos = breakpoint.getSource();
 		assert breakpos != null;
 		if (!this.breakpoints.containsKey(breakpos.getSource())) {
 			this.breakpoints.put(breakpos.getSource(),
-					new HashSet<SourceInfo>());
+					new HashMap<SourceInfo, UserBreakpoint>());
 		}
-		Set<SourceInfo> bps = this.breakpoints.get(breakpos.getSource());
-		bps.add(breakpos);
+		Map<SourceInfo, UserBreakpoint> bps = this.breakpoints.get(breakpos
+				.getSource());
+		bps.put(breakpos, breakpoint);
 	}
 
 	/**
@@ -184,6 +191,24 @@ public class BreakpointManager {
 	 * @return A set of IParsedObjects corresponding to breakpoints.
 	 */
 	public Set<SourceInfo> getBreakpoints(File file) {
+		Map<SourceInfo, UserBreakpoint> bps = getBreakpointMap(file);
+		return (bps == null) ? null : bps.keySet();
+	}
+
+	/**
+	 * The breakpoints for the given file, with their conditions, hit counts
+	 * and log messages. May return null like {@link #getBreakpoints(File)}.
+	 *
+	 * @param file
+	 *            The file to get the breakpoints for
+	 * @return The breakpoints in the file.
+	 */
+	public Collection<UserBreakpoint> getUserBreakpoints(File file) {
+		Map<SourceInfo, UserBreakpoint> bps = getBreakpointMap(file);
+		return (bps == null) ? null : bps.values();
+	}
+
+	private Map<SourceInfo, UserBreakpoint> getBreakpointMap(File file) {
 		// return null when the agent file is not valid. Indicates that the
 		// breakpoints should not be updated.
 		List<File> referencingAgentFiles = getReferencingAgentFiles(file);
@@ -245,6 +270,24 @@ public class BreakpointManager {
 		return breakpts;
 	}
 
+	/**
+	 * Get ALL the breakpoints, from the goal file and from the imports of the
+	 * goal file, with their conditions, hit counts and log messages.
+	 *
+	 * @param goalProgramFile
+	 *            a file containing a {@link AgentProgram}.
+	 * @return list of all breakpoints in the program. List can be empty if no
+	 *         breakpoints have been set for this goal program.
+	 */
+	public List<UserBreakpoint> getAllUserBreakpoints(File goalProgramFile) {
+		List<UserBreakpoint> breakpts = new ArrayList<>();
+		Collection<UserBreakpoint> bps = getUserBreakpoints(goalProgramFile);
+		if (bps != null) {
+			breakpts.addAll(bps);
+		}
+		return breakpts;
+	}
+
 	/**
 	 * set that is robust to adding null.
 	 *
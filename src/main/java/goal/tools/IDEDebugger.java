@@ -31,8 +31,8 @@ public class IDEDebugger extends ObservableDebugger {
 	public IDEDebugger(AgentId id, AgentProgram program, EnvironmentPort env) {
 		super(id, env);
 		this.observer = new DebugSettingSynchronizer(this);
-		setBreakpoints(PlatformManager.getCurrent().getBreakpointManager()
-				.getAllBreakpoints(program.getSourceFile()));
+		setUserBreakpoints(PlatformManager.getCurrent().getBreakpointManager()
+				.getAllUserBreakpoints(program.getSourceFile()));
 	}
 
 	@Override
@@ -56,6 +56,13 @@ public class IDEDebugger extends ObservableDebugger {
 				args);
 	}
 
+	@Override
+	public boolean isEnabled(Channel channel) {
+		// breakpoints block until the first observer attached.
+		return (!this.firstObserver && !this.keepRunning)
+				|| super.isEnabled(channel);
+	}
+
 	@Override
 	public void subscribe(DebugObserver observer, Channel channel) {
 		super.subscribe(observer, channel);
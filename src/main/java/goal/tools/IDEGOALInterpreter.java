@@ -8,5 +8,6 @@ public class IDEGOALInterpreter extends GOALInterpreter<IDEDebugger> {
 	public IDEGOALInterpreter(AgentProgram program, IDEDebugger debugger,
 			Learner learner) {
 		super(program, debugger, learner);
+		debugger.setConditionEvaluator(new BreakpointConditionEvaluator(this));
 	}
 }
@@ -6,6 +6,7 @@ import goal.core.runtime.RemoteRuntimeService;
 import goal.core.runtime.RuntimeManager;
 import goal.core.runtime.service.agent.AgentService;
 import goal.core.runtime.service.environment.EnvironmentService;
+import goal.core.runtime.transport.NioMessaging;
 import goal.preferences.PMPreferences;
 import goal.preferences.RunPreferences;
 import goal.tools.adapt.Learner;
@@ -101,6 +102,7 @@ public class LaunchManager {
 		// Initialize Messaging support.
 		MessagingFactory.add(new LocalMessaging());
 		MessagingFactory.add(new RmiMessaging());
+		MessagingFactory.add(new NioMessaging());
 
 		Messaging messaging = MessagingFactory.get(RunPreferences
 				.getUsedMiddleware().toLowerCase());
@@ -177,6 +179,7 @@ public class LaunchManager {
 		// Initialize Messaging support.
 		MessagingFactory.add(new LocalMessaging());
 		MessagingFactory.add(new RmiMessaging());
+		MessagingFactory.add(new NioMessaging());
 
 		Messaging messaging = MessagingFactory.get(RunPreferences
 				.getUsedMiddleware().toLowerCase());
@@ -0,0 +1,106 @@
+package goal.tools;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import krTools.errors.exceptions.ParserException;
+import languageTools.exceptions.relationParser.InvalidEmotionConfigFile;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.mas.MASProgram;
+
+/**
+ * Caches parsed and validated {@link MASProgram}s together with the agent
+ * programs they use, so that running the same MAS many times (see
+ * {@link BatchRun}) only parses it once. An entry is keyed by the path of the
+ * MAS file and is parsed again when the MAS file or any of its agent files has
+ * been modified since it was parsed.
+ *
+ * The cached programs are shared by all runs that use them and should be
+ * treated as read-only, just like the agents of a single run share the program
+ * they were launched from.
+ */
+public class ProgramCache {
+	private final Map<File, Programs> entries = new HashMap<>();
+
+	/**
+	 * Returns the programs of the given MAS file, parsing them if they are not
+	 * cached yet or if the files have changed since they were cached.
+	 *
+	 * @param masFile
+	 *            The MAS file.
+	 * @return The parsed MAS program and its agent programs.
+	 * @throws ParserException
+	 *             When the MAS file could not be parsed.
+	 * @throws FileNotFoundException
+	 * @throws InvalidEmotionConfigFile
+	 */
+	public synchronized Programs get(File masFile) throws ParserException,
+			FileNotFoundException, InvalidEmotionConfigFile {
+		File key = masFile.getAbsoluteFile();
+		Programs programs = this.entries.get(key);
+		if (programs == null || programs.isStale()) {
+			PlatformManager platform = PlatformManager.createNew();
+			MASProgram mas = platform.parseMASFile(key);
+			programs = new Programs(key, mas,
+					platform.getParsedAgentPrograms());
+			this.entries.put(key, programs);
+		}
+		return programs;
+	}
+
+	/**
+	 * @return The number of cached MAS programs.
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * A parsed MAS program with the agent programs it uses, and the
+	 * modification times of their files at the time they were parsed.
+	 */
+	public static class Programs {
+		private final MASProgram mas;
+		private final Map<File, AgentProgram> agents;
+		private final Map<File, Long> modified = new HashMap<>();
+
+		Programs(File masFile, MASProgram mas, Map<File, AgentProgram> agents) {
+			this.mas = mas;
+			this.agents = Collections.unmodifiableMap(agents);
+			this.modified.put(masFile, masFile.lastModified());
+			for (File agentFile : agents.keySet()) {
+				this.modified.put(agentFile, agentFile.lastModified());
+			}
+		}
+
+		/**
+		 * @return The MAS program.
+		 */
+		public MASProgram getMASProgram() {
+			return this.mas;
+		}
+
+		/**
+		 * @return The agent programs used by the MAS, by file.
+		 */
+		public Map<File, AgentProgram> getAgentPrograms() {
+			return this.agents;
+		}
+
+		/**
+		 * @return true if any of the files has been modified (or removed)
+		 *         since the programs were parsed.
+		 */
+		boolean isStale() {
+			for (Map.Entry<File, Long> file : this.modified.entrySet()) {
+				if (file.getKey().lastModified() != file.getValue()) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package goal.tools;
 
+import goal.core.runtime.transport.NioMessaging;
 import goal.tools.errorhandling.exceptions.GOALRunFailedException;
 import goal.tools.logging.Loggers;
 import goal.tools.unittest.result.UnitTestResult;
@@ -45,12 +46,19 @@ import rmimessaging.RmiMessaging;
  *  -h,--help                Displays this help
  *  -i                       Print messages from info
  *     --license             Shows the license
+ *     --nio <host>          Use NIO messaging middleware. Host is the
+ *                           location of the NIO messaging server. Using
+ *                           "localhost" will initialize a NIO messaging server
  *  -p                       Print messages from parser
+ *     --parallel <number>   Maximum number of MAS files to run at the same
+ *                           time (see goal.tools.BatchRun)
  *  -r,--repeats <number>    Number of times to repeat running all episodes
  *     --recursive           Recursively search for mas files
  *     --rmi <host>          Use RMI messaging middleware. Host is the
  *                           location of the RMI server. Using "localhost" will
  *                           initialize a RMI server
+ *     --trace <directory>   Write an execution trace of every run in the
+ *                           directory (see goal.tools.trace.TraceTool)
  *  -t,--timeout <number>	 Maximum time to run a mas (in seconds)
  *  -v,--verbose             Print all messages
  *     --version             Shows the current version
@@ -73,6 +81,7 @@ public class Run {
 	private static final String OPTION_RECURSIVE = "recursive";
 
 	private static final String OPTION_RMI_MESSAGING = "rmi";
+	private static final String OPTION_NIO_MESSAGING = "nio";
 
 	private static final String OPTION_DEBUG = "debug";
 	private static final char OPTION_DEBUG_SHORT = 'd';
@@ -88,6 +97,9 @@ public class Run {
 	private static final char OPTION_REPEATS_SHORT = 'r';
 	private static final String OPTION_TIMEOUT = "timeout";
 	private static final char OPTION_TIMEOUT_SHORT = 't';
+	private static final String OPTION_PARALLEL = "parallel";
+	private static final String OPTION_SCHEDULER = "scheduler";
+	private static final String OPTION_TRACE = "trace";
 
 	private static final Options options = createOptions();
 
@@ -155,12 +167,17 @@ public class Run {
 		}
 
 		final boolean debuggerOutput = cmd.hasOption(OPTION_DEBUG);
+		final File traceDirectory = cmd.hasOption(OPTION_TRACE) ? new File(
+				cmd.getOptionValue(OPTION_TRACE)) : null;
 
 		final Messaging messaging;
 		final String host;
 		if (cmd.hasOption(OPTION_RMI_MESSAGING)) {
 			messaging = new RmiMessaging();
 			host = cmd.getOptionValue(OPTION_RMI_MESSAGING);
+		} else if (cmd.hasOption(OPTION_NIO_MESSAGING)) {
+			messaging = new NioMessaging();
+			host = cmd.getOptionValue(OPTION_NIO_MESSAGING);
 		} else {
 			messaging = new LocalMessaging();
 			host = "localhost";
@@ -174,6 +191,7 @@ public class Run {
 
 		BatchRun repeatedBatchRun = new BatchRun(masFiles);
 		repeatedBatchRun.setDebuggerOutput(debuggerOutput);
+		repeatedBatchRun.setTraceDirectory(traceDirectory);
 
 		if (cmd.hasOption(OPTION_REPEATS)) {
 			Number repeats = (Number) cmd.getParsedOptionValue(OPTION_REPEATS);
@@ -183,6 +201,14 @@ public class Run {
 			Number timeout = (Number) cmd.getParsedOptionValue(OPTION_TIMEOUT);
 			repeatedBatchRun.setTimeout(timeout.longValue());
 		}
+		if (cmd.hasOption(OPTION_PARALLEL)) {
+			Number parallel = (Number) cmd.getParsedOptionValue(OPTION_PARALLEL);
+			repeatedBatchRun.setParallelism(parallel.intValue());
+		}
+		if (cmd.hasOption(OPTION_SCHEDULER)) {
+			repeatedBatchRun.setScheduler(cmd
+					.getOptionValue(OPTION_SCHEDULER));
+		}
 
 		repeatedBatchRun.setMessagingHost(host);
 		repeatedBatchRun.setMessaging(messaging);
@@ -203,6 +229,7 @@ public class Run {
 			UnitTestRunResultInspector inspector = new UnitTestRunResultInspector(
 					unitTest);
 			testRun.setDebuggerOutput(debuggerOutput);
+			testRun.setTraceDirectory(traceDirectory);
 			testRun.setMessaging(messaging);
 			testRun.setResultInspector(inspector);
 			testRun.setMessagingHost(host);
@@ -349,6 +376,21 @@ public class Run {
 		OptionBuilder.withType(Number.class);
 		options.addOption(OptionBuilder.create(OPTION_TIMEOUT_SHORT));
 
+		OptionBuilder.withLongOpt(OPTION_PARALLEL);
+		OptionBuilder.withArgName("number");
+		OptionBuilder
+				.withDescription("Maximum number of MAS files to run at the same time (see goal.tools.BatchRun)");
+		OptionBuilder.hasArg();
+		OptionBuilder.withType(Number.class);
+		options.addOption(OptionBuilder.create());
+
+		OptionBuilder.withLongOpt(OPTION_SCHEDULER);
+		OptionBuilder.withArgName("type");
+		OptionBuilder
+				.withDescription("How to run the agents: \"pool\" (default), \"workstealing\" or \"thread\" (a thread per agent)");
+		OptionBuilder.hasArg();
+		options.addOption(OptionBuilder.create());
+
 		OptionBuilder.withLongOpt(OPTION_RECURSIVE);
 		OptionBuilder.withDescription("Recursively search for mas files");
 		options.addOption(OptionBuilder.create());
@@ -358,6 +400,13 @@ public class Run {
 				.withDescription("Display out put from debugger while running agent");
 		options.addOption(OptionBuilder.create(OPTION_DEBUG_SHORT));
 
+		OptionBuilder.withLongOpt(OPTION_TRACE);
+		OptionBuilder.hasArg();
+		OptionBuilder.withArgName("directory");
+		OptionBuilder
+				.withDescription("Write an execution trace of every run in the directory (see goal.tools.trace.TraceTool)");
+		options.addOption(OptionBuilder.create());
+
 		OptionBuilder.withLongOpt(OPTION_RMI_MESSAGING);
 		OptionBuilder.hasArg();
 		OptionBuilder.withArgName("host");
@@ -365,6 +414,13 @@ public class Run {
 				.withDescription("Use RMI messaging middleware. Host is the location of the RMI server. Using \"localhost\" will initialize a RMI server");
 		options.addOption(OptionBuilder.create());
 
+		OptionBuilder.withLongOpt(OPTION_NIO_MESSAGING);
+		OptionBuilder.hasArg();
+		OptionBuilder.withArgName("host");
+		OptionBuilder
+				.withDescription("Use NIO messaging middleware. Host is the location of the NIO messaging server. Using \"localhost\" will initialize a NIO messaging server");
+		options.addOption(OptionBuilder.create());
+
 		return options;
 	}
 
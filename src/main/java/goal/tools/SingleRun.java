@@ -9,12 +9,15 @@ import goal.tools.debugger.Debugger;
 import goal.tools.debugger.LoggingObserver;
 import goal.tools.debugger.NOPDebugger;
 import goal.tools.debugger.ObservableDebugger;
+import goal.tools.trace.TraceRecorder;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.Map;
 
 import krTools.errors.exceptions.ParserException;
 import languageTools.exceptions.relationParser.InvalidEmotionConfigFile;
+import languageTools.program.agent.AgentProgram;
 import languageTools.program.mas.MASProgram;
 
 /**
@@ -49,6 +52,24 @@ public class SingleRun extends AbstractRun<Debugger, GOALInterpreter<Debugger>>
 				PlatformManager.getCurrent().getParsedAgentPrograms(), timeout);
 	}
 
+	/**
+	 * Constructs an instance of SingleRun using an already parsed MASProgram.
+	 * The programs are not modified by the run and can be shared by several
+	 * runs, see {@link ProgramCache}.
+	 *
+	 * @param program
+	 *            the MASProgram to run
+	 * @param agents
+	 *            the agent programs used by the MASProgram
+	 * @param timeout
+	 *            the number of seconds we should wait for the {@link SingleRun}
+	 *            to terminate; 0 for indefinite.
+	 */
+	public SingleRun(MASProgram program, Map<File, AgentProgram> agents,
+			long timeout) {
+		super(program, agents, timeout);
+	}
+
 	private class SingleRunAgentFactory extends
 	AbstractAgentFactory<Debugger, GOALInterpreter<Debugger>> {
 		public SingleRunAgentFactory(MessagingService messaging) {
@@ -57,10 +78,15 @@ public class SingleRun extends AbstractRun<Debugger, GOALInterpreter<Debugger>>
 
 		@Override
 		protected Debugger provideDebugger() {
-			if (SingleRun.this.debuggerOutput) {
+			if (SingleRun.this.debuggerOutput || getTrace() != null) {
 				ObservableDebugger observabledebugger = new ObservableDebugger(
 						this.agentId, this.environment);
-				new LoggingObserver(observabledebugger);
+				if (SingleRun.this.debuggerOutput) {
+					new LoggingObserver(observabledebugger);
+				}
+				if (getTrace() != null) {
+					new TraceRecorder(observabledebugger, getTrace());
+				}
 				return observabledebugger;
 			} else {
 				return new NOPDebugger(this.agentId);
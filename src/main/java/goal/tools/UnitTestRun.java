@@ -1,7 +1,5 @@
 package goal.tools;
 
-import java.io.FileNotFoundException;
-
 import goal.core.agent.AbstractAgentFactory;
 import goal.core.agent.Agent;
 import goal.core.agent.AgentFactory;
@@ -10,8 +8,8 @@ import goal.core.runtime.RuntimeManager;
 import goal.tools.adapt.Learner;
 import goal.tools.debugger.LoggingObserver;
 import goal.tools.debugger.ObservableDebugger;
+import goal.tools.trace.TraceRecorder;
 import goal.tools.unittest.UnitTestInterpreter;
-import languageTools.exceptions.relationParser.InvalidEmotionConfigFile;
 import languageTools.program.test.AgentTest;
 import languageTools.program.test.UnitTest;
 
@@ -46,6 +44,9 @@ public class UnitTestRun extends AbstractRun<IDEDebugger, UnitTestInterpreter> {
 			if (UnitTestRun.this.debuggerOutput) {
 				new LoggingObserver(observableDebugger);
 			}
+			if (getTrace() != null) {
+				new TraceRecorder(observableDebugger, getTrace());
+			}
 			return observableDebugger;
 		}
 
@@ -64,7 +65,7 @@ public class UnitTestRun extends AbstractRun<IDEDebugger, UnitTestInterpreter> {
 	 */
 	private final UnitTest unitTest;
 
-	public UnitTestRun(UnitTest program) throws FileNotFoundException, InvalidEmotionConfigFile {
+	public UnitTestRun(UnitTest program) {
 		super(program.getMasProgram(), program.getAgents(), program
 				.getTimeout());
 		this.unitTest = program;
@@ -26,10 +26,13 @@ import goal.tools.errorhandling.Warning;
 import goal.tools.logging.InfoLog;
 import goal.tools.mc.program.goal.GOALConversionUniverse;
 import goal.tools.mc.program.goal.GOALMentalStateConverter;
+import goal.tools.mc.program.goal.GOALState;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -39,7 +42,12 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -50,7 +58,6 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.Vector;
 
 import krTools.language.DatabaseFormula;
 import krTools.language.Expression;
@@ -96,19 +103,21 @@ public class FileLearner implements Serializable, Learner {
 	private final Map<String, Set<String>> filters = new HashMap<>();
 
 	/**
-	 * The list of action IDs. actions are stored as strings using
+	 * The action IDs, starting at 1. actions are identified by their
 	 * {@link ActionCombo#toString()}.
 	 */
-	private Map<String, Integer> actionid = new TreeMap<>();
+	private Map<String, Integer> actionid = new HashMap<>();
 	/**
-	 * The list of GOAL state IDs. GOALState is a number representing a
-	 * {@link MentalState}. See also
-	 * {@link GOALMentalStateConverter#translate(MentalState, java.util.Stack)}.
+	 * The GOAL state IDs, starting at 1. A GOALState is a bit set representing
+	 * a (filtered) {@link MentalState}. See also
+	 * {@link GOALMentalStateConverter#translate(Set, java.util.Stack)}.
 	 */
-	private Map<String, Integer> stateid = new TreeMap<>();
+	private Map<BitSet, Integer> stateid = new HashMap<>();
 
-	private Map<Integer, String> actionstr = new TreeMap<>();
-	private Map<String, String> statestr = new TreeMap<>();
+	/** The actions, by action ID - 1 */
+	private List<String> actionstr = new ArrayList<>();
+	/** Human readable descriptions of the states, by state ID - 1 */
+	private List<String> statestr = new ArrayList<>();
 
 	private GOALMentalStateConverter converter;
 	/** Used to save the converter universe */
@@ -298,29 +307,27 @@ public class FileLearner implements Serializable, Learner {
 		this.updateCalled = false;
 		ActionCombo chosen = null;
 		// Stores the list of input action options */
-		Vector<ActionCombo> options = new Vector<>();
+		List<ActionCombo> options = new ArrayList<>(actionOptions.size());
 		// Stores the action IDs associated with each ActionCombo
-		Vector<Integer> optionids = new Vector<>();
-		Hashtable<String, Boolean> added = new Hashtable<>();
+		List<Integer> optionids = new ArrayList<>(actionOptions.size());
 		for (ActionCombo option : actionOptions) {
-			if (!added.containsKey(option.toString())) {
-				added.put(option.toString(), new Boolean(true));
+			// Observe and save the new option if we haven't seen it before
+			Integer id = processOption(option);
+			if (!optionids.contains(id)) {
 				options.add(option);
-				// Observe and save the new option if we haven't seen it before
-				processOption(option);
-				optionids.add(this.actionid.get(option.toString()));
+				optionids.add(id);
 			}
 		}
 
 		// Observe and save the new state if we haven't seen it before
-		String newstate = processState(ms, getBeliefFilters(module));
+		Integer newstate = processState(ms, getBeliefFilters(module));
 
 		// Ask the module specific learner to pick the next action
 		Integer newaction = this.learners.get(module).instance.nextAction(
-				this.stateid.get(newstate), optionids.toArray(new Integer[0]));
+				newstate, optionids.toArray(new Integer[optionids.size()]));
 
 		// Get the ActionCombo mapped to this action id
-		chosen = options.elementAt(optionids.indexOf(newaction));
+		chosen = options.get(optionids.indexOf(newaction));
 
 		// Increment the number of actions taken so far, for reporting
 		this.learners.get(module).totalactions++;
@@ -338,10 +345,9 @@ public class FileLearner implements Serializable, Learner {
 	public void update(String module, MentalState ms, double reward) {
 		this.updateCalled = true;
 		// Observe and save the new state if we haven't seen it before
-		String newstate = processState(ms, getBeliefFilters(module));
+		Integer newstate = processState(ms, getBeliefFilters(module));
 		// Call update on the module specific instance
-		this.learners.get(module).instance.update(reward,
-				this.stateid.get(newstate));
+		this.learners.get(module).instance.update(reward, newstate);
 		// Accumulate the reward
 		this.learners.get(module).totalreward += reward;
 	}
@@ -357,17 +363,15 @@ public class FileLearner implements Serializable, Learner {
 	 */
 	private static Set<DatabaseFormula> filteredBeliefs(
 			MentalState mentalState, Set<String> filter) {
-		Set<DatabaseFormula> beliefs = mentalState
-				.getOwnBase(BASETYPE.BELIEFBASE).getTheory().getFormulas();
-		Set<DatabaseFormula> remove = new LinkedHashSet<>();
-		// hack around #3057 to prevent ConcurrentModificationException
-		List<DatabaseFormula> formulas = new ArrayList<>(beliefs);
-		for (DatabaseFormula belief : formulas) {
-			if (!filter.contains(belief.getSignature())) {
-				remove.add(belief);
+		// the snapshot of the theory is immutable and not changed by the
+		// agent while iterating.
+		Set<DatabaseFormula> beliefs = new LinkedHashSet<>();
+		for (DatabaseFormula belief : mentalState
+				.getOwnBase(BASETYPE.BELIEFBASE).getTheory().getFormulas()) {
+			if (filter.contains(belief.getSignature())) {
+				beliefs.add(belief);
 			}
 		}
-		beliefs.removeAll(remove);
 		return beliefs;
 	}
 
@@ -417,12 +421,11 @@ public class FileLearner implements Serializable, Learner {
 					"Situations encountered (below)", this.stateid.size());
 			summary += "-----------------------------------------\n";
 			out.write(summary);
-			int index = 0;
-			for (String state : this.stateid.keySet()) {
+			for (int index = 0; index < this.statestr.size(); index++) {
 				out.write(String.format("s%07d %s\n", index,
-						this.statestr.get(state)));
+						this.statestr.get(index)));
 				Hashtable<Integer, Double> avpairs = this.learners.get(module).instance
-						.actionValues(this.stateid.get(state));
+						.actionValues(index + 1);
 				List<Integer> sortedByValue = new ArrayList<>(avpairs.keySet()
 						.size());
 				for (Integer i : avpairs.keySet()) {
@@ -441,10 +444,9 @@ public class FileLearner implements Serializable, Learner {
 				String s = "";
 				for (Integer i : sortedByValue) {
 					s += String.format("%20s : %+06.3f\n",
-							this.actionstr.get(i), avpairs.get(i));
+							this.actionstr.get(i - 1), avpairs.get(i));
 				}
 				out.write(s);
-				index++;
 			}
 		} catch (IOException e) {
 			new Warning("WARNING: Could not write report file " + outfile, e);
@@ -452,53 +454,53 @@ public class FileLearner implements Serializable, Learner {
 	}
 
 	/**
-	 * Returns the MentalState translated to a state vector string. The filter
-	 * is applied to the MentalState before it is translated. The returned state
-	 * is also added to the list of known states with a unique ID, if it is not
-	 * already there.
+	 * Returns the ID of the MentalState, which is identified by the bit set it
+	 * translates to. The filter is applied to the MentalState before it is
+	 * translated. A new state is added to the list of known states with a
+	 * unique ID.
 	 *
 	 * @param ms
 	 * @param filter
-	 * @return
+	 * @return the state ID.
 	 */
-	private String processState(MentalState ms, Set<String> filter) {
-		String state = "";
-		this.converter.translate(filteredBeliefs(ms, filter),
-				ms.getAttentionStack()).toString();
-		if (!this.stateid.containsKey(state)) {
-			this.stateid.put(state, new Integer(this.stateid.size() + 1));
-		}
-
-		if (!this.statestr.containsKey(state)) {
-			String s = "";
-			Set<DatabaseFormula> beliefs = filteredBeliefs(ms, filter);
+	private Integer processState(MentalState ms, Set<String> filter) {
+		Set<DatabaseFormula> beliefs = filteredBeliefs(ms, filter);
+		GOALState translated = this.converter.translate(beliefs,
+				ms.getAttentionStack());
+		// use a plain bit set as key; a GOALState refers to its converter.
+		BitSet state = (translated == null) ? new BitSet() : BitSet
+				.valueOf(translated.toLongArray());
+		Integer id = this.stateid.get(state);
+		if (id == null) {
 			List<String> strset = new ArrayList<>(beliefs.size());
 			for (DatabaseFormula dbf : beliefs) {
 				strset.add(dbf.toString());
 			}
 			Collections.sort(strset);
-			s += strset.toString() + " ";
-			s += ms.getAttentionStack().toString();
-			this.statestr.put(state, s);
+			this.statestr.add(strset.toString() + " "
+					+ ms.getAttentionStack().toString());
+			id = this.statestr.size();
+			this.stateid.put(state, id);
 		}
-
-		return state;
+		return id;
 	}
 
 	/**
-	 * Adds the option to the list of known options if not already there
+	 * Returns the ID of the option, adding it to the list of known options if
+	 * not already there.
 	 *
 	 * @param option
+	 * @return the action ID.
 	 */
-	private void processOption(ActionCombo option) {
-		if (!this.actionid.containsKey(option.toString())) {
-			this.actionid.put(option.toString(),
-					new Integer(this.actionid.size() + 1));
-		}
-		if (!this.actionstr.containsKey(this.actionid.get(option.toString()))) {
-			this.actionstr.put(this.actionid.get(option.toString()),
-					option.toString());
+	private Integer processOption(ActionCombo option) {
+		String action = option.toString();
+		Integer id = this.actionid.get(action);
+		if (id == null) {
+			this.actionstr.add(action);
+			id = this.actionstr.size();
+			this.actionid.put(action, id);
 		}
+		return id;
 	}
 
 	/**
@@ -525,14 +527,30 @@ public class FileLearner implements Serializable, Learner {
 		}
 	}
 
+	/**
+	 * Writes the form of the original implementation, in which states were
+	 * identified by the string of their bit set. New learner files are
+	 * written in the binary format, see {@link #saveLearner(String)}.
+	 */
 	private void writeObject(ObjectOutputStream oos) throws IOException {
 		// oos.defaultWriteObject();
+		Map<String, Integer> states = new TreeMap<>();
+		Map<String, String> descriptions = new TreeMap<>();
+		for (Map.Entry<BitSet, Integer> state : this.stateid.entrySet()) {
+			String key = state.getKey().toString();
+			states.put(key, state.getValue());
+			descriptions.put(key, this.statestr.get(state.getValue() - 1));
+		}
+		Map<Integer, String> actions = new TreeMap<>();
+		for (int id = 1; id <= this.actionstr.size(); id++) {
+			actions.put(id, this.actionstr.get(id - 1));
+		}
 		oos.writeObject(this.runCount);
 		oos.writeObject(this.learners);
-		oos.writeObject(this.actionid);
-		oos.writeObject(this.stateid);
-		oos.writeObject(this.actionstr);
-		oos.writeObject(this.statestr);
+		oos.writeObject(new TreeMap<>(this.actionid));
+		oos.writeObject(states);
+		oos.writeObject(actions);
+		oos.writeObject(descriptions);
 		this.universe = this.converter.getUniverse().toStringArray();
 		oos.writeObject(this.universe);
 	}
@@ -543,13 +561,85 @@ public class FileLearner implements Serializable, Learner {
 		// is.defaultReadObject();
 		this.runCount = (Integer) ois.readObject();
 		this.learners = (Map<String, LearnerInstance>) ois.readObject();
-		this.actionid = (Map<String, Integer>) ois.readObject();
-		this.stateid = (Map<String, Integer>) ois.readObject();
-		this.actionstr = (Map<Integer, String>) ois.readObject();
-		this.statestr = (Map<String, String>) ois.readObject();
+		Map<String, Integer> actions = (Map<String, Integer>) ois.readObject();
+		Map<String, Integer> states = (Map<String, Integer>) ois.readObject();
+		Map<Integer, String> actionNames = (Map<Integer, String>) ois
+				.readObject();
+		Map<String, String> descriptions = (Map<String, String>) ois
+				.readObject();
 		this.universe = (List<String>) ois.readObject();
 		this.converter = new GOALMentalStateConverter(null);
 		this.converter.getUniverse().setPreassignedIndices(this.universe);
+
+		this.actionid = new HashMap<>(actions);
+		this.actionstr = new ArrayList<>(actions.size());
+		for (int id = 1; id <= actions.size(); id++) {
+			this.actionstr.add(actionNames.get(id));
+		}
+		migrateStates(states, descriptions);
+	}
+
+	/**
+	 * Converts the states of the original implementation, which were
+	 * identified by the string of their bit set. Old versions stored every
+	 * state as the empty string; these states can not be told apart and are
+	 * dropped with the values learned for them. The remaining states are
+	 * numbered again.
+	 *
+	 * @param states
+	 *            state ID by the string of its bit set.
+	 * @param descriptions
+	 *            state description by the string of its bit set.
+	 */
+	private void migrateStates(Map<String, Integer> states,
+			Map<String, String> descriptions) {
+		Map<Integer, String> byId = new TreeMap<>();
+		for (Map.Entry<String, Integer> state : states.entrySet()) {
+			byId.put(state.getValue(), state.getKey());
+		}
+		this.stateid = new HashMap<>(states.size());
+		this.statestr = new ArrayList<>(states.size());
+		Map<Integer, Integer> ids = new HashMap<>(states.size());
+		for (Map.Entry<Integer, String> state : byId.entrySet()) {
+			BitSet bits = parseBitSet(state.getValue());
+			if (bits != null && !this.stateid.containsKey(bits)) {
+				this.statestr.add(descriptions.get(state.getValue()));
+				this.stateid.put(bits, this.statestr.size());
+				ids.put(state.getKey(), this.statestr.size());
+			}
+		}
+		for (LearnerInstance learner : this.learners.values()) {
+			if (learner.instance instanceof QLearner) {
+				((QLearner) learner.instance).renumberStates(ids);
+			}
+		}
+		if (ids.size() < states.size()) {
+			new InfoLog("Learner: dropped " + (states.size() - ids.size())
+					+ " states of an old learner file that could not be read.");
+		}
+	}
+
+	/**
+	 * @param string
+	 *            a bit set as printed by {@link BitSet#toString()}.
+	 * @return the bit set, or null if the string is not a bit set.
+	 */
+	private static BitSet parseBitSet(String string) {
+		if (!string.startsWith("{") || !string.endsWith("}")) {
+			return null;
+		}
+		BitSet bits = new BitSet();
+		String contents = string.substring(1, string.length() - 1).trim();
+		if (!contents.isEmpty()) {
+			for (String index : contents.split(",")) {
+				try {
+					bits.set(Integer.parseInt(index.trim()));
+				} catch (NumberFormatException e) {
+					return null;
+				}
+			}
+		}
+		return bits;
 	}
 
 	/*
@@ -622,14 +712,25 @@ public class FileLearner implements Serializable, Learner {
 	}
 
 	/**
-	 * Saves the learning to file
+	 * Saves the learning to file, in the binary format (see
+	 * {@link LearnerFile}). The file is first written next to the target and
+	 * then moved over it, so a crash never leaves a half written learner.
 	 *
 	 * @param file
 	 */
-	private void saveLearner(String file) {
-		try (ObjectOutputStream output = new ObjectOutputStream(
-				new BufferedOutputStream(new FileOutputStream(file)))) {
-			output.writeObject(this);
+	void saveLearner(String file) {
+		File temp = new File(file + ".tmp");
+		try (DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temp)))) {
+			writeLearner(output);
+		} catch (IOException e) {
+			new InfoLog("File " + file + " could not be written ("
+					+ e.getMessage() + "). Continuing.");
+			return;
+		}
+		try {
+			Files.move(temp.toPath(), new File(file).toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
 		} catch (IOException e) {
 			new InfoLog("File " + file + " could not be written ("
 					+ e.getMessage() + "). Continuing.");
@@ -637,13 +738,121 @@ public class FileLearner implements Serializable, Learner {
 	}
 
 	/**
-	 * Loads the learning from file
+	 * Writes the learner in the binary format: the header, the run count, the
+	 * converter universe, the actions, the states (bit set and description)
+	 * and the learner of every module.
+	 */
+	private void writeLearner(DataOutput out) throws IOException {
+		LearnerFile.writeHeader(out);
+		out.writeInt(this.runCount);
+		List<String> elements = this.converter.getUniverse().toStringArray();
+		out.writeInt(elements.size());
+		for (String element : elements) {
+			LearnerFile.writeString(out, element);
+		}
+		out.writeInt(this.actionstr.size());
+		for (String action : this.actionstr) {
+			LearnerFile.writeString(out, action);
+		}
+		BitSet[] states = new BitSet[this.statestr.size()];
+		for (Map.Entry<BitSet, Integer> state : this.stateid.entrySet()) {
+			states[state.getValue() - 1] = state.getKey();
+		}
+		out.writeInt(states.length);
+		for (int i = 0; i < states.length; i++) {
+			LearnerFile.writeBitSet(out, states[i]);
+			LearnerFile.writeString(out, this.statestr.get(i));
+		}
+		Map<String, QLearner> modules = new TreeMap<>();
+		for (Map.Entry<String, LearnerInstance> learner : this.learners
+				.entrySet()) {
+			if (learner.getValue().instance instanceof QLearner) {
+				modules.put(learner.getKey(),
+						(QLearner) learner.getValue().instance);
+			} else {
+				new Warning("Learner of module " + learner.getKey()
+						+ " can not be saved; only Q learners can.");
+			}
+		}
+		out.writeInt(modules.size());
+		for (Map.Entry<String, QLearner> module : modules.entrySet()) {
+			LearnerFile.writeString(out, module.getKey());
+			module.getValue().write(out);
+		}
+	}
+
+	/**
+	 * Reads a learner written by {@link #writeLearner(DataOutput)}.
+	 */
+	private void readLearner(ByteBuffer in) {
+		this.runCount = in.getInt();
+		int size = in.getInt();
+		this.universe = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			this.universe.add(LearnerFile.readString(in));
+		}
+		this.converter = new GOALMentalStateConverter(null);
+		this.converter.getUniverse().setPreassignedIndices(this.universe);
+		size = in.getInt();
+		this.actionid = new HashMap<>(size);
+		this.actionstr = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			this.actionstr.add(LearnerFile.readString(in));
+			this.actionid.put(this.actionstr.get(i), i + 1);
+		}
+		size = in.getInt();
+		this.stateid = new HashMap<>(size);
+		this.statestr = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			this.stateid.put(LearnerFile.readBitSet(in), i + 1);
+			this.statestr.add(LearnerFile.readString(in));
+		}
+		size = in.getInt();
+		this.learners = new HashMap<>(size);
+		for (int i = 0; i < size; i++) {
+			String module = LearnerFile.readString(in);
+			this.learners.put(module, new LearnerInstance(QLearner.read(in)));
+		}
+	}
+
+	/**
+	 * Loads the learning from file. Files written by the original
+	 * implementation with Java serialization are converted; they will be
+	 * saved in the binary format.
 	 *
 	 * @param file
 	 * @param program
-	 * @return a {@link FileLearner} object
+	 * @return true if the learner was loaded.
 	 */
-	private boolean loadLearner(String file, AgentProgram program) {
+	boolean loadLearner(String file, AgentProgram program) {
+		File learnerFile = new File(file);
+		try {
+			if (LearnerFile.isBinary(learnerFile)) {
+				readLearner(LearnerFile.read(learnerFile));
+			} else {
+				loadSerializedLearner(learnerFile);
+				new InfoLog("Learner: converted " + file
+						+ " from the old format.");
+			}
+			new InfoLog("\nLoading learned model from file " + file);
+			return true;
+		} catch (IOException | ClassNotFoundException
+				| BufferUnderflowException e) {
+			new Warning("learner file " + file + " could not be read but continuing anyway.",e);
+		}
+		// forget anything we read before the problem.
+		this.learners = new HashMap<>();
+		this.actionid = new HashMap<>();
+		this.actionstr = new ArrayList<>();
+		this.stateid = new HashMap<>();
+		this.statestr = new ArrayList<>();
+		this.universe = null;
+		this.converter = new GOALMentalStateConverter(null);
+		return false;
+	}
+
+	private void loadSerializedLearner(File file) throws IOException,
+			ClassNotFoundException {
 		try (ObjectInputStream input = new ObjectInputStream(
 				new BufferedInputStream(new FileInputStream(file)))) {
 			Object obj = input.readObject();
@@ -656,11 +865,6 @@ public class FileLearner implements Serializable, Learner {
 			this.statestr = l.statestr;
 			this.universe = l.universe;
 			this.converter = l.converter;
-			new InfoLog("\nLoading learned model from file " + file);
-			return true;
-		} catch (IOException | ClassNotFoundException e) {
-			new Warning("learner file " + file + " could not be read but continuing anyway.",e);
 		}
-		return false;
 	}
 }
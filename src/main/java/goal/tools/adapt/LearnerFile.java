@@ -0,0 +1,113 @@
+package goal.tools.adapt;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.BitSet;
+
+/**
+ * The binary .lrn file format of the {@link FileLearner}. A file starts with
+ * {@link #MAGIC} and {@link #VERSION}, followed by the contents written by
+ * {@link FileLearner}. All numbers are big-endian; strings are written as
+ * their length in bytes followed by their UTF-8 encoding; bit sets are written
+ * as the number of longs followed by the longs of
+ * {@link BitSet#toLongArray()}.
+ *
+ * Files are read into a heap buffer at once. They are not memory-mapped: a
+ * mapping keeps the file open until it is garbage collected, and on Windows a
+ * file that is mapped can not be replaced, so the learner could not be saved
+ * over the file it was loaded from. Files that do not start with
+ * the magic number are assumed to be written by the original implementation,
+ * which used Java serialization.
+ */
+final class LearnerFile {
+	/**
+	 * "GLRN"
+	 */
+	static final int MAGIC = 0x474C524E;
+	/**
+	 * The version of the format that is written.
+	 */
+	static final int VERSION = 1;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private LearnerFile() {
+	}
+
+	/**
+	 * @param file
+	 *            a learner file.
+	 * @return true if the file is in the binary format.
+	 * @throws IOException
+	 */
+	static boolean isBinary(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new FileInputStream(
+				file))) {
+			return in.readInt() == MAGIC;
+		} catch (EOFException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Reads a binary learner file into memory and checks its header.
+	 *
+	 * @param file
+	 *            a learner file in the binary format.
+	 * @return a buffer positioned after the header.
+	 * @throws IOException
+	 *             if the file can not be read, or is not in a version of the
+	 *             format we know.
+	 */
+	static ByteBuffer read(File file) throws IOException {
+		ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		if (in.remaining() < 8 || in.getInt() != MAGIC) {
+			throw new IOException(file + " is not a learner file");
+		}
+		int version = in.getInt();
+		if (version != VERSION) {
+			throw new IOException(file + " has unsupported version " + version);
+		}
+		return in;
+	}
+
+	static void writeHeader(DataOutput out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+	}
+
+	static void writeString(DataOutput out, String string) throws IOException {
+		byte[] bytes = string.getBytes(UTF8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(ByteBuffer in) {
+		byte[] bytes = new byte[in.getInt()];
+		in.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	static void writeBitSet(DataOutput out, BitSet bits) throws IOException {
+		long[] words = bits.toLongArray();
+		out.writeInt(words.length);
+		for (long word : words) {
+			out.writeLong(word);
+		}
+	}
+
+	static BitSet readBitSet(ByteBuffer in) {
+		long[] words = new long[in.getInt()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = in.getLong();
+		}
+		return BitSet.valueOf(words);
+	}
+}
@@ -18,7 +18,14 @@
 
 package goal.tools.adapt;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
+import java.util.Map;
 import java.util.Random;
 
 /**
@@ -32,26 +39,39 @@ import java.util.Random;
 public class QLearner implements LearnerAlgorithm {
 	/** Generated serialVersionUID */
 	private static final long serialVersionUID = -8719214041255496994L;
-	private final Random randGenerator;
+	/**
+	 * The serialized form of this class is the form of the original
+	 * implementation, which stored the value function in nested
+	 * {@link Hashtable}s, so that old learner files can still be read.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("randGenerator", Random.class),
+			new ObjectStreamField("valueFunction", Hashtable.class),
+			new ObjectStreamField("alpha", double.class),
+			new ObjectStreamField("epsilon", double.class),
+			new ObjectStreamField("epsilon_decay", double.class),
+			new ObjectStreamField("gamma", double.class),
+			new ObjectStreamField("newaction", Integer.class),
+			new ObjectStreamField("newstate", Integer.class),
+			new ObjectStreamField("DEFAULT_VALUE", int.class) };
+
+	private static final double DEFAULT_VALUE = 0;
+
+	private Random randGenerator;
 
 	/**
 	 * The algorithm uses a function Q(state,action)->value. See
-	 * {@link #setValue(Integer, Integer, Double)}. The integers contain encoded
-	 * (bitmap mappings) states and actions (see
-	 * {@link GOALMentalStateConverter}). "Q(state,action)=value" is stored in
-	 * the following two-dim table, with state as first index and action as
-	 * second index.
+	 * {@link #setValue(int, int, double)}. The integers are the ids of the
+	 * states and actions assigned by the {@link FileLearner}.
 	 */
-	private final Hashtable<Integer, Hashtable<Integer, Double>> valueFunction;
-	private final double alpha;
+	private transient QTable valueFunction;
+	private double alpha;
 	private double epsilon;
-	private final double epsilon_decay;
-	private final double gamma;
+	private double epsilon_decay;
+	private double gamma;
 	private Integer newaction;
 	private Integer newstate;
 
-	private final int DEFAULT_VALUE = 0;
-
 	/**
 	 * Constructs a new Q learner
 	 *
@@ -62,7 +82,7 @@ public class QLearner implements LearnerAlgorithm {
 	 */
 	public QLearner(double step, double epsilon, double decay, double gamma) {
 		this.randGenerator = new Random();
-		this.valueFunction = new Hashtable<>();
+		this.valueFunction = new QTable();
 		this.alpha = step;
 		this.epsilon = epsilon;
 		this.epsilon_decay = decay;
@@ -100,8 +120,9 @@ public class QLearner implements LearnerAlgorithm {
 	public void update(double reward, Integer resultingstate) {
 		if (this.newstate != null && this.newaction != null
 				&& resultingstate != null) {
-			double Q_sa = getValue(this.newstate, this.newaction).doubleValue();
-			double Q_sprime_aprime = getMaxValue(resultingstate).doubleValue(); // Q
+			double Q_sa = getValue(this.newstate, this.newaction);
+			double Q_sprime_aprime = this.valueFunction.max(resultingstate,
+					DEFAULT_VALUE); // Q
 			// Learning
 			double new_Q_sa = Q_sa + this.alpha
 					* (reward + (this.gamma * Q_sprime_aprime) - Q_sa);
@@ -115,7 +136,7 @@ public class QLearner implements LearnerAlgorithm {
 	 */
 	public void finish(double reward) {
 		if (this.newstate != null && this.newaction != null) {
-			double Q_sa = getValue(this.newstate, this.newaction).doubleValue();
+			double Q_sa = getValue(this.newstate, this.newaction);
 			double new_Q_sa = Q_sa + this.alpha * (reward - Q_sa);
 			setValue(this.newstate, this.newaction, new_Q_sa);
 			this.epsilon -= this.epsilon * this.epsilon_decay;
@@ -123,69 +144,35 @@ public class QLearner implements LearnerAlgorithm {
 	}
 
 	/**
-	 * Gives the value of taking action a in state s
-	 *
-	 * @param state
-	 *            mentalstate as integer (see {@link GOALMentalStateConverter}
-	 * @param action
-	 *            as integer (see
-	 * @return
-	 */
-	private Double getValue(Integer s, Integer a) {
-		Double v = null;
-		if (this.valueFunction.containsKey(s)) {
-			Hashtable<Integer, Double> actions = this.valueFunction.get(s);
-			if (actions.containsKey(a)) {
-				v = actions.get(a);
-			}
-		}
-		if (v == null) {
-			v = new Double(this.DEFAULT_VALUE);
-			setValue(s, a, v);
-		}
-		return v;
-	}
-
-	/**
-	 * Gives the maximum value of taking an action in state s
+	 * Gives the value of taking action a in state s. An unknown pair gets the
+	 * default value.
 	 *
-	 * @param state
-	 * @param action
-	 * @return
+	 * @param s
+	 *            the state id
+	 * @param a
+	 *            the action id
+	 * @return Q(s,a)
 	 */
-	private Double getMaxValue(Integer s) {
-		Double max = null;
-		if (this.valueFunction.containsKey(s)) {
-			Double[] values = this.valueFunction.get(s).values()
-					.toArray(new Double[0]);
-			max = values[this.randGenerator.nextInt(values.length)];
-			for (Double value : values) {
-				if (value.doubleValue() > max.doubleValue()) {
-					max = value;
-				}
-			}
-		} else {
-			max = new Double(this.DEFAULT_VALUE); // Return this when s does not
-			// exist
+	private double getValue(int s, int a) {
+		if (!this.valueFunction.contains(s, a)) {
+			setValue(s, a, DEFAULT_VALUE);
+			return DEFAULT_VALUE;
 		}
-		return max;
+		return this.valueFunction.get(s, a, DEFAULT_VALUE);
 	}
 
 	/**
 	 * Sets the value v for the given state s and action a. So Q(s,a)=v.
 	 *
 	 * @param s
-	 *            is the state as integer. See XXX
+	 *            is the state id
 	 * @param a
-	 *            is the action as integer, see XXX
-	 * @param val
+	 *            is the action id
+	 * @param v
 	 *            is the new value associated with
 	 */
-	private void setValue(Integer s, Integer a, Double v) {
-		Hashtable<Integer, Double> actions = (this.valueFunction.containsKey(s)) ? this.valueFunction
-				.get(s) : new Hashtable<Integer, Double>();
-		actions.put(a, v);
-		this.valueFunction.put(s, actions);
+	private void setValue(int s, int a, double v) {
+		this.valueFunction.put(s, a, v);
 	}
 
 	/**
@@ -222,12 +209,12 @@ public class QLearner implements LearnerAlgorithm {
 		 * This is particularly critical in the early stages when all values are
 		 * the same.
 		 */
+		double m = getValue(theState, max);
 		for (Integer a : options) {
-			Double v = getValue(theState, a);
-			Double m = getValue(theState, max);
-
-			if (v != null && m != null && v > m) {
+			double v = getValue(theState, a);
+			if (v > m) {
 				max = a;
+				m = v;
 			}
 		}
 		return max;
@@ -235,7 +222,86 @@ public class QLearner implements LearnerAlgorithm {
 
 	@Override
 	public Hashtable<Integer, Double> actionValues(Integer state) {
-		return this.valueFunction.containsKey(state) ? this.valueFunction
-				.get(state) : new Hashtable<Integer, Double>();
+		return this.valueFunction.row(state);
+	}
+
+	/**
+	 * Renumbers the states of the value function, see
+	 * {@link QTable#renumber(Map)}.
+	 */
+	void renumberStates(Map<Integer, Integer> ids) {
+		this.valueFunction.renumber(ids);
+	}
+
+	/**
+	 * Writes the parameters and the value function of this learner in the
+	 * binary learner file format, see {@link LearnerFile}.
+	 */
+	void write(DataOutput out) throws IOException {
+		out.writeDouble(this.alpha);
+		out.writeDouble(this.epsilon);
+		out.writeDouble(this.epsilon_decay);
+		out.writeDouble(this.gamma);
+		this.valueFunction.write(out);
+	}
+
+	/**
+	 * Reads a learner written by {@link #write(DataOutput)}.
+	 */
+	static QLearner read(ByteBuffer in) {
+		QLearner learner = new QLearner(in.getDouble(), in.getDouble(),
+				in.getDouble(), in.getDouble());
+		learner.valueFunction = QTable.read(in);
+		return learner;
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		Hashtable<Integer, Hashtable<Integer, Double>> values = new Hashtable<>();
+		for (int state = 0, rows = this.valueFunction.states(); rows > 0; state++) {
+			Hashtable<Integer, Double> row = this.valueFunction.row(state);
+			if (!row.isEmpty()) {
+				values.put(state, row);
+				rows--;
+			}
+		}
+		ObjectOutputStream.PutField fields = oos.putFields();
+		fields.put("randGenerator", this.randGenerator);
+		fields.put("valueFunction", values);
+		fields.put("alpha", this.alpha);
+		fields.put("epsilon", this.epsilon);
+		fields.put("epsilon_decay", this.epsilon_decay);
+		fields.put("gamma", this.gamma);
+		fields.put("newaction", this.newaction);
+		fields.put("newstate", this.newstate);
+		fields.put("DEFAULT_VALUE", (int) DEFAULT_VALUE);
+		oos.writeFields();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream ois) throws IOException,
+			ClassNotFoundException {
+		ObjectInputStream.GetField fields = ois.readFields();
+		this.randGenerator = (Random) fields.get("randGenerator", null);
+		if (this.randGenerator == null) {
+			this.randGenerator = new Random();
+		}
+		this.alpha = fields.get("alpha", 0d);
+		this.epsilon = fields.get("epsilon", 0d);
+		this.epsilon_decay = fields.get("epsilon_decay", 0d);
+		this.gamma = fields.get("gamma", 0d);
+		this.newaction = (Integer) fields.get("newaction", null);
+		this.newstate = (Integer) fields.get("newstate", null);
+		this.valueFunction = new QTable();
+		Hashtable<Integer, Hashtable<Integer, Double>> values = (Hashtable<Integer, Hashtable<Integer, Double>>) fields
+				.get("valueFunction", null);
+		if (values != null) {
+			for (Map.Entry<Integer, Hashtable<Integer, Double>> row : values
+					.entrySet()) {
+				for (Map.Entry<Integer, Double> value : row.getValue()
+						.entrySet()) {
+					setValue(row.getKey(), value.getKey(), value.getValue());
+				}
+			}
+		}
 	}
 }
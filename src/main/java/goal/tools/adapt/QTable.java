@@ -0,0 +1,210 @@
+package goal.tools.adapt;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.Map;
+
+/**
+ * The function Q(state,action)->value of a {@link QLearner}, stored in
+ * primitive arrays. States and actions are the (small, consecutive) integer
+ * ids assigned by the {@link FileLearner}. Every state has a row with the
+ * actions that have a value in that state; rows are short (the number of
+ * options of a rule set) and are scanned linearly.
+ */
+public class QTable {
+	private static final int INITIAL_ROW = 4;
+
+	private int[][] actions = new int[16][];
+	private double[][] values = new double[16][];
+	private int[] sizes = new int[16];
+
+	/**
+	 * @param state
+	 *            a state id.
+	 * @param action
+	 *            an action id.
+	 * @return true if Q(state,action) has a value.
+	 */
+	public boolean contains(int state, int action) {
+		return find(state, action) >= 0;
+	}
+
+	/**
+	 * @param state
+	 *            a state id.
+	 * @param action
+	 *            an action id.
+	 * @param defaultValue
+	 *            value to return when Q(state,action) has no value.
+	 * @return Q(state,action), or the default value.
+	 */
+	public double get(int state, int action, double defaultValue) {
+		int index = find(state, action);
+		return (index < 0) ? defaultValue : this.values[state][index];
+	}
+
+	/**
+	 * Sets Q(state,action) to the given value.
+	 *
+	 * @param state
+	 *            a state id (non-negative).
+	 * @param action
+	 *            an action id.
+	 * @param value
+	 *            the new value.
+	 */
+	public void put(int state, int action, double value) {
+		int index = find(state, action);
+		if (index >= 0) {
+			this.values[state][index] = value;
+			return;
+		}
+		if (state >= this.sizes.length) {
+			int length = Math.max(state + 1, this.sizes.length * 2);
+			this.actions = Arrays.copyOf(this.actions, length);
+			this.values = Arrays.copyOf(this.values, length);
+			this.sizes = Arrays.copyOf(this.sizes, length);
+		}
+		int size = this.sizes[state];
+		if (this.actions[state] == null) {
+			this.actions[state] = new int[INITIAL_ROW];
+			this.values[state] = new double[INITIAL_ROW];
+		} else if (size == this.actions[state].length) {
+			this.actions[state] = Arrays.copyOf(this.actions[state], size * 2);
+			this.values[state] = Arrays.copyOf(this.values[state], size * 2);
+		}
+		this.actions[state][size] = action;
+		this.values[state][size] = value;
+		this.sizes[state] = size + 1;
+	}
+
+	/**
+	 * @param state
+	 *            a state id.
+	 * @param defaultValue
+	 *            value to return when no action has a value in the state.
+	 * @return The maximum value over all actions in the state.
+	 */
+	public double max(int state, double defaultValue) {
+		int size = size(state);
+		if (size == 0) {
+			return defaultValue;
+		}
+		double[] row = this.values[state];
+		double max = row[0];
+		for (int i = 1; i < size; i++) {
+			if (row[i] > max) {
+				max = row[i];
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @param state
+	 *            a state id.
+	 * @return A copy of the values of the actions in the given state, by
+	 *         action id.
+	 */
+	public Hashtable<Integer, Double> row(int state) {
+		int size = size(state);
+		Hashtable<Integer, Double> row = new Hashtable<>(Math.max(size, 1));
+		for (int i = 0; i < size; i++) {
+			row.put(this.actions[state][i], this.values[state][i]);
+		}
+		return row;
+	}
+
+	/**
+	 * @return The number of states with at least one value.
+	 */
+	public int states() {
+		int states = 0;
+		for (int size : this.sizes) {
+			if (size > 0) {
+				states++;
+			}
+		}
+		return states;
+	}
+
+	/**
+	 * Renumbers the states of this table. States that are not mapped are
+	 * removed.
+	 *
+	 * @param ids
+	 *            new state id by old state id.
+	 */
+	public void renumber(Map<Integer, Integer> ids) {
+		QTable renumbered = new QTable();
+		for (int state = 0; state < this.sizes.length; state++) {
+			Integer id = ids.get(state);
+			if (id != null) {
+				for (int i = 0; i < this.sizes[state]; i++) {
+					renumbered.put(id, this.actions[state][i],
+							this.values[state][i]);
+				}
+			}
+		}
+		this.actions = renumbered.actions;
+		this.values = renumbered.values;
+		this.sizes = renumbered.sizes;
+	}
+
+	/**
+	 * Writes the table as: number of rows, and per row the state id, the
+	 * number of values and the (action id, value) pairs.
+	 */
+	void write(DataOutput out) throws IOException {
+		out.writeInt(states());
+		for (int state = 0; state < this.sizes.length; state++) {
+			int size = this.sizes[state];
+			if (size > 0) {
+				out.writeInt(state);
+				out.writeInt(size);
+				for (int i = 0; i < size; i++) {
+					out.writeInt(this.actions[state][i]);
+					out.writeDouble(this.values[state][i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a table written by {@link #write(DataOutput)}.
+	 */
+	static QTable read(ByteBuffer in) {
+		QTable table = new QTable();
+		int rows = in.getInt();
+		for (int r = 0; r < rows; r++) {
+			int state = in.getInt();
+			int size = in.getInt();
+			for (int i = 0; i < size; i++) {
+				table.put(state, in.getInt(), in.getDouble());
+			}
+		}
+		return table;
+	}
+
+	private int size(int state) {
+		return (state >= 0 && state < this.sizes.length) ? this.sizes[state]
+				: 0;
+	}
+
+	private int find(int state, int action) {
+		int size = size(state);
+		if (size == 0) {
+			return -1;
+		}
+		int[] row = this.actions[state];
+		for (int i = 0; i < size; i++) {
+			if (row[i] == action) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -43,6 +43,18 @@ public class BreakPoint {
 	 * The line on which this breakpoint is set
 	 */
 	private final int linenumber;
+	/**
+	 * The mental state condition that should hold to stop, or null
+	 */
+	private final String condition;
+	/**
+	 * Stop only on every so many hits
+	 */
+	private final int hitCount;
+	/**
+	 * The message to report instead of stopping, or null
+	 */
+	private final String logMessage;
 
 	public enum Type {
 		/**
@@ -68,12 +80,40 @@ public class BreakPoint {
 	 *            is the type of this breakpoint.
 	 */
 	public BreakPoint(File file, int linenumber, Type type) {
+		this(file, linenumber, type, null, 1, null);
+	}
+
+	/**
+	 * Creates new breakpoint that only stops when a condition holds, on every
+	 * so many hits, or that only reports a message (see
+	 * {@link UserBreakpoint}).
+	 *
+	 * @param file
+	 *            is the file that this breakpoint is in.
+	 * @param linenumber
+	 *            is the line number where the breakpoint is. 1 is first line.
+	 * @param type
+	 *            is the type of this breakpoint.
+	 * @param condition
+	 *            is the mental state condition that should hold to stop, or
+	 *            null.
+	 * @param hitCount
+	 *            is the number of hits after which to stop; 1 to stop on every
+	 *            hit.
+	 * @param logMessage
+	 *            is the message to report instead of stopping, or null.
+	 */
+	public BreakPoint(File file, int linenumber, Type type, String condition,
+			int hitCount, String logMessage) {
 		if (file == null || type == null) {
 			throw new GOALBug("file and type should be not null");
 		}
 		this.file = file;
 		this.type = type;
 		this.linenumber = linenumber;
+		this.condition = condition;
+		this.hitCount = Math.max(1, hitCount);
+		this.logMessage = logMessage;
 	}
 
 	/**
@@ -103,6 +143,33 @@ public class BreakPoint {
 		return this.file;
 	}
 
+	/**
+	 * get the mental state condition that should hold to stop
+	 *
+	 * @return the condition, or null if there is none
+	 */
+	public String getCondition() {
+		return this.condition;
+	}
+
+	/**
+	 * get the number of hits after which to stop
+	 *
+	 * @return the hit count; 1 to stop on every hit
+	 */
+	public int getHitCount() {
+		return this.hitCount;
+	}
+
+	/**
+	 * get the message to report instead of stopping
+	 *
+	 * @return the message, or null if this breakpoint stops
+	 */
+	public String getLogMessage() {
+		return this.logMessage;
+	}
+
 	@Override
 	public String toString() {
 		return "Breakpoint[" + this.file.getName() + "," + this.linenumber
@@ -208,7 +208,15 @@ public enum Channel {
 	/**
 	 * Special channel for notifying the debugger for user-defined breakpoints.
 	 */
-	TESTFAILURE("Test failure", ChannelState.VIEWPAUSE);
+	TESTFAILURE("Test failure", ChannelState.VIEWPAUSE),
+
+	/**
+	 * Channel for a single report on all additions to / deletions from the
+	 * belief base by one update. The associated object is a
+	 * {@link goal.core.mentalstate.BeliefBaseChange}. This is a channel for
+	 * observers that are not interested in the individual formulas.
+	 */
+	BB_BATCH_UPDATES("Batched changes to the belief base", ChannelState.HIDDEN);
 
 	/**
 	 * text string used to explain channel in debug preference pane.
@@ -22,6 +22,7 @@ import goal.tools.debugger.SteppingDebugger.RunMode;
 import goal.tools.logging.GOALLogRecord;
 import goal.tools.logging.SingleLineFormatter;
 
+import java.io.ObjectStreamException;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 
@@ -50,6 +51,18 @@ public class DebugEvent extends GOALLogRecord {
 	private final SourceInfo associatedSource;
 	private final String rawMsg;
 	private final Object[] rawArgs;
+	/**
+	 * The arguments the message is formatted with: the raw arguments, where
+	 * those that may still change (a goal base, a substitution, ...) are
+	 * replaced by their text at the time the event was created.
+	 */
+	private final Object[] formatArgs;
+	/**
+	 * The formatted message; null until the message is requested for the
+	 * first time. Formatting is postponed because most events are never
+	 * displayed.
+	 */
+	private volatile String formatted = null;
 
 	/**
 	 * Creates a debug event for some channel, with some associated object.
@@ -70,7 +83,7 @@ public class DebugEvent extends GOALLogRecord {
 	public DebugEvent(RunMode mode, String source, Channel channel,
 			Object associatedObject, SourceInfo associatedSource,
 			String message, Object... args) {
-		super(Level.INFO, String.format(message, args), null);
+		super(Level.INFO, null, null);
 		this.mode = mode;
 		this.source = source;
 		this.channel = channel;
@@ -78,6 +91,40 @@ public class DebugEvent extends GOALLogRecord {
 		this.associatedSource = associatedSource;
 		this.rawMsg = message;
 		this.rawArgs = args;
+		this.formatArgs = snapshot(args);
+	}
+
+	/**
+	 * Replaces the arguments that may change after the event was created by
+	 * their current text, so that a message formatted later (possibly on
+	 * another thread) still shows the state at the time of the event.
+	 *
+	 * @param args
+	 *            The raw arguments.
+	 * @return The given arguments if they can not change, or a copy of them.
+	 */
+	private static Object[] snapshot(Object[] args) {
+		if (args == null) {
+			return null;
+		}
+		Object[] snapshot = args;
+		for (int i = 0; i < args.length; i++) {
+			if (!isImmutable(args[i])) {
+				if (snapshot == args) {
+					snapshot = args.clone();
+				}
+				snapshot[i] = String.valueOf(args[i]);
+			}
+		}
+		return snapshot;
+	}
+
+	private static boolean isImmutable(Object arg) {
+		return arg == null || arg instanceof String || arg instanceof Integer
+				|| arg instanceof Long || arg instanceof Double
+				|| arg instanceof Float || arg instanceof Short
+				|| arg instanceof Byte || arg instanceof Boolean
+				|| arg instanceof Character || arg instanceof Enum;
 	}
 
 	/**
@@ -103,10 +150,46 @@ public class DebugEvent extends GOALLogRecord {
 		return this.rawMsg;
 	}
 
+	/**
+	 * @return The arguments of the message as given, by reference. These may
+	 *         have changed since the event was created, and should be
+	 *         inspected while handling the event.
+	 */
 	public Object[] getRawArguments() {
 		return this.rawArgs;
 	}
 
+	/**
+	 * Returns the message of this event, formatted with its arguments as they
+	 * were when the event was created. The message is formatted the first
+	 * time this is called.
+	 *
+	 * @return The formatted message.
+	 */
+	@Override
+	public String getMessage() {
+		String message = this.formatted;
+		if (message == null) {
+			message = String.format(this.rawMsg, this.formatArgs);
+			this.formatted = message;
+		}
+		return message;
+	}
+
+	@Override
+	public void setMessage(String message) {
+		super.setMessage(message);
+		this.formatted = message;
+	}
+
+	/**
+	 * Makes sure the formatted message is serialized with the event.
+	 */
+	protected Object writeReplace() throws ObjectStreamException {
+		super.setMessage(getMessage());
+		return this;
+	}
+
 	/**
 	 * @return The channel on which this event was published
 	 */
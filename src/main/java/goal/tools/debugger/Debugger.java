@@ -61,6 +61,33 @@ public interface Debugger {
 	public abstract void breakpoint(Channel channel, Object associateObject,
 			SourceInfo associateSource, String message, Object... args);
 
+	/**
+	 * <p>
+	 * Checks whether a breakpoint on the given channel can currently have any
+	 * effect, i.e. whether someone is listening to the channel, the debugger
+	 * may pause on it, or the debugger has been killed.
+	 * </p>
+	 * <p>
+	 * Call sites on frequently executed paths should use this to skip building
+	 * the arguments of {@link #breakpoint} (and the call itself) when it
+	 * returns false:
+	 *
+	 * <pre>
+	 * if (debugger.isEnabled(Channel.BB_UPDATES)) {
+	 * 	debugger.breakpoint(Channel.BB_UPDATES, formula, ...);
+	 * }
+	 * </pre>
+	 *
+	 * The result is only a snapshot; it is fine to call
+	 * {@link #breakpoint} anyway.
+	 * </p>
+	 *
+	 * @param channel
+	 *            The channel of the breakpoint.
+	 * @return false if a breakpoint on the channel would be a no-op right now.
+	 */
+	public abstract boolean isEnabled(Channel channel);
+
 	/**
 	 * Obtains the name of this {@link Debugger}. If this {@link Debugger} is
 	 * debugging an agent, it should be set the same name as the agent so that
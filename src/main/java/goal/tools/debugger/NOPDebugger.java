@@ -5,7 +5,7 @@ import languageTools.program.agent.AgentId;
 
 public class NOPDebugger implements Debugger {
 	private final String id;
-	private boolean killed = false;
+	private volatile boolean killed = false;
 
 	public NOPDebugger(AgentId id) {
 		this(id.getName());
@@ -23,6 +23,12 @@ public class NOPDebugger implements Debugger {
 		}
 	}
 
+	@Override
+	public boolean isEnabled(Channel channel) {
+		// only needed to report that we have been killed.
+		return this.killed;
+	}
+
 	@Override
 	public String getName() {
 		return this.id;
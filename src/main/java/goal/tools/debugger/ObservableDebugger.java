@@ -1,6 +1,7 @@
 package goal.tools.debugger;
 
 import goal.core.runtime.service.environmentport.EnvironmentPort;
+import goal.tools.errorhandling.exceptions.GOALBug;
 
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -14,6 +15,19 @@ public class ObservableDebugger extends SteppingDebugger {
 	 * Maintains a map of which observers have subscribed to which channels.
 	 */
 	protected final ConcurrentHashMap<Channel, Set<DebugObserver>> channelObservers = new ConcurrentHashMap<>();
+	/**
+	 * Mask of the channels that have at least one observer; the bit at the
+	 * ordinal of a channel is set if the channel is observed. Kept up to date
+	 * by the (un)subscribe methods, so that breakpoints on channels nobody
+	 * listens to can be skipped without a lookup.
+	 */
+	private volatile long observedChannels = 0;
+
+	static {
+		if (Channel.values().length > Long.SIZE) {
+			throw new GOALBug("there are too many channels to fit in a mask");
+		}
+	}
 
 	public ObservableDebugger(AgentId id, EnvironmentPort env) {
 		this(id.getName(), env);
@@ -32,7 +46,7 @@ public class ObservableDebugger extends SteppingDebugger {
 	public void breakpoint(Channel channel, Object associateObject,
 			SourceInfo associateSource, String message, Object... args) {
 		// Only if there are observers for the channel, events need to be send.
-		if (!this.channelObservers.get(channel).isEmpty()) {
+		if (isObserved(channel)) {
 			DebugEvent event = new DebugEvent(getRunMode(), getName(), channel,
 					associateObject, associateSource, message, args);
 			notifyObservers(channel, event);
@@ -42,6 +56,35 @@ public class ObservableDebugger extends SteppingDebugger {
 				args);
 	}
 
+	@Override
+	public boolean isEnabled(Channel channel) {
+		return isObserved(channel) || super.isEnabled(channel);
+	}
+
+	/**
+	 * @param channel
+	 *            A channel.
+	 * @return true if at least one observer is subscribed to the channel.
+	 */
+	public boolean isObserved(Channel channel) {
+		return (this.observedChannels & (1L << channel.ordinal())) != 0;
+	}
+
+	/**
+	 * Recomputes {@link #observedChannels} after a change in subscriptions.
+	 */
+	private void updateObservedChannels() {
+		synchronized (this.channelObservers) {
+			long mask = 0;
+			for (Channel channel : Channel.values()) {
+				if (!this.channelObservers.get(channel).isEmpty()) {
+					mask |= 1L << channel.ordinal();
+				}
+			}
+			this.observedChannels = mask;
+		}
+	}
+
 	/**
 	 * Updates observers that subscribed to a channel with the debug information
 	 * related to that channel.
@@ -60,7 +103,7 @@ public class ObservableDebugger extends SteppingDebugger {
 	@Override
 	public synchronized void setRunMode(RunMode mode) {
 		// notify observers of run mode change.
-		if (mode != getRunMode()) {
+		if (mode != getRunMode() && isObserved(Channel.RUNMODE)) {
 			notifyObservers(Channel.RUNMODE, new DebugEvent(mode, getName(),
 					Channel.RUNMODE, mode, null, "Run mode = %s", mode));
 		}
@@ -81,6 +124,7 @@ public class ObservableDebugger extends SteppingDebugger {
 	 */
 	public void subscribe(DebugObserver observer, Channel channel) {
 		this.channelObservers.get(channel).add(observer);
+		updateObservedChannels();
 	}
 
 	/**
@@ -95,6 +139,7 @@ public class ObservableDebugger extends SteppingDebugger {
 		for (Channel channel : this.channelObservers.keySet()) {
 			this.channelObservers.get(channel).remove(observer);
 		}
+		updateObservedChannels();
 	}
 
 	/**
@@ -113,6 +158,7 @@ public class ObservableDebugger extends SteppingDebugger {
 	 */
 	public void unsubscribe(DebugObserver observer, Channel channel) {
 		this.channelObservers.get(channel).remove(observer);
+		updateObservedChannels();
 	}
 
 	/**
@@ -137,7 +183,7 @@ public class ObservableDebugger extends SteppingDebugger {
 	protected boolean checkUserBreakpointHit(SourceInfo source, String message,
 			Object... args) {
 		boolean hit = super.checkUserBreakpointHit(source, message, args);
-		if (hit) {
+		if (hit && isObserved(Channel.BREAKPOINTS)) {
 			DebugEvent event = new DebugEvent(getRunMode(), getName(),
 					Channel.BREAKPOINTS, null, source,
 					"Hit user defined breakpoint on %s", source);
@@ -146,6 +192,22 @@ public class ObservableDebugger extends SteppingDebugger {
 		return hit;
 	}
 
+	/**
+	 * Reports the message of a tracepoint on the {@link Channel#BREAKPOINTS}
+	 * channel.
+	 */
+	@Override
+	protected void tracepointHit(UserBreakpoint breakpoint, String message,
+			Object... args) {
+		if (isObserved(Channel.BREAKPOINTS)) {
+			DebugEvent event = new DebugEvent(getRunMode(), getName(),
+					Channel.BREAKPOINTS, breakpoint, breakpoint.getSource(),
+					"Tracepoint on %s: %s", breakpoint.getSource(),
+					breakpoint.getLogMessage());
+			notifyObservers(Channel.BREAKPOINTS, event);
+		}
+	}
+
 	@Override
 	public String toString() {
 		return super.toString() + "\nObservers per channel:\n"
@@ -19,14 +19,14 @@
 package goal.tools.debugger;
 
 import eis.iilang.EnvironmentState;
-import goal.core.agent.Agent;
 import goal.core.runtime.service.environmentport.EnvironmentPort;
 import goal.preferences.PMPreferences;
-import goal.tools.IDEGOALInterpreter;
-import goal.tools.LaunchManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -181,16 +181,26 @@ public class SteppingDebugger implements Debugger {
 	/**
 	 * The default run mode of the debugger: run without stopping anywhere.
 	 */
-	protected RunMode runMode;
+	protected volatile RunMode runMode;
 	/**
 	 * If set to true, any encountered breakpoint will be ignored
 	 */
-	protected boolean keepRunning = false;
+	protected volatile boolean keepRunning = false;
 	/**
-	 * If an ID is in this set, we break on it.
+	 * The breakpoints set by the user; replaced (not changed) when the
+	 * breakpoints change.
 	 */
-	private final Set<Integer> breakpointIds = new HashSet<>();
-	private final Map<Integer, Integer> had = new HashMap<>();
+	private volatile Breakpoints breakpoints = Breakpoints.NONE;
+	/**
+	 * Evaluates the conditions of the breakpoints; null if conditions can not
+	 * be evaluated (then they are considered to hold).
+	 */
+	private volatile UserBreakpoint.ConditionEvaluator conditionEvaluator = null;
+	/**
+	 * The breakpoint the agent last stopped on in the current cycle, so that
+	 * the agent does not stop twice on the same breakpoint in a cycle.
+	 */
+	private Armed stoppedInCycle = null;
 
 	/**
 	 * Creates debugger for given label. Names other than agent names are used
@@ -303,6 +313,9 @@ public class SteppingDebugger implements Debugger {
 		if (this.keepRunning) {
 			return;
 		}
+		if (channel == Channel.REASONING_CYCLE_SEPARATOR) {
+			this.stoppedInCycle = null;
+		}
 		if (checkUserBreakpointHit(associateSource, message, args)) {
 			setRunMode(RunMode.PAUSED);
 		}
@@ -337,6 +350,19 @@ public class SteppingDebugger implements Debugger {
 		return;
 	}
 
+	/**
+	 * {@inheritDoc} A stepping debugger only ignores breakpoints when it is
+	 * running and no user breakpoints have been set.
+	 */
+	@Override
+	public boolean isEnabled(Channel channel) {
+		if (this.keepRunning) {
+			return false;
+		}
+		return this.runMode != RunMode.RUNNING
+				|| !this.breakpoints.isEmpty();
+	}
+
 	/**
 	 * Waits as long as we are in {@link RunMode#PAUSED} mode.
 	 */
@@ -481,27 +507,54 @@ public class SteppingDebugger implements Debugger {
 	/********************* Breakpoint Handling **************************/
 	/********************************************************************/
 	/**
-	 * Check if we hit a user set breakpoint. Notify observers if that is the
-	 * case
+	 * Check if we hit a user set breakpoint. The condition and hit count of
+	 * the breakpoint are checked here, in the thread of the agent; a
+	 * tracepoint is reported by {@link #tracepointHit} and never stops the
+	 * agent.
+	 *
+	 * @return true if the agent should stop.
 	 */
 	protected boolean checkUserBreakpointHit(SourceInfo source, String message,
 			Object... args) {
-		if (source != null && this.breakpointIds.contains(source.hashCode())) {
-			final Agent<IDEGOALInterpreter> agent = LaunchManager.getCurrent()
-					.getRuntimeManager().getAgent(new AgentId(this.name));
-			if (agent != null) {
-				final int round = agent.getController().getRunState()
-						.getRoundCounter();
-				final Integer get = this.had.get(round);
-				if (get != null && get.intValue() == source.hashCode()) {
-					return false;
-				}
-				this.had.put(round, source.hashCode());
+		if (source == null) {
+			return false;
+		}
+		final Armed armed = this.breakpoints.get(source);
+		if (armed == null || armed == this.stoppedInCycle) {
+			return false;
+		}
+		final UserBreakpoint breakpoint = armed.breakpoint;
+		if (breakpoint.getCondition() != null) {
+			final UserBreakpoint.ConditionEvaluator evaluator = this.conditionEvaluator;
+			if (evaluator != null
+					&& !evaluator.holds(breakpoint.getCondition())) {
+				return false;
 			}
-			return true;
-		} else {
+		}
+		if (++armed.hits % breakpoint.getHitCount() != 0) {
 			return false;
 		}
+		if (breakpoint.isTracepoint()) {
+			tracepointHit(breakpoint, message, args);
+			return false;
+		}
+		this.stoppedInCycle = armed;
+		return true;
+	}
+
+	/**
+	 * Called when a tracepoint is hit (and its condition and hit count allow
+	 * it). Does nothing by default.
+	 *
+	 * @param breakpoint
+	 *            the tracepoint.
+	 * @param message
+	 *            the message of the breakpoint the agent was at.
+	 * @param args
+	 *            the arguments of the message.
+	 */
+	protected void tracepointHit(UserBreakpoint breakpoint, String message,
+			Object... args) {
 	}
 
 	/**
@@ -512,12 +565,31 @@ public class SteppingDebugger implements Debugger {
 	 *            The set of breakpoints.
 	 */
 	public void setBreakpoints(Set<SourceInfo> breakpoints) {
-		this.breakpointIds.clear();
+		final List<UserBreakpoint> unconditional = new ArrayList<>();
 		if (breakpoints != null) {
 			for (SourceInfo breakpoint : breakpoints) {
-				setBreakpoint(breakpoint);
+				unconditional.add(new UserBreakpoint(breakpoint));
+			}
+		}
+		setUserBreakpoints(unconditional);
+	}
+
+	/**
+	 * Replaces the breakpoints of this debugger. The hits of the breakpoints
+	 * are counted from 0 again.
+	 *
+	 * @param breakpoints
+	 *            The breakpoints; null to remove all breakpoints.
+	 */
+	public synchronized void setUserBreakpoints(
+			Collection<UserBreakpoint> breakpoints) {
+		final Map<SourceInfo, Armed> byPosition = new HashMap<>();
+		if (breakpoints != null) {
+			for (UserBreakpoint breakpoint : breakpoints) {
+				byPosition.put(breakpoint.getSource(), new Armed(breakpoint));
 			}
 		}
+		this.breakpoints = new Breakpoints(byPosition);
 	}
 
 	/**
@@ -527,7 +599,19 @@ public class SteppingDebugger implements Debugger {
 	 *            The breakpoint's SourceInfo.
 	 */
 	public void setBreakpoint(SourceInfo point) {
-		this.breakpointIds.add(point.hashCode());
+		setBreakpoint(new UserBreakpoint(point));
+	}
+
+	/**
+	 * Sets a breakpoint, replacing any breakpoint at the same position.
+	 *
+	 * @param breakpoint
+	 *            The breakpoint.
+	 */
+	public synchronized void setBreakpoint(UserBreakpoint breakpoint) {
+		final Map<SourceInfo, Armed> byPosition = this.breakpoints.copy();
+		byPosition.put(breakpoint.getSource(), new Armed(breakpoint));
+		this.breakpoints = new Breakpoints(byPosition);
 	}
 
 	/**
@@ -536,8 +620,85 @@ public class SteppingDebugger implements Debugger {
 	 * @param id
 	 *            The breakpoint's SourceInfo.
 	 */
-	public void unsetBreakpoint(SourceInfo point) {
-		this.breakpointIds.remove(point.hashCode());
+	public synchronized void unsetBreakpoint(SourceInfo point) {
+		final Map<SourceInfo, Armed> byPosition = this.breakpoints.copy();
+		byPosition.remove(point);
+		this.breakpoints = new Breakpoints(byPosition);
+	}
+
+	/**
+	 * @param evaluator
+	 *            evaluates the conditions of breakpoints; null to consider
+	 *            all conditions to hold.
+	 */
+	public void setConditionEvaluator(
+			UserBreakpoint.ConditionEvaluator evaluator) {
+		this.conditionEvaluator = evaluator;
+	}
+
+	/**
+	 * A breakpoint with the number of times this debugger has hit it. Only
+	 * used by the thread of the agent.
+	 */
+	private static final class Armed {
+		private final UserBreakpoint breakpoint;
+		private long hits = 0;
+
+		private Armed(UserBreakpoint breakpoint) {
+			this.breakpoint = breakpoint;
+		}
+	}
+
+	/**
+	 * The breakpoints of a debugger, by position. The {@link SourceInfo}
+	 * objects that an agent reports are those of its program, so the same
+	 * objects are reported every time a position is reached. The breakpoint
+	 * (or its absence) at an object is therefore remembered by identity, so
+	 * that the hash code and equality of source positions are only computed
+	 * the first time an object is reached.
+	 */
+	private static final class Breakpoints {
+		private static final Breakpoints NONE = new Breakpoints(
+				new HashMap<SourceInfo, Armed>(0));
+		/**
+		 * The maximum number of objects to remember; positions that are
+		 * created while the agent runs (e.g. of percepts) are never reached
+		 * again.
+		 */
+		private static final int MAX_RESOLVED = 4096;
+		private static final Armed ABSENT = new Armed(null);
+
+		private final Map<SourceInfo, Armed> byPosition;
+		private final Map<SourceInfo, Armed> resolved = new IdentityHashMap<>();
+
+		private Breakpoints(Map<SourceInfo, Armed> byPosition) {
+			this.byPosition = byPosition;
+		}
+
+		private boolean isEmpty() {
+			return this.byPosition.isEmpty();
+		}
+
+		private Armed get(SourceInfo source) {
+			if (this.byPosition.isEmpty()) {
+				return null;
+			}
+			synchronized (this.resolved) {
+				Armed armed = this.resolved.get(source);
+				if (armed == null) {
+					if (this.resolved.size() >= MAX_RESOLVED) {
+						this.resolved.clear();
+					}
+					armed = this.byPosition.get(source);
+					this.resolved.put(source, (armed == null) ? ABSENT : armed);
+				}
+				return (armed == ABSENT) ? null : armed;
+			}
+		}
+
+		private Map<SourceInfo, Armed> copy() {
+			return new HashMap<>(this.byPosition);
+		}
 	}
 
 	@Override
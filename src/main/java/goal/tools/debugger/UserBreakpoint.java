@@ -0,0 +1,123 @@
+package goal.tools.debugger;
+
+import krTools.parser.SourceInfo;
+
+/**
+ * A breakpoint that a user has set on a position in a program, as used by a
+ * {@link SteppingDebugger}. Besides the position, a breakpoint may have:
+ * <ul>
+ * <li>a condition: a mental state condition that should hold for the agent
+ * to stop;</li>
+ * <li>a hit count: the agent only stops on every so many hits (on which the
+ * condition held);</li>
+ * <li>a log message: the agent does not stop at all but reports the message
+ * instead (a tracepoint).</li>
+ * </ul>
+ * All of these are checked in the thread of the agent, so the agent is only
+ * paused when it should actually stop.
+ * <p>
+ * A breakpoint is immutable and can be shared by the debuggers of several
+ * agents; every debugger counts its own hits.
+ * </p>
+ */
+public class UserBreakpoint {
+	/**
+	 * Evaluates the conditions of breakpoints on the mental state of an agent.
+	 */
+	public interface ConditionEvaluator {
+		/**
+		 * @param condition
+		 *            a mental state condition.
+		 * @return true if the condition holds.
+		 */
+		boolean holds(String condition);
+	}
+
+	private final SourceInfo source;
+	private final String condition;
+	private final int hitCount;
+	private final String logMessage;
+
+	/**
+	 * Creates a breakpoint that always stops.
+	 *
+	 * @param source
+	 *            the position of the breakpoint.
+	 */
+	public UserBreakpoint(SourceInfo source) {
+		this(source, null, 0, null);
+	}
+
+	/**
+	 * @param source
+	 *            the position of the breakpoint.
+	 * @param condition
+	 *            the mental state condition that should hold to stop, or
+	 *            null (or empty) to stop regardless of the mental state.
+	 * @param hitCount
+	 *            stop only on every so many hits; 0 or 1 to stop on every
+	 *            hit.
+	 * @param logMessage
+	 *            the message to report instead of stopping, or null (or
+	 *            empty) to stop.
+	 */
+	public UserBreakpoint(SourceInfo source, String condition, int hitCount,
+			String logMessage) {
+		this.source = source;
+		this.condition = (condition == null || condition.trim().isEmpty()) ? null
+				: condition.trim();
+		this.hitCount = Math.max(1, hitCount);
+		this.logMessage = (logMessage == null || logMessage.isEmpty()) ? null
+				: logMessage;
+	}
+
+	public SourceInfo getSource() {
+		return this.source;
+	}
+
+	/**
+	 * @return the condition that should hold to stop, or null if there is
+	 *         none.
+	 */
+	public String getCondition() {
+		return this.condition;
+	}
+
+	/**
+	 * @return the number of hits after which to stop; 1 to stop on every hit.
+	 */
+	public int getHitCount() {
+		return this.hitCount;
+	}
+
+	/**
+	 * @return the message to report, or null if this is not a tracepoint.
+	 */
+	public String getLogMessage() {
+		return this.logMessage;
+	}
+
+	/**
+	 * @return true if this breakpoint only reports a message and never stops.
+	 */
+	public boolean isTracepoint() {
+		return this.logMessage != null;
+	}
+
+	/**
+	 * @return true if the breakpoint always stops.
+	 */
+	public boolean isUnconditional() {
+		return this.condition == null && this.hitCount == 1
+				&& this.logMessage == null;
+	}
+
+	@Override
+	public String toString() {
+		return "UserBreakpoint[" + this.source
+				+ ((this.condition == null) ? "" : ", if " + this.condition)
+				+ ((this.hitCount == 1) ? "" : ", every " + this.hitCount)
+				+ ((this.logMessage == null) ? "" : ", log " + this.logMessage)
+				+ "]";
+	}
+}
@@ -0,0 +1,322 @@
+package goal.tools.eclipse;
+
+import goal.tools.eclipse.DebugCommand.Command;
+import goal.tools.eclipse.DebugCommand.StubBoxId;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import languageTools.program.agent.AgentId;
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId;
+
+/**
+ * A compact binary encoding of {@link DebugCommand}s.
+ * <p>
+ * Both directions start with the {@link #MAGIC} bytes and the
+ * {@link #VERSION} of the protocol. After that, every message is a frame: its
+ * length followed by the frame type and its fields. Numbers are encoded as
+ * unsigned variable-length integers (7 bits per byte, least significant
+ * first) and strings as their length in bytes followed by their UTF-8 bytes.
+ * The frame types are:
+ * <ul>
+ * <li>{@link #DEFINE_AGENT} and {@link #DEFINE_ENVIRONMENT}: an id and a name.
+ * The name of an agent or environment is only sent once; commands refer to it
+ * by its id.</li>
+ * <li>{@link #COMMAND}: the ordinal of the {@link Command}, the id of the
+ * agent, the id of the environment (0 if there is none), the number of data
+ * strings and the data strings.</li>
+ * <li>{@link #TEXT}: a string that is not a command, e.g. an error message.</li>
+ * </ul>
+ * Frames of an unknown type are skipped. The ordinals of the commands may
+ * change between versions of the protocol.
+ * </p>
+ * <p>
+ * Reading and writing may be done by different threads, but writing is not
+ * thread safe.
+ * </p>
+ */
+public class BinaryDebugProtocol implements DebugProtocol {
+	public static final byte[] MAGIC = { 'G', 'D', 'B', 'P' };
+	public static final int VERSION = 1;
+
+	public static final int DEFINE_AGENT = 1;
+	public static final int DEFINE_ENVIRONMENT = 2;
+	public static final int COMMAND = 3;
+	public static final int TEXT = 4;
+
+	/**
+	 * Frames that are larger than this are considered to be garbage.
+	 */
+	private static final int MAX_FRAME = 64 * 1024 * 1024;
+	private static final Charset UTF8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+	private static final Command[] COMMANDS = Command.values();
+
+	private final DataInputStream input;
+	private final OutputStream output;
+	private final Frame frame = new Frame();
+	private final Map<String, Integer> agentIds = new HashMap<>();
+	private final Map<String, Integer> environmentIds = new HashMap<>();
+	private final Map<Integer, AgentId> agents = new HashMap<>();
+	private final Map<Integer, MessageBoxId> environments = new HashMap<>();
+	private boolean headerRead = false;
+
+	public BinaryDebugProtocol(final InputStream is, final OutputStream os)
+			throws IOException {
+		this.input = new DataInputStream(new BufferedInputStream(is));
+		this.output = new BufferedOutputStream(os, 64 * 1024);
+		this.output.write(MAGIC);
+		this.output.write(VERSION);
+	}
+
+	@Override
+	public DebugCommand read() throws Exception {
+		if (!this.headerRead) {
+			final byte[] magic = new byte[MAGIC.length];
+			try {
+				this.input.readFully(magic);
+			} catch (final EOFException e) {
+				return null;
+			}
+			if (!Arrays.equals(magic, MAGIC)) {
+				throw new IOException("Not a binary debug stream.");
+			}
+			final int version = this.input.read();
+			if (version != VERSION) {
+				throw new IOException("Unsupported debug protocol version "
+						+ version + ".");
+			}
+			this.headerRead = true;
+		}
+		while (true) {
+			final int length;
+			try {
+				length = readVarint(this.input);
+			} catch (final EOFException e) {
+				return null;
+			}
+			if (length <= 0 || length > MAX_FRAME) {
+				throw new IOException("Invalid frame length " + length + ".");
+			}
+			final byte[] bytes = new byte[length];
+			this.input.readFully(bytes);
+			final Reader reader = new Reader(bytes);
+			switch (reader.readByte()) {
+			case DEFINE_AGENT:
+				final int agent = reader.readVarint();
+				this.agents.put(agent, new AgentId(reader.readString()));
+				break;
+			case DEFINE_ENVIRONMENT:
+				final int environment = reader.readVarint();
+				this.environments.put(environment,
+						new StubBoxId(reader.readString()));
+				break;
+			case COMMAND:
+				return readCommand(reader);
+			case TEXT:
+				throw new Exception("Not a debug command: "
+						+ reader.readString());
+			default:
+				// a frame of a later version.
+				break;
+			}
+		}
+	}
+
+	private DebugCommand readCommand(final Reader reader) throws Exception {
+		final int ordinal = reader.readByte();
+		if (ordinal < 0 || ordinal >= COMMANDS.length) {
+			throw new Exception("Unknown debug command " + ordinal + ".");
+		}
+		final Command command = COMMANDS[ordinal];
+		final AgentId agent = lookup(this.agents, reader.readVarint());
+		final MessageBoxId environment = lookup(this.environments,
+				reader.readVarint());
+		final int size = reader.readVarint();
+		final List<String> data = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			data.add(reader.readString());
+		}
+		if (agent != null) {
+			return new DebugCommand(command, agent, data);
+		} else if (environment != null) {
+			return new DebugCommand(command, environment, data);
+		} else {
+			return new DebugCommand(command, data);
+		}
+	}
+
+	private static <T> T lookup(final Map<Integer, T> ids, final int id)
+			throws Exception {
+		if (id == 0) {
+			return null;
+		}
+		final T value = ids.get(id);
+		if (value == null) {
+			throw new Exception("Undefined id " + id + " in debug command.");
+		}
+		return value;
+	}
+
+	@Override
+	public void write(final DebugCommand command) throws IOException {
+		final int agent = (command.getAgent() == null) ? 0 : intern(
+				this.agentIds, DEFINE_AGENT, command.getAgent().getName());
+		final int environment = (command.getEnvironment() == null) ? 0
+				: intern(this.environmentIds, DEFINE_ENVIRONMENT, command
+						.getEnvironment().getName());
+		final List<String> data = command.getAllData();
+		this.frame.reset();
+		this.frame.write(COMMAND);
+		this.frame.write(command.getCommand().ordinal());
+		this.frame.writeVarint(agent);
+		this.frame.writeVarint(environment);
+		this.frame.writeVarint(data.size());
+		for (final String string : data) {
+			this.frame.writeString(string);
+		}
+		sendFrame();
+	}
+
+	@Override
+	public void write(final String text) throws IOException {
+		this.frame.reset();
+		this.frame.write(TEXT);
+		this.frame.writeString(text);
+		sendFrame();
+	}
+
+	/**
+	 * @return the id of the name, after defining it if it has not been used
+	 *         before.
+	 */
+	private int intern(final Map<String, Integer> ids, final int type,
+			final String name) throws IOException {
+		Integer id = ids.get(name);
+		if (id == null) {
+			id = ids.size() + 1;
+			ids.put(name, id);
+			this.frame.reset();
+			this.frame.write(type);
+			this.frame.writeVarint(id);
+			this.frame.writeString(name);
+			sendFrame();
+		}
+		return id;
+	}
+
+	private void sendFrame() throws IOException {
+		writeVarint(this.output, this.frame.size());
+		this.frame.writeTo(this.output);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		this.output.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.output.close();
+		} finally {
+			this.input.close();
+		}
+	}
+
+	private static void writeVarint(final OutputStream out, int value)
+			throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(final InputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			final int b = in.read();
+			if (b < 0) {
+				throw new EOFException();
+			}
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed number in debug stream.");
+	}
+
+	/**
+	 * The frame that is being written; reused for every frame.
+	 */
+	private static class Frame extends ByteArrayOutputStream {
+		Frame() {
+			super(256);
+		}
+
+		void writeVarint(final int value) throws IOException {
+			BinaryDebugProtocol.writeVarint(this, value);
+		}
+
+		void writeString(final String string) throws IOException {
+			final byte[] bytes = string.getBytes(UTF8);
+			writeVarint(bytes.length);
+			write(bytes);
+		}
+	}
+
+	/**
+	 * Reads the fields of a frame that has been read.
+	 */
+	private static class Reader {
+		private final byte[] bytes;
+		private int position = 0;
+
+		Reader(final byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		int readByte() throws IOException {
+			if (this.position >= this.bytes.length) {
+				throw new EOFException("Truncated debug frame.");
+			}
+			return this.bytes[this.position++] & 0xFF;
+		}
+
+		int readVarint() throws IOException {
+			int value = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				final int b = readByte();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IOException("Malformed number in debug frame.");
+		}
+
+		String readString() throws IOException {
+			final int length = readVarint();
+			if (length < 0 || length > this.bytes.length - this.position) {
+				throw new EOFException("Truncated debug frame.");
+			}
+			final String string = new String(this.bytes, this.position,
+					length, UTF8);
+			this.position += length;
+			return string;
+		}
+	}
+}
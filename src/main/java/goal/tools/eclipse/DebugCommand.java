@@ -13,7 +13,7 @@ public class DebugCommand {
 
 	public enum Command {
 		// received
-		PAUSE, RUN, STEP, BREAKS, STOP,
+		PAUSE, RUN, STEP, BREAKS, CHANNELS, STOP,
 		// received and/or sent
 		EVAL,
 		// sent
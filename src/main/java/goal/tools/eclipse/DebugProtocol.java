@@ -0,0 +1,58 @@
+package goal.tools.eclipse;
+
+import java.io.IOException;
+
+/**
+ * The encoding of the {@link DebugCommand}s that are exchanged with the
+ * Eclipse plug-in. Writes are buffered until {@link #flush()} is called, so
+ * that several commands can be sent at once.
+ */
+public interface DebugProtocol {
+	/**
+	 * Reads the next command.
+	 *
+	 * @return the command, or null at the end of the stream.
+	 * @throws IOException
+	 *             if the stream can not be read.
+	 * @throws Exception
+	 *             if what was read is not a debug command.
+	 */
+	DebugCommand read() throws Exception;
+
+	/**
+	 * Writes a command to the buffer.
+	 *
+	 * @param command
+	 *            the command.
+	 * @throws IOException
+	 *             if the stream can not be written to.
+	 */
+	void write(DebugCommand command) throws IOException;
+
+	/**
+	 * Writes a line of text that is not a command, e.g. the message of an
+	 * error, to the buffer.
+	 *
+	 * @param text
+	 *            the text.
+	 * @throws IOException
+	 *             if the stream can not be written to.
+	 */
+	void write(String text) throws IOException;
+
+	/**
+	 * Sends everything in the buffer.
+	 *
+	 * @throws IOException
+	 *             if the stream can not be written to.
+	 */
+	void flush() throws IOException;
+
+	/**
+	 * Flushes and closes both streams.
+	 *
+	 * @throws IOException
+	 *             if a stream can not be closed.
+	 */
+	void close() throws IOException;
+}
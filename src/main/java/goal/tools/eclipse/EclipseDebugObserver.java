@@ -15,6 +15,7 @@ import goal.tools.debugger.SteppingDebugger.RunMode;
 import goal.tools.eclipse.DebugCommand.Command;
 
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -31,6 +32,22 @@ import languageTools.program.agent.actions.UserSpecAction;
 import mentalState.BASETYPE;
 
 public class EclipseDebugObserver implements DebugObserver {
+	/**
+	 * The channels of which the events are sent to the plug-in as commands
+	 * (besides as a log message).
+	 */
+	private static final Set<Channel> HANDLED = EnumSet.of(Channel.RUNMODE,
+			Channel.INIT_MODULE_ENTRY, Channel.EVENT_MODULE_ENTRY,
+			Channel.MAIN_MODULE_ENTRY, Channel.USER_MODULE_ENTRY,
+			Channel.INIT_MODULE_EXIT, Channel.EVENT_MODULE_EXIT,
+			Channel.MAIN_MODULE_EXIT, Channel.USER_MODULE_EXIT,
+			Channel.BB_UPDATES, Channel.PERCEPTS_CONDITIONAL_VIEW,
+			Channel.MAILS_CONDITIONAL_VIEW, Channel.GB_UPDATES,
+			Channel.GOAL_ACHIEVED, Channel.GB_CHANGES,
+			Channel.RULE_CONDITION_EVALUATION,
+			Channel.ACTION_PRECOND_EVALUATION_USERSPEC, Channel.CALL_MODULE,
+			Channel.ACTION_EXECUTED_USERSPEC);
+
 	private final Agent<IDEGOALInterpreter> agent;
 	private final InputReaderWriter writer;
 	private SourceInfo source;
@@ -56,16 +73,58 @@ public class EclipseDebugObserver implements DebugObserver {
 	 * Subscribe to everything we want to listen to
 	 */
 	public void subscribe() {
-		final IDEDebugger debugger = this.agent.getController().getDebugger();
-		for (Channel channel : Channel.values()) {
-			// Listen to all channels to update the agent's source position
-			debugger.subscribe(this, channel);
-		}
+		subscribe(null);
+	}
+
+	/**
+	 * Subscribe to the given channels, see {@link #setChannels(Set)}.
+	 *
+	 * @param channels
+	 *            the channels, or null for the default channels.
+	 */
+	public void subscribe(final Set<Channel> channels) {
+		setChannels(channels);
 		// Let the world know we're here
 		this.writer
 				.write(new DebugCommand(Command.LAUNCHED, this.agent.getId()));
 	}
 
+	/**
+	 * Changes the channels that are sent to the plug-in. The debugger only
+	 * produces events for channels that someone subscribed to, so events of
+	 * other channels are not created, let alone encoded. The
+	 * {@link Channel#RUNMODE} is always sent.
+	 *
+	 * @param channels
+	 *            the channels, or null for the default channels: the channels
+	 *            that are sent as commands and, if agent consoles are enabled
+	 *            (see {@link LoggingPreferences#getEclipseAgentConsoles()}),
+	 *            the channels that can be viewed.
+	 */
+	public synchronized void setChannels(final Set<Channel> channels) {
+		final Set<Channel> subscribed = EnumSet.of(Channel.RUNMODE);
+		if (channels == null) {
+			subscribed.addAll(HANDLED);
+			if (LoggingPreferences.getEclipseAgentConsoles()) {
+				for (final Channel channel : Channel.values()) {
+					if (DebugPreferences.getChannelState(channel).canView()) {
+						subscribed.add(channel);
+					}
+				}
+			}
+		} else {
+			subscribed.addAll(channels);
+		}
+		final IDEDebugger debugger = this.agent.getController().getDebugger();
+		for (final Channel channel : Channel.values()) {
+			if (subscribed.contains(channel)) {
+				debugger.subscribe(this, channel);
+			} else {
+				debugger.unsubscribe(this, channel);
+			}
+		}
+	}
+
 	@Override
 	public String getObserverName() {
 		return "EclipseDebugObserver";
@@ -109,7 +168,7 @@ public class EclipseDebugObserver implements DebugObserver {
 			break;
 		case BB_UPDATES:
 			final DatabaseFormula belief = (DatabaseFormula) object;
-			if (event.getMessage().contains("has been inserted")) {
+			if (isInsert(event)) {
 				this.writer.write(new DebugCommand(Command.INSERTED_BEL,
 						agentId, belief.toString()));
 			} else {
@@ -119,7 +178,7 @@ public class EclipseDebugObserver implements DebugObserver {
 			break;
 		case PERCEPTS_CONDITIONAL_VIEW:
 			final DatabaseFormula percept = (DatabaseFormula) object;
-			if (event.getMessage().contains("has been inserted")) {
+			if (isInsert(event)) {
 				this.writer.write(new DebugCommand(Command.INSERTED_PERCEPT,
 						agentId, percept.toString()));
 			} else {
@@ -129,7 +188,7 @@ public class EclipseDebugObserver implements DebugObserver {
 			break;
 		case MAILS_CONDITIONAL_VIEW:
 			final DatabaseFormula mail = (DatabaseFormula) object;
-			if (event.getMessage().contains("has been inserted")) {
+			if (isInsert(event)) {
 				this.writer.write(new DebugCommand(Command.INSERTED_MAIL,
 						agentId, mail.toString()));
 			} else {
@@ -140,16 +199,12 @@ public class EclipseDebugObserver implements DebugObserver {
 		case GB_UPDATES:
 		case GOAL_ACHIEVED:
 			final SingleGoal goal = (SingleGoal) object;
-			String name = "main";
-			final String msg = event.getMessage();
-			final String find = "goal base: ";
-			final int start = msg.indexOf(find);
-			if (start > 0) {
-				final int end = msg.lastIndexOf('.');
-				name = msg.substring(start + find.length(), end);
-			}
-			name = goal + " [" + name + "]";
-			if (event.getMessage().contains("has been adopted")) {
+			// the name of the goal base is the last argument, if any.
+			final Object[] args = event.getRawArguments();
+			final String base = (args.length > 1) ? String
+					.valueOf(args[args.length - 1]) : "main";
+			final String name = goal + " [" + base + "]";
+			if (event.getRawMessage().startsWith("%s has been adopted")) {
 				this.writer.write(new DebugCommand(Command.ADOPTED, agentId,
 						name));
 			} else {
@@ -158,13 +213,13 @@ public class EclipseDebugObserver implements DebugObserver {
 			}
 			break;
 		case GB_CHANGES:
-			final GoalBase base = (GoalBase) object;
-			if (event.getMessage().contains("focused to")) {
-				this.writer.write(new DebugCommand(Command.FOCUS, agentId, base
-						.getName()));
+			final GoalBase attentionSet = (GoalBase) object;
+			if (event.getRawMessage().startsWith("focused to")) {
+				this.writer.write(new DebugCommand(Command.FOCUS, agentId,
+						attentionSet.getName()));
 			} else {
 				this.writer.write(new DebugCommand(Command.DEFOCUS, agentId,
-						base.getName()));
+						attentionSet.getName()));
 			}
 			break;
 		case RULE_CONDITION_EVALUATION:
@@ -230,6 +285,16 @@ public class EclipseDebugObserver implements DebugObserver {
 		}
 	}
 
+	/**
+	 * Classifies a belief, percept or mail update by its (unformatted)
+	 * message, so that the message does not have to be formatted.
+	 *
+	 * @return true if the event is about an insertion.
+	 */
+	private static boolean isInsert(final DebugEvent event) {
+		return event.getRawMessage().startsWith("%s has been inserted");
+	}
+
 	/**
 	 * Send a message to the stream to suspend the agent at its last known
 	 * source position (code that has been run)
@@ -6,19 +6,22 @@ import goal.core.runtime.RuntimeEventObserver;
 import goal.core.runtime.RuntimeManager;
 import goal.core.runtime.service.environmentport.EnvironmentPort;
 import goal.tools.IDEGOALInterpreter;
+import goal.tools.debugger.Channel;
 import goal.tools.eclipse.DebugCommand.Command;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import languageTools.program.agent.AgentId;
 
 public class EclipseEventObserver implements RuntimeEventObserver {
 	private final Map<AgentId, EclipseDebugObserver> observers;
 	private InputReaderWriter writer;
+	private volatile Set<Channel> channels = null;
 
 	public EclipseEventObserver() {
-		this.observers = new HashMap<>();
+		this.observers = new ConcurrentHashMap<>();
 	}
 
 	public void setWriter(final InputReaderWriter writer) {
@@ -54,8 +57,10 @@ public class EclipseEventObserver implements RuntimeEventObserver {
 					.getSource();
 			final EclipseDebugObserver debugobserver = new EclipseDebugObserver(
 					agent, this.writer);
-			debugobserver.subscribe();
+			// registered first, so that it also gets channels that are set
+			// while it subscribes.
 			this.observers.put(agent.getId(), debugobserver);
+			debugobserver.subscribe(this.channels);
 			break;
 		default:
 			break;
@@ -64,6 +69,25 @@ public class EclipseEventObserver implements RuntimeEventObserver {
 
 	public EclipseDebugObserver getObserver(
 			final Agent<IDEGOALInterpreter> agent) {
-		return this.observers.get(agent.getId());
+		return getObserver(agent.getId());
+	}
+
+	public EclipseDebugObserver getObserver(final AgentId agent) {
+		return this.observers.get(agent);
+	}
+
+	/**
+	 * Changes the channels that all agents, including agents that are
+	 * launched later, send to the plug-in; see
+	 * {@link EclipseDebugObserver#setChannels(Set)}.
+	 *
+	 * @param channels
+	 *            the channels, or null for the default channels.
+	 */
+	public void setChannels(final Set<Channel> channels) {
+		this.channels = channels;
+		for (final EclipseDebugObserver observer : this.observers.values()) {
+			observer.setChannels(channels);
+		}
 	}
 }
@@ -1,8 +1,12 @@
 package goal.tools.eclipse;
 
 import goal.tools.debugger.BreakPoint;
+import goal.tools.errorhandling.exceptions.GOALBug;
 
 import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -10,6 +14,12 @@ import java.util.Set;
 
 public final class GoalBreakpointManager {
 	private final static String DELIMITER = "|";
+	/**
+	 * Separates the type of a breakpoint from its hit count, condition and log
+	 * message (which are URL-encoded, so they contain no delimiters).
+	 */
+	private final static String OPTIONS = ":";
+	private final static String ENCODING = "UTF-8";
 	private final static Map<String, GoalBreakpointManager> breakManagers = new HashMap<String, GoalBreakpointManager>();
 	private final File file;
 	private final Map<Integer, BreakPoint> breakpoints;
@@ -43,6 +53,12 @@ public final class GoalBreakpointManager {
 		this.breakpoints.put(line, new BreakPoint(this.file, line, type));
 	}
 
+	public void addBreakpoint(final int line, final BreakPoint.Type type,
+			final String condition, final int hitCount, final String logMessage) {
+		this.breakpoints.put(line, new BreakPoint(this.file, line, type,
+				condition, hitCount, logMessage));
+	}
+
 	public void removeBreakpoint(final int line) {
 		this.breakpoints.remove(line);
 	}
@@ -60,6 +76,12 @@ public final class GoalBreakpointManager {
 			final BreakPoint point = this.breakpoints.get(i);
 			buffer.append(DELIMITER).append(point.getLine()).append(DELIMITER)
 					.append(point.getType().name());
+			if (point.getCondition() != null || point.getHitCount() != 1
+					|| point.getLogMessage() != null) {
+				buffer.append(OPTIONS).append(point.getHitCount())
+						.append(OPTIONS).append(encode(point.getCondition()))
+						.append(OPTIONS).append(encode(point.getLogMessage()));
+			}
 		}
 		return buffer.toString();
 	}
@@ -70,12 +92,38 @@ public final class GoalBreakpointManager {
 		final GoalBreakpointManager manager = new GoalBreakpointManager(f);
 		final int size = Integer.parseInt(s[1]) * 2;
 		for (int i = 2; i <= (size + 1); i += 2) {
-			manager.addBreakpoint(Integer.parseInt(s[i]),
-					BreakPoint.Type.valueOf(s[i + 1]));
+			// TYPE, or TYPE:hitcount:condition:logmessage
+			final String[] options = s[i + 1].split(OPTIONS, -1);
+			if (options.length < 4) {
+				manager.addBreakpoint(Integer.parseInt(s[i]),
+						BreakPoint.Type.valueOf(options[0]));
+			} else {
+				manager.addBreakpoint(Integer.parseInt(s[i]),
+						BreakPoint.Type.valueOf(options[0]),
+						decode(options[2]), Integer.parseInt(options[1]),
+						decode(options[3]));
+			}
 		}
 		return manager;
 	}
 
+	private static String encode(final String string) {
+		try {
+			return (string == null) ? "" : URLEncoder.encode(string, ENCODING);
+		} catch (final UnsupportedEncodingException e) {
+			throw new GOALBug(ENCODING + " is not supported", e);
+		}
+	}
+
+	private static String decode(final String string) {
+		try {
+			return string.isEmpty() ? null : URLDecoder
+					.decode(string, ENCODING);
+		} catch (final UnsupportedEncodingException e) {
+			throw new GOALBug(ENCODING + " is not supported", e);
+		}
+	}
+
 	public static String saveAll() {
 		final StringBuffer buffer = new StringBuffer();
 		for (final GoalBreakpointManager manager : breakManagers.values()) {
@@ -3,45 +3,117 @@ package goal.tools.eclipse;
 import eis.iilang.EnvironmentState;
 import goal.core.agent.Agent;
 import goal.core.runtime.RuntimeManager;
+import goal.core.runtime.RuntimeRegistry;
 import goal.core.runtime.service.environmentport.EnvironmentPort;
 import goal.preferences.LoggingPreferences;
 import goal.tools.BreakpointManager;
 import goal.tools.IDEDebugger;
 import goal.tools.IDEGOALInterpreter;
 import goal.tools.PlatformManager;
+import goal.tools.debugger.Channel;
+import goal.tools.debugger.UserBreakpoint;
 import goal.tools.eclipse.DebugCommand.Command;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
-import krTools.parser.SourceInfo;
-
+/**
+ * Reads the commands of the Eclipse plug-in and executes them, and sends
+ * messages to the plug-in, using a {@link DebugProtocol}.
+ * <p>
+ * Messages are not sent at once, but collected during a batch window (see
+ * {@link LoggingPreferences#getEclipseBatchWindow()}) and then sent
+ * together.
+ * </p>
+ */
 public class InputReaderWriter extends Thread {
-	private final BufferedReader input;
-	private final BufferedWriter output;
+	/**
+	 * The maximum number of messages that are collected before they are sent,
+	 * regardless of the batch window.
+	 */
+	private static final int MAX_BATCH = 1024;
+
+	private final DebugProtocol protocol;
+	private final long batchWindow;
+	private final ScheduledExecutorService flusher;
 	private final RuntimeManager<IDEDebugger, IDEGOALInterpreter> runtime;
+	private final RuntimeRegistry<IDEGOALInterpreter> registry;
 	private final EclipseEventObserver observer;
+	private int pending = 0;
 
+	/**
+	 * Uses the protocol and batch window of the preferences, see
+	 * {@link LoggingPreferences#getEclipseBinaryProtocol()}.
+	 */
 	protected InputReaderWriter(final InputStream is, final OutputStream os,
+			final RuntimeManager<IDEDebugger, IDEGOALInterpreter> runtime,
+			final EclipseEventObserver observer) throws IOException {
+		this(LoggingPreferences.getEclipseBinaryProtocol() ? new BinaryDebugProtocol(
+				is, os) : new TextDebugProtocol(is, os), LoggingPreferences
+				.getEclipseBatchWindow(), runtime, observer);
+	}
+
+	/**
+	 * @param protocol
+	 *            the protocol to read and write commands with.
+	 * @param batchWindow
+	 *            the number of milliseconds to collect messages before they
+	 *            are sent; 0 sends every message at once.
+	 * @param runtime
+	 *            the runtime to execute the commands on.
+	 * @param observer
+	 *            the observer of the runtime, which writes its events to
+	 *            this.
+	 */
+	protected InputReaderWriter(final DebugProtocol protocol,
+			final long batchWindow,
 			final RuntimeManager<IDEDebugger, IDEGOALInterpreter> runtime,
 			final EclipseEventObserver observer) {
-		this.input = new BufferedReader(new InputStreamReader(is));
-		this.output = new BufferedWriter(new OutputStreamWriter(os));
+		this.protocol = protocol;
+		this.batchWindow = batchWindow;
+		if (batchWindow > 0) {
+			this.flusher = Executors
+					.newSingleThreadScheduledExecutor(new ThreadFactory() {
+						@Override
+						public Thread newThread(final Runnable r) {
+							final Thread thread = new Thread(r,
+									"Eclipse debug flusher"); //$NON-NLS-1$
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		} else {
+			this.flusher = null;
+		}
 		this.runtime = runtime;
+		this.registry = new RuntimeRegistry<>();
+		if (runtime != null) {
+			runtime.addObserver(this.registry);
+		}
 		observer.setWriter(this);
 		this.observer = observer;
 	}
 
 	public synchronized void write(final DebugCommand c) {
-		write(c.toString());
+		try {
+			this.protocol.write(c);
+			written();
+		} catch (final Exception e) {
+			logFatal(e);
+		}
 	}
 
 	public synchronized void write(final Exception e) {
@@ -50,14 +122,46 @@ public class InputReaderWriter extends Thread {
 
 	public synchronized void write(final String s) {
 		try {
-			this.output.write(s);
-			this.output.newLine();
-			this.output.flush();
+			this.protocol.write(s);
+			written();
 		} catch (final Exception e) {
 			logFatal(e);
 		}
 	}
 
+	/**
+	 * Sends the messages that have been written, if the batch window is 0 or
+	 * enough messages have been collected, or makes sure they are sent at the
+	 * end of the batch window otherwise.
+	 */
+	private void written() {
+		this.pending++;
+		if (this.flusher == null || this.pending >= MAX_BATCH) {
+			flush();
+		} else if (this.pending == 1) {
+			this.flusher.schedule(new Runnable() {
+				@Override
+				public void run() {
+					flush();
+				}
+			}, this.batchWindow, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Sends all messages that have been written.
+	 */
+	public synchronized void flush() {
+		if (this.pending > 0) {
+			this.pending = 0;
+			try {
+				this.protocol.flush();
+			} catch (final Exception e) {
+				logFatal(e);
+			}
+		}
+	}
+
 	public static void logFatal(final Exception e) {
 		if (LoggingPreferences.getLogToFile()) {
 			final File f = new File(LoggingPreferences.getLogDirectory()
@@ -76,21 +180,25 @@ public class InputReaderWriter extends Thread {
 	public void run() {
 		while (this.runtime != null) {
 			try {
-				String line = this.input.readLine();
-				if (line != null) {
-					final DebugCommand read = DebugCommand.fromString(line);
-					final boolean handled = processCommand(read);
-					if (!handled) {
-						throw new Exception("Unhandled command: " + read);
-					}
+				final DebugCommand read = this.protocol.read();
+				if (read == null) {
+					// the plug-in has closed the stream.
+					break;
+				}
+				final boolean handled = processCommand(read);
+				if (!handled) {
+					throw new Exception("Unhandled command: " + read);
 				}
 			} catch (final Exception e) {
 				write(e);
 			}
 		}
+		flush();
+		if (this.flusher != null) {
+			this.flusher.shutdown();
+		}
 		try {
-			this.input.close();
-			this.output.close();
+			this.protocol.close();
 		} catch (final Exception ignore) {
 		}
 	}
@@ -98,103 +206,85 @@ public class InputReaderWriter extends Thread {
 	private boolean processCommand(final DebugCommand command) {
 		switch (command.getCommand()) {
 		case PAUSE: // TODO: environment is never paused?!
-			for (final Agent<IDEGOALInterpreter> agent : this.runtime
-					.getAgents()) {
+			final List<Agent<IDEGOALInterpreter>> paused = getAgents(command);
+			for (final Agent<IDEGOALInterpreter> agent : paused) {
 				try {
-					if (agent.getId().equals(command.getAgent())) {
-						final IDEGOALInterpreter controller = agent
-								.getController();
-						if (controller.isRunning()) {
-							agent.getController().getDebugger().finestep();
-						}
-						return true;
+					final IDEGOALInterpreter controller = agent.getController();
+					if (controller.isRunning()) {
+						controller.getDebugger().finestep();
 					}
 				} catch (final Exception e) {
 					write(e);
 				}
 			}
-			return false;
+			return !paused.isEmpty();
 		case ENV_PAUSE:
-			for (final EnvironmentPort env : this.runtime.getEnvironmentPorts()) {
+			final List<EnvironmentPort> pausedEnvs = getEnvironmentPorts(command);
+			for (final EnvironmentPort env : pausedEnvs) {
 				try {
-					if (env.getMessageBoxId().getName()
-							.equals(command.getEnvironment().getName())) {
-						env.pause();
-						return true;
-					}
+					env.pause();
 				} catch (final Exception e) {
 					write(e);
 				}
 			}
-			return false;
+			return !pausedEnvs.isEmpty();
 		case RUN:
-			for (final Agent<IDEGOALInterpreter> agent : this.runtime
-					.getAgents()) {
+			final List<Agent<IDEGOALInterpreter>> run = getAgents(command);
+			for (final Agent<IDEGOALInterpreter> agent : run) {
 				try {
-					if (agent.getId().equals(command.getAgent())) {
-						final IDEGOALInterpreter controller = agent
-								.getController();
-						controller.getDebugger().run();
-						if (!controller.isRunning()) {
-							try {
-								agent.reset();
-							} catch (final Exception e) {
-								write(e);
-							}
-							this.observer.getObserver(agent).suspendAtSource();
+					final IDEGOALInterpreter controller = agent.getController();
+					controller.getDebugger().run();
+					if (!controller.isRunning()) {
+						try {
+							agent.reset();
+						} catch (final Exception e) {
+							write(e);
 						}
-						return true;
+						this.observer.getObserver(agent).suspendAtSource();
 					}
 				} catch (final Exception e) {
 					write(e);
 				}
 			}
-			return false;
+			return !run.isEmpty();
 		case ENV_RUN:
-			for (final EnvironmentPort env : this.runtime.getEnvironmentPorts()) {
+			final List<EnvironmentPort> runEnvs = getEnvironmentPorts(command);
+			for (final EnvironmentPort env : runEnvs) {
 				try {
-					if (env.getMessageBoxId().getName()
-							.equals(command.getEnvironment().getName())) {
-						env.start();
-						Thread.sleep(100); // TODO: env.start is aysnc?!
-						if (!env.getEnvironmentState().equals(
-								EnvironmentState.RUNNING)) {
-							try {
-								env.reset();
-							} catch (final Exception e) {
-								write(e);
-							}
+					env.start();
+					Thread.sleep(100); // TODO: env.start is aysnc?!
+					if (!env.getEnvironmentState().equals(
+							EnvironmentState.RUNNING)) {
+						try {
+							env.reset();
+						} catch (final Exception e) {
+							write(e);
 						}
-						return true;
 					}
 				} catch (final Exception e) {
 					write(e);
 				}
 			}
-			return false;
+			return !runEnvs.isEmpty();
 		case STEP:
-			for (final Agent<IDEGOALInterpreter> agent : this.runtime
-					.getAgents()) {
+			final List<Agent<IDEGOALInterpreter>> stepped = getAgents(command);
+			for (final Agent<IDEGOALInterpreter> agent : stepped) {
 				try {
-					if (agent.getId().equals(command.getAgent())) {
-						final IDEGOALInterpreter controller = agent
-								.getController();
-						if (controller.isRunning()) {
-							controller.getDebugger().step();
-						} else {
-							this.observer.getObserver(agent).suspendAtSource();
-						}
-						return true;
+					final IDEGOALInterpreter controller = agent.getController();
+					if (controller.isRunning()) {
+						controller.getDebugger().step();
+					} else {
+						this.observer.getObserver(agent).suspendAtSource();
 					}
 				} catch (final Exception e) {
 					write(e);
 				}
 			}
-			return false;
+			return !stepped.isEmpty();
 		case EVAL:
 			String result = "";
 			if (command.getAgent() == null) { // watch expression
-				for (final Agent<IDEGOALInterpreter> agent : this.runtime
+				for (final Agent<IDEGOALInterpreter> agent : this.registry
 						.getAgents()) {
 					result += agent.getId().getName() + ": ";
 					try {
@@ -208,21 +298,19 @@ public class InputReaderWriter extends Thread {
 				}
 				write(new DebugCommand(Command.EVAL, result));
 			} else { // interactive console
-				for (final Agent<IDEGOALInterpreter> agent : this.runtime
-						.getAgents()) {
-					if (agent.getId().equals(command.getAgent())) {
+				final Agent<IDEGOALInterpreter> agent = this.registry
+						.getAgent(command.getAgent());
+				if (agent != null) {
+					try {
+						final QueryTool query = new QueryTool(agent);
 						try {
-							final QueryTool query = new QueryTool(agent);
-							try {
-								result = query.doaction(command.getData());
-							} catch (final Exception ignore) {
-								result = query.doquery(command.getData());
-							}
-							result = result.replace('\n', ' ');
-						} catch (final Exception e) {
-							result = e.getMessage().replace('\n', ' ');
+							result = query.doaction(command.getData());
+						} catch (final Exception ignore) {
+							result = query.doquery(command.getData());
 						}
-						break;
+						result = result.replace('\n', ' ');
+					} catch (final Exception e) {
+						result = e.getMessage().replace('\n', ' ');
 					}
 				}
 				write(new DebugCommand(Command.EVAL, command.getAgent(), result));
@@ -235,24 +323,41 @@ public class InputReaderWriter extends Thread {
 				DebugTool.setFileBreaks(platform, f);
 			}
 			final BreakpointManager breaks = platform.getBreakpointManager();
-			for (final Agent<IDEGOALInterpreter> agent : this.runtime
+			for (final Agent<IDEGOALInterpreter> agent : this.registry
 					.getAgents()) {
 				try {
-					final Set<SourceInfo> newbreakpoints = breaks
-							.getBreakpoints(agent.getController().getProgram()
-									.getSourceFile());
+					final Collection<UserBreakpoint> newbreakpoints = breaks
+							.getUserBreakpoints(agent.getController()
+									.getProgram().getSourceFile());
 					agent.getController().getDebugger()
-							.setBreakpoints(newbreakpoints);
+							.setUserBreakpoints(newbreakpoints);
 				} catch (final Exception e) {
 					write(e);
 				}
 			}
 			return true;
+		case CHANNELS:
+			final Set<Channel> channels = EnumSet.noneOf(Channel.class);
+			for (final String channel : command.getAllData()) {
+				channels.add(Channel.valueOf(channel));
+			}
+			if (command.getAgent() == null) {
+				this.observer.setChannels(channels);
+				return true;
+			} else {
+				final EclipseDebugObserver agentObserver = this.observer
+						.getObserver(command.getAgent());
+				if (agentObserver != null) {
+					agentObserver.setChannels(channels);
+				}
+				return agentObserver != null;
+			}
 		case STOP:
 			try {
 				this.runtime.shutDown();
 			} catch (final Exception ignore) {
 			} finally {
+				flush();
 				System.exit(0);
 			}
 			return true;
@@ -260,4 +365,55 @@ public class InputReaderWriter extends Thread {
 			return false;
 		}
 	}
+
+	/**
+	 * @return the agents a command acts on: the agent of the command or, if
+	 *         it has none, the agents named by its data, or all agents if it
+	 *         has no data. Agents that do not exist (anymore) are left out.
+	 */
+	private List<Agent<IDEGOALInterpreter>> getAgents(
+			final DebugCommand command) {
+		final List<Agent<IDEGOALInterpreter>> agents;
+		if (command.getAgent() != null) {
+			agents = new ArrayList<>(1);
+			addIfExists(agents, this.registry.getAgent(command.getAgent()));
+		} else if (command.getAllData().isEmpty()) {
+			agents = new ArrayList<>(this.registry.getAgents());
+		} else {
+			agents = new ArrayList<>(command.getAllData().size());
+			for (final String name : command.getAllData()) {
+				addIfExists(agents, this.registry.getAgent(name));
+			}
+		}
+		return agents;
+	}
+
+	/**
+	 * @return the environment ports a command acts on: the environment of the
+	 *         command or, if it has none, the environments named by its data,
+	 *         or all environments if it has no data.
+	 */
+	private List<EnvironmentPort> getEnvironmentPorts(
+			final DebugCommand command) {
+		final List<EnvironmentPort> ports;
+		if (command.getEnvironment() != null) {
+			ports = new ArrayList<>(1);
+			addIfExists(ports, this.registry.getEnvironmentPort(command
+					.getEnvironment().getName()));
+		} else if (command.getAllData().isEmpty()) {
+			ports = new ArrayList<>(this.registry.getEnvironmentPorts());
+		} else {
+			ports = new ArrayList<>(command.getAllData().size());
+			for (final String name : command.getAllData()) {
+				addIfExists(ports, this.registry.getEnvironmentPort(name));
+			}
+		}
+		return ports;
+	}
+
+	private static <T> void addIfExists(final List<T> list, final T element) {
+		if (element != null) {
+			list.add(element);
+		}
+	}
 }
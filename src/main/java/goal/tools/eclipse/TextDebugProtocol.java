@@ -0,0 +1,54 @@
+package goal.tools.eclipse;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+
+/**
+ * The original protocol: every command is a line of text, see
+ * {@link DebugCommand#toString()} and {@link DebugCommand#fromString(String)}.
+ */
+public class TextDebugProtocol implements DebugProtocol {
+	private final BufferedReader input;
+	private final BufferedWriter output;
+
+	public TextDebugProtocol(final InputStream is, final OutputStream os) {
+		this.input = new BufferedReader(new InputStreamReader(is));
+		this.output = new BufferedWriter(new OutputStreamWriter(os));
+	}
+
+	@Override
+	public DebugCommand read() throws Exception {
+		final String line = this.input.readLine();
+		return (line == null) ? null : DebugCommand.fromString(line);
+	}
+
+	@Override
+	public void write(final DebugCommand command) throws IOException {
+		write(command.toString());
+	}
+
+	@Override
+	public void write(final String text) throws IOException {
+		this.output.write(text);
+		this.output.newLine();
+	}
+
+	@Override
+	public void flush() throws IOException {
+		this.output.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.output.close();
+		} finally {
+			this.input.close();
+		}
+	}
+}
@@ -0,0 +1,411 @@
+package goal.tools.logging;
+
+import goal.preferences.LoggingPreferences;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * A {@link Handler} that publishes records to another handler, usually a
+ * {@link java.util.logging.FileHandler}, on a separate writer thread, so that
+ * an agent that logs does not wait for the disk.
+ * <p>
+ * Published records are put in a bounded ring buffer that does not lock. A
+ * single writer thread, shared by all asynchronous handlers, takes the
+ * records from the buffers in batches, publishes them to their target and
+ * flushes the target once per batch. When all buffers are empty the writer
+ * parks until a record is logged; it stops when the last handler is closed,
+ * and is started again when a new handler is created. The records of a
+ * handler are published
+ * in the order in which they were logged; as every agent has its own logger,
+ * this keeps the order of the records of every agent.
+ * </p>
+ * <p>
+ * What happens when a buffer is full depends on the {@link OverflowPolicy}.
+ * Dropped records are counted, see {@link #getDropped()}. {@link #flush()}
+ * and {@link #close()} publish all records that have been logged before on
+ * the calling thread; the buffers of all handlers are flushed when the JVM
+ * shuts down.
+ * </p>
+ */
+public class AsyncLogHandler extends Handler {
+	/**
+	 * What happens when a record is logged while the buffer is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Wait until the writer has made room.
+		 */
+		BLOCK,
+		/**
+		 * Drop the record.
+		 */
+		DROP,
+		/**
+		 * Keep only one of every {@link AsyncLogHandler#SAMPLE_RATE} records
+		 * once the buffer is half full, and drop records when it is full.
+		 */
+		SAMPLE;
+
+		/**
+		 * @param name
+		 *            the name of a policy, in any case.
+		 * @return the policy with that name; {@link #BLOCK} if there is no
+		 *         such policy.
+		 */
+		public static OverflowPolicy parse(String name) {
+			for (OverflowPolicy policy : values()) {
+				if (policy.name().equalsIgnoreCase(name)) {
+					return policy;
+				}
+			}
+			return BLOCK;
+		}
+	}
+
+	/**
+	 * The fraction of records that is kept by {@link OverflowPolicy#SAMPLE}
+	 * when the buffer is half full.
+	 */
+	public static final int SAMPLE_RATE = 10;
+	/**
+	 * The maximum number of records the writer publishes from one buffer
+	 * before it moves on to the next.
+	 */
+	private static final int BATCH = 256;
+	/**
+	 * How long an agent that is blocked on a full buffer waits before it looks
+	 * at the buffer again.
+	 */
+	private static final long IDLE = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static final Set<AsyncLogHandler> handlers = new CopyOnWriteArraySet<>();
+	private static final AtomicLong totalDropped = new AtomicLong();
+	/**
+	 * The writer thread; null if no handler is open. A writer stops when it
+	 * is no longer the current writer.
+	 */
+	private static volatile Thread writer = null;
+	/**
+	 * True while the writer is parked, or about to park, because all buffers
+	 * are empty.
+	 */
+	private static final AtomicBoolean parked = new AtomicBoolean();
+	private static boolean shutdownHook = false;
+
+	private final Handler target;
+	private final OverflowPolicy policy;
+	private final int capacity;
+	private final AtomicReferenceArray<LogRecord> ring;
+	private final int mask;
+	/**
+	 * The number of records that have been put in the buffer.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+	/**
+	 * The number of records that have been taken from the buffer; only
+	 * changed while holding {@link #drainLock}.
+	 */
+	private final AtomicLong head = new AtomicLong();
+	private final ReentrantLock drainLock = new ReentrantLock();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong sampled = new AtomicLong();
+	private volatile boolean closed = false;
+
+	/**
+	 * Creates a handler with the capacity and overflow policy of the
+	 * preferences, see {@link LoggingPreferences#getAsyncLogCapacity()} and
+	 * {@link LoggingPreferences#getAsyncLogPolicy()}.
+	 *
+	 * @param target
+	 *            the handler to publish the records to.
+	 */
+	public AsyncLogHandler(Handler target) {
+		this(target, LoggingPreferences.getAsyncLogCapacity(), OverflowPolicy
+				.parse(LoggingPreferences.getAsyncLogPolicy()));
+	}
+
+	/**
+	 * @param target
+	 *            the handler to publish the records to.
+	 * @param capacity
+	 *            the number of records the buffer can hold; rounded up to a
+	 *            power of two.
+	 * @param policy
+	 *            what happens when the buffer is full.
+	 */
+	public AsyncLogHandler(Handler target, int capacity, OverflowPolicy policy) {
+		this.target = target;
+		this.policy = policy;
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.capacity = size;
+		this.ring = new AtomicReferenceArray<>(size);
+		this.mask = size - 1;
+		register(this);
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		if (record == null || this.closed || !isLoggable(record)) {
+			return;
+		}
+		// formats debug events now, while their arguments still hold.
+		record.getMessage();
+
+		if (this.policy == OverflowPolicy.SAMPLE
+				&& size() >= this.capacity / 2
+				&& this.sampled.incrementAndGet() % SAMPLE_RATE != 0) {
+			drop();
+		} else if (this.policy == OverflowPolicy.BLOCK
+				&& Thread.currentThread() != writer) {
+			while (!offer(record)) {
+				if (this.closed) {
+					drop();
+					return;
+				}
+				LockSupport.unpark(writer);
+				LockSupport.parkNanos(IDLE);
+			}
+			wakeUpWriter();
+		} else if (offer(record)) {
+			wakeUpWriter();
+		} else {
+			// drop, or records logged by the writer itself, which can not wait
+			// for itself.
+			drop();
+		}
+	}
+
+	/**
+	 * Unparks the writer if it is waiting for records.
+	 */
+	private static void wakeUpWriter() {
+		if (parked.get() && parked.compareAndSet(true, false)) {
+			LockSupport.unpark(writer);
+		}
+	}
+
+	/**
+	 * Puts a record in the buffer, if it is not full.
+	 */
+	private boolean offer(LogRecord record) {
+		while (true) {
+			long slot = this.tail.get();
+			if (slot - this.head.get() >= this.capacity) {
+				return false;
+			}
+			if (this.tail.compareAndSet(slot, slot + 1)) {
+				this.ring.set((int) (slot & this.mask), record);
+				return true;
+			}
+		}
+	}
+
+	private void drop() {
+		this.dropped.incrementAndGet();
+		totalDropped.incrementAndGet();
+	}
+
+	/**
+	 * Publishes records from the buffer to the target, in order. Should only
+	 * be called while holding {@link #drainLock}.
+	 *
+	 * @param max
+	 *            the maximum number of records to publish.
+	 * @return the number of records published.
+	 */
+	private int drain(int max) {
+		int written = 0;
+		long next = this.head.get();
+		while (written < max) {
+			int slot = (int) (next & this.mask);
+			LogRecord record = this.ring.get(slot);
+			if (record == null) {
+				// empty, or a record is still being put in this slot.
+				break;
+			}
+			this.ring.lazySet(slot, null);
+			this.head.lazySet(++next);
+			try {
+				this.target.publish(record);
+			} catch (RuntimeException e) {
+				reportError(null, e, ErrorManager.WRITE_FAILURE);
+			}
+			written++;
+		}
+		if (written > 0) {
+			this.target.flush();
+		}
+		return written;
+	}
+
+	/**
+	 * Publishes all records that have been logged before this call to the
+	 * target, and flushes the target.
+	 */
+	@Override
+	public void flush() {
+		long until = this.tail.get();
+		this.drainLock.lock();
+		try {
+			while (this.head.get() < until) {
+				if (drain(Integer.MAX_VALUE) == 0) {
+					Thread.yield();
+				}
+			}
+			this.target.flush();
+		} finally {
+			this.drainLock.unlock();
+		}
+	}
+
+	/**
+	 * Flushes this handler and closes the target. Records logged after this
+	 * call are ignored.
+	 */
+	@Override
+	public void close() throws SecurityException {
+		this.closed = true;
+		unregister(this);
+		flush();
+		this.target.close();
+	}
+
+	/**
+	 * @return the number of records in the buffer.
+	 */
+	public int size() {
+		return (int) Math.max(0, this.tail.get() - this.head.get());
+	}
+
+	/**
+	 * @return the number of records the buffer can hold.
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * @return what happens when the buffer is full.
+	 */
+	public OverflowPolicy getPolicy() {
+		return this.policy;
+	}
+
+	/**
+	 * @return the number of records this handler has dropped.
+	 */
+	public long getDropped() {
+		return this.dropped.get();
+	}
+
+	/**
+	 * @return the number of records all asynchronous handlers have dropped.
+	 */
+	public static long getTotalDropped() {
+		return totalDropped.get();
+	}
+
+	/**
+	 * Flushes all asynchronous handlers.
+	 */
+	public static void flushAll() {
+		for (AsyncLogHandler handler : handlers) {
+			handler.flush();
+		}
+	}
+
+	/**
+	 * Adds a handler to the handlers of the writer, and starts the writer if
+	 * it is not running yet.
+	 */
+	private static synchronized void register(AsyncLogHandler handler) {
+		handlers.add(handler);
+		if (writer == null) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					write();
+				}
+			}, "GOAL log writer"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			writer = thread;
+			thread.start();
+			if (!shutdownHook) {
+				Runtime.getRuntime().addShutdownHook(new Thread() {
+					@Override
+					public void run() {
+						flushAll();
+					}
+				});
+				shutdownHook = true;
+			}
+		}
+	}
+
+	/**
+	 * Removes a handler from the handlers of the writer, and stops the writer
+	 * if it was the last handler. The caller flushes the handler itself.
+	 */
+	private static synchronized void unregister(AsyncLogHandler handler) {
+		if (handlers.remove(handler) && handlers.isEmpty() && writer != null) {
+			Thread thread = writer;
+			writer = null;
+			LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * @return true if any of the buffers has records.
+	 */
+	private static boolean hasRecords() {
+		for (AsyncLogHandler handler : handlers) {
+			if (handler.size() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The loop of the writer: publishes a batch of every buffer in turn, and
+	 * parks when all buffers are empty until {@link #publish(LogRecord)}
+	 * unparks it. Returns when the thread is no longer the writer.
+	 */
+	private static void write() {
+		Thread self = Thread.currentThread();
+		while (writer == self) {
+			int written = 0;
+			for (AsyncLogHandler handler : handlers) {
+				// skip handlers that are being flushed by another thread.
+				if (handler.drainLock.tryLock()) {
+					try {
+						written += handler.drain(BATCH);
+					} finally {
+						handler.drainLock.unlock();
+					}
+				}
+			}
+			if (written == 0) {
+				parked.set(true);
+				// a record may have been logged before the flag was set.
+				if (!hasRecords() && writer == self) {
+					LockSupport.park(AsyncLogHandler.class);
+				}
+				parked.set(false);
+			}
+		}
+	}
+}
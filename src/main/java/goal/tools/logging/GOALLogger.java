@@ -54,7 +54,9 @@ import java.util.logging.Logger;
  * <p>
  * Logging to file is also handled here. The default {@link FileHandler}
  * settings are used. Files are written to the user's home directory. If you
- * turn off the logging-rerouting, log to file is also disabled.
+ * turn off the logging-rerouting, log to file is also disabled. Files are
+ * written on a separate thread if {@link LoggingPreferences#getAsyncLogging()}
+ * is set.
  * </p>
  * <p>
  * Tech note: we don't really care about having unique GOALLoggers for a given
@@ -75,6 +77,12 @@ public class GOALLogger {
 	 * null unless we log to file
 	 */
 	protected FileHandler fileHandler = null;
+	/**
+	 * The handler that publishes to the {@link #fileHandler}: the file handler
+	 * itself, or an {@link AsyncLogHandler} if log files are written
+	 * asynchronously. null unless we log to file.
+	 */
+	private Handler logToFileHandler = null;
 	/**
 	 * Logs messages to the console.
 	 */
@@ -171,7 +179,9 @@ public class GOALLogger {
 					+ (LoggingPreferences.getOverwriteFile() ? "" : "_%u") //$NON-NLS-1$ //$NON-NLS-2$
 					+ ".log"; //$NON-NLS-1$
 			this.fileHandler = new FileHandler(fname);
-			addHandler(this.fileHandler);
+			this.logToFileHandler = LoggingPreferences.getAsyncLogging() ? new AsyncLogHandler(
+					this.fileHandler) : this.fileHandler;
+			addHandler(this.logToFileHandler);
 		} catch (SecurityException e) {
 			new Warning(String.format(
 					Resources.get(WarningStrings.FAILED_LOG_TO_FILE),
@@ -195,13 +205,16 @@ public class GOALLogger {
 	}
 
 	/**
-	 * Do not log to file any more (if we did)
+	 * Do not log to file any more (if we did). Records that are still waiting
+	 * to be written are written first.
 	 */
 	public void removeLogToFileHandler() {
 		if (this.fileHandler != null) {
-			this.logger.removeHandler(this.fileHandler);
-			this.fileHandler.close();
+			this.logger.removeHandler(this.logToFileHandler);
+			// closes the file handler as well.
+			this.logToFileHandler.close();
 			this.fileHandler = null;
+			this.logToFileHandler = null;
 		}
 	}
 
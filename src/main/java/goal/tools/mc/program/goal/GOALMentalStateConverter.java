@@ -161,11 +161,8 @@ public class GOALMentalStateConverter implements Serializable {
 			GOALState q = new GOALState(this);
 			int index;
 
-			// hack for #3057 to avoid ConcurrentModificationException
-			List<DatabaseFormula> formulas = new ArrayList<DatabaseFormula>(
-					beliefs);
 			// Convert beliefs.
-			for (DatabaseFormula formula : formulas) {
+			for (DatabaseFormula formula : beliefs) {
 				GOALCE_Belief belief = new GOALCE_Belief(formula);
 				index = this.universe.getIndex(belief);
 				if (index == -1) {
@@ -0,0 +1,85 @@
+package goal.tools.trace;
+
+import goal.tools.trace.TraceRecord.Kind;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Selects records of a trace by agent, kind, cycle and text. By default, a
+ * filter accepts every record.
+ */
+public class TraceFilter {
+	private Set<String> agents = null;
+	private Set<Kind> kinds = null;
+	private int fromCycle = 0;
+	private int toCycle = Integer.MAX_VALUE;
+	private String text = null;
+
+	/**
+	 * @param agents
+	 *            the names of the agents whose records are accepted; null
+	 *            for all agents.
+	 */
+	public void setAgents(Collection<String> agents) {
+		this.agents = (agents == null) ? null : new HashSet<>(agents);
+	}
+
+	/**
+	 * @param kinds
+	 *            the kinds of records that are accepted; null for all kinds.
+	 */
+	public void setKinds(Collection<Kind> kinds) {
+		this.kinds = (kinds == null || kinds.isEmpty()) ? null : EnumSet
+				.copyOf(kinds);
+	}
+
+	/**
+	 * @param from
+	 *            the first cycle of which records are accepted.
+	 * @param to
+	 *            the last cycle of which records are accepted.
+	 */
+	public void setCycles(int from, int to) {
+		this.fromCycle = from;
+		this.toCycle = to;
+	}
+
+	/**
+	 * @param text
+	 *            text that should occur in the data of accepted records; null
+	 *            to accept records regardless of their data.
+	 */
+	public void setText(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * @param record
+	 *            a record.
+	 * @return true if the record is selected by this filter.
+	 */
+	public boolean accept(TraceRecord record) {
+		if (this.agents != null && !this.agents.contains(record.getAgent())) {
+			return false;
+		}
+		if (this.kinds != null && !this.kinds.contains(record.getKind())) {
+			return false;
+		}
+		if (record.getCycle() < this.fromCycle
+				|| record.getCycle() > this.toCycle) {
+			return false;
+		}
+		if (this.text != null) {
+			for (String data : record.getData()) {
+				if (data.contains(this.text)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return true;
+	}
+}
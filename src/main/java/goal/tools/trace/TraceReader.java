@@ -0,0 +1,251 @@
+package goal.tools.trace;
+
+import goal.tools.trace.TraceRecord.Kind;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the records of an execution trace written by a {@link TraceWriter},
+ * from one or more files in order.
+ * <p>
+ * The times of the records of all files are relative to the start of the
+ * trace (see {@link #getStartTime()}), as long as the files belong to the
+ * same trace.
+ * </p>
+ */
+public class TraceReader implements Closeable {
+	/**
+	 * Frames that are larger than this are considered to be garbage.
+	 */
+	private static final int MAX_FRAME = 64 * 1024 * 1024;
+	private static final Charset UTF8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+	private static final Kind[] KINDS = Kind.values();
+
+	private final List<File> files;
+	private final Map<Integer, String> strings = new HashMap<>();
+	private int next = 0;
+	private DataInputStream input;
+	private long startTime = -1;
+
+	/**
+	 * @param files
+	 *            the files to read, in order.
+	 */
+	public TraceReader(File... files) {
+		this(Arrays.asList(files));
+	}
+
+	/**
+	 * @param files
+	 *            the files to read, in order.
+	 */
+	public TraceReader(List<File> files) {
+		this.files = new ArrayList<>(files);
+	}
+
+	/**
+	 * @return the next record, or null if all files have been read.
+	 * @throws IOException
+	 *             if a file could not be read or is not a trace.
+	 */
+	public TraceRecord read() throws IOException {
+		while (true) {
+			if (this.input == null && !openNext()) {
+				return null;
+			}
+			final int length;
+			try {
+				length = readVarint(this.input);
+			} catch (final EOFException e) {
+				this.input.close();
+				this.input = null;
+				continue;
+			}
+			if (length <= 0 || length > MAX_FRAME) {
+				throw new IOException("Invalid frame length " + length //$NON-NLS-1$
+						+ " in trace " + this.files.get(this.next - 1) + "."); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			final byte[] bytes = new byte[length];
+			try {
+				this.input.readFully(bytes);
+			} catch (final EOFException e) {
+				// the last frame of a trace that was not closed.
+				this.input.close();
+				this.input = null;
+				continue;
+			}
+			final Reader reader = new Reader(bytes);
+			switch (reader.readByte()) {
+			case TraceWriter.STRING:
+				final int id = reader.readVarint();
+				this.strings.put(id, reader.readString());
+				break;
+			case TraceWriter.RECORD:
+				return readRecord(reader);
+			default:
+				// a frame of a later version.
+				break;
+			}
+		}
+	}
+
+	private TraceRecord readRecord(Reader reader) throws IOException {
+		final int ordinal = reader.readByte();
+		if (ordinal >= KINDS.length) {
+			throw new IOException("Unknown kind of record " + ordinal + "."); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		final long time = reader.readVarlong();
+		final String agent = readString(reader);
+		final int cycle = reader.readVarint();
+		final int size = reader.readVarint();
+		final List<String> data = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			data.add(readString(reader));
+		}
+		return new TraceRecord(KINDS[ordinal], time, agent, cycle, data);
+	}
+
+	private String readString(Reader reader) throws IOException {
+		final int id = reader.readVarint();
+		if (id == 0) {
+			return reader.readString();
+		}
+		final String string = this.strings.get(id);
+		if (string == null) {
+			throw new IOException("Undefined string " + id + " in trace."); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return string;
+	}
+
+	/**
+	 * Opens the next file and reads its header.
+	 *
+	 * @return false if there are no more files.
+	 */
+	private boolean openNext() throws IOException {
+		if (this.next >= this.files.size()) {
+			return false;
+		}
+		final File file = this.files.get(this.next++);
+		this.input = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file), 64 * 1024));
+		this.strings.clear();
+		final byte[] magic = new byte[TraceWriter.MAGIC.length];
+		try {
+			this.input.readFully(magic);
+			if (!Arrays.equals(magic, TraceWriter.MAGIC)) {
+				throw new IOException(file + " is not a trace."); //$NON-NLS-1$
+			}
+			final int version = this.input.read();
+			if (version != TraceWriter.VERSION) {
+				throw new IOException("Unsupported trace version " + version //$NON-NLS-1$
+						+ " in " + file + "."); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			final long start = this.input.readLong();
+			if (this.startTime < 0) {
+				this.startTime = start;
+			}
+		} catch (final EOFException e) {
+			throw new IOException(file + " is not a trace.", e); //$NON-NLS-1$
+		}
+		return true;
+	}
+
+	/**
+	 * @return the time at which the trace was started, in milliseconds since
+	 *         the epoch; -1 if no file has been read yet.
+	 */
+	public long getStartTime() {
+		return this.startTime;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.input != null) {
+			try {
+				this.input.close();
+			} finally {
+				this.input = null;
+				this.next = this.files.size();
+			}
+		}
+	}
+
+	private static int readVarint(InputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			final int b = in.read();
+			if (b < 0) {
+				throw new EOFException();
+			}
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed number in trace."); //$NON-NLS-1$
+	}
+
+	/**
+	 * Reads the fields of a frame that has been read.
+	 */
+	private static class Reader {
+		private final byte[] bytes;
+		private int position = 0;
+
+		Reader(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		int readByte() throws IOException {
+			if (this.position >= this.bytes.length) {
+				throw new EOFException("Truncated trace frame."); //$NON-NLS-1$
+			}
+			return this.bytes[this.position++] & 0xFF;
+		}
+
+		int readVarint() throws IOException {
+			return (int) readVarlong(32);
+		}
+
+		long readVarlong() throws IOException {
+			return readVarlong(64);
+		}
+
+		private long readVarlong(int bits) throws IOException {
+			long value = 0;
+			for (int shift = 0; shift < bits; shift += 7) {
+				final int b = readByte();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IOException("Malformed number in trace frame."); //$NON-NLS-1$
+		}
+
+		String readString() throws IOException {
+			final int length = readVarint();
+			if (length < 0 || length > this.bytes.length - this.position) {
+				throw new EOFException("Truncated trace frame."); //$NON-NLS-1$
+			}
+			final String string = new String(this.bytes, this.position,
+					length, UTF8);
+			this.position += length;
+			return string;
+		}
+	}
+}
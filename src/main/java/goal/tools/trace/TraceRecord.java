@@ -0,0 +1,129 @@
+package goal.tools.trace;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A record of an execution trace: something an agent did in a cycle, see
+ * {@link Kind}.
+ */
+public class TraceRecord {
+	/**
+	 * The kinds of records, and the data they have.
+	 */
+	public enum Kind {
+		/**
+		 * A new reasoning cycle started; no data.
+		 */
+		CYCLE,
+		/**
+		 * A rule was selected because its condition held; the rule and the
+		 * substitutions for which the condition held.
+		 */
+		RULE,
+		/**
+		 * An action (other than a send action) was performed; the action.
+		 */
+		ACTION,
+		/**
+		 * A percept was added to the percept base; the percept.
+		 */
+		PERCEPT_ADDED,
+		/**
+		 * A percept was removed from the percept base; the percept.
+		 */
+		PERCEPT_DELETED,
+		/**
+		 * A message was sent; the send action.
+		 */
+		MESSAGE_SENT,
+		/**
+		 * A message was added to the mailbox (when it was sent or received);
+		 * the mailbox fact.
+		 */
+		MAIL;
+
+		/**
+		 * @param name
+		 *            the name of a kind, in any case.
+		 * @return the kind with that name.
+		 * @throws IllegalArgumentException
+		 *             if there is no kind with that name.
+		 */
+		public static Kind fromName(String name) {
+			return valueOf(name.trim().toUpperCase());
+		}
+	}
+
+	private final Kind kind;
+	private final long time;
+	private final String agent;
+	private final int cycle;
+	private final List<String> data;
+
+	/**
+	 * @param kind
+	 *            the kind of record.
+	 * @param time
+	 *            the time of the record, in microseconds since the trace was
+	 *            started.
+	 * @param agent
+	 *            the name of the agent.
+	 * @param cycle
+	 *            the reasoning cycle of the agent.
+	 * @param data
+	 *            the data of the record, see {@link Kind}.
+	 */
+	public TraceRecord(Kind kind, long time, String agent, int cycle,
+			List<String> data) {
+		this.kind = kind;
+		this.time = time;
+		this.agent = agent;
+		this.cycle = cycle;
+		this.data = Collections.unmodifiableList(data);
+	}
+
+	public Kind getKind() {
+		return this.kind;
+	}
+
+	/**
+	 * @return the time of the record, in microseconds since the trace was
+	 *         started.
+	 */
+	public long getTime() {
+		return this.time;
+	}
+
+	public String getAgent() {
+		return this.agent;
+	}
+
+	public int getCycle() {
+		return this.cycle;
+	}
+
+	/**
+	 * @return the data of the record, see {@link Kind}.
+	 */
+	public List<String> getData() {
+		return this.data;
+	}
+
+	/**
+	 * @return the record on a single line: the time in milliseconds, the
+	 *         agent, the cycle, the kind and the data, separated by tabs.
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append(String.format("%d.%03d", this.time / 1000, //$NON-NLS-1$
+				this.time % 1000));
+		builder.append('\t').append(this.agent).append('\t')
+				.append(this.cycle).append('\t').append(this.kind);
+		for (final String string : this.data) {
+			builder.append('\t').append(string.replace('\n', ' '));
+		}
+		return builder.toString();
+	}
+}
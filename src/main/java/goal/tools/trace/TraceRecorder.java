@@ -0,0 +1,128 @@
+package goal.tools.trace;
+
+import goal.core.runtime.service.agent.RunState;
+import goal.tools.debugger.Channel;
+import goal.tools.debugger.DebugEvent;
+import goal.tools.debugger.DebugObserver;
+import goal.tools.debugger.ObservableDebugger;
+import goal.tools.errorhandling.Warning;
+import goal.tools.trace.TraceRecord.Kind;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import languageTools.program.agent.actions.SendAction;
+import languageTools.program.agent.actions.SendOnceAction;
+
+/**
+ * Records what an agent does in a {@link TraceWriter}: the start of every
+ * cycle, the rules that are selected, the actions that are performed, the
+ * changes to the percept base and the messages that are sent and received.
+ * <p>
+ * The recorder is a {@link DebugObserver} of the debugger of the agent; it
+ * only subscribes to the channels it needs (see {@link #CHANNELS}), so the
+ * debugger does not report anything else for it. Records are written in the
+ * thread of the agent. If the trace can not be written, this is reported
+ * once and the recorder stops.
+ * </p>
+ */
+public class TraceRecorder implements DebugObserver {
+	/**
+	 * The channels that a recorder observes.
+	 */
+	public static final Set<Channel> CHANNELS = Collections
+			.unmodifiableSet(EnumSet.of(Channel.REASONING_CYCLE_SEPARATOR,
+					Channel.RULE_CONDITION_EVALUATION,
+					Channel.ACTION_EXECUTED_BUILTIN,
+					Channel.ACTION_EXECUTED_USERSPEC,
+					Channel.PERCEPTS_CONDITIONAL_VIEW,
+					Channel.MAILS_CONDITIONAL_VIEW));
+
+	private final ObservableDebugger debugger;
+	private final TraceWriter writer;
+	private final String agent;
+	private int cycle = 0;
+
+	/**
+	 * Creates a recorder and subscribes it to a debugger.
+	 *
+	 * @param debugger
+	 *            the debugger of the agent to record.
+	 * @param writer
+	 *            the trace to write the records in; may be shared by several
+	 *            recorders.
+	 */
+	public TraceRecorder(ObservableDebugger debugger, TraceWriter writer) {
+		this.debugger = debugger;
+		this.writer = writer;
+		this.agent = debugger.getName();
+		for (Channel channel : CHANNELS) {
+			debugger.subscribe(this, channel);
+		}
+	}
+
+	@Override
+	public String getObserverName() {
+		return "TraceRecorder"; //$NON-NLS-1$
+	}
+
+	@Override
+	public void notifyBreakpointHit(DebugEvent event) {
+		final String message = event.getRawMessage();
+		final Object[] args = event.getRawArguments();
+		try {
+			switch (event.getChannel()) {
+			case REASONING_CYCLE_SEPARATOR:
+				// the separator of the run state starts a new cycle; the
+				// agent also reports here that it has been started.
+				if (RunState.CYCLE_SEPARATOR.equals(message)) {
+					this.cycle = (Integer) event.getAssociatedObject();
+					this.writer.write(Kind.CYCLE, this.agent, this.cycle);
+				}
+				break;
+			case RULE_CONDITION_EVALUATION:
+				if (message.startsWith("Condition of rule %s holds")) { //$NON-NLS-1$
+					this.writer.write(Kind.RULE, this.agent, this.cycle,
+							string(args, 0), string(args, 1));
+				}
+				break;
+			case ACTION_EXECUTED_BUILTIN:
+			case ACTION_EXECUTED_USERSPEC:
+				final Object action = event.getAssociatedObject();
+				final boolean send = action instanceof SendAction
+						|| action instanceof SendOnceAction;
+				this.writer.write(send ? Kind.MESSAGE_SENT : Kind.ACTION,
+						this.agent, this.cycle, string(args, 0));
+				break;
+			case PERCEPTS_CONDITIONAL_VIEW:
+				if (message.startsWith("%s has been inserted")) { //$NON-NLS-1$
+					this.writer.write(Kind.PERCEPT_ADDED, this.agent,
+							this.cycle, string(args, 0));
+				} else if (message.startsWith("%s has been deleted")) { //$NON-NLS-1$
+					this.writer.write(Kind.PERCEPT_DELETED, this.agent,
+							this.cycle, string(args, 0));
+				}
+				break;
+			case MAILS_CONDITIONAL_VIEW:
+				if (message.startsWith("%s has been inserted")) { //$NON-NLS-1$
+					this.writer.write(Kind.MAIL, this.agent, this.cycle,
+							string(args, 0));
+				}
+				break;
+			default:
+				break;
+			}
+		} catch (IOException e) {
+			new Warning("Could not write the trace of " + this.agent //$NON-NLS-1$
+					+ "; it is no longer recorded.", e); //$NON-NLS-1$
+			this.debugger.unsubscribe(this);
+		}
+	}
+
+	private static String string(Object[] args, int index) {
+		return (args != null && index < args.length) ? String
+				.valueOf(args[index]) : ""; //$NON-NLS-1$
+	}
+}
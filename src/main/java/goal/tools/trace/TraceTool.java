@@ -0,0 +1,258 @@
+package goal.tools.trace;
+
+import goal.tools.trace.TraceRecord.Kind;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.OptionBuilder;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+
+/**
+ * Command line utility to filter and print execution traces written by a
+ * {@link TraceWriter}, e.g. by <code>goal.tools.Run --trace</code>.
+ *
+ * <pre>
+ * {@code
+ * usage: goal.tools.trace.TraceTool [options] [file|directory]...
+ *  -a,--agent <name>      Only print the records of this agent (can be
+ *                         repeated)
+ *     --from <cycle>      Only print records from this cycle on
+ *  -g,--grep <text>       Only print records that contain this text
+ *  -h,--help              Displays this help
+ *  -k,--kind <kinds>      Only print records of these kinds (separated by
+ *                         commas): CYCLE, RULE, ACTION, PERCEPT_ADDED,
+ *                         PERCEPT_DELETED, MESSAGE_SENT, MAIL
+ *  -s,--summary           Print the number of records per agent and kind
+ *                         instead of the records
+ *     --to <cycle>        Only print records up to this cycle
+ * }
+ * </pre>
+ *
+ * The files of a directory are read in the order of their names, which is the
+ * order in which a trace was written.
+ */
+public class TraceTool {
+	private static final String OPTION_HELP = "help";
+	private static final String OPTION_HELP_SHORT = "h";
+
+	private static final String OPTION_AGENT = "agent";
+	private static final char OPTION_AGENT_SHORT = 'a';
+	private static final String OPTION_KIND = "kind";
+	private static final char OPTION_KIND_SHORT = 'k';
+	private static final String OPTION_GREP = "grep";
+	private static final char OPTION_GREP_SHORT = 'g';
+	private static final String OPTION_FROM = "from";
+	private static final String OPTION_TO = "to";
+	private static final String OPTION_SUMMARY = "summary";
+	private static final char OPTION_SUMMARY_SHORT = 's';
+
+	private static final Options options = createOptions();
+
+	public static void main(String[] args) {
+		try {
+			run(System.out, args);
+		} catch (ParseException | IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			showHelp();
+		} catch (IOException e) {
+			System.out.println("Could not read the trace: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Prints the records of traces.
+	 *
+	 * @param out
+	 *            the stream to print the records on.
+	 * @param args
+	 *            the command line arguments.
+	 * @throws ParseException
+	 *             if the options could not be parsed.
+	 * @throws IOException
+	 *             if a trace could not be read.
+	 */
+	public static void run(PrintStream out, String... args)
+			throws ParseException, IOException {
+		CommandLineParser parser = new PosixParser();
+		CommandLine cmd = parser.parse(options, args);
+
+		if (cmd.hasOption(OPTION_HELP)) {
+			showHelp();
+			return;
+		}
+
+		TraceFilter filter = new TraceFilter();
+		if (cmd.hasOption(OPTION_AGENT)) {
+			filter.setAgents(Arrays.asList(cmd.getOptionValues(OPTION_AGENT)));
+		}
+		if (cmd.hasOption(OPTION_KIND)) {
+			List<Kind> kinds = new ArrayList<>();
+			for (String kind : cmd.getOptionValue(OPTION_KIND).split(",")) {
+				kinds.add(Kind.fromName(kind));
+			}
+			filter.setKinds(kinds);
+		}
+		if (cmd.hasOption(OPTION_GREP)) {
+			filter.setText(cmd.getOptionValue(OPTION_GREP));
+		}
+		int from = 0;
+		int to = Integer.MAX_VALUE;
+		if (cmd.hasOption(OPTION_FROM)) {
+			from = ((Number) cmd.getParsedOptionValue(OPTION_FROM)).intValue();
+		}
+		if (cmd.hasOption(OPTION_TO)) {
+			to = ((Number) cmd.getParsedOptionValue(OPTION_TO)).intValue();
+		}
+		filter.setCycles(from, to);
+
+		List<File> files = parseFileArguments(cmd.getArgs());
+		Map<String, Map<Kind, Integer>> summary = new TreeMap<>();
+		try (TraceReader reader = new TraceReader(files)) {
+			TraceRecord record;
+			while ((record = reader.read()) != null) {
+				if (!filter.accept(record)) {
+					continue;
+				}
+				if (cmd.hasOption(OPTION_SUMMARY)) {
+					count(summary, record);
+				} else {
+					out.println(record);
+				}
+			}
+		}
+		if (cmd.hasOption(OPTION_SUMMARY)) {
+			for (String agent : summary.keySet()) {
+				for (Map.Entry<Kind, Integer> count : summary.get(agent)
+						.entrySet()) {
+					out.println(agent + "\t" + count.getKey() + "\t"
+							+ count.getValue());
+				}
+			}
+		}
+	}
+
+	private static void count(Map<String, Map<Kind, Integer>> summary,
+			TraceRecord record) {
+		Map<Kind, Integer> counts = summary.get(record.getAgent());
+		if (counts == null) {
+			counts = new EnumMap<>(Kind.class);
+			summary.put(record.getAgent(), counts);
+		}
+		Integer count = counts.get(record.getKind());
+		counts.put(record.getKind(), (count == null) ? 1 : count + 1);
+	}
+
+	/**
+	 * Parses the left over arguments as trace files or directories with trace
+	 * files.
+	 *
+	 * @throws FileNotFoundException
+	 *             when no arguments were present or an argument was not a
+	 *             file or directory.
+	 */
+	private static List<File> parseFileArguments(String[] arguments)
+			throws FileNotFoundException {
+		if (arguments.length == 0) {
+			throw new FileNotFoundException("Missing file or directory");
+		}
+		List<File> files = new ArrayList<>();
+		for (String fileOrFolder : arguments) {
+			File f = new File(fileOrFolder);
+			if (f.isDirectory()) {
+				File[] traces = f.listFiles();
+				Arrays.sort(traces);
+				for (File trace : traces) {
+					if (trace.getName().endsWith(TraceWriter.EXTENSION)) {
+						files.add(trace);
+					}
+				}
+			} else if (f.isFile()) {
+				files.add(f);
+			} else {
+				throw new FileNotFoundException(fileOrFolder
+						+ " was neither a file nor a directory");
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Creates the command line options.
+	 *
+	 * @return the command line options.
+	 */
+	private static Options createOptions() {
+		Options options = new Options();
+
+		options.addOption(new Option(OPTION_HELP_SHORT, OPTION_HELP, false,
+				"Displays this help"));
+
+		OptionBuilder.withLongOpt(OPTION_AGENT);
+		OptionBuilder.withArgName("name");
+		OptionBuilder
+				.withDescription("Only print the records of this agent (can be repeated)");
+		OptionBuilder.hasArg();
+		options.addOption(OptionBuilder.create(OPTION_AGENT_SHORT));
+
+		OptionBuilder.withLongOpt(OPTION_KIND);
+		OptionBuilder.withArgName("kinds");
+		OptionBuilder
+				.withDescription("Only print records of these kinds (separated by commas): "
+						+ Arrays.toString(Kind.values()).replaceAll(
+								"[\\[\\]]", ""));
+		OptionBuilder.hasArg();
+		options.addOption(OptionBuilder.create(OPTION_KIND_SHORT));
+
+		OptionBuilder.withLongOpt(OPTION_GREP);
+		OptionBuilder.withArgName("text");
+		OptionBuilder
+				.withDescription("Only print records that contain this text");
+		OptionBuilder.hasArg();
+		options.addOption(OptionBuilder.create(OPTION_GREP_SHORT));
+
+		OptionBuilder.withLongOpt(OPTION_FROM);
+		OptionBuilder.withArgName("cycle");
+		OptionBuilder.withDescription("Only print records from this cycle on");
+		OptionBuilder.hasArg();
+		OptionBuilder.withType(Number.class);
+		options.addOption(OptionBuilder.create());
+
+		OptionBuilder.withLongOpt(OPTION_TO);
+		OptionBuilder.withArgName("cycle");
+		OptionBuilder.withDescription("Only print records up to this cycle");
+		OptionBuilder.hasArg();
+		OptionBuilder.withType(Number.class);
+		options.addOption(OptionBuilder.create());
+
+		OptionBuilder.withLongOpt(OPTION_SUMMARY);
+		OptionBuilder
+				.withDescription("Print the number of records per agent and kind instead of the records");
+		options.addOption(OptionBuilder.create(OPTION_SUMMARY_SHORT));
+
+		return options;
+	}
+
+	/**
+	 * Prints the help for the command line options.
+	 */
+	private static void showHelp() {
+		HelpFormatter formatter = new HelpFormatter();
+		formatter.printHelp(TraceTool.class.getCanonicalName()
+				+ " [options] [file|directory]...", options);
+	}
+}
@@ -0,0 +1,272 @@
+package goal.tools.trace;
+
+import goal.tools.trace.TraceRecord.Kind;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes an execution trace as compact binary records, see
+ * {@link TraceReader}.
+ * <p>
+ * Every file starts with the {@link #MAGIC} bytes, the {@link #VERSION} of the
+ * format and the time at which the trace was started (in milliseconds since
+ * the epoch, 8 bytes). After that, every record is a frame: its length
+ * followed by the frame type and its fields. Numbers are encoded as unsigned
+ * variable-length integers (7 bits per byte, least significant first) and
+ * strings as their length in bytes followed by their UTF-8 bytes. The frame
+ * types are:
+ * <ul>
+ * <li>{@link #STRING}: an id and a string. Strings (names of agents, rules,
+ * actions, percepts, ...) are only written once per file; records refer to
+ * them by their id.</li>
+ * <li>{@link #RECORD}: the ordinal of the {@link Kind}, the time in
+ * microseconds since the start of the trace, the id of the name of the agent,
+ * the cycle, the number of data strings and their ids. An id 0 is followed by
+ * the string itself, for strings that are not worth remembering.</li>
+ * </ul>
+ * Frames of an unknown type are skipped.
+ * </p>
+ * <p>
+ * A file is continued in a new file once it is larger than the maximum file
+ * size; the files are called <code>name-000.trace</code>,
+ * <code>name-001.trace</code>, and so on. Every file can be read on its own.
+ * A writer can be used by several agents at the same time.
+ * </p>
+ */
+public class TraceWriter implements Closeable {
+	public static final byte[] MAGIC = { 'G', 'T', 'R', 'C' };
+	public static final int VERSION = 1;
+	public static final String EXTENSION = ".trace"; //$NON-NLS-1$
+
+	public static final int STRING = 1;
+	public static final int RECORD = 2;
+
+	/**
+	 * Strings that are longer than this are written in the record itself.
+	 */
+	private static final int MAX_INTERNED_LENGTH = 1024;
+	/**
+	 * The maximum number of strings that are remembered per file.
+	 */
+	private static final int MAX_INTERNED = 64 * 1024;
+	private static final Charset UTF8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	private final File directory;
+	private final String name;
+	private final long maxFileSize;
+	private final long startTime = System.currentTimeMillis();
+	private final long startNanos = System.nanoTime();
+	private final Frame frame = new Frame();
+	private final Frame strings = new Frame();
+	private final Map<String, Integer> ids = new HashMap<>();
+	private final List<File> files = new ArrayList<>();
+	private OutputStream output;
+	private long size;
+
+	/**
+	 * Creates a trace and opens its first file.
+	 *
+	 * @param directory
+	 *            the directory to write the files in; created if it does not
+	 *            exist.
+	 * @param name
+	 *            the name of the trace; the files are called name-000.trace,
+	 *            name-001.trace, and so on.
+	 * @param maxFileSize
+	 *            the size in bytes after which a file is continued in a new
+	 *            file; 0 for no maximum.
+	 * @throws IOException
+	 *             if the first file could not be created.
+	 */
+	public TraceWriter(File directory, String name, long maxFileSize)
+			throws IOException {
+		this.directory = directory;
+		this.name = name;
+		this.maxFileSize = maxFileSize;
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create the trace directory " //$NON-NLS-1$
+					+ directory + "."); //$NON-NLS-1$
+		}
+		open();
+	}
+
+	/**
+	 * Writes a record.
+	 *
+	 * @param kind
+	 *            the kind of record.
+	 * @param agent
+	 *            the name of the agent.
+	 * @param cycle
+	 *            the reasoning cycle of the agent.
+	 * @param data
+	 *            the data of the record, see {@link Kind}.
+	 * @throws IOException
+	 *             if the record could not be written.
+	 */
+	public synchronized void write(Kind kind, String agent, int cycle,
+			String... data) throws IOException {
+		if (this.output == null) {
+			throw new IOException("The trace " + this.name + " is closed."); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		// strings are defined in their own frames before the record.
+		this.strings.reset();
+		this.frame.reset();
+		this.frame.write(RECORD);
+		this.frame.write(kind.ordinal());
+		this.frame.writeVarlong((System.nanoTime() - this.startNanos) / 1000);
+		writeString(agent);
+		this.frame.writeVarint(cycle);
+		this.frame.writeVarint(data.length);
+		for (final String string : data) {
+			writeString(string);
+		}
+		this.strings.writeTo(this.output);
+		this.size += this.strings.size();
+		sendFrame(this.frame);
+		if (this.maxFileSize > 0 && this.size >= this.maxFileSize) {
+			this.output.close();
+			open();
+		}
+	}
+
+	/**
+	 * Writes a reference to a string in the current record, after defining
+	 * the string if it has not been used before in the current file.
+	 */
+	private void writeString(String string) throws IOException {
+		if (string == null) {
+			string = "null"; //$NON-NLS-1$
+		}
+		Integer id = this.ids.get(string);
+		if (id == null) {
+			if (string.length() > MAX_INTERNED_LENGTH
+					|| this.ids.size() >= MAX_INTERNED) {
+				this.frame.writeVarint(0);
+				this.frame.writeString(string);
+				return;
+			}
+			id = this.ids.size() + 1;
+			this.ids.put(string, id);
+			final Frame definition = new Frame();
+			definition.write(STRING);
+			definition.writeVarint(id);
+			definition.writeString(string);
+			writeVarint(this.strings, definition.size());
+			definition.writeTo(this.strings);
+		}
+		this.frame.writeVarint(id);
+	}
+
+	private void sendFrame(Frame frame) throws IOException {
+		this.size += writeVarint(this.output, frame.size()) + frame.size();
+		frame.writeTo(this.output);
+	}
+
+	/**
+	 * Opens the next file of the trace and writes its header.
+	 */
+	private void open() throws IOException {
+		final File file = new File(this.directory, String.format(
+				"%s-%03d%s", this.name, this.files.size(), EXTENSION)); //$NON-NLS-1$
+		this.output = new BufferedOutputStream(new FileOutputStream(file),
+				64 * 1024);
+		this.files.add(file);
+		this.ids.clear();
+		this.output.write(MAGIC);
+		this.output.write(VERSION);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			this.output.write((int) (this.startTime >>> shift));
+		}
+		this.size = MAGIC.length + 1 + 8;
+	}
+
+	/**
+	 * @return the time at which the trace was started, in milliseconds since
+	 *         the epoch.
+	 */
+	public long getStartTime() {
+		return this.startTime;
+	}
+
+	/**
+	 * @return the files of the trace that have been written so far, in order.
+	 */
+	public synchronized List<File> getFiles() {
+		return Collections.unmodifiableList(new ArrayList<>(this.files));
+	}
+
+	/**
+	 * Writes the records that have been buffered to the current file.
+	 */
+	public synchronized void flush() throws IOException {
+		if (this.output != null) {
+			this.output.flush();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (this.output != null) {
+			try {
+				this.output.close();
+			} finally {
+				this.output = null;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of bytes written.
+	 */
+	private static int writeVarint(OutputStream out, int value)
+			throws IOException {
+		int bytes = 1;
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+			bytes++;
+		}
+		out.write(value);
+		return bytes;
+	}
+
+	/**
+	 * A frame that is being written; reused for every frame.
+	 */
+	private static class Frame extends ByteArrayOutputStream {
+		Frame() {
+			super(256);
+		}
+
+		void writeVarint(int value) throws IOException {
+			TraceWriter.writeVarint(this, value);
+		}
+
+		void writeVarlong(long value) {
+			while ((value & ~0x7FL) != 0) {
+				write((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			write((int) value);
+		}
+
+		void writeString(String string) throws IOException {
+			final byte[] bytes = string.getBytes(UTF8);
+			writeVarint(bytes.length);
+			write(bytes);
+		}
+	}
+}
@@ -13,15 +13,10 @@ public class GamAgentServiceTest extends AbstractUnitTestTest {
 
 	@Test
 	public void testCorrectMinimal() throws Exception {
-		Engine gamEngine = Engine.getInstance();
-		//gamEngine.setStart(true);
-		//gamEngine.useFile(true);
-		
 		runTest("src/test/resources/goal/parser/unittest/correctMinimal.test2g");
+		Engine gamEngine = this.engine;
 
 		assertTrue(gamEngine.getMap().getAgentMap().containsKey("agentUnderTest"));
 		assertTrue(gamEngine.getMap().getAgentMap().containsKey("secondAgentUnderTest"));
-		
-		//gamEngine.reset();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package gamIntegration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import goal.core.gamygdala.Agent;
+import goal.core.gamygdala.Belief;
+import goal.core.gamygdala.Emotion;
+import goal.core.gamygdala.Engine;
+import goal.core.gamygdala.Goal;
+import goal.core.gamygdala.LinearDecay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class GamConcurrencyTest {
+	private static final int AGENTS = 8;
+	private static final int CYCLES = 2000;
+
+	private Engine engine;
+
+	@Before
+	public void setUp() {
+		this.engine = new Engine();
+	}
+
+	@Test
+	public void testDecayOnlyAffectsAgent() throws Exception {
+		this.engine.setDecay(0.5, new LinearDecay(0.5));
+		Agent first = this.engine.createAgent("first");
+		Agent second = this.engine.createAgent("second");
+		first.updateEmotionalState(new Emotion("joy", 1));
+		second.updateEmotionalState(new Emotion("joy", 1));
+
+		Thread.sleep(50);
+		this.engine.decay("first");
+
+		assertTrue(first.getEmotionalState(null).get(0).intensity < 1);
+		assertEquals(1, second.getEmotionalState(null).get(0).intensity, 0);
+	}
+
+	/**
+	 * Agents that like each other appraise their own goals and decay on their
+	 * own threads; this changes the social emotions of all other agents.
+	 */
+	@Test
+	public void testConcurrentAppraisals() throws Exception {
+		final List<Agent> agents = new ArrayList<>();
+		final List<Goal> goals = new ArrayList<>();
+		for (int i = 0; i < AGENTS; i++) {
+			Agent agent = this.engine.createAgent("agent" + i);
+			agents.add(agent);
+			goals.add(this.engine.createGoalForAgent(agent, "goal" + i, 1,
+					true));
+		}
+		for (Agent source : agents) {
+			for (Agent target : agents) {
+				if (source != target) {
+					this.engine.createRelation(source, target, 0.5);
+				}
+			}
+		}
+
+		ExecutorService threads = Executors.newFixedThreadPool(AGENTS);
+		try {
+			List<Callable<Void>> tasks = new ArrayList<>();
+			for (int i = 0; i < AGENTS; i++) {
+				final Agent agent = agents.get(i);
+				final Goal goal = goals.get(i);
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						ArrayList<Goal> affected = new ArrayList<>();
+						affected.add(goal);
+						for (int c = 0; c < CYCLES; c++) {
+							ArrayList<Double> congruences = new ArrayList<>();
+							congruences.add(c % 2 == 0 ? 1.0 : -1.0);
+							GamConcurrencyTest.this.engine.appraise(
+									new Belief(0.5, agent, affected,
+											congruences, false), agent);
+							GamConcurrencyTest.this.engine.decay(agent.name);
+						}
+						return null;
+					}
+				});
+			}
+			for (Future<Void> result : threads.invokeAll(tasks)) {
+				result.get();
+			}
+		} finally {
+			threads.shutdown();
+		}
+
+		for (Agent agent : agents) {
+			synchronized (agent) {
+				for (Emotion emotion : agent.getEmotionalState(null)) {
+					assertTrue(emotion.intensity >= 0);
+				}
+				assertEquals(AGENTS - 1, agent.getCurrentRelations().size());
+			}
+		}
+	}
+}
@@ -13,15 +13,10 @@ public class GamGoalTest extends AbstractUnitTestTest {
 
 	@Test
 	public void testCorrectMinimal() throws Exception {
-		Engine gamEngine = Engine.getInstance();
-		//gamEngine.setStart(true);
-		//gamEngine.useFile(true);
-		
 		runTest("src/test/resources/goal/parser/unittest/testGamGoals.test2g");
+		Engine gamEngine = this.engine;
 		assertTrue(gamEngine.getMap().getGoalMap().containsKey("aap(12)"));
 		assertEquals(gamEngine.getMap().getAgentMap().getAgentByName("agentUnderTest").getGoalByName("aap(12)").getName(), "aap(12)");
 		assertEquals(gamEngine.getMap().getAgentMap().getAgentByName("secondAgentUnderTest").getGoalByName("aap(12)").getName(), "aap(12)");
-
-		//gamEngine.reset();
 	}
 }
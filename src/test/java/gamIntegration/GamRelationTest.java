@@ -13,7 +13,7 @@ import goal.core.gamygdala.AgentRelations;
 import goal.core.gamygdala.Engine;
 import goal.core.gamygdala.Relation;
 import goal.parser.unittest.AbstractUnitTestTest;
-import goal.tools.SingleRun;
+import goal.tools.PlatformManager;
 import goal.tools.unittest.result.UnitTestResult;
 
 @SuppressWarnings("javadoc")
@@ -21,9 +21,8 @@ public class GamRelationTest extends AbstractUnitTestTest {
 
 	@Test
 	public void RelationTest() throws Exception {
-		Engine.reset();
-		Engine gamEngine = Engine.getInstance();
-		SingleRun run = new SingleRun(new File("src/test/resources/goal/parser/unittest/correctMasUnderTest2.mas2g"), 100000); 
+		Engine gamEngine = new Engine();
+		gamEngine.setup(PlatformManager.createNew().parseMASFile(new File("src/test/resources/goal/parser/unittest/correctMasUnderTest2.mas2g")));
 		
 		Agent agent = new Agent("agent2");
 		Relation rel = new Relation(agent, -1.0);
@@ -1,11 +1,12 @@
 package gamIntegration;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import eis.exceptions.EnvironmentInterfaceException;
 import goal.core.agent.AbstractAgentFactory;
+import goal.core.agent.Agent;
 import goal.core.agent.AgentFactory;
 import goal.core.agent.GOALInterpreter;
-import goal.core.gamygdala.Engine;
 import goal.core.runtime.MessagingService;
 import goal.core.runtime.RemoteRuntimeService;
 import goal.core.runtime.RuntimeManager;
@@ -50,7 +51,6 @@ public class GamygdalaInitializationTest {
 	RemoteRuntimeService<NOPDebugger, GOALInterpreter<NOPDebugger>> remoteRuntimeService;
 	
 	RuntimeManager<NOPDebugger, GOALInterpreter<NOPDebugger>> runtimeManager;
-	Engine gamInstance;
 
 	@Before
 	public void setUp() throws Exception {
@@ -89,8 +89,6 @@ public class GamygdalaInitializationTest {
 
 	@After
 	public void tearDown() throws Exception {
-		Engine.getInstance();
-		Engine.reset();
 		runtimeManager.awaitTermination(AbstractRun.TIMEOUT_FIRST_AGENT_SECONDS);
 		messagingService.shutDown();
 	}
@@ -98,11 +96,13 @@ public class GamygdalaInitializationTest {
 	@Test
 	public void testStart() throws MessagingException, EnvironmentInterfaceException,
 			InterruptedException, GOALLaunchFailureException, FileNotFoundException, InvalidEmotionConfigFile {
-		Engine.getInstance();
-		Engine.reset();
 		runtimeManager.start(true);
 		
 		// fibonaci.mas2g has four agents
-		assertEquals(Engine.getInstance().getMap().getAgentMap().size(), 4);
+		assertEquals(runtimeManager.getEngine().getMap().getAgentMap().size(), 4);
+		// the agents share the engine of their runtime.
+		for (Agent<GOALInterpreter<NOPDebugger>> agent : runtimeManager.getAgents()) {
+			assertSame(runtimeManager.getEngine(), agent.getEngine());
+		}
 	}
 }
@@ -0,0 +1,94 @@
+package goal.core.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the {@link PoolScheduler}, the {@link WorkStealingScheduler} and
+ * the {@link ThreadPerAgentScheduler} run all steps of a number of
+ * {@link SyntheticAgent}s.
+ */
+public class AgentSchedulerTest {
+	private AgentScheduler previous;
+
+	@Before
+	public void setUp() {
+		this.previous = Controller.getScheduler();
+	}
+
+	@After
+	public void tearDown() {
+		Controller.setScheduler(this.previous);
+	}
+
+	@Test
+	public void testPoolRunsAllSteps() throws Exception {
+		assertRunsAllSteps(new PoolScheduler(2));
+	}
+
+	@Test
+	public void testWorkStealingRunsAllSteps() throws Exception {
+		WorkStealingScheduler scheduler = new WorkStealingScheduler(2, 1,
+				TimeUnit.MILLISECONDS);
+		SchedulerStatistics statistics = assertRunsAllSteps(scheduler);
+		assertEquals(0, statistics.getQueued());
+	}
+
+	@Test
+	public void testThreadPerAgentRunsAllSteps() throws Exception {
+		ThreadPerAgentScheduler scheduler = new ThreadPerAgentScheduler();
+		assertRunsAllSteps(scheduler);
+		// the threads end as soon as their agents have terminated, without
+		// waiting for the poll interval.
+		long deadline = System.currentTimeMillis() + 500;
+		while (scheduler.getThreadCount() > 0
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, scheduler.getThreadCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWeightShouldBePositive() {
+		new SyntheticAgent(0, 1, null).setWeight(0);
+	}
+
+	private static SchedulerStatistics assertRunsAllSteps(
+			AgentScheduler scheduler) throws Exception {
+		CountDownLatch done = new CountDownLatch(20);
+		List<SyntheticAgent> agents = start(scheduler, 20,
+				TimeUnit.MICROSECONDS.toNanos(100), 10, done);
+		assertTrue(done.await(1, TimeUnit.MINUTES));
+		for (SyntheticAgent agent : agents) {
+			assertEquals(10, agent.latencies.size());
+			assertTrue(agent.isTerminated());
+		}
+		SchedulerStatistics statistics = scheduler.getStatistics();
+		scheduler.shutdown();
+		// the last step of an agent may still be finishing.
+		assertTrue(statistics.getExecuted() >= 20 * 10
+				* SyntheticAgent.STEPS_PER_CYCLE - 20);
+		return statistics;
+	}
+
+	private static List<SyntheticAgent> start(AgentScheduler scheduler,
+			int agents, long work, int cycles, CountDownLatch done) {
+		Controller.setScheduler(scheduler);
+		List<SyntheticAgent> started = new ArrayList<>(agents);
+		for (int i = 0; i < agents; i++) {
+			SyntheticAgent agent = new SyntheticAgent(work, cycles, done);
+			agent.run();
+			started.add(agent);
+		}
+		return started;
+	}
+}
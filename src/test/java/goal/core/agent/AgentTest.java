@@ -1,7 +1,9 @@
 package goal.core.agent;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import goal.preferences.PMPreferences;
 import goal.tools.PlatformManager;
 import goal.tools.adapt.FileLearner;
 import goal.tools.adapt.Learner;
@@ -103,6 +105,45 @@ public class AgentTest {
 		assertFalse(this.controller.isTerminated());
 	}
 
+	@Test
+	public void testSleepAndTerminate() throws Exception {
+		boolean sleep = PMPreferences.getSleepRepeatingAgent();
+		PMPreferences.setSleepRepeatingAgent(true);
+		try {
+			AgentId id = new AgentId("SleepingAgent");
+			File file = new File(
+					"src/test/resources/goal/core/agent/sleeping.goal");
+			AgentProgram program = PlatformManager.createNew().parseGOALFile(
+					file, this.language);
+			NOPDebugger debugger = new NOPDebugger(id);
+			GOALInterpreter<NOPDebugger> sleeper = new GOALInterpreter<NOPDebugger>(
+					program, debugger, new FileLearner(id.getName(), program));
+			new Agent<GOALInterpreter<NOPDebugger>>(id,
+					new NoEnvironmentCapabilities(),
+					new NoMessagingCapabilities(), new NoLoggingCapabilities(),
+					sleeper);
+
+			sleeper.run();
+			for (int i = 0; i < 100 && !sleeper.getRunState().isAsleep(); i++) {
+				Thread.sleep(10);
+			}
+			assertTrue(sleeper.getRunState().isAsleep());
+
+			// a sleeping agent does not start new cycles
+			int rounds = sleeper.getRunState().getRoundCounter();
+			Thread.sleep(3 * PMPreferences.getSleepPollInterval());
+			assertEquals(rounds, sleeper.getRunState().getRoundCounter());
+			assertTrue(sleeper.isRunning());
+
+			sleeper.terminate();
+			sleeper.awaitTermination(1);
+			assertFalse(sleeper.isRunning());
+			assertTrue(sleeper.isTerminated());
+		} finally {
+			PMPreferences.setSleepRepeatingAgent(sleep);
+		}
+	}
+
 	@Test
 	public void testReset() throws InterruptedException, KRInitFailedException,
 	KRDatabaseException, KRQueryFailedException, UnknownObjectException {
@@ -0,0 +1,88 @@
+package goal.core.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import goal.preferences.PMPreferences;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ControllerTest {
+	private int interval;
+
+	@Before
+	public void setUp() {
+		this.interval = PMPreferences.getSleepPollInterval();
+		// without polling, a lost wake up leaves the agent asleep forever.
+		PMPreferences.setSleepPollInterval(0);
+	}
+
+	@After
+	public void tearDown() {
+		PMPreferences.setSleepPollInterval(this.interval);
+	}
+
+	/**
+	 * Input that arrives after an agent has decided to sleep, but before it
+	 * has handed over its task, should wake it up.
+	 */
+	@Test
+	public void testWakeUpBeforeSleep() throws InterruptedException {
+		SleepingController controller = new SleepingController(true);
+		controller.run();
+		assertTrue(controller.done.await(10, TimeUnit.SECONDS));
+		assertEquals(2, controller.steps.get());
+	}
+
+	@Test
+	public void testWakeUpAfterSleep() throws InterruptedException {
+		SleepingController controller = new SleepingController(false);
+		controller.run();
+		assertTrue(controller.asleep.await(10, TimeUnit.SECONDS));
+		assertEquals(1, controller.steps.get());
+		controller.wakeUp();
+		assertTrue(controller.done.await(10, TimeUnit.SECONDS));
+		assertEquals(2, controller.steps.get());
+	}
+
+	/**
+	 * Goes to sleep after its first step, and terminates after its second.
+	 */
+	private static class SleepingController extends Controller {
+		private final boolean wakeUpFirst;
+		private final AtomicInteger steps = new AtomicInteger();
+		private final CountDownLatch asleep = new CountDownLatch(1);
+		private final CountDownLatch done = new CountDownLatch(1);
+
+		SleepingController(boolean wakeUpFirst) {
+			this.wakeUpFirst = wakeUpFirst;
+		}
+
+		@Override
+		protected Runnable getRunnable(final Executor pool,
+				final Callable<Callable<?>> in) {
+			return new Runnable() {
+				@Override
+				public void run() {
+					if (SleepingController.this.steps.incrementAndGet() == 1) {
+						if (SleepingController.this.wakeUpFirst) {
+							wakeUp();
+						}
+						sleep(getRunnable(pool, null));
+						SleepingController.this.asleep.countDown();
+					} else {
+						setTerminated();
+						SleepingController.this.done.countDown();
+					}
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package goal.core.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import goal.core.agent.Inbox.OverflowPolicy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * Tests the overflow policies and budget of the {@link Inbox}.
+ */
+public class InboxTest {
+	@Test
+	public void testDropOldest() {
+		Inbox<Integer> inbox = new Inbox<>(3, OverflowPolicy.DROP_OLDEST, 0);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(inbox.offer(i));
+		}
+		assertEquals(2, inbox.getDropped());
+		assertEquals(Arrays.asList(2, 3, 4), new ArrayList<>(inbox.drain()));
+	}
+
+	@Test
+	public void testDropNewest() {
+		Inbox<Integer> inbox = new Inbox<>(3, OverflowPolicy.DROP_NEWEST, 0);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(i < 3, inbox.offer(i));
+		}
+		assertEquals(2, inbox.getDropped());
+		assertEquals(Arrays.asList(0, 1, 2), new ArrayList<>(inbox.drain()));
+	}
+
+	@Test
+	public void testCoalesce() {
+		Inbox<String> inbox = new Inbox<>(2, OverflowPolicy.COALESCE, 0);
+		assertTrue(inbox.offer("a"));
+		assertFalse(inbox.offer("a"));
+		assertTrue(inbox.offer("b"));
+		assertFalse(inbox.offer("b"));
+		assertEquals(2, inbox.getCoalesced());
+		assertEquals(0, inbox.getDropped());
+		// full: the oldest message makes room.
+		assertTrue(inbox.offer("c"));
+		assertEquals(1, inbox.getDropped());
+		// "a" is no longer in the inbox, so it is not coalesced.
+		assertTrue(inbox.offer("a"));
+		assertEquals(Arrays.asList("c", "a"), new ArrayList<>(inbox.drain()));
+		assertTrue(inbox.offer("c"));
+	}
+
+	@Test
+	public void testBlock() throws Exception {
+		final Inbox<Integer> inbox = new Inbox<>(1, OverflowPolicy.BLOCK, 0);
+		assertTrue(inbox.offer(0));
+		final CountDownLatch sent = new CountDownLatch(1);
+		final AtomicBoolean accepted = new AtomicBoolean();
+		Thread sender = new Thread() {
+			@Override
+			public void run() {
+				accepted.set(inbox.offer(1));
+				sent.countDown();
+			}
+		};
+		sender.start();
+		// the sender waits until there is room.
+		Thread.sleep(100);
+		assertEquals(1, sent.getCount());
+		assertEquals(Arrays.asList(0), new ArrayList<>(inbox.drain()));
+		sender.join(Inbox.BLOCK_TIMEOUT);
+		assertTrue(accepted.get());
+		assertEquals(Arrays.asList(1), new ArrayList<>(inbox.drain()));
+
+		// a sender gives up after the timeout.
+		assertTrue(inbox.offer(2));
+		assertFalse(inbox.offer(3));
+		assertEquals(1, inbox.getDropped());
+	}
+
+	@Test
+	public void testClosedInboxReleasesSenders() throws Exception {
+		final Inbox<Integer> inbox = new Inbox<>(1, OverflowPolicy.BLOCK, 0);
+		assertTrue(inbox.offer(0));
+		final AtomicBoolean accepted = new AtomicBoolean(true);
+		Thread sender = new Thread() {
+			@Override
+			public void run() {
+				accepted.set(inbox.offer(1));
+			}
+		};
+		sender.start();
+		Thread.sleep(100);
+		inbox.close();
+		sender.join(Inbox.BLOCK_TIMEOUT);
+		assertFalse(accepted.get());
+		assertFalse(inbox.offer(2));
+	}
+
+	@Test
+	public void testBudget() {
+		Inbox<Integer> inbox = new Inbox<>(0, OverflowPolicy.DROP_OLDEST, 2);
+		for (int i = 0; i < 5; i++) {
+			inbox.offer(i);
+		}
+		assertEquals(Arrays.asList(0, 1), new ArrayList<>(inbox.drain()));
+		assertEquals(Arrays.asList(2, 3), new ArrayList<>(inbox.drain()));
+		assertEquals(Arrays.asList(4), new ArrayList<>(inbox.drain()));
+		assertTrue(inbox.drain().isEmpty());
+	}
+}
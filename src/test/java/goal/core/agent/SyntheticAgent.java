@@ -0,0 +1,75 @@
+package goal.core.agent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+/**
+ * An agent of which every cycle consists of {@link #STEPS_PER_CYCLE} steps
+ * that each keep the thread busy for a fixed time. Records the duration of
+ * every cycle, and terminates after a given number of cycles or when it is
+ * stopped.
+ */
+class SyntheticAgent extends Controller {
+	static final int STEPS_PER_CYCLE = 5;
+
+	private final long work;
+	private final int cycles;
+	private final CountDownLatch done;
+	final List<Long> latencies = Collections
+			.synchronizedList(new ArrayList<Long>());
+	private long cycleStart;
+	private int steps = 0;
+
+	/**
+	 * @param work
+	 *            the time (in nanoseconds) a step keeps the thread busy.
+	 * @param cycles
+	 *            the number of cycles after which the agent terminates.
+	 * @param done
+	 *            counted down when the agent terminates.
+	 */
+	SyntheticAgent(long work, int cycles, CountDownLatch done) {
+		this.work = work;
+		this.cycles = cycles;
+		this.done = done;
+	}
+
+	@Override
+	protected Runnable getRunnable(final Executor pool,
+			final Callable<Callable<?>> in) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				if (!isRunning()) {
+					setTerminated();
+					SyntheticAgent.this.done.countDown();
+					return;
+				}
+				long start = System.nanoTime();
+				if (SyntheticAgent.this.steps == 0) {
+					SyntheticAgent.this.cycleStart = start;
+				}
+				while (System.nanoTime() - start < SyntheticAgent.this.work) {
+					// keep the thread busy.
+				}
+				SyntheticAgent.this.steps++;
+				if (SyntheticAgent.this.steps % STEPS_PER_CYCLE == 0) {
+					long now = System.nanoTime();
+					SyntheticAgent.this.latencies.add(now
+							- SyntheticAgent.this.cycleStart);
+					SyntheticAgent.this.cycleStart = now;
+					if (SyntheticAgent.this.latencies.size() == SyntheticAgent.this.cycles) {
+						setTerminated();
+						SyntheticAgent.this.done.countDown();
+						return;
+					}
+				}
+				pool.execute(getRunnable(pool, null));
+			}
+		};
+	}
+}
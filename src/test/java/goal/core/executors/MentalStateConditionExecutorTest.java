@@ -0,0 +1,144 @@
+package goal.core.executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import goal.core.agent.Agent;
+import goal.core.agent.GOALInterpreter;
+import goal.core.agent.NoEnvironmentCapabilities;
+import goal.core.agent.NoLoggingCapabilities;
+import goal.core.agent.NoMessagingCapabilities;
+import goal.core.mentalstate.MentalState;
+import goal.core.runtime.service.agent.RunState;
+import goal.tools.PlatformManager;
+import goal.tools.adapt.FileLearner;
+import goal.tools.debugger.NOPDebugger;
+import goal.tools.eclipse.QueryTool;
+import goal.tools.logging.Loggers;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import krTools.KRInterface;
+import krTools.language.Substitution;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.msc.MentalStateCondition;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compares the evaluation of mental state conditions by
+ * {@link MentalStateConditionExecutor#evaluate(MentalState, goal.tools.debugger.Debugger)}
+ * with the evaluation of their literals in a nested loop by
+ * {@link MentalStateConditionExecutor#evaluateNestedLoop(MentalState, goal.tools.debugger.Debugger)}
+ * : both should give the same substitutions, in the same order (which is
+ * observed by rules that iterate over them). The conditions are evaluated on
+ * an agent that has executed its init module; see conditions.goal.
+ */
+public class MentalStateConditionExecutorTest {
+	private static final String AGENT = "src/test/resources/goal/core/performance/conditions/conditions.goal";
+	private static final String[] CONDITIONS = {
+			"bel(at(X, Y)), bel(block(X)), a-goal(on(X, Z))",
+			"bel(on(X, Y)), bel(on(Y, Z)), goal(on(X, W))",
+			"bel(block(X)), bel(block(Y)), bel(at(X, P), at(Y, P))",
+			"bel(block(X)), not(bel(clear(X))), bel(at(X, 0))",
+			"bel(at(X, P)), bel(Q is P + 1), bel(at(Y, Q))",
+			"bel(block(b0)), bel(clear(X)), bel(at(Y, 2))",
+			"bel(tower(X, Y, Z)), a-goal(on(Z, W)), bel(block(W))",
+			"bel(block(X)), bel(on(b99, _))",
+			"bel(at(_, P)), bel(at(X, P)), not(bel(on(X, table)))",
+			"goal(on(X, Y)), bel(on(X, Z)), not(bel(on(Y, Z)))" };
+
+	private static KRInterface language;
+	private static GOALInterpreter<NOPDebugger> controller;
+	private static MentalState mentalState;
+	private static NOPDebugger debugger;
+	private static QueryTool queries;
+
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Loggers.addConsoleLogger();
+		language = KRFactory.getDefaultInterface();
+		AgentProgram program = PlatformManager.createNew().parseGOALFile(
+				new File(AGENT), language);
+		assertTrue(program.isValid());
+
+		AgentId id = new AgentId("ConditionAgent");
+		debugger = new NOPDebugger(id);
+		controller = new GOALInterpreter<NOPDebugger>(program, debugger,
+				new FileLearner(id.getName(), program));
+		Agent<GOALInterpreter<NOPDebugger>> agent = new Agent<GOALInterpreter<NOPDebugger>>(
+				id, new NoEnvironmentCapabilities(),
+				new NoMessagingCapabilities(), new NoLoggingCapabilities(),
+				controller);
+		RunState<NOPDebugger> runState = controller.getRunState();
+		// the first cycle runs the init module.
+		runState.startCycle(false);
+		runState.enteredModule(runState.getMainModule());
+		mentalState = runState.getMentalState();
+		queries = new QueryTool(agent);
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		controller.dispose();
+		Loggers.removeConsoleLogger();
+	}
+
+	@Test
+	public void testSameSubstitutions() throws Exception {
+		for (String condition : CONDITIONS) {
+			MentalStateConditionExecutor executor = new MentalStateConditionExecutor(
+					queries.parseMSC(condition));
+			Set<Substitution> expected = new HashSet<>(
+					executor.evaluateNestedLoop(mentalState, debugger));
+			Set<Substitution> actual = new HashSet<>(executor.evaluate(
+					mentalState, debugger));
+			assertEquals(condition, expected, actual);
+		}
+	}
+
+	@Test
+	public void testSameOrder() throws Exception {
+		for (String condition : CONDITIONS) {
+			MentalStateConditionExecutor executor = new MentalStateConditionExecutor(
+					queries.parseMSC(condition));
+			List<Substitution> expected = new ArrayList<>(
+					executor.evaluateNestedLoop(mentalState, debugger));
+			List<Substitution> actual = new ArrayList<>(executor.evaluate(
+					mentalState, debugger));
+			assertEquals(condition, expected, actual);
+		}
+	}
+
+	@Test
+	public void testSameSubstitutionsWithBinding() throws Exception {
+		MentalStateCondition condition = queries
+				.parseMSC("bel(at(X, P)), bel(at(Y, P)), a-goal(on(X, Z))");
+		MentalStateConditionExecutor executor = new MentalStateConditionExecutor(
+				condition);
+		for (Substitution binding : new MentalStateConditionExecutor(
+				queries.parseMSC("bel(at(X, 1))")).evaluate(mentalState,
+				debugger)) {
+			Set<Substitution> expected = new HashSet<>(
+					new MentalStateConditionExecutor(
+							condition.applySubst(binding)).evaluateNestedLoop(
+							mentalState, debugger));
+			Set<Substitution> actual = new HashSet<>(executor.evaluate(
+					binding, mentalState, debugger));
+			// the results should include the given binding.
+			Set<Substitution> combined = new HashSet<>(expected.size());
+			for (Substitution substitution : expected) {
+				combined.add(substitution.combine(binding));
+			}
+			assertEquals(combined, actual);
+		}
+	}
+}
@@ -0,0 +1,256 @@
+package goal.core.executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import goal.core.agent.Agent;
+import goal.core.agent.GOALInterpreter;
+import goal.core.agent.NoEnvironmentCapabilities;
+import goal.core.agent.NoLoggingCapabilities;
+import goal.core.agent.NoMessagingCapabilities;
+import goal.core.mentalstate.MentalState;
+import goal.core.mentalstate.Theory;
+import goal.core.runtime.service.agent.RunState;
+import goal.preferences.CorePreferences;
+import goal.tools.PlatformManager;
+import goal.tools.adapt.FileLearner;
+import goal.tools.debugger.NOPDebugger;
+import goal.tools.logging.Loggers;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.List;
+
+import krTools.KRInterface;
+import krTools.language.DatabaseFormula;
+import krTools.language.Substitution;
+import krTools.language.Update;
+import languageTools.analyzer.agent.AgentValidator;
+import languageTools.parser.GOAL;
+import languageTools.parser.GOALLexer;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.Module;
+import languageTools.program.agent.Module.RuleEvaluationOrder;
+import languageTools.program.agent.actions.InsertAction;
+import languageTools.program.agent.rules.Rule;
+import mentalState.BASETYPE;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the {@link RuleConditionCache}, the generations of a theory that it
+ * depends on, and the cycle times of the run state. The tests run directly on
+ * the run state of an agent that has executed its init module; see
+ * hotpath.goal.
+ */
+public class RuleConditionCacheTest {
+	private static final String AGENT = "src/test/resources/goal/core/performance/hotpath/hotpath.goal";
+
+	private static KRInterface language;
+	private static AgentProgram program;
+
+	private GOALInterpreter<NOPDebugger> controller;
+	private RunState<NOPDebugger> runState;
+	private NOPDebugger debugger;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Loggers.addConsoleLogger();
+		language = KRFactory.getDefaultInterface();
+		program = PlatformManager.createNew().parseGOALFile(new File(AGENT),
+				language);
+		assertTrue(program.isValid());
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		Loggers.removeConsoleLogger();
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		this.controller = makeController("CacheAgent", false);
+		this.runState = this.controller.getRunState();
+		this.debugger = this.runState.getDebugger();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		this.controller.dispose();
+	}
+
+	@Test
+	public void testPreference() throws Exception {
+		assertNull(this.runState.getConditionCache());
+		GOALInterpreter<NOPDebugger> cached = makeController("CachedAgent",
+				true);
+		try {
+			assertNotNull(cached.getRunState().getConditionCache());
+		} finally {
+			cached.dispose();
+		}
+	}
+
+	@Test
+	public void testSameResults() throws Exception {
+		RuleConditionCache cache = new RuleConditionCache();
+		MentalState state = this.runState.getMentalState();
+		Substitution empty = language.getSubstitution(null);
+		int cacheable = 0;
+		for (Rule rule : this.runState.getMainModule().getRules()) {
+			if (!RuleConditionCache.isCacheable(rule)) {
+				continue;
+			}
+			cacheable++;
+			Object expected = new MentalStateConditionExecutor(
+					rule.getCondition()).evaluate(empty, state, this.debugger);
+			assertEquals(expected,
+					cache.evaluate(rule, empty, state, this.debugger));
+			// nothing changed, so the second evaluation uses the cache.
+			assertEquals(expected,
+					cache.evaluate(rule, empty, state, this.debugger));
+		}
+		assertTrue(cacheable > 0);
+		assertEquals(cacheable, cache.getHits());
+		assertEquals(cacheable, cache.getMisses());
+		assertEquals(0.5, cache.getHitRate(), 0);
+	}
+
+	@Test
+	public void testInvalidation() throws Exception {
+		RuleConditionCache cache = new RuleConditionCache();
+		MentalState state = this.runState.getMentalState();
+		Substitution empty = language.getSubstitution(null);
+		// bel(item(X)), a-goal(target(X)).
+		Rule rule = this.runState.getMainModule().getRules().get(0);
+		cache.evaluate(rule, empty, state, this.debugger);
+
+		// a percept that the rule does not query keeps the cached result.
+		DatabaseFormula unrelated = parse("unrelated(1)").get(0);
+		state.insert(unrelated, BASETYPE.PERCEPTBASE, this.debugger);
+		cache.evaluate(rule, empty, state, this.debugger);
+		assertEquals(1, cache.getHits());
+
+		// a percept with a queried predicate does not.
+		DatabaseFormula item = parse("item(99)").get(0);
+		state.insert(item, BASETYPE.PERCEPTBASE, this.debugger);
+		cache.evaluate(rule, empty, state, this.debugger);
+		assertEquals(2, cache.getMisses());
+
+		// nor does any change of the belief base.
+		state.insert(unrelated, BASETYPE.BELIEFBASE, this.debugger);
+		cache.evaluate(rule, empty, state, this.debugger);
+		assertEquals(3, cache.getMisses());
+
+		// nor a change of the goals.
+		state.drop(parseUpdate("target(1)"), this.debugger);
+		cache.evaluate(rule, empty, state, this.debugger);
+		assertEquals(4, cache.getMisses());
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	public void testGenerations() throws Exception {
+		MentalState state = this.runState.getMentalState();
+		Theory percepts = state.getOwnBase(BASETYPE.PERCEPTBASE).getTheory();
+		long item = percepts.getGeneration("item/1");
+		long generation = percepts.getGeneration();
+
+		state.insert(parse("unrelated(1)").get(0), BASETYPE.PERCEPTBASE,
+				this.debugger);
+		assertEquals(item, percepts.getGeneration("item/1"));
+		assertNotEquals(generation, percepts.getGeneration());
+
+		state.insert(parse("item(99)").get(0), BASETYPE.PERCEPTBASE,
+				this.debugger);
+		assertNotEquals(item, percepts.getGeneration("item/1"));
+	}
+
+	@Test
+	public void testCycleTime() throws Exception {
+		RulesExecutor rules = new RulesExecutor(this.runState.getMainModule()
+				.getRules(), RuleEvaluationOrder.LINEAR);
+		assertEquals(0, this.runState.getAverageCycleTime());
+		for (int i = 0; i < 3; i++) {
+			runCycle(this.runState, rules);
+		}
+		assertTrue(this.runState.getLastCycleTime() > 0);
+		assertTrue(this.runState.getAverageCycleTime() > 0);
+	}
+
+	/**
+	 * Creates an agent that has executed its init module.
+	 *
+	 * @param name
+	 *            the name of the agent.
+	 * @param cached
+	 *            true if the agent should cache its rule conditions.
+	 */
+	private static GOALInterpreter<NOPDebugger> makeController(String name,
+			boolean cached) throws Exception {
+		boolean previous = CorePreferences.isRuleConditionCache();
+		CorePreferences.setRuleConditionCache(cached);
+		try {
+			AgentId id = new AgentId(name);
+			GOALInterpreter<NOPDebugger> controller = new GOALInterpreter<NOPDebugger>(
+					program, new NOPDebugger(id), new FileLearner(
+							id.getName(), program));
+			new Agent<GOALInterpreter<NOPDebugger>>(id,
+					new NoEnvironmentCapabilities(),
+					new NoMessagingCapabilities(), new NoLoggingCapabilities(),
+					controller);
+			RunState<NOPDebugger> runState = controller.getRunState();
+			// the first cycle runs the init module.
+			runState.startCycle(false);
+			runState.enteredModule(runState.getMainModule());
+			return controller;
+		} finally {
+			CorePreferences.setRuleConditionCache(previous);
+		}
+	}
+
+	/**
+	 * Starts a new cycle and runs the rules of the main module once.
+	 */
+	private static void runCycle(RunState<NOPDebugger> runState,
+			RulesExecutor rules) throws Exception {
+		runState.startCycle(false);
+		Module main = runState.getMainModule();
+		runState.enteredModule(main);
+		try {
+			rules.run(runState, language.getSubstitution(null));
+		} finally {
+			runState.exitModule(main);
+		}
+	}
+
+	private static List<DatabaseFormula> parse(String formulas)
+			throws Exception {
+		return parseInsert(formulas).getUpdate().getAddList();
+	}
+
+	private static Update parseUpdate(String formulas)
+			throws Exception {
+		return parseInsert(formulas).getUpdate();
+	}
+
+	private static InsertAction parseInsert(String formulas) throws Exception {
+		ANTLRInputStream charstream = new ANTLRInputStream(new StringReader(
+				"insert(" + formulas + ")")); //$NON-NLS-1$ //$NON-NLS-2$
+		charstream.name = "";
+		GOAL parser = new GOAL(new CommonTokenStream(new GOALLexer(charstream)));
+		AgentValidator validator = new AgentValidator("inline");
+		validator.setKRInterface(language);
+		return (InsertAction) validator.visitAction(parser.action());
+	}
+}
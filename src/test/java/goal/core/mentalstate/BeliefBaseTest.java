@@ -0,0 +1,160 @@
+package goal.core.mentalstate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import goal.tools.PlatformManager;
+import goal.tools.debugger.Channel;
+import goal.tools.debugger.DebugEvent;
+import goal.tools.debugger.DebugObserver;
+import goal.tools.debugger.NOPDebugger;
+import goal.tools.debugger.ObservableDebugger;
+import goal.tools.logging.Loggers;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import krTools.KRInterface;
+import krTools.language.DatabaseFormula;
+import languageTools.analyzer.agent.AgentValidator;
+import languageTools.parser.GOAL;
+import languageTools.parser.GOALLexer;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.actions.InsertAction;
+import mentalState.BASETYPE;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the update of the {@link BeliefBase} with batches of formulas by
+ * {@link BeliefBase#update(List, List, goal.tools.debugger.Debugger)}, and the
+ * events that report it.
+ */
+public class BeliefBaseTest {
+	private static final String AGENT = "src/test/resources/goal/core/performance/hotpath/hotpath.goal";
+
+	private static KRInterface language;
+	private static AgentProgram program;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Loggers.addConsoleLogger();
+		language = KRFactory.getDefaultInterface();
+		program = PlatformManager.createNew().parseGOALFile(new File(AGENT),
+				language);
+		assertTrue(program.isValid());
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		Loggers.removeConsoleLogger();
+	}
+
+	@Test
+	public void testSingleBatchEvent() throws Exception {
+		AgentId id = new AgentId("BatchAgent");
+		MentalState state = new MentalState(id, program, new NOPDebugger(id));
+		try {
+			BeliefBase beliefs = state.getOwnBase(BASETYPE.BELIEFBASE);
+			List<DatabaseFormula> batch = makeBatch(100);
+			List<DatabaseFormula> none = new ArrayList<>(0);
+			ObservableDebugger debugger = new ObservableDebugger(id.getName(),
+					null);
+			debugger.run();
+			CountingObserver observer = new CountingObserver();
+			debugger.subscribe(observer, Channel.BB_BATCH_UPDATES);
+
+			assertTrue(beliefs.update(batch, none, debugger));
+			assertEquals(1, observer.events);
+			BeliefBaseChange change = (BeliefBaseChange) observer.last
+					.getAssociatedObject();
+			assertEquals(batch, change.getAdded());
+			assertTrue(change.getDeleted().isEmpty());
+			assertTrue(beliefs.getTheory().getFormulas().containsAll(batch));
+
+			// nothing changes, so nothing is reported.
+			assertFalse(beliefs.update(batch, none, debugger));
+			assertEquals(1, observer.events);
+
+			assertTrue(beliefs.update(none, batch, debugger));
+			assertEquals(2, observer.events);
+			change = (BeliefBaseChange) observer.last.getAssociatedObject();
+			assertEquals(batch, change.getDeleted());
+			for (DatabaseFormula formula : batch) {
+				assertFalse(beliefs.getTheory().getFormulas().contains(formula));
+			}
+		} finally {
+			state.cleanUp();
+		}
+	}
+
+	@Test
+	public void testPerFormulaEvents() throws Exception {
+		AgentId id = new AgentId("BatchAgent");
+		MentalState state = new MentalState(id, program, new NOPDebugger(id));
+		try {
+			BeliefBase beliefs = state.getOwnBase(BASETYPE.BELIEFBASE);
+			List<DatabaseFormula> batch = makeBatch(100);
+			List<DatabaseFormula> none = new ArrayList<>(0);
+			ObservableDebugger debugger = new ObservableDebugger(id.getName(),
+					null);
+			debugger.run();
+			CountingObserver formulas = new CountingObserver();
+			debugger.subscribe(formulas, Channel.BB_UPDATES);
+			CountingObserver batches = new CountingObserver();
+			debugger.subscribe(batches, Channel.BB_BATCH_UPDATES);
+
+			assertTrue(beliefs.update(batch, none, debugger));
+			assertEquals(batch.size(), formulas.events);
+			assertEquals(1, batches.events);
+			assertTrue(beliefs.update(none, batch, debugger));
+			assertEquals(2 * batch.size(), formulas.events);
+			assertEquals(2, batches.events);
+		} finally {
+			state.cleanUp();
+		}
+	}
+
+	private static List<DatabaseFormula> makeBatch(int size) throws Exception {
+		StringBuilder insert = new StringBuilder("insert("); //$NON-NLS-1$
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				insert.append(", "); //$NON-NLS-1$
+			}
+			insert.append("batch(").append(i).append(')'); //$NON-NLS-1$
+		}
+		insert.append(')');
+		ANTLRInputStream charstream = new ANTLRInputStream(new StringReader(
+				insert.toString()));
+		charstream.name = "";
+		GOAL parser = new GOAL(new CommonTokenStream(new GOALLexer(charstream)));
+		AgentValidator validator = new AgentValidator("inline");
+		validator.setKRInterface(language);
+		return ((InsertAction) validator.visitAction(parser.action()))
+				.getUpdate().getAddList();
+	}
+
+	private static class CountingObserver implements DebugObserver {
+		private int events = 0;
+		private DebugEvent last;
+
+		@Override
+		public String getObserverName() {
+			return "counter";
+		}
+
+		@Override
+		public void notifyBreakpointHit(DebugEvent event) {
+			this.events++;
+			this.last = event;
+		}
+	}
+}
@@ -0,0 +1,266 @@
+package goal.core.mentalstate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import goal.core.gamygdala.Engine;
+import goal.preferences.CorePreferences;
+import goal.tools.PlatformManager;
+import goal.tools.debugger.Channel;
+import goal.tools.debugger.NOPDebugger;
+import goal.tools.logging.Loggers;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import krTools.KRInterface;
+import krTools.language.Substitution;
+import krTools.language.Update;
+import krTools.parser.SourceInfo;
+import languageTools.analyzer.agent.AgentValidator;
+import languageTools.parser.GOAL;
+import languageTools.parser.GOALLexer;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.actions.AdoptAction;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the sharing and reference counting of goals by the {@link GoalStore}
+ * of a mental model, in both the shared and the per-goal layout, and checks
+ * that both layouts give the same results.
+ */
+public class GoalStoreTest {
+	private static final String AGENT = "src/test/resources/goal/core/performance/goalstore/goalstore.goal";
+
+	private static KRInterface language;
+	private static AgentProgram program;
+	private static boolean shared;
+
+	private final AgentId id = new AgentId("GoalStoreAgent");
+	private final Engine engine = new Engine();
+	private MentalState state;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Loggers.addConsoleLogger();
+		shared = CorePreferences.isSharedGoalStore();
+		language = KRFactory.getDefaultInterface();
+		program = PlatformManager.createNew().parseGOALFile(new File(AGENT),
+				language);
+		assertTrue(program.isValid());
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		CorePreferences.setSharedGoalStore(shared);
+		Loggers.removeConsoleLogger();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.state != null) {
+			this.state.cleanUp();
+		}
+	}
+
+	@Test
+	public void testDuplicateAdoptShared() throws Exception {
+		GoalStore store = makeStore(true);
+		GoalBase base = this.state.getAttentionSet();
+		int goals = base.getGoals().size();
+		int stored = store.size();
+
+		SingleGoal first = store.obtain(parseGoal("g(1)"));
+		base.addGoal(first, new NOPDebugger(this.id));
+		SingleGoal second = store.obtain(parseGoal("g(1)"));
+		assertSame(first, second);
+		base.addGoal(second, new NOPDebugger(this.id));
+
+		assertEquals(goals + 1, base.getGoals().size());
+		assertEquals(stored + 1, store.size());
+		assertNotNull(first.getGoalDatabase());
+	}
+
+	@Test
+	public void testDuplicateAdoptPerGoal() throws Exception {
+		GoalStore store = makeStore(false);
+		GoalBase base = this.state.getAttentionSet();
+		int goals = base.getGoals().size();
+		ReportingDebugger debugger = new ReportingDebugger(this.id);
+
+		SingleGoal first = store.obtain(parseGoal("g(1)"));
+		base.addGoal(first, debugger);
+		SingleGoal second = store.obtain(parseGoal("g(1)"));
+		assertNotSame(first, second);
+		// the duplicate is released, and not reported as adopted.
+		base.addGoal(second, debugger);
+
+		assertEquals(goals + 1, base.getGoals().size());
+		assertEquals(1, debugger.adopted);
+		assertNotNull(first.getGoalDatabase());
+		assertNull(second.getGoalDatabase());
+		// a released goal still can be compared.
+		assertEquals(first, second);
+		assertEquals(first.hashCode(), second.hashCode());
+		assertEquals(first.toString(), second.toString());
+	}
+
+	@Test
+	public void testDrop() throws Exception {
+		GoalStore store = makeStore(true);
+		NOPDebugger debugger = new NOPDebugger(this.id);
+		int stored = store.size();
+		Update one = parseGoal("g(1)");
+		Update two = parseGoal("g(2)");
+		assertTrue(this.state.adopt(one, false, debugger));
+		assertTrue(this.state.adopt(two, false, debugger));
+		// adopting a goal twice does not change anything.
+		assertFalse(this.state.adopt(one, false, debugger));
+		assertEquals(stored + 2, store.size());
+
+		this.state.drop(one, debugger);
+		assertEquals(stored + 1, store.size());
+		assertTrue(this.state.getAttentionSet()
+				.query(one.toQuery(), debugger).isEmpty());
+		assertFalse(this.state.getAttentionSet()
+				.query(two.toQuery(), debugger).isEmpty());
+	}
+
+	@Test
+	public void testReleaseWhenUnused() throws Exception {
+		GoalStore store = makeStore(true);
+		NOPDebugger debugger = new NOPDebugger(this.id);
+		GoalBase base = this.state.getAttentionSet();
+		GoalBase other = new GoalBase(store, this.engine, this.id, program,
+				"other");
+		int stored = store.size();
+		int pooled = store.getPooledDatabases();
+
+		SingleGoal goal = store.obtain(parseGoal("g(1)"));
+		base.addGoal(goal, debugger);
+		other.addGoal(store.obtain(parseGoal("g(1)")), debugger);
+		assertEquals(stored + 1, store.size());
+
+		// still used by the other goal base.
+		assertTrue(base.remove(goal, debugger));
+		assertEquals(stored + 1, store.size());
+		assertNotNull(goal.getGoalDatabase());
+
+		assertTrue(other.remove(goal, debugger));
+		assertEquals(stored, store.size());
+		assertNull(goal.getGoalDatabase());
+		assertEquals(pooled + 1, store.getPooledDatabases());
+		// a new goal reuses the emptied database.
+		store.obtain(parseGoal("g(2)")).releaseIfUnused();
+		assertEquals(pooled + 1, store.getPooledDatabases());
+	}
+
+	/**
+	 * Both layouts give the same results.
+	 */
+	@Test
+	public void testLayoutsAgree() throws Exception {
+		List<Update> goals = new ArrayList<>(20);
+		for (int i = 1; i <= 20; i++) {
+			goals.add(parseGoal("g(" + i + ")"));
+		}
+		assertEquals(run(false, goals), run(true, goals));
+	}
+
+	/**
+	 * Adopts, queries and drops the given goals and records the results.
+	 */
+	private List<String> run(boolean sharedStore, List<Update> goals)
+			throws Exception {
+		CorePreferences.setSharedGoalStore(sharedStore);
+		MentalState state = new MentalState(this.id, program, new NOPDebugger(
+				this.id));
+		NOPDebugger debugger = new NOPDebugger(this.id);
+		List<String> results = new ArrayList<>();
+		try {
+			for (Update goal : goals) {
+				results.add("adopt " + goal + ": "
+						+ state.adopt(goal, false, debugger));
+			}
+			// adopting a goal twice should not change anything.
+			results.add("adopt " + goals.get(0) + ": "
+					+ state.adopt(goals.get(0), false, debugger));
+			for (int i = 0; i < goals.size(); i += 2) {
+				state.drop(goals.get(i), debugger);
+			}
+			for (Update goal : goals) {
+				Set<Substitution> answers = state.getAttentionSet().query(
+						goal.toQuery(), debugger);
+				results.add("query " + goal + ": " + answers.size());
+			}
+			results.add(state.getAttentionSet().showContents());
+		} finally {
+			state.cleanUp();
+		}
+		return results;
+	}
+
+	/**
+	 * Creates the mental state of the agent with the given layout, and
+	 * returns the goal store of its own model.
+	 */
+	private GoalStore makeStore(boolean sharedStore) throws Exception {
+		CorePreferences.setSharedGoalStore(sharedStore);
+		this.engine.obtainAgent(this.id.getName());
+		this.state = new MentalState(this.id, program, new NOPDebugger(
+				this.id), this.engine);
+		GoalStore store = this.state.getOwnModel().getGoalStore();
+		assertEquals(sharedStore, store.isShared());
+		return store;
+	}
+
+	private static Update parseGoal(String goal) throws Exception {
+		ANTLRInputStream charstream = new ANTLRInputStream(new StringReader(
+				"adopt(" + goal + ")"));
+		charstream.name = "";
+		GOAL parser = new GOAL(new CommonTokenStream(new GOALLexer(charstream)));
+		AgentValidator validator = new AgentValidator("inline");
+		validator.setKRInterface(language);
+		return ((AdoptAction) validator.visitAction(parser.action()))
+				.getUpdate();
+	}
+
+	/**
+	 * Counts the goals that are reported as adopted.
+	 */
+	private static class ReportingDebugger extends NOPDebugger {
+		private int adopted = 0;
+
+		ReportingDebugger(AgentId id) {
+			super(id);
+		}
+
+		@Override
+		public boolean isEnabled(Channel channel) {
+			return true;
+		}
+
+		@Override
+		public void breakpoint(Channel channel, Object associateObject,
+				SourceInfo associateSource, String message, Object... args) {
+			if (channel == Channel.GB_UPDATES) {
+				this.adopted++;
+			}
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package goal.core.mentalstate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import goal.tools.PlatformManager;
+import goal.tools.debugger.NOPDebugger;
+import goal.tools.errorhandling.exceptions.GOALDatabaseException;
+import goal.tools.logging.Loggers;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import krTools.KRInterface;
+import krTools.language.Update;
+import languageTools.analyzer.agent.AgentValidator;
+import languageTools.parser.GOAL;
+import languageTools.parser.GOALLexer;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.actions.InsertAction;
+import mentalState.BASETYPE;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the mental models that a {@link MentalState} keeps of other agents,
+ * which are created when they are first used.
+ */
+public class MentalStateTest {
+	private static final String AGENT = "src/test/resources/goal/core/performance/mentalmodels/mentalmodels.goal";
+
+	private static KRInterface language;
+	private static AgentProgram program;
+	private static Update ready;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Loggers.addConsoleLogger();
+		language = KRFactory.getDefaultInterface();
+		program = PlatformManager.createNew().parseGOALFile(new File(AGENT),
+				language);
+		assertTrue(program.isValid());
+		assertTrue(program.usesMentalModels());
+		ready = parseInsert("insert(ready)");
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		Loggers.removeConsoleLogger();
+	}
+
+	@Test
+	public void testModelsAreCreatedWhenUsed() throws Exception {
+		List<MentalState> states = createStates(5);
+		try {
+			MentalState state = states.get(0);
+			NOPDebugger debugger = new NOPDebugger(state.getAgentId());
+			AgentId other = states.get(1).getAgentId();
+			assertEquals(5, state.getKnownAgents().size());
+			assertEquals(1, state.getModelCount());
+
+			assertTrue(state.insert(ready, BASETYPE.BELIEFBASE, debugger,
+					other));
+			assertEquals(2, state.getModelCount());
+
+			// a model with content is kept.
+			assertEquals(0, state.releaseIdleModels(0));
+			assertEquals(2, state.getModelCount());
+
+			assertTrue(state.delete(ready, BASETYPE.BELIEFBASE, debugger,
+					other));
+			assertEquals(1, state.releaseIdleModels(0));
+			assertEquals(1, state.getModelCount());
+
+			// a released model is created again, without content.
+			assertFalse(state.delete(ready, BASETYPE.BELIEFBASE, debugger,
+					other));
+			assertEquals(2, state.getModelCount());
+		} finally {
+			cleanUp(states);
+		}
+	}
+
+	/**
+	 * A model that is created while its agent is removed is not left behind.
+	 */
+	@Test
+	public void testRemoveWhileUsed() throws Exception {
+		List<MentalState> states = createStates(5);
+		try {
+			final MentalState state = states.get(0);
+			final NOPDebugger debugger = new NOPDebugger(state.getAgentId());
+			for (final MentalState removed : states.subList(1, states.size())) {
+				final AtomicBoolean done = new AtomicBoolean(false);
+				final CountDownLatch started = new CountDownLatch(1);
+				Thread user = new Thread() {
+					@Override
+					public void run() {
+						while (!done.get()) {
+							try {
+								state.delete(ready, BASETYPE.BELIEFBASE,
+										debugger, removed.getAgentId());
+								state.releaseIdleModels(0);
+							} catch (GOALDatabaseException | RuntimeException e) {
+								// the model was removed while it was used.
+							}
+							started.countDown();
+						}
+					}
+				};
+				user.start();
+				assertTrue(started.await(10, TimeUnit.SECONDS));
+				state.removeAgentModel(removed.getAgentId());
+				done.set(true);
+				user.join();
+
+				assertFalse(state.getKnownAgents().contains(
+						removed.getAgentId()));
+				assertEquals(1, state.getModelCount());
+			}
+		} finally {
+			cleanUp(states);
+		}
+	}
+
+	/**
+	 * Creates the mental states of a MAS of the given size in which all agents
+	 * know each other.
+	 */
+	private static List<MentalState> createStates(int size) throws Exception {
+		List<AgentId> ids = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			ids.add(new AgentId("agent" + i));
+		}
+		List<MentalState> states = new ArrayList<>(size);
+		for (AgentId id : ids) {
+			NOPDebugger debugger = new NOPDebugger(id);
+			MentalState state = new MentalState(id, program, debugger);
+			for (AgentId other : ids) {
+				if (!other.equals(id)) {
+					state.addAgentModel(other, debugger);
+				}
+			}
+			states.add(state);
+		}
+		return states;
+	}
+
+	private static void cleanUp(List<MentalState> states) {
+		for (MentalState state : states) {
+			state.cleanUp();
+		}
+	}
+
+	private static Update parseInsert(String insert) throws Exception {
+		ANTLRInputStream charstream = new ANTLRInputStream(new StringReader(
+				insert));
+		charstream.name = "";
+		GOAL parser = new GOAL(new CommonTokenStream(new GOALLexer(charstream)));
+		AgentValidator validator = new AgentValidator("inline");
+		validator.setKRInterface(language);
+		return ((InsertAction) validator.visitAction(parser.action()))
+				.getUpdate();
+	}
+}
@@ -0,0 +1,126 @@
+package goal.core.mentalstate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import goal.tools.PlatformManager;
+import goal.tools.debugger.NOPDebugger;
+import goal.tools.logging.Loggers;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import krTools.KRInterface;
+import krTools.language.DatabaseFormula;
+import languageTools.analyzer.agent.AgentValidator;
+import languageTools.parser.GOAL;
+import languageTools.parser.GOALLexer;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.actions.InsertAction;
+import mentalState.BASETYPE;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the snapshots of the formulas of a {@link Theory}: an unchanged theory
+ * shares its snapshot, and a snapshot does not change.
+ */
+public class TheoryTest {
+	private static final String AGENT = "src/test/resources/goal/core/performance/hotpath/hotpath.goal";
+
+	private static KRInterface language;
+	private static AgentProgram program;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Loggers.addConsoleLogger();
+		language = KRFactory.getDefaultInterface();
+		program = PlatformManager.createNew().parseGOALFile(new File(AGENT),
+				language);
+		assertTrue(program.isValid());
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		Loggers.removeConsoleLogger();
+	}
+
+	@Test
+	public void testSnapshots() throws Exception {
+		AgentId id = new AgentId("SnapshotAgent");
+		NOPDebugger debugger = new NOPDebugger(id);
+		MentalState state = new MentalState(id, program, debugger);
+		try {
+			BeliefBase beliefs = state.getOwnBase(BASETYPE.BELIEFBASE);
+			Theory theory = beliefs.getTheory();
+			List<DatabaseFormula> batch = makeBatch(10);
+			List<DatabaseFormula> none = new ArrayList<>(0);
+
+			Set<DatabaseFormula> before = theory.getFormulas();
+			long generation = theory.getGeneration();
+			// an unchanged theory shares its snapshot.
+			assertSame(before, theory.getFormulas());
+
+			assertTrue(beliefs.update(batch, none, debugger));
+			Set<DatabaseFormula> after = theory.getFormulas();
+			assertNotSame(before, after);
+			assertTrue(theory.getGeneration() > generation);
+			assertTrue(after.containsAll(batch));
+			// the old snapshot does not change.
+			for (DatabaseFormula formula : batch) {
+				assertFalse(before.contains(formula));
+			}
+			assertEquals(before.size() + batch.size(), after.size());
+
+			// nothing changes, so the snapshot and generation stay the same.
+			generation = theory.getGeneration();
+			assertFalse(beliefs.update(batch, none, debugger));
+			assertSame(after, theory.getFormulas());
+			assertEquals(generation, theory.getGeneration());
+		} finally {
+			state.cleanUp();
+		}
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSnapshotIsImmutable() throws Exception {
+		AgentId id = new AgentId("SnapshotAgent");
+		MentalState state = new MentalState(id, program, new NOPDebugger(id));
+		try {
+			state.getOwnBase(BASETYPE.BELIEFBASE).getTheory().getFormulas()
+					.clear();
+		} finally {
+			state.cleanUp();
+		}
+	}
+
+	private static List<DatabaseFormula> makeBatch(int size) throws Exception {
+		StringBuilder insert = new StringBuilder("insert("); //$NON-NLS-1$
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				insert.append(", "); //$NON-NLS-1$
+			}
+			insert.append("snapshot(").append(i).append(')'); //$NON-NLS-1$
+		}
+		insert.append(')');
+		ANTLRInputStream charstream = new ANTLRInputStream(new StringReader(
+				insert.toString()));
+		charstream.name = "";
+		GOAL parser = new GOAL(new CommonTokenStream(new GOALLexer(charstream)));
+		AgentValidator validator = new AgentValidator("inline");
+		validator.setKRInterface(language);
+		return ((InsertAction) validator.visitAction(parser.action()))
+				.getUpdate().getAddList();
+	}
+}
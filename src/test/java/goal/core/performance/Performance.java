@@ -45,16 +45,42 @@ public class Performance {
 				"--messagingtype", "rmi");
 	}
 
+	// @Test
+	public void testTokenRingNio() throws ParserException,
+			FileNotFoundException, ParseException, Exception {
+		Run.run("src/test/resources/goal/core/performance/tokenring/token1.mas2g",
+				"--nio", "localhost");
+	}
+
+	// @Test
+	public void testTokenRing1000() throws ParserException,
+			FileNotFoundException, ParseException, Exception {
+		Run.run("src/test/resources/goal/core/performance/tokenring/token1000.mas2g");
+	}
+
 	// @Test
 	public void testChameneos() throws ParserException, FileNotFoundException,
 	ParseException, Exception {
 		Run.run("src/test/resources/goal/core/performance/chameneos/chameneos.mas2g");
 	}
 
+	// @Test
+	public void testChameneos1000() throws ParserException,
+			FileNotFoundException, ParseException, Exception {
+		Run.run("src/test/resources/goal/core/performance/chameneos/chameneos1000.mas2g");
+	}
+
 	// @Test
 	public void testChameneosOnRMI() throws ParserException,
 			FileNotFoundException, ParseException, Exception {
 		Run.run("src/test/resources/goal/core/performance/chameneos/chameneos.mas2g",
 				"--messagingtype", "rmi");
 	}
+
+	// @Test
+	public void testChameneosOnNio() throws ParserException,
+			FileNotFoundException, ParseException, Exception {
+		Run.run("src/test/resources/goal/core/performance/chameneos/chameneos.mas2g",
+				"--nio", "localhost");
+	}
 }
@@ -21,6 +21,7 @@ import static org.junit.Assert.assertSame;
 import goal.core.agent.AbstractAgentFactory;
 import goal.core.agent.Agent;
 import goal.core.agent.GOALInterpreter;
+import goal.core.gamygdala.Engine;
 import goal.core.runtime.MessagingService;
 import goal.tools.adapt.Learner;
 import goal.tools.debugger.Debugger;
@@ -63,6 +64,6 @@ public class SendToVar extends ProgramTest {
 						learner);
 			}
 		};
-		return factory.build(program, id, null);
+		return factory.build(program, id, null, new Engine());
 	}
 }
@@ -5,6 +5,7 @@ import goal.core.agent.Agent;
 import goal.core.agent.GOALInterpreter;
 import goal.core.agent.MessagingCapabilities;
 import goal.core.agent.NoMessagingCapabilities;
+import goal.core.gamygdala.Engine;
 import goal.tools.adapt.Learner;
 import goal.tools.debugger.Debugger;
 import goal.tools.debugger.NOPDebugger;
@@ -68,6 +69,6 @@ public class SimpleProgramTest extends ProgramTest {
 						learner);
 			}
 		};
-		return factory.build(program, id, null);
+		return factory.build(program, id, null, new Engine());
 	}
 }
@@ -0,0 +1,81 @@
+package goal.core.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import languageTools.program.agent.AgentId;
+import localmessaging.LocalMessaging;
+import nl.tudelft.goal.messaging.messagebox.MessageBox;
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId;
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId.Type;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the routing table of the {@link MessagingService}, which resolves the
+ * message boxes of the receivers of a message.
+ */
+public class MessagingServiceTest {
+	private static final int AGENTS = 100;
+
+	private MessagingService messaging;
+	private List<MessageBox> boxes;
+	private List<AgentId> receivers;
+
+	@Before
+	public void setUp() throws Exception {
+		this.messaging = new MessagingService("localhost", new LocalMessaging());
+		this.boxes = new ArrayList<>(AGENTS);
+		this.receivers = new ArrayList<>(AGENTS);
+		for (int i = 0; i < AGENTS; i++) {
+			MessageBoxId id = this.messaging.getNewUniqueID("agent" + i,
+					Type.GOALAGENT);
+			this.boxes.add(this.messaging.getNewMessageBox(id));
+			this.receivers.add(new AgentId(id.getName()));
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (MessageBox box : this.boxes) {
+			this.messaging.deleteMessageBox(box);
+		}
+		this.messaging.shutDown();
+	}
+
+	@Test
+	public void testRoutes() throws Exception {
+		List<AgentId> unknown = new LinkedList<>();
+		List<AgentId> all = new ArrayList<>(this.receivers);
+		all.add(new AgentId("nobody"));
+		List<MessageBoxId> routes = this.messaging.getRoutes(all, unknown);
+		assertEquals(AGENTS, routes.size());
+		for (int i = 0; i < AGENTS; i++) {
+			assertEquals(this.boxes.get(i).getId(), routes.get(i));
+		}
+		assertEquals(1, unknown.size());
+		assertNull(this.messaging.getRoute("nobody"));
+
+		// a deleted box can no longer be found.
+		MessageBox first = this.boxes.remove(0);
+		this.messaging.deleteMessageBox(first);
+		assertNull(this.messaging.getRoute(first.getId().getName()));
+	}
+
+	@Test
+	public void testRouteOfRemovedAgentIsLookedUpAgain() throws Exception {
+		String name = this.boxes.get(0).getId().getName();
+		MessageBoxId route = this.messaging.getRoute(name);
+		this.messaging.removeRoute(name);
+		// the box still exists, so it is found again.
+		assertEquals(route, this.messaging.getRoute(name));
+		assertTrue(this.messaging.isLocal(route));
+	}
+}
@@ -0,0 +1,75 @@
+package goal.core.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import goal.core.agent.Agent;
+import goal.core.agent.Controller;
+import goal.core.agent.NoEnvironmentCapabilities;
+import goal.core.agent.NoLoggingCapabilities;
+import goal.core.agent.NoMessagingCapabilities;
+import goal.core.runtime.RuntimeEvent.EventType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import languageTools.program.agent.AgentId;
+
+import org.junit.Test;
+
+/**
+ * Tests that the {@link RuntimeRegistry} finds the agents that the runtime
+ * announced, by id and by name.
+ */
+public class RuntimeRegistryTest {
+	@Test
+	public void testAgents() throws Exception {
+		RuntimeRegistry<IdleController> registry = new RuntimeRegistry<>();
+		List<Agent<IdleController>> agents = register(registry, 10);
+		assertEquals(10, registry.getAgents().size());
+		for (Agent<IdleController> agent : agents) {
+			assertSame(agent, registry.getAgent(agent.getId()));
+			assertSame(agent, registry.getAgent(agent.getId().getName()));
+		}
+		assertNull(registry.getAgent("unknown"));
+
+		Agent<IdleController> removed = agents.get(3);
+		registry.eventOccured(null, new RuntimeEvent(EventType.AGENT_REMOVED,
+				removed.getId().getName()));
+		assertEquals(9, registry.getAgents().size());
+		assertNull(registry.getAgent(removed.getId()));
+		assertNull(registry.getAgent(removed.getId().getName()));
+	}
+
+	/**
+	 * Announces new agents to a registry, as the runtime would.
+	 */
+	private static List<Agent<IdleController>> register(
+			RuntimeRegistry<IdleController> registry, int size)
+			throws Exception {
+		List<Agent<IdleController>> agents = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Agent<IdleController> agent = new Agent<IdleController>(
+					new AgentId("registered" + i),
+					new NoEnvironmentCapabilities(),
+					new NoMessagingCapabilities(), new NoLoggingCapabilities(),
+					new IdleController());
+			agents.add(agent);
+			registry.eventOccured(null, new RuntimeEvent(
+					EventType.AGENT_IS_LOCAL_AND_READY, agent));
+		}
+		return agents;
+	}
+
+	/**
+	 * A controller of an agent that is never run.
+	 */
+	private static class IdleController extends Controller {
+		@Override
+		protected Runnable getRunnable(Executor pool, Callable<Callable<?>> in) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package goal.core.runtime.environmentServices;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import goal.core.agent.Agent;
+import goal.core.agent.GOALInterpreter;
+import goal.preferences.PMPreferences;
+import goal.tools.AbstractRun;
+import goal.tools.debugger.NOPDebugger;
+import goal.tools.logging.Loggers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the launching of agents for the entities of a {@link MockEnvironment}
+ * by several threads (see {@link PMPreferences#getLaunchThreads()}).
+ */
+public class AgentLaunchTest {
+	/**
+	 * The maximum number of applications of the first launch rule.
+	 */
+	private static final int MAX = 5;
+
+	private static int launchThreads;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Loggers.addConsoleLogger();
+		launchThreads = PMPreferences.getLaunchThreads();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() {
+		PMPreferences.setLaunchThreads(launchThreads);
+		Loggers.removeConsoleLogger();
+	}
+
+	/**
+	 * Entities are announced by several threads at the same time; the first
+	 * launch rule should still be applied exactly {@link #MAX} times.
+	 */
+	@Test
+	public void testConcurrentLaunchKeepsMaximum() throws Exception {
+		final LaunchFixture fixture = new LaunchFixture(4, 40);
+		ExecutorService threads = Executors.newFixedThreadPool(4);
+		try {
+			List<Callable<Void>> announcements = new ArrayList<>();
+			for (final String entity : fixture.eis.getEntities()) {
+				announcements.add(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						fixture.announce(entity);
+						return null;
+					}
+				});
+			}
+			for (Future<Void> announcement : threads.invokeAll(announcements)) {
+				announcement.get();
+			}
+			assertTrue(fixture.service
+					.awaitLaunches(AbstractRun.TIMEOUT_FIRST_AGENT_SECONDS));
+
+			int limited = 0;
+			for (Agent<GOALInterpreter<NOPDebugger>> agent : fixture.service
+					.getAgents()) {
+				if (agent.getId().getName().startsWith("limited")) {
+					limited++;
+				}
+			}
+			assertEquals(MAX, limited);
+			assertEquals(fixture.eis.getEntities().size(), fixture.service
+					.getAgents().size());
+		} finally {
+			threads.shutdown();
+			fixture.close();
+		}
+	}
+
+	@Test
+	public void testStart() throws Exception {
+		LaunchFixture fixture = new LaunchFixture(4, 0);
+		try {
+			// there are no unconditional launch rules.
+			fixture.service.start();
+			assertTrue(fixture.service.awaitLaunches(0));
+			assertTrue(fixture.service.getAgents().isEmpty());
+		} finally {
+			fixture.close();
+		}
+	}
+}
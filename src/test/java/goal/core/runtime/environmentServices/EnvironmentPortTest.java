@@ -1,5 +1,6 @@
 package goal.core.runtime.environmentServices;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
@@ -10,12 +11,18 @@ import eis.exceptions.PerceiveException;
 import eis.iilang.Action;
 import eis.iilang.EnvironmentState;
 import eis.iilang.Parameter;
+import eis.iilang.Percept;
 import goal.core.runtime.MessagingService;
 import goal.core.runtime.service.environment.LocalMessagingEnvironment;
 import goal.core.runtime.service.environmentport.EnvironmentPort;
+import goal.core.runtime.service.environmentport.EnvironmentRequest;
+import goal.preferences.EnvironmentPreferences;
 import goal.tools.logging.Loggers;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import localmessaging.LocalMessaging;
@@ -170,4 +177,56 @@ public class EnvironmentPortTest {
 		assertNotNull(this.environmentPort.performAction("existingAgent",
 				new Action("act")));
 	}
+
+	/**
+	 * Many requests of several agents are in flight at the same time; every
+	 * agent should get the results of its own actions, in order.
+	 */
+	@Test
+	public void testPipelinedActionsKeepAgentOrder() throws Exception {
+		boolean concurrent = EnvironmentPreferences.isConcurrentAgents();
+		EnvironmentPreferences.setConcurrentAgents(true);
+		LocalMessagingEnvironment environment = new LocalMessagingEnvironment(
+				new MockEnvironment(10), "concurrentEnvironment",
+				this.initialization, this.messaging);
+		EnvironmentPort port = null;
+		try {
+			environment.initialize();
+			port = new EnvironmentPort(environment.getMessageBoxId(),
+					this.messaging);
+			port.startPort();
+			for (int i = 1; i <= 10; i++) {
+				port.registerAgent("agent" + i);
+				port.associateEntity("agent" + i, "entity" + i);
+			}
+
+			List<List<EnvironmentRequest>> requests = new ArrayList<>();
+			for (int i = 1; i <= 10; i++) {
+				List<EnvironmentRequest> agentRequests = new ArrayList<>();
+				for (int j = 0; j < 20; j++) {
+					agentRequests.add(port.performActionAsync("agent" + i,
+							new Action("act" + i + "_" + j)));
+				}
+				requests.add(agentRequests);
+			}
+			for (int i = 1; i <= 10; i++) {
+				for (int j = 0; j < 20; j++) {
+					Collection<Percept> percepts = port
+							.getActionResult(requests.get(i - 1).get(j));
+					assertEquals(1, percepts.size());
+					assertEquals("act" + i + "_" + j, percepts.iterator()
+							.next().getName());
+				}
+			}
+			Collection<Percept> percepts = port.getPercepts("agent1");
+			assertEquals(1, percepts.size());
+			assertEquals("entity1", percepts.iterator().next().getName());
+		} finally {
+			environment.shutDown();
+			if (port != null) {
+				port.shutDown();
+			}
+			EnvironmentPreferences.setConcurrentAgents(concurrent);
+		}
+	}
 }
@@ -0,0 +1,88 @@
+package goal.core.runtime.environmentServices;
+
+import eis.iilang.Parameter;
+import goal.core.agent.AbstractAgentFactory;
+import goal.core.agent.GOALInterpreter;
+import goal.core.runtime.MessagingService;
+import goal.core.runtime.service.agent.AgentService;
+import goal.core.runtime.service.environment.LocalMessagingEnvironment;
+import goal.core.runtime.service.environmentport.EnvironmentPort;
+import goal.core.runtime.service.environmentport.environmentport.events.NewEntityEvent;
+import goal.preferences.PMPreferences;
+import goal.tools.AbstractRun;
+import goal.tools.PlatformManager;
+import goal.tools.adapt.Learner;
+import goal.tools.debugger.NOPDebugger;
+
+import java.io.File;
+import java.util.HashMap;
+
+import languageTools.program.mas.MASProgram;
+import localmessaging.LocalMessaging;
+
+/**
+ * A {@link MockEnvironment} with the given number of entities, a port to
+ * talk to it, and an agent service that launches agents for its entities
+ * with the agents of launch.mas2g.
+ */
+final class LaunchFixture {
+	private static final String MAS = "src/test/resources/goal/core/runtime/environmentServices/launch.mas2g";
+
+	final MockEnvironment eis;
+	private final MessagingService messaging;
+	private final LocalMessagingEnvironment environment;
+	private final EnvironmentPort port;
+	final AgentService<NOPDebugger, GOALInterpreter<NOPDebugger>> service;
+
+	LaunchFixture(int launchThreads, int entities) throws Exception {
+		PMPreferences.setLaunchThreads(launchThreads);
+		// besides entity1, ..., entityN the environment has one entity.
+		this.eis = new MockEnvironment(Math.max(0, entities - 1));
+		this.messaging = new MessagingService("localhost",
+				new LocalMessaging());
+		this.environment = new LocalMessagingEnvironment(this.eis,
+				"dummyEnvironment", new HashMap<String, Parameter>(),
+				this.messaging);
+		this.environment.initialize();
+		this.port = new EnvironmentPort(this.environment.getMessageBoxId(),
+				this.messaging);
+		this.port.startPort();
+
+		PlatformManager platform = PlatformManager.createNew();
+		MASProgram program = platform.parseMASFile(new File(MAS));
+		this.service = new AgentService<NOPDebugger, GOALInterpreter<NOPDebugger>>(
+				program, platform.getParsedAgentPrograms(),
+				new AbstractAgentFactory<NOPDebugger, GOALInterpreter<NOPDebugger>>(
+						this.messaging) {
+					@Override
+					protected NOPDebugger provideDebugger() {
+						return new NOPDebugger(this.agentId);
+					}
+
+					@Override
+					protected GOALInterpreter<NOPDebugger> provideController(
+							NOPDebugger debugger, Learner learner) {
+						return new GOALInterpreter<NOPDebugger>(this.program,
+								debugger, learner);
+					}
+				});
+	}
+
+	/**
+	 * Lets the agent service handle a new entity, as if it was announced by
+	 * the environment.
+	 */
+	void announce(String entity) throws Exception {
+		this.service.handleEnvironmentEvent(new NewEntityEvent(entity,
+				this.eis.getType(entity)), this.port);
+	}
+
+	void close() throws Exception {
+		this.service.shutDown();
+		this.service.awaitTermination(AbstractRun.TIMEOUT_FIRST_AGENT_SECONDS);
+		this.service.dispose();
+		this.environment.shutDown();
+		this.port.shutDown();
+		this.messaging.shutDown();
+	}
+}
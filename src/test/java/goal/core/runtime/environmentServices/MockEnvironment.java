@@ -20,6 +20,18 @@ final class MockEnvironment extends EIDefaultImpl {
 	 *
 	 */
 	private static final long serialVersionUID = 8751467335725577307L;
+	/**
+	 * Number of entities entity1, entity2, ... created besides existingEntity.
+	 */
+	private final int entities;
+
+	MockEnvironment() {
+		this(0);
+	}
+
+	MockEnvironment(int entities) {
+		this.entities = entities;
+	}
 
 	@Override
 	public void init(Map<String, Parameter> parameters)
@@ -32,6 +44,9 @@ final class MockEnvironment extends EIDefaultImpl {
 
 		try {
 			this.addEntity("existingEntity");
+			for (int i = 1; i <= this.entities; i++) {
+				this.addEntity("entity" + i);
+			}
 		} catch (EntityException e) {
 			// FIXME: add entity is internal to the EIS.
 			// Should not throw exceptions.
@@ -68,7 +83,7 @@ final class MockEnvironment extends EIDefaultImpl {
 	protected Percept performEntityAction(String entity, Action arg1)
 			throws ActException {
 
-		if (!entity.equals("existingEntity")) {
+		if (!getEntities().contains(entity)) {
 			throw new ActException("No such entity");
 		}
 
@@ -0,0 +1,93 @@
+package goal.core.runtime.service.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import eis.iilang.Numeral;
+import eis.iilang.Percept;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests that a {@link PerceptTracker} reports the percepts that changed from
+ * one cycle to the next, both from complete sets and from changes, like
+ * {@link PerceptDelta#between(Set, Set)} does.
+ */
+public class PerceptTrackerTest {
+	@Test
+	public void testUpdate() {
+		PerceptTracker tracker = new PerceptTracker();
+		PerceptDelta delta = tracker.update(percepts(0, 3));
+		assertEquals(3, delta.getAdded().size());
+		assertTrue(delta.getDeleted().isEmpty());
+
+		assertTrue(tracker.update(percepts(0, 3)).isEmpty());
+
+		delta = tracker.update(percepts(1, 4));
+		assertEquals(Arrays.asList(percept(3)), delta.getAdded());
+		assertEquals(Arrays.asList(percept(0)), delta.getDeleted());
+		assertEquals(new HashSet<>(percepts(1, 4)), tracker.getPercepts());
+
+		delta = tracker.update(new ArrayList<Percept>());
+		assertEquals(3, delta.getDeleted().size());
+		assertTrue(tracker.isEmpty());
+	}
+
+	@Test
+	public void testApply() {
+		PerceptTracker tracker = new PerceptTracker();
+		tracker.update(percepts(0, 3));
+
+		// adding a known percept and deleting an unknown one changes nothing.
+		PerceptDelta delta = tracker.apply(new PerceptDelta(percepts(2, 4),
+				percepts(0, 1)));
+		assertEquals(Arrays.asList(percept(3)), delta.getAdded());
+		assertEquals(Arrays.asList(percept(0)), delta.getDeleted());
+
+		delta = tracker.apply(new PerceptDelta(new ArrayList<Percept>(),
+				percepts(7, 8)));
+		assertTrue(delta.getAdded().isEmpty());
+		assertTrue(delta.getDeleted().isEmpty());
+
+		// a snapshot after a delta only reports the remaining differences.
+		delta = tracker.update(percepts(1, 4));
+		assertTrue(delta.isEmpty());
+	}
+
+	@Test
+	public void testSameAsBetween() {
+		PerceptTracker tracker = new PerceptTracker();
+		Set<Percept> previous = new HashSet<>();
+		for (int cycle = 0; cycle < 5; cycle++) {
+			Set<Percept> current = new HashSet<>(percepts(cycle * 10,
+					cycle * 10 + 50));
+			PerceptDelta expected = PerceptDelta.between(current, previous);
+			PerceptDelta actual = tracker.update(current);
+			assertEquals(new HashSet<>(expected.getAdded()), new HashSet<>(
+					actual.getAdded()));
+			assertEquals(new HashSet<>(expected.getDeleted()), new HashSet<>(
+					actual.getDeleted()));
+			previous = current;
+		}
+	}
+
+	private static Percept percept(int i) {
+		return new Percept("p", new Numeral(i));
+	}
+
+	/**
+	 * @return the percepts p(from) up to (but not including) p(to).
+	 */
+	private static List<Percept> percepts(int from, int to) {
+		List<Percept> percepts = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			percepts.add(percept(i));
+		}
+		return percepts;
+	}
+}
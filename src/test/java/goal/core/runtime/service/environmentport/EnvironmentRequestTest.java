@@ -0,0 +1,61 @@
+package goal.core.runtime.service.environmentport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import eis.exceptions.NoEnvironmentException;
+import goal.core.runtime.service.environmentport.actions.GetPercepts;
+import goal.preferences.EnvironmentPreferences;
+
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests waiting for the result of an {@link EnvironmentRequest}.
+ */
+public class EnvironmentRequestTest {
+	private int timeout;
+
+	@Before
+	public void setUp() {
+		this.timeout = EnvironmentPreferences.getRequestTimeout();
+		EnvironmentPreferences.setRequestTimeout(1);
+	}
+
+	@After
+	public void tearDown() {
+		EnvironmentPreferences.setRequestTimeout(this.timeout);
+	}
+
+	@Test
+	public void testResult() throws Exception {
+		EnvironmentRequest request = new EnvironmentRequest(1,
+				new GetPercepts("agent"));
+		request.complete(new ArrayList<>());
+		assertTrue(request.isDone());
+		assertEquals(new ArrayList<>(), request.getResult());
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		EnvironmentRequest request = new EnvironmentRequest(2,
+				new GetPercepts("agent"));
+		try {
+			request.getResult();
+			fail("request without result did not time out");
+		} catch (NoEnvironmentException e) {
+			assertTrue(e.getMessage().contains("within 1 seconds"));
+		}
+		// a result that arrives too late is ignored.
+		request.complete(new ArrayList<>());
+		try {
+			request.getResult();
+			fail("late result was returned");
+		} catch (NoEnvironmentException e) {
+			assertTrue(request.isDone());
+		}
+	}
+}
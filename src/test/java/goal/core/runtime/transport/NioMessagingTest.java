@@ -0,0 +1,205 @@
+package goal.core.runtime.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import eis.iilang.Identifier;
+import eis.iilang.Numeral;
+import eis.iilang.Percept;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import nl.tudelft.goal.messaging.Message;
+import nl.tudelft.goal.messaging.client.MessagingClient;
+import nl.tudelft.goal.messaging.client.MessagingEvent;
+import nl.tudelft.goal.messaging.client.MessagingListener;
+import nl.tudelft.goal.messaging.exceptions.MessagingException;
+import nl.tudelft.goal.messaging.messagebox.MessageBox;
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId;
+import nl.tudelft.goal.messaging.messagebox.MessageBoxId.Type;
+import nl.tudelft.goal.messaging.messagebox.MessageBoxListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link NioMessaging} with a server and two clients over the loopback
+ * interface.
+ */
+public class NioMessagingTest {
+	private static final long TIMEOUT = 10;
+
+	private NioMessaging messaging;
+	private MessagingClient first;
+	private MessagingClient second;
+
+	@Before
+	public void setUp() throws Exception {
+		this.messaging = new NioMessaging(0);
+		this.messaging.runServer();
+		this.first = this.messaging.getClient(new URI("localhost"));
+		this.second = this.messaging.getClient(new URI("localhost"));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		this.first.dispose();
+		this.second.dispose();
+		this.messaging.stopServer();
+	}
+
+	@Test
+	public void testUniqueIds() throws Exception {
+		MessageBoxId id = this.first.getNewUniqueID("agent", Type.GOALAGENT);
+		MessageBoxId other = this.second.getNewUniqueID("agent",
+				Type.GOALAGENT);
+		assertEquals("agent", id.getName());
+		assertNotEquals(id.getName(), other.getName());
+	}
+
+	@Test
+	public void testSend() throws Exception {
+		MessageBox sender = createBox(this.first, "sender");
+		MessageBox receiver = createBox(this.second, "receiver");
+		BlockingQueue<Message> received = listen(receiver);
+
+		Percept percept = new Percept("see", new Identifier("block"),
+				new Numeral(1));
+		for (int i = 0; i < 100; i++) {
+			sender.send(sender.createMessage(receiver.getId(), i, null));
+		}
+		sender.send(sender.createMessage(receiver.getId(), percept, null));
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, receive(received).getContent());
+		}
+		Message message = receive(received);
+		assertEquals(sender.getId(), message.getSender());
+		assertEquals(receiver.getId(), message.getReceiver());
+		assertEquals(percept.toString(), message.getContent().toString());
+	}
+
+	@Test
+	public void testSendToOwnBox() throws Exception {
+		MessageBox sender = createBox(this.first, "sender");
+		MessageBox receiver = createBox(this.first, "receiver");
+		BlockingQueue<Message> received = listen(receiver);
+
+		sender.send(sender.createMessage(receiver.getId(), "local", null));
+		assertEquals("local", receive(received).getContent());
+	}
+
+	@Test
+	public void testBlockingSend() throws Exception {
+		MessageBox sender = createBox(this.first, "sender");
+		final MessageBox receiver = createBox(this.second, "receiver");
+		receiver.addListener(new MessageBoxListener() {
+			@Override
+			public boolean newMessage(Message message) {
+				try {
+					receiver.send(receiver.createMessage(message.getSender(),
+							"pong", message));
+				} catch (MessagingException e) {
+					throw new IllegalStateException(e);
+				}
+				return true;
+			}
+		});
+		BlockingQueue<Message> received = listen(sender);
+
+		Message reply = sender.blockingSend(sender.createMessage(
+				receiver.getId(), "ping", null));
+		assertEquals("pong", reply.getContent());
+		// the reply is not passed to the listeners.
+		assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testUndeliverable() throws Exception {
+		MessageBox sender = createBox(this.first, "sender");
+		try {
+			sender.blockingSend(sender.createMessage(new NioMessageBoxId(
+					"nobody", Type.GOALAGENT), "ping", null));
+			fail("message to unknown box was delivered");
+		} catch (MessagingException e) {
+			assertTrue(e.getMessage().contains("could not be delivered"));
+		}
+	}
+
+	@Test
+	public void testLookUpAndRemove() throws Exception {
+		MessageBox box = createBox(this.second, "agent");
+		assertEquals(Arrays.asList(box.getId()),
+				this.first.getMessageBoxes(Type.GOALAGENT, "agent"));
+		assertTrue(this.first.getMessageBoxes(Type.ENVIRONMENT, null)
+				.isEmpty());
+
+		final BlockingQueue<MessagingEvent> events = new LinkedBlockingQueue<>();
+		this.first.addListener(new MessagingListener() {
+			@Override
+			public void messagingEventOccured(MessagingEvent evt) {
+				events.add(evt);
+			}
+		});
+		this.second.deleteMessageBox(box);
+		MessagingEvent event = events.poll(TIMEOUT, TimeUnit.SECONDS);
+		assertEquals(MessagingEvent.EventType.REMOVED_MESSAGE_BOX,
+				event.getType());
+		assertEquals(box.getId(), event.getId());
+		assertTrue(this.first.getMessageBoxes(Type.GOALAGENT, "agent")
+				.isEmpty());
+	}
+
+	@Test
+	public void testCodec() throws Exception {
+		NioMessageBoxId sender = new NioMessageBoxId("env", Type.ENVIRONMENT);
+		NioMessageBoxId receiver = new NioMessageBoxId("agent",
+				Type.GOALAGENT);
+		NioMessage message = new NioMessage(7, sender, receiver,
+				new Percept("see", new Identifier("block")), 3L);
+		byte[] encoded = FrameCodec.encode(new Frame("env", "agent", message));
+		NioMessage decoded = (NioMessage) FrameCodec.decode(encoded, 4,
+				encoded.length - 4).getContent();
+		assertEquals(7, decoded.getId());
+		assertEquals(sender, decoded.getSender());
+		assertEquals(receiver, decoded.getReceiver());
+		assertEquals(Long.valueOf(3), decoded.repliesToId());
+		assertEquals(message.getContent().toString(), decoded.getContent()
+				.toString());
+	}
+
+	private static MessageBox createBox(MessagingClient client, String name)
+			throws Exception {
+		return client.createMessageBox(client.getNewUniqueID(name,
+				Type.GOALAGENT));
+	}
+
+	private static BlockingQueue<Message> listen(MessageBox box)
+			throws Exception {
+		final BlockingQueue<Message> received = new LinkedBlockingQueue<>();
+		box.addListener(new MessageBoxListener() {
+			@Override
+			public boolean newMessage(Message message) {
+				received.add(message);
+				return true;
+			}
+		});
+		return received;
+	}
+
+	private static Message receive(BlockingQueue<Message> received)
+			throws Exception {
+		Message message = received.poll(TIMEOUT, TimeUnit.SECONDS);
+		if (message == null) {
+			throw new AssertionError("no message received within " + TIMEOUT
+					+ " seconds");
+		}
+		return message;
+	}
+}
@@ -0,0 +1,147 @@
+package goal.core.runtime.transport;
+
+import static org.junit.Assert.assertEquals;
+import eis.iilang.Action;
+import eis.iilang.Function;
+import eis.iilang.Identifier;
+import eis.iilang.Numeral;
+import eis.iilang.ParameterList;
+import eis.iilang.Percept;
+import goal.core.runtime.transport.NioTransport.Connection;
+import goal.tools.logging.Loggers;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the {@link NioTransport} over the loopback interface, and the
+ * {@link FrameCodec} that encodes its frames.
+ */
+public class NioTransportTest {
+	private static final int FRAMES = 10000;
+	private static final long TIMEOUT = 10;
+
+	private NioTransport server;
+	private NioTransport client;
+	private Connection connection;
+	private final BlockingQueue<Frame> received = new LinkedBlockingQueue<>();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Loggers.addConsoleLogger();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		Loggers.removeConsoleLogger();
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		this.server = new NioTransport("echo", new NioTransport.Listener() {
+			@Override
+			public void frameReceived(Connection connection, Frame frame) {
+				try {
+					NioTransportTest.this.server.send(connection, new Frame(
+							frame.getReceiver(), frame.getSender(), frame
+									.getContent()));
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}
+
+			@Override
+			public void connectionClosed(Connection connection) {
+			}
+		});
+		InetSocketAddress address = this.server.bind(0);
+		this.client = new NioTransport("client", new NioTransport.Listener() {
+			@Override
+			public void frameReceived(Connection connection, Frame frame) {
+				NioTransportTest.this.received.add(frame);
+			}
+
+			@Override
+			public void connectionClosed(Connection connection) {
+			}
+		});
+		this.connection = this.client.connect(address);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		this.client.close();
+		this.server.close();
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		Percept percept = makePercept(1);
+		this.client.send(this.connection, new Frame("env", "agent", percept));
+		Frame reply = receive();
+		assertEquals("agent", reply.getSender());
+		assertEquals("env", reply.getReceiver());
+		assertEquals(percept.toString(), reply.getContent().toString());
+	}
+
+	@Test
+	public void testOrderIsKept() throws Exception {
+		for (int i = 0; i < FRAMES; i++) {
+			this.client.send(this.connection, new Frame("a", "b", i));
+		}
+		for (int i = 0; i < FRAMES; i++) {
+			assertEquals(i, receive().getContent());
+		}
+	}
+
+	@Test
+	public void testLargeFrame() throws Exception {
+		char[] text = new char[4 * NioTransport.BUFFER_SIZE];
+		Arrays.fill(text, 'x');
+		this.client.send(this.connection, new Frame("a", "b", 1));
+		this.client.send(this.connection, new Frame("a", "b", new String(
+				text)));
+		this.client.send(this.connection, new Frame("a", "b", 2));
+		assertEquals(1, receive().getContent());
+		assertEquals(text.length, ((String) receive().getContent()).length());
+		assertEquals(2, receive().getContent());
+	}
+
+	@Test
+	public void testCodec() throws Exception {
+		Object[] contents = { null, "text", 1, 2L, 3.0, makePercept(4),
+				new Action("move", new Identifier("north"), new Numeral(2)),
+				Arrays.asList(makePercept(5), makePercept(6)),
+				new java.util.Date(0) };
+		for (Object content : contents) {
+			byte[] encoded = FrameCodec.encode(new Frame("a", "b", content));
+			Frame decoded = FrameCodec.decode(encoded, 4, encoded.length - 4);
+			assertEquals(String.valueOf(content),
+					String.valueOf(decoded.getContent()));
+		}
+	}
+
+	private Frame receive() throws Exception {
+		Frame frame = this.received.poll(TIMEOUT, TimeUnit.SECONDS);
+		if (frame == null) {
+			throw new AssertionError("no frame received within " + TIMEOUT
+					+ " seconds");
+		}
+		return frame;
+	}
+
+	private static Percept makePercept(int i) {
+		return new Percept("see", new Identifier("block"), new Numeral(i),
+				new Function("at", new Numeral(i), new Numeral(i * 0.5)),
+				new ParameterList(new Identifier("a"), new Identifier("b")));
+	}
+}
@@ -3,6 +3,7 @@ package goal.parser.unittest;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import goal.core.gamygdala.Engine;
 import goal.tools.UnitTestRun;
 import goal.tools.UnitTestRunResultInspector;
 import goal.tools.errorhandling.exceptions.GOALRunFailedException;
@@ -26,6 +27,10 @@ import org.junit.BeforeClass;
 @SuppressWarnings("javadoc")
 public class AbstractUnitTestTest {
 	protected TestValidator visitor;
+	/**
+	 * The emotion engine of the last test run by {@link #runTest(String)}.
+	 */
+	protected Engine engine;
 
 	@BeforeClass
 	public static void setupBeforeClass() {
@@ -85,6 +90,7 @@ public class AbstractUnitTestTest {
 				unitTest);
 		testRun.setResultInspector(inspector);
 		testRun.run();
+		this.engine = testRun.getEngine();
 
 		return inspector.getResults();
 
@@ -93,5 +99,6 @@ public class AbstractUnitTestTest {
 	@After
 	public void tearDown() {
 		this.visitor = null;
+		this.engine = null;
 	}
 }
\ No newline at end of file
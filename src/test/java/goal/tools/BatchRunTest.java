@@ -0,0 +1,120 @@
+package goal.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import goal.preferences.PMPreferences;
+import goal.tools.trace.TraceReader;
+import goal.tools.trace.TraceRecord;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchRunTest {
+	private static final File FOLDER = new File("src/test/resources/goal/tools");
+
+	private boolean prefix;
+	private File copy;
+	private File traces;
+
+	/**
+	 * Copies the test MAS twice to a temporary folder, under different names.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.prefix = PMPreferences.getUseMASNameAsAgentPrefix();
+		PMPreferences.setPrefixAgentNameWithMASName(true);
+		this.copy = Files.createTempDirectory("batchrun").toFile();
+		this.traces = new File(this.copy, "traces");
+		this.traces.mkdir();
+		Files.copy(new File(FOLDER, "testselect.goal").toPath(), new File(
+				this.copy, "testselect.goal").toPath());
+		for (String name : new String[] { "first.mas2g", "second.mas2g" }) {
+			Files.copy(new File(FOLDER, "testselect.mas2g").toPath(), new File(
+					this.copy, name).toPath());
+		}
+	}
+
+	@After
+	public void tearDown() {
+		PMPreferences.setPrefixAgentNameWithMASName(this.prefix);
+		for (File file : this.traces.listFiles()) {
+			file.delete();
+		}
+		for (File file : this.copy.listFiles()) {
+			file.delete();
+		}
+		this.copy.delete();
+	}
+
+	/**
+	 * Runs of different MAS files run at the same time, but only see their own
+	 * agents; the repeats of one MAS file run one after the other.
+	 */
+	@Test
+	public void testParallelRuns() throws Exception {
+		BatchRun batch = new BatchRun(new File(this.copy, "first.mas2g"),
+				new File(this.copy, "second.mas2g"));
+		batch.setRepeats(3);
+		batch.setParallelism(2);
+		batch.setTraceDirectory(this.traces);
+		assertNull(batch.getConflict());
+		batch.run();
+
+		File[] files = this.traces.listFiles();
+		assertEquals(6, files.length);
+		for (String mas : new String[] { "first", "second" }) {
+			List<long[]> periods = new ArrayList<>();
+			for (File file : files) {
+				if (!file.getName().startsWith(mas + "-")) {
+					continue;
+				}
+				List<TraceRecord> records = readAll(file);
+				assertFalse(records.isEmpty());
+				for (TraceRecord record : records) {
+					assertEquals(mas + "_agentName", record.getAgent());
+				}
+				long[] period = { records.get(0).getTime(),
+						records.get(records.size() - 1).getTime() };
+				for (long[] other : periods) {
+					assertTrue(mas + " repeats overlap", period[1] < other[0]
+							|| other[1] < period[0]);
+				}
+				periods.add(period);
+			}
+			assertEquals(3, periods.size());
+		}
+	}
+
+	@Test
+	public void testConflicts() throws Exception {
+		BatchRun batch = new BatchRun(new File(this.copy, "first.mas2g"),
+				new File(FOLDER, "first.mas2g"));
+		assertNotNull(batch.getConflict());
+
+		batch = new BatchRun(new File(this.copy, "first.mas2g"), new File(
+				this.copy, "second.mas2g"));
+		PMPreferences.setPrefixAgentNameWithMASName(false);
+		assertNotNull(batch.getConflict());
+	}
+
+	private static List<TraceRecord> readAll(File file) throws Exception {
+		List<TraceRecord> records = new ArrayList<>();
+		try (TraceReader reader = new TraceReader(Arrays.asList(file))) {
+			TraceRecord record;
+			while ((record = reader.read()) != null) {
+				records.add(record);
+			}
+		}
+		return records;
+	}
+}
@@ -0,0 +1,67 @@
+package goal.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProgramCacheTest {
+	private static final File FOLDER = new File("src/test/resources/goal/tools");
+
+	private File copy;
+
+	/**
+	 * Copies the test MAS to a temporary folder so we can change it.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.copy = Files.createTempDirectory("programcache").toFile();
+		for (String name : new String[] { "testselect.mas2g",
+				"testselect.goal" }) {
+			Files.copy(new File(FOLDER, name).toPath(), new File(this.copy,
+					name).toPath());
+		}
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : this.copy.listFiles()) {
+			file.delete();
+		}
+		this.copy.delete();
+	}
+
+	@Test
+	public void testParsedOnce() throws Exception {
+		ProgramCache cache = new ProgramCache();
+		File mas = new File(this.copy, "testselect.mas2g");
+		ProgramCache.Programs first = cache.get(mas);
+		ProgramCache.Programs second = cache.get(mas);
+
+		assertSame(first, second);
+		assertEquals(1, cache.size());
+		assertTrue(first.getMASProgram().isValid());
+		assertEquals(1, first.getAgentPrograms().size());
+	}
+
+	@Test
+	public void testModifiedAgentIsParsedAgain() throws Exception {
+		ProgramCache cache = new ProgramCache();
+		File mas = new File(this.copy, "testselect.mas2g");
+		ProgramCache.Programs first = cache.get(mas);
+
+		File agent = new File(this.copy, "testselect.goal");
+		assertTrue(agent.setLastModified(agent.lastModified() - 10000));
+		ProgramCache.Programs second = cache.get(mas);
+
+		assertNotSame(first, second);
+		assertSame(second, cache.get(mas));
+	}
+}
@@ -74,6 +74,13 @@ public class RunTest {
 				"src/test/resources/goal/tools/testselect.mas2g");
 	}
 
+	@Test
+	public void testParallelRepeats() throws ParserException, ParseException,
+			Exception {
+		Run.run("--repeats", "5", "--parallel", "3",
+				"src/test/resources/goal/tools/testselect.mas2g");
+	}
+
 	@Test
 	public void testUnitTest() throws ParserException, ParseException,
 			Exception {
@@ -2,11 +2,13 @@ package goal.tools.adapt;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import goal.preferences.CorePreferences;
 import eis.iilang.Action;
 import eis.iilang.Percept;
 import goal.core.agent.Agent;
 import goal.core.agent.EnvironmentCapabilities;
 import goal.core.agent.GOALInterpreter;
+import goal.core.agent.InputListener;
 import goal.core.agent.LoggingCapabilities;
 import goal.core.agent.MessagingCapabilities;
 import goal.core.agent.NoLoggingCapabilities;
@@ -28,6 +30,7 @@ import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Test;
 
 public class FileLearnerTest {
 
@@ -47,6 +50,10 @@ public class FileLearnerTest {
 			return new HashSet<Percept>();
 		}
 
+		@Override
+		public void setInputListener(InputListener listener) {
+		}
+
 		@Override
 		public void dispose() {
 		}
@@ -65,6 +72,7 @@ public class FileLearnerTest {
 	Agent<GOALInterpreter<NOPDebugger>> agent;
 	GOALInterpreter<NOPDebugger> controller;
 	KRInterface language;
+	AgentProgram program;
 
 	@Before
 	public void setUp() throws Exception {
@@ -73,6 +81,7 @@ public class FileLearnerTest {
 		File file = new File("src/test/resources/goal/tools/adapt/adapt.goal");
 		AgentProgram program = PlatformManager.createNew().parseGOALFile(file,
 				this.language);
+		this.program = program;
 		MessagingCapabilities messagingCapabilities = new NoMessagingCapabilities();
 		EnvironmentCapabilities environmentCapabilities = new DummyEnvironment();
 		LoggingCapabilities loggingCapabilities = new NoLoggingCapabilities();
@@ -94,6 +103,33 @@ public class FileLearnerTest {
 		assertFalse(this.controller.isRunning());
 	}
 
+	/**
+	 * A learner that was loaded from a file can be saved over that file, also
+	 * on platforms that do not allow replacing a file that is still open.
+	 */
+	@Test
+	public void testLoadThenSave() throws Exception {
+		String learnFile = CorePreferences.getLearnFile();
+		File file = File.createTempFile("learner", ".lrn");
+		file.delete();
+		CorePreferences.setLearnFile(file.getPath());
+		try {
+			new FileLearner("TestAgent", this.program).saveLearner(file
+					.getPath());
+			assertTrue(file.exists());
+
+			// loads the file.
+			FileLearner learner = new FileLearner("TestAgent", this.program);
+			learner.saveLearner(file.getPath());
+			assertFalse(new File(file.getPath() + ".tmp").exists());
+			assertTrue(learner.loadLearner(file.getPath(), this.program));
+			assertTrue(file.delete());
+		} finally {
+			CorePreferences.setLearnFile(learnFile);
+			file.delete();
+		}
+	}
+
 	@After
 	public void tearDown() throws Exception {
 		// this.language.reset();
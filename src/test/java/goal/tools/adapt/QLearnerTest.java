@@ -0,0 +1,91 @@
+package goal.tools.adapt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Tests that the {@link QLearner} of an agent with an adaptive module keeps
+ * its learned values when written in the binary .lrn format or with Java
+ * serialization.
+ */
+public class QLearnerTest {
+	private static final int ACTIONS = 10;
+
+	@Test
+	public void testBinaryRoundTrip() throws Exception {
+		QLearner learner = learn(50);
+		QLearner copy = QLearner.read(ByteBuffer.wrap(toBinary(learner)));
+		assertSameValues(learner, copy, 50);
+	}
+
+	@Test
+	public void testSerializedRoundTrip() throws Exception {
+		QLearner learner = learn(50);
+		ObjectInputStream input = new ObjectInputStream(
+				new ByteArrayInputStream(toSerialized(learner)));
+		QLearner copy = (QLearner) input.readObject();
+		assertSameValues(learner, copy, 50);
+	}
+
+	/**
+	 * The binary format is smaller than Java serialization, which was used by
+	 * the original implementation.
+	 */
+	@Test
+	public void testBinaryIsSmaller() throws Exception {
+		QLearner learner = learn(1000);
+		assertTrue(toBinary(learner).length < toSerialized(learner).length);
+	}
+
+	/**
+	 * Creates a learner that has visited all states 1..states and tried all
+	 * actions in them.
+	 */
+	private static QLearner learn(int states) {
+		QLearner learner = new QLearner(0.9, 0.1, 0, 0.9);
+		Integer[] options = new Integer[ACTIONS];
+		for (int a = 0; a < ACTIONS; a++) {
+			options[a] = a + 1;
+		}
+		learner.start();
+		for (int s = 1; s <= states; s++) {
+			learner.nextAction(s, options);
+			learner.update(s % 3 - 1, s % states + 1);
+		}
+		learner.finish(1);
+		return learner;
+	}
+
+	private static void assertSameValues(QLearner expected, QLearner actual,
+			int states) {
+		for (int s = 1; s <= states; s++) {
+			assertEquals(expected.actionValues(s), actual.actionValues(s));
+		}
+	}
+
+	private static byte[] toBinary(QLearner learner) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			learner.write(out);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] toSerialized(QLearner learner) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(learner);
+		}
+		return bytes.toByteArray();
+	}
+}
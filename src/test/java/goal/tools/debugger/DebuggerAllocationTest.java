@@ -0,0 +1,174 @@
+package goal.tools.debugger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+/**
+ * Checks that breakpoints on the hot paths of an agent produce no garbage
+ * when nobody is listening. A "cycle" reports the same breakpoints as a cycle
+ * of an agent that updates a few beliefs and evaluates a few rules, guarded by
+ * {@link Debugger#isEnabled(Channel)} like the call sites in the core.
+ */
+public class DebuggerAllocationTest {
+	private static final int CYCLES = 100000;
+	/**
+	 * Allowed number of bytes per cycle. Should be 0, but allow for some noise
+	 * of the measurement itself.
+	 */
+	private static final double MAX_BYTES_PER_CYCLE = 1;
+
+	private final Object formula = new Object();
+
+	@Test
+	public void testNOPDebugger() {
+		NOPDebugger debugger = new NOPDebugger("allocation");
+		assertFalse(debugger.isEnabled(Channel.BB_UPDATES));
+		assertGarbageFree(debugger);
+	}
+
+	@Test
+	public void testSteppingDebuggerRunning() {
+		SteppingDebugger debugger = new SteppingDebugger("allocation", null);
+		debugger.run();
+		assertFalse(debugger.isEnabled(Channel.BB_UPDATES));
+		assertGarbageFree(debugger);
+	}
+
+	@Test
+	public void testObservableDebuggerUnobservedChannels() {
+		ObservableDebugger debugger = new ObservableDebugger("allocation",
+				null);
+		debugger.run();
+		debugger.subscribe(new CountingObserver(), Channel.GB_CHANGES);
+		assertTrue(debugger.isEnabled(Channel.GB_CHANGES));
+		assertFalse(debugger.isEnabled(Channel.BB_UPDATES));
+		assertGarbageFree(debugger);
+	}
+
+	@Test
+	public void testKilledDebuggerIsEnabled() {
+		NOPDebugger nop = new NOPDebugger("allocation");
+		nop.kill();
+		assertTrue(nop.isEnabled(Channel.BB_UPDATES));
+		SteppingDebugger stepping = new SteppingDebugger("allocation", null);
+		stepping.kill();
+		assertTrue(stepping.isEnabled(Channel.BB_UPDATES));
+	}
+
+	@Test
+	public void testLazyFormatting() {
+		ObservableDebugger debugger = new ObservableDebugger("allocation",
+				null);
+		debugger.run();
+		CountingObserver observer = new CountingObserver();
+		debugger.subscribe(observer, Channel.BB_UPDATES);
+
+		debugger.breakpoint(Channel.BB_UPDATES, null, null, "%s inserted",
+				"arg");
+		assertEquals(1, observer.events);
+		assertEquals("arg inserted", observer.last.getMessage());
+		assertSame(observer.last.getMessage(), observer.last.getMessage());
+	}
+
+	/**
+	 * A message shows its arguments as they were when the event was created,
+	 * also when it is formatted later.
+	 */
+	@Test
+	public void testMutableArgumentIsSnapshot() {
+		ObservableDebugger debugger = new ObservableDebugger("allocation",
+				null);
+		debugger.run();
+		CountingObserver observer = new CountingObserver();
+		debugger.subscribe(observer, Channel.BB_UPDATES);
+		CountingArgument argument = new CountingArgument();
+
+		debugger.breakpoint(Channel.BB_UPDATES, null, null, "%s inserted",
+				argument);
+		assertEquals(1, argument.formatted);
+		argument.formatted = 5;
+
+		assertEquals("arg 1 inserted", observer.last.getMessage());
+		assertSame(argument, observer.last.getRawArguments()[0]);
+	}
+
+	/**
+	 * Runs a number of cycles and prints and checks the number of bytes
+	 * allocated per cycle.
+	 */
+	private void assertGarbageFree(Debugger debugger) {
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		if (!bean.isThreadAllocatedMemorySupported()) {
+			System.out.println("Allocation measurement not supported.");
+			return;
+		}
+		bean.setThreadAllocatedMemoryEnabled(true);
+		long thread = Thread.currentThread().getId();
+		// warm up
+		for (int i = 0; i < CYCLES; i++) {
+			cycle(debugger);
+		}
+		long before = bean.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < CYCLES; i++) {
+			cycle(debugger);
+		}
+		long after = bean.getThreadAllocatedBytes(thread);
+		double perCycle = (double) (after - before) / CYCLES;
+		System.out.println(debugger.getClass().getSimpleName() + ": "
+				+ perCycle + " bytes per cycle");
+		assertTrue(perCycle + " bytes per cycle",
+				perCycle < MAX_BYTES_PER_CYCLE);
+	}
+
+	private void cycle(Debugger debugger) {
+		if (debugger.isEnabled(Channel.REASONING_CYCLE_SEPARATOR)) {
+			debugger.breakpoint(Channel.REASONING_CYCLE_SEPARATOR, null, null,
+					" +++++++ Cycle %s +++++++ ", this.formula);
+		}
+		for (int i = 0; i < 5; i++) {
+			if (debugger.isEnabled(Channel.BB_UPDATES)) {
+				debugger.breakpoint(Channel.BB_UPDATES, this.formula, null,
+						"%s has been inserted into the belief base of %s.",
+						this.formula, debugger.getName());
+			}
+			if (debugger.isEnabled(Channel.RULE_CONDITION_EVALUATION)) {
+				debugger.breakpoint(Channel.RULE_CONDITION_EVALUATION,
+						this.formula, null,
+						"Condition of rule %s does not hold.", this.formula);
+			}
+		}
+	}
+
+	private static class CountingObserver implements DebugObserver {
+		private int events = 0;
+		private DebugEvent last;
+
+		@Override
+		public String getObserverName() {
+			return "counter";
+		}
+
+		@Override
+		public void notifyBreakpointHit(DebugEvent event) {
+			this.events++;
+			this.last = event;
+		}
+	}
+
+	private static class CountingArgument {
+		private int formatted = 0;
+
+		@Override
+		public String toString() {
+			this.formatted++;
+			return "arg " + this.formatted;
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package goal.tools.debugger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import goal.tools.PlatformManager;
+import goalhub.krTools.KRFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import krTools.parser.SourceInfo;
+import languageTools.program.agent.AgentProgram;
+import languageTools.program.agent.Module;
+import languageTools.program.agent.actions.Action;
+import languageTools.program.agent.rules.Rule;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests conditional, hit-count and log-only breakpoints. The positions are
+ * those of the actions of hotpath.goal.
+ */
+public class UserBreakpointTest {
+	private static final String AGENT = "src/test/resources/goal/core/performance/hotpath/hotpath.goal";
+
+	private static List<SourceInfo> positions;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		AgentProgram program = PlatformManager.createNew().parseGOALFile(
+				new File(AGENT), KRFactory.getDefaultInterface());
+		assertTrue(program.isValid());
+		positions = new ArrayList<>();
+		for (Module module : program.getModules()) {
+			for (Rule rule : module.getRules()) {
+				for (Action<?> action : rule.getAction()) {
+					positions.add(action.getSourceInfo());
+				}
+			}
+		}
+		assertTrue(positions.size() >= 3);
+	}
+
+	@Test
+	public void testUnconditional() {
+		SteppingDebugger debugger = debugger(new UserBreakpoint(
+				positions.get(0)));
+		assertTrue(hit(debugger, 0));
+		assertFalse(hit(debugger, 1));
+		debugger.unsetBreakpoint(positions.get(0));
+		assertFalse(debugger.isEnabled(Channel.ACTION_EXECUTED_USERSPEC));
+	}
+
+	@Test
+	public void testHitCount() {
+		SteppingDebugger debugger = debugger(new UserBreakpoint(
+				positions.get(0), null, 3, null));
+		List<Boolean> hits = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			hits.add(hit(debugger, 0));
+			nextCycle(debugger);
+		}
+		assertEquals(Arrays.asList(false, false, true, false, false, true),
+				hits);
+	}
+
+	@Test
+	public void testCondition() {
+		SteppingDebugger debugger = debugger(new UserBreakpoint(
+				positions.get(0), "bel(item(1))", 0, null));
+		FixedEvaluator evaluator = new FixedEvaluator();
+		debugger.setConditionEvaluator(evaluator);
+		assertFalse(hit(debugger, 0));
+		assertEquals("bel(item(1))", evaluator.evaluated);
+		evaluator.holds = true;
+		assertTrue(hit(debugger, 0));
+	}
+
+	@Test
+	public void testTracepoint() {
+		ObservableDebugger debugger = new ObservableDebugger("breakpoints",
+				null);
+		debugger.run();
+		debugger.setBreakpoint(new UserBreakpoint(positions.get(0), null, 0,
+				"reached"));
+		CountingObserver observer = new CountingObserver();
+		debugger.subscribe(observer, Channel.BREAKPOINTS);
+		for (int i = 0; i < 3; i++) {
+			debugger.breakpoint(Channel.ACTION_EXECUTED_USERSPEC, null,
+					positions.get(0), "executed");
+		}
+		assertEquals(RunMode.RUNNING, debugger.getRunMode());
+		assertEquals(3, observer.events);
+		assertTrue(observer.last.getMessage().endsWith("reached"));
+	}
+
+	@Test
+	public void testOncePerCycle() {
+		SteppingDebugger debugger = debugger(new UserBreakpoint(
+				positions.get(0)));
+		assertTrue(hit(debugger, 0));
+		assertFalse(hit(debugger, 0));
+		nextCycle(debugger);
+		assertTrue(hit(debugger, 0));
+	}
+
+	private static SteppingDebugger debugger(UserBreakpoint... breakpoints) {
+		SteppingDebugger debugger = new SteppingDebugger("breakpoints", null);
+		debugger.run();
+		debugger.setUserBreakpoints(Arrays.asList(breakpoints));
+		return debugger;
+	}
+
+	private static boolean hit(SteppingDebugger debugger, int position) {
+		return debugger.checkUserBreakpointHit(positions.get(position),
+				"executed");
+	}
+
+	private static void nextCycle(SteppingDebugger debugger) {
+		debugger.breakpoint(Channel.REASONING_CYCLE_SEPARATOR, null, null,
+				" +++++++ Cycle %s +++++++ ", 1);
+	}
+
+	private static class FixedEvaluator implements
+			UserBreakpoint.ConditionEvaluator {
+		private boolean holds = false;
+		private String evaluated;
+
+		@Override
+		public boolean holds(String condition) {
+			this.evaluated = condition;
+			return this.holds;
+		}
+	}
+
+	private static class CountingObserver implements DebugObserver {
+		private int events = 0;
+		private DebugEvent last;
+
+		@Override
+		public String getObserverName() {
+			return "counter";
+		}
+
+		@Override
+		public void notifyBreakpointHit(DebugEvent event) {
+			this.events++;
+			this.last = event;
+		}
+	}
+}
@@ -0,0 +1,223 @@
+package goal.tools.eclipse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import goal.tools.eclipse.DebugCommand.Command;
+import goal.tools.eclipse.DebugCommand.StubBoxId;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import languageTools.program.agent.AgentId;
+
+import org.junit.Test;
+
+/**
+ * Tests the text and the binary {@link DebugProtocol}, and the batching of
+ * the events that the debugger sends to the Eclipse plug-in.
+ */
+public class DebugProtocolTest {
+	private static final int AGENTS = 10;
+	private static final int PIPE = 64 * 1024;
+
+	private interface ProtocolFactory {
+		DebugProtocol create(InputStream is, OutputStream os)
+				throws IOException;
+	}
+
+	private static final ProtocolFactory TEXT = new ProtocolFactory() {
+		@Override
+		public DebugProtocol create(InputStream is, OutputStream os) {
+			return new TextDebugProtocol(is, os);
+		}
+	};
+
+	private static final ProtocolFactory BINARY = new ProtocolFactory() {
+		@Override
+		public DebugProtocol create(InputStream is, OutputStream os)
+				throws IOException {
+			return new BinaryDebugProtocol(is, os);
+		}
+	};
+
+	@Test
+	public void testText() throws Exception {
+		// the text protocol does not keep line breaks.
+		List<DebugCommand> commands = commands("a|b");
+		assertEquals(strings(commands), strings(roundTrip(TEXT, commands)));
+	}
+
+	@Test
+	public void testBinary() throws Exception {
+		List<DebugCommand> commands = commands("a|b\n\u00e9\u4e2d");
+		assertEquals(strings(commands), strings(roundTrip(BINARY, commands)));
+	}
+
+	/**
+	 * The name of an agent is only sent once.
+	 */
+	@Test
+	public void testInterning() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DebugProtocol protocol = BINARY.create(empty(), bytes);
+		for (int i = 0; i < 100; i++) {
+			protocol.write(new DebugCommand(Command.INSERTED_BEL, new AgentId(
+					"someAgent"), "item(" + i + ")"));
+		}
+		protocol.flush();
+		String stream = new String(bytes.toByteArray(), "UTF-8");
+		assertEquals(stream.indexOf("someAgent"),
+				stream.lastIndexOf("someAgent"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testVersion() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		bytes.write(BinaryDebugProtocol.MAGIC);
+		bytes.write(BinaryDebugProtocol.VERSION + 1);
+		BINARY.create(new ByteArrayInputStream(bytes.toByteArray()),
+				new ByteArrayOutputStream()).read();
+	}
+
+	@Test
+	public void testBatching() throws Exception {
+		ByteArrayOutputStream batched = new ByteArrayOutputStream();
+		InputReaderWriter writer = new InputReaderWriter(BINARY.create(
+				empty(), batched), 60 * 60 * 1000, null,
+				new EclipseEventObserver());
+		writer.write(new DebugCommand(Command.LOG, new AgentId("agent"), "log"));
+		assertEquals(0, batched.size());
+		writer.flush();
+		assertTrue(batched.size() > 0);
+
+		ByteArrayOutputStream direct = new ByteArrayOutputStream();
+		writer = new InputReaderWriter(BINARY.create(empty(), direct), 0,
+				null, new EclipseEventObserver());
+		writer.write(new DebugCommand(Command.LOG, new AgentId("agent"), "log"));
+		assertEquals(batched.size(), direct.size());
+	}
+
+	@Test
+	public void testPipe() throws Exception {
+		for (ProtocolFactory protocol : Arrays.asList(TEXT, BINARY)) {
+			assertTrue(pipe(protocol, 10, 1000) > 0);
+		}
+	}
+
+	/**
+	 * Sends events from a writer to a reader over a pipe.
+	 *
+	 * @return the number of events per second that arrived.
+	 */
+	private static long pipe(ProtocolFactory protocol, long batchWindow,
+			final int events) throws Exception {
+		PipedOutputStream out = new PipedOutputStream();
+		PipedInputStream in = new PipedInputStream(out, PIPE);
+		final DebugProtocol client = protocol.create(in,
+				new ByteArrayOutputStream());
+		InputReaderWriter writer = new InputReaderWriter(protocol.create(
+				empty(), out), batchWindow, null, new EclipseEventObserver());
+
+		ExecutorService reader = Executors.newSingleThreadExecutor();
+		try {
+			long start = System.nanoTime();
+			Future<Integer> received = reader.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					int read = 0;
+					while (read < events && client.read() != null) {
+						read++;
+					}
+					return read;
+				}
+			});
+			List<AgentId> agents = new ArrayList<>(AGENTS);
+			for (int i = 0; i < AGENTS; i++) {
+				agents.add(new AgentId("agent" + i));
+			}
+			for (int i = 0; i < events; i++) {
+				AgentId agent = agents.get(i % AGENTS);
+				if (i % 2 == 0) {
+					writer.write(new DebugCommand(Command.INSERTED_BEL, agent,
+							"item(" + i + ")"));
+				} else {
+					writer.write(new DebugCommand(Command.RULE_EVALUATION,
+							agent, Arrays.asList("[X/" + i + "]", "[Y/"
+									+ (i + 1) + "]")));
+				}
+			}
+			writer.flush();
+			assertEquals(events, (int) received.get());
+			long time = System.nanoTime() - start;
+			return events * 1000000000L / Math.max(1, time);
+		} finally {
+			reader.shutdownNow();
+			out.close();
+		}
+	}
+
+	private static List<DebugCommand> roundTrip(ProtocolFactory protocol,
+			List<DebugCommand> commands) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DebugProtocol writer = protocol.create(empty(), bytes);
+		for (DebugCommand command : commands) {
+			writer.write(command);
+		}
+		writer.flush();
+		DebugProtocol reader = protocol.create(
+				new ByteArrayInputStream(bytes.toByteArray()),
+				new ByteArrayOutputStream());
+		List<DebugCommand> read = new ArrayList<>(commands.size());
+		DebugCommand command;
+		while ((command = reader.read()) != null) {
+			read.add(command);
+		}
+		assertNull(reader.read());
+		return read;
+	}
+
+	private static List<DebugCommand> commands(String data) {
+		AgentId agent = new AgentId("agent");
+		List<DebugCommand> commands = new ArrayList<>();
+		commands.add(new DebugCommand(Command.LAUNCHED, agent));
+		commands.add(new DebugCommand(Command.INSERTED_BEL, agent, data));
+		commands.add(new DebugCommand(Command.RULE_EVALUATION, agent, Arrays
+				.asList("[X/1]", "[X/2]")));
+		commands.add(new DebugCommand(Command.EVAL, data));
+		commands.add(new DebugCommand(Command.ENV_STATE, new StubBoxId("env"),
+				"RUNNING"));
+		commands.add(new DebugCommand(Command.SUSPEND, new AgentId("other"),
+				Arrays.asList("file.goal", "1", "2", "3")));
+		commands.add(new DebugCommand(Command.RUNMODE, agent, "PAUSED"));
+		return commands;
+	}
+
+	/**
+	 * {@link DebugCommand#equals(Object)} does not compare commands with an
+	 * environment; their text representation does.
+	 */
+	private static List<String> strings(List<DebugCommand> commands) {
+		List<String> strings = new ArrayList<>(commands.size());
+		for (DebugCommand command : commands) {
+			strings.add(command.toString());
+		}
+		return strings;
+	}
+
+	private static InputStream empty() {
+		return new ByteArrayInputStream(new byte[0]);
+	}
+}
@@ -0,0 +1,222 @@
+package goal.tools.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import goal.tools.logging.AsyncLogHandler.OverflowPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.Test;
+
+/**
+ * Tests the buffering, overflow policies and writer thread of the
+ * {@link AsyncLogHandler}.
+ */
+public class AsyncLogHandlerTest {
+	private static final int THREADS = 4;
+	private static final int RECORDS = 10000;
+
+	/**
+	 * Keeps the records it receives, and can be made to wait before it
+	 * accepts them.
+	 */
+	private static class CollectingHandler extends Handler {
+		private final List<LogRecord> records = new ArrayList<>();
+		private final CountDownLatch entered = new CountDownLatch(1);
+		private final CountDownLatch release;
+		private boolean closed = false;
+
+		CollectingHandler(boolean wait) {
+			this.release = new CountDownLatch(wait ? 1 : 0);
+		}
+
+		@Override
+		public void publish(LogRecord record) {
+			this.entered.countDown();
+			try {
+				this.release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			synchronized (this) {
+				this.records.add(record);
+			}
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public synchronized void close() {
+			this.closed = true;
+		}
+
+		synchronized List<LogRecord> getRecords() {
+			return new ArrayList<>(this.records);
+		}
+	}
+
+	/**
+	 * Several threads log through a small buffer at the same time; the
+	 * records of every thread should arrive in order, and none should be
+	 * dropped.
+	 */
+	@Test
+	public void testBlockKeepsOrder() throws Exception {
+		CollectingHandler target = new CollectingHandler(false);
+		final AsyncLogHandler handler = new AsyncLogHandler(target, 64,
+				OverflowPolicy.BLOCK);
+		ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Callable<Void>> producers = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				final String thread = Integer.toString(i);
+				producers.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						for (int j = 0; j < RECORDS; j++) {
+							LogRecord record = new LogRecord(Level.INFO, thread);
+							record.setSequenceNumber(j);
+							handler.publish(record);
+						}
+						return null;
+					}
+				});
+			}
+			for (Future<Void> producer : threads.invokeAll(producers)) {
+				producer.get();
+			}
+		} finally {
+			threads.shutdown();
+		}
+		handler.flush();
+
+		List<LogRecord> records = target.getRecords();
+		assertEquals(THREADS * RECORDS, records.size());
+		assertEquals(0, handler.getDropped());
+		long[] next = new long[THREADS];
+		for (LogRecord record : records) {
+			int thread = Integer.parseInt(record.getMessage());
+			assertEquals(next[thread]++, record.getSequenceNumber());
+		}
+		handler.close();
+	}
+
+	@Test
+	public void testDrop() throws Exception {
+		CollectingHandler target = new CollectingHandler(true);
+		AsyncLogHandler handler = new AsyncLogHandler(target, 4,
+				OverflowPolicy.DROP);
+		// the writer takes the first record and waits in the target.
+		handler.publish(new LogRecord(Level.INFO, "first"));
+		target.entered.await();
+		for (int i = 0; i < 4 + 10; i++) {
+			handler.publish(new LogRecord(Level.INFO, "record"));
+		}
+		assertEquals(4, handler.size());
+		assertEquals(10, handler.getDropped());
+		target.release.countDown();
+		handler.close();
+		assertEquals(1 + 4, target.getRecords().size());
+		assertTrue(target.closed);
+	}
+
+	@Test
+	public void testSample() throws Exception {
+		CollectingHandler target = new CollectingHandler(true);
+		AsyncLogHandler handler = new AsyncLogHandler(target, 64,
+				OverflowPolicy.SAMPLE);
+		handler.publish(new LogRecord(Level.INFO, "first"));
+		target.entered.await();
+		// all records are kept until the buffer is half full.
+		for (int i = 0; i < 32; i++) {
+			handler.publish(new LogRecord(Level.INFO, "record"));
+		}
+		assertEquals(0, handler.getDropped());
+		for (int i = 0; i < 100; i++) {
+			handler.publish(new LogRecord(Level.INFO, "sampled"));
+		}
+		assertEquals(32 + 100 / AsyncLogHandler.SAMPLE_RATE, handler.size());
+		assertEquals(100 - 100 / AsyncLogHandler.SAMPLE_RATE,
+				handler.getDropped());
+		target.release.countDown();
+		handler.close();
+	}
+
+	@Test
+	public void testCloseFlushes() throws Exception {
+		CollectingHandler target = new CollectingHandler(false);
+		AsyncLogHandler handler = new AsyncLogHandler(target, 1024,
+				OverflowPolicy.BLOCK);
+		for (int i = 0; i < 1000; i++) {
+			handler.publish(new LogRecord(Level.INFO, "record"));
+		}
+		handler.close();
+		assertEquals(1000, target.getRecords().size());
+		// records logged after closing are ignored.
+		handler.publish(new LogRecord(Level.INFO, "late"));
+		assertEquals(1000, target.getRecords().size());
+	}
+
+	/**
+	 * The writer parks while there is nothing to write, and stops when the
+	 * last handler is closed.
+	 */
+	@Test
+	public void testWriterStops() throws Exception {
+		CollectingHandler target = new CollectingHandler(false);
+		AsyncLogHandler handler = new AsyncLogHandler(target, 64,
+				OverflowPolicy.BLOCK);
+		handler.publish(new LogRecord(Level.INFO, "record"));
+		Thread writer = getWriter();
+		assertNotNull(writer);
+		long deadline = System.currentTimeMillis() + 1000;
+		while (writer.getState() != Thread.State.WAITING
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+		assertEquals(Thread.State.WAITING, writer.getState());
+		assertEquals(1, target.getRecords().size());
+
+		// a record that is logged while the writer waits is written.
+		handler.publish(new LogRecord(Level.INFO, "record"));
+		deadline = System.currentTimeMillis() + 1000;
+		while (target.getRecords().size() < 2
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+		assertEquals(2, target.getRecords().size());
+
+		handler.close();
+		writer.join(1000);
+		assertFalse(writer.isAlive());
+		assertNull(getWriter());
+
+		// a new handler starts a new writer.
+		handler = new AsyncLogHandler(target, 64, OverflowPolicy.BLOCK);
+		assertNotNull(getWriter());
+		handler.close();
+	}
+
+	private static Thread getWriter() {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().equals("GOAL log writer") && thread.isAlive()) {
+				return thread;
+			}
+		}
+		return null;
+	}
+}
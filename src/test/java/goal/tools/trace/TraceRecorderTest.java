@@ -0,0 +1,148 @@
+package goal.tools.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import goal.core.runtime.service.agent.RunState;
+import goal.tools.debugger.Channel;
+import goal.tools.debugger.Debugger;
+import goal.tools.debugger.ObservableDebugger;
+import goal.tools.trace.TraceRecord.Kind;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the records that a {@link TraceRecorder} writes for the debug events
+ * of an agent.
+ */
+public class TraceRecorderTest {
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		this.directory = Files.createTempDirectory("traces").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : this.directory.listFiles()) {
+			file.delete();
+		}
+		this.directory.delete();
+	}
+
+	@Test
+	public void testRecorder() throws Exception {
+		TraceWriter writer = new TraceWriter(this.directory, "recorder", 0);
+		ObservableDebugger debugger = new ObservableDebugger("tracer", null);
+		debugger.run();
+		new TraceRecorder(debugger, writer);
+		for (int cycle = 1; cycle <= 3; cycle++) {
+			cycle(debugger, cycle);
+		}
+		writer.close();
+
+		List<TraceRecord> records = readAll(writer.getFiles());
+		assertEquals(15, records.size());
+		assertEquals(Arrays.asList(Kind.CYCLE, Kind.PERCEPT_DELETED,
+				Kind.PERCEPT_ADDED, Kind.RULE, Kind.ACTION),
+				kinds(records.subList(0, 5)));
+		TraceRecord rule = records.get(3);
+		assertEquals("tracer", rule.getAgent());
+		assertEquals(1, rule.getCycle());
+		assertEquals(Arrays.asList("if bel(clear(X)) then move(X, table).",
+				"[[X/b1]]"), rule.getData());
+		assertEquals(3, records.get(14).getCycle());
+	}
+
+	@Test
+	public void testStarted() throws Exception {
+		TraceWriter writer = new TraceWriter(this.directory, "started", 0);
+		ObservableDebugger debugger = new ObservableDebugger("started", null);
+		debugger.run();
+		new TraceRecorder(debugger, writer);
+		// reported by the interpreter when the agent is started.
+		debugger.breakpoint(Channel.REASONING_CYCLE_SEPARATOR, 0, null,
+				"%s has been started", "started");
+		cycle(debugger, 1);
+		writer.close();
+
+		List<TraceRecord> records = readAll(writer.getFiles());
+		assertEquals(5, records.size());
+		for (TraceRecord record : records) {
+			assertEquals(1, record.getCycle());
+		}
+	}
+
+	@Test
+	public void testClosed() throws Exception {
+		TraceWriter writer = new TraceWriter(this.directory, "closed", 0);
+		ObservableDebugger debugger = new ObservableDebugger("closed", null);
+		debugger.run();
+		new TraceRecorder(debugger, writer);
+		writer.close();
+		// the recorder stops when the trace can not be written.
+		cycle(debugger, 1);
+		assertFalse(debugger.isEnabled(Channel.RULE_CONDITION_EVALUATION));
+		assertNull(new TraceReader(writer.getFiles()).read());
+	}
+
+	/**
+	 * Reports the debug events of a cycle like the core does, guarded by
+	 * {@link Debugger#isEnabled(Channel)}: percepts, the evaluation of two
+	 * rules of which one holds, and an action.
+	 */
+	static void cycle(Debugger debugger, int cycle) {
+		if (debugger.isEnabled(Channel.REASONING_CYCLE_SEPARATOR)) {
+			debugger.breakpoint(Channel.REASONING_CYCLE_SEPARATOR, cycle, null,
+					RunState.CYCLE_SEPARATOR, cycle);
+		}
+		if (debugger.isEnabled(Channel.PERCEPTS_CONDITIONAL_VIEW)) {
+			debugger.breakpoint(Channel.PERCEPTS_CONDITIONAL_VIEW, null, null,
+					"%s has been deleted from the percept base of %s.",
+					"on(b1, b2)", debugger.getName());
+			debugger.breakpoint(Channel.PERCEPTS_CONDITIONAL_VIEW, null, null,
+					"%s has been inserted into the percept base of %s.",
+					"on(b1, table)", debugger.getName());
+		}
+		if (debugger.isEnabled(Channel.RULE_CONDITION_EVALUATION)) {
+			debugger.breakpoint(Channel.RULE_CONDITION_EVALUATION, null, null,
+					"Condition of rule %s does not hold.",
+					"if bel(tower([X])) then skip.");
+			debugger.breakpoint(Channel.RULE_CONDITION_EVALUATION, null, null,
+					"Condition of rule %s holds for: %s.",
+					"if bel(clear(X)) then move(X, table).", "[[X/b1]]");
+		}
+		if (debugger.isEnabled(Channel.ACTION_EXECUTED_USERSPEC)) {
+			debugger.breakpoint(Channel.ACTION_EXECUTED_USERSPEC, null, null,
+					"Performed %s.", "move(b1, table)");
+		}
+	}
+
+	static List<TraceRecord> readAll(List<File> files) throws Exception {
+		List<TraceRecord> records = new ArrayList<>();
+		try (TraceReader reader = new TraceReader(files)) {
+			TraceRecord record;
+			while ((record = reader.read()) != null) {
+				records.add(record);
+			}
+		}
+		return records;
+	}
+
+	private static List<Kind> kinds(List<TraceRecord> records) {
+		List<Kind> kinds = new ArrayList<>(records.size());
+		for (TraceRecord record : records) {
+			kinds.add(record.getKind());
+		}
+		return kinds;
+	}
+}
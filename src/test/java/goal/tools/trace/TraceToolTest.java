@@ -0,0 +1,72 @@
+package goal.tools.trace;
+
+import static goal.tools.trace.TraceRecorderTest.cycle;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import goal.tools.debugger.ObservableDebugger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests filtering and summarizing traces with the {@link TraceTool}.
+ */
+public class TraceToolTest {
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		this.directory = Files.createTempDirectory("traces").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : this.directory.listFiles()) {
+			file.delete();
+		}
+		this.directory.delete();
+	}
+
+	@Test
+	public void testTool() throws Exception {
+		TraceWriter writer = new TraceWriter(this.directory, "tool", 0);
+		ObservableDebugger first = new ObservableDebugger("first", null);
+		ObservableDebugger second = new ObservableDebugger("second", null);
+		first.run();
+		second.run();
+		new TraceRecorder(first, writer);
+		new TraceRecorder(second, writer);
+		for (int cycle = 1; cycle <= 5; cycle++) {
+			cycle(first, cycle);
+			cycle(second, cycle);
+		}
+		writer.close();
+
+		String[] lines = tool("--kind", "rule,action", "--agent", "second",
+				"--from", "2", "--to", "3", this.directory.getPath());
+		assertEquals(4, lines.length);
+		assertTrue(lines[0].endsWith("\tsecond\t2\tRULE"
+				+ "\tif bel(clear(X)) then move(X, table).\t[[X/b1]]"));
+		assertTrue(lines[1].endsWith("\tsecond\t2\tACTION\tmove(b1, table)"));
+
+		lines = tool("--summary", "--grep", "b2", writer.getFiles().get(0)
+				.getPath());
+		assertEquals(Arrays.asList("first\tPERCEPT_DELETED\t5",
+				"second\tPERCEPT_DELETED\t5"), Arrays.asList(lines));
+	}
+
+	private static String[] tool(String... args) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(bytes, true, "UTF-8");
+		TraceTool.run(out, args);
+		String output = new String(bytes.toByteArray(), "UTF-8").trim();
+		return output.isEmpty() ? new String[0] : output.split("\\r?\\n");
+	}
+}
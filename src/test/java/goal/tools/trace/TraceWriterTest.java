@@ -0,0 +1,77 @@
+package goal.tools.trace;
+
+import static goal.tools.trace.TraceRecorderTest.readAll;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import goal.tools.trace.TraceRecord.Kind;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests writing traces with a {@link TraceWriter} and reading them back with a
+ * {@link TraceReader}.
+ */
+public class TraceWriterTest {
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		this.directory = Files.createTempDirectory("traces").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : this.directory.listFiles()) {
+			file.delete();
+		}
+		this.directory.delete();
+	}
+
+	@Test
+	public void testInterning() throws Exception {
+		TraceWriter writer = new TraceWriter(this.directory, "interning", 0);
+		for (int i = 0; i < 100; i++) {
+			writer.write(Kind.ACTION, "someAgent", i, "move(b1, table)");
+		}
+		writer.close();
+		String trace = new String(Files.readAllBytes(writer.getFiles().get(0)
+				.toPath()), "UTF-8");
+		assertEquals(trace.indexOf("someAgent"), trace.lastIndexOf("someAgent"));
+		assertEquals(trace.indexOf("move(b1, table)"),
+				trace.lastIndexOf("move(b1, table)"));
+		assertEquals(100, readAll(writer.getFiles()).size());
+	}
+
+	@Test
+	public void testRotation() throws Exception {
+		TraceWriter writer = new TraceWriter(this.directory, "rotation", 1024);
+		for (int i = 0; i < 1000; i++) {
+			writer.write(Kind.PERCEPT_ADDED, "agent" + (i % 3), i / 3,
+					"on(b" + (i % 10) + ", table)");
+		}
+		writer.close();
+		assertTrue(writer.getFiles().size() > 1);
+		for (File file : writer.getFiles()) {
+			assertTrue(file.getName().startsWith("rotation-"));
+			assertTrue(file.getName().endsWith(TraceWriter.EXTENSION));
+		}
+		List<TraceRecord> records = readAll(writer.getFiles());
+		assertEquals(1000, records.size());
+		for (int i = 0; i < records.size(); i++) {
+			assertEquals("agent" + (i % 3), records.get(i).getAgent());
+			assertEquals(Arrays.asList("on(b" + (i % 10) + ", table)"),
+					records.get(i).getData());
+		}
+		// every file can be read on its own.
+		File last = writer.getFiles().get(writer.getFiles().size() - 1);
+		assertFalse(readAll(Arrays.asList(last)).isEmpty());
+	}
+}